@@ -50,6 +50,9 @@ export class CallLog extends BaseEntityDB {
   @Column({ name: 'device_call_log_id', type: 'varchar', length: 100, nullable: true })
   deviceCallLogId: string | null; // Android CallLog._ID for deduplication
 
+  @Column({ name: 'device_call_type', type: 'int', nullable: true })
+  deviceCallType: number | null; // Android CallLog.Calls.TYPE; callType depends on it and duration
+
   @Index()
   @Column({ name: 'center_name', type: 'varchar', length: 150, nullable: true })
   centerName: string | null; // Denormalized for analytics queries
@@ -0,0 +1,26 @@
+import { MigrationInterface, QueryRunner, TableColumn } from 'typeorm';
+
+export class AddDeviceCallTypeToCallLogs1762600000000 implements MigrationInterface {
+  name = 'AddDeviceCallTypeToCallLogs1762600000000';
+
+  public async up(queryRunner: QueryRunner): Promise<void> {
+    const table = await queryRunner.getTable('call_logs');
+    if (!table?.findColumnByName('device_call_type')) {
+      await queryRunner.addColumn(
+        'call_logs',
+        new TableColumn({
+          name: 'device_call_type',
+          type: 'int',
+          isNullable: true,
+        }),
+      );
+    }
+  }
+
+  public async down(queryRunner: QueryRunner): Promise<void> {
+    const table = await queryRunner.getTable('call_logs');
+    if (table?.findColumnByName('device_call_type')) {
+      await queryRunner.dropColumn('call_logs', 'device_call_type');
+    }
+  }
+}
@@ -5,7 +5,9 @@ import { ConfigService } from '@nestjs/config';
 import helmet from 'helmet';
 import * as compression from 'compression';
 import * as cookieParser from 'cookie-parser';
+import { raw } from 'express';
 import { AppModule } from './app.module';
+import { CALL_BATCH_CONTENT_TYPE } from './modules/calls/call-batch.codec';
 
 async function bootstrap() {
   const app = await NestFactory.create(AppModule);
@@ -66,6 +68,9 @@ async function bootstrap() {
   // Global prefix
   app.setGlobalPrefix('api');
 
+  // Compact call batches from the Android app arrive as raw gzipped bytes
+  app.use('/api/calls/batch-sync-compact', raw({ type: CALL_BATCH_CONTENT_TYPE, limit: '2mb' }));
+
   // Swagger documentation
   const config = new DocumentBuilder()
     .setTitle('Edforce API')
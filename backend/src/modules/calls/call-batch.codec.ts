@@ -0,0 +1,117 @@
+import { gunzipSync } from 'zlib';
+
+// Compact call batch uploaded by the Android app (telephony-core CallBatchEncoder).
+//
+// Layout before gzip (varints are unsigned LEB128, zigzag values are signed varints):
+//   magic    'E' 'C' 'B' version(1)
+//   rows     varint
+//   numbers  varint count, then per number: varint byte length + UTF-8 bytes
+//   per row:
+//     date      zigzag  epoch ms minus the previous row's (first row: minus 0)
+//     duration  varint  seconds
+//     type      1 byte  Android CallLog.Calls.TYPE
+//     number    varint  1-based index into numbers, 0 when the row has none
+//     id        zigzag  device call log _ID minus the previous row's
+
+export const CALL_BATCH_CONTENT_TYPE = 'application/x-call-batch';
+
+const MAGIC = [0x45, 0x43, 0x42]; // "ECB"
+const VERSION = 1;
+// Same limits as CallBatchEncoder, which splits longer windows into several batches.
+// A batch is at most 1 MiB before gzip, under the 2mb raw body limit in main.ts.
+const MAX_ROWS = 20000;
+const MAX_NUMBER_BYTES = 256;
+// Bound on the inflated size, to refuse gzip bombs; twice the encoder's 1 MiB
+const MAX_INFLATED_BYTES = 2 * 1024 * 1024;
+
+export interface DecodedCall {
+  id: number;
+  number: string | null;
+  type: number;
+  date: number; // epoch ms
+  duration: number; // seconds
+}
+
+class Reader {
+  private pos = 0;
+  constructor(private readonly buf: Buffer) {}
+
+  byte(): number {
+    if (this.pos >= this.buf.length) throw new Error('Truncated call batch');
+    return this.buf[this.pos++];
+  }
+
+  // Values stay below 2^53, so plain Number arithmetic is exact
+  varint(): number {
+    let value = 0;
+    let scale = 1;
+    for (let i = 0; i < 8; i++) {
+      const b = this.byte();
+      value += (b & 0x7f) * scale;
+      if ((b & 0x80) === 0) return value;
+      scale *= 128;
+    }
+    throw new Error('Malformed varint');
+  }
+
+  zigzag(): number {
+    const raw = this.varint();
+    return raw % 2 === 0 ? raw / 2 : -(raw + 1) / 2;
+  }
+
+  utf8(length: number): string {
+    if (this.pos + length > this.buf.length) throw new Error('Truncated call batch');
+    const value = this.buf.toString('utf8', this.pos, this.pos + length);
+    this.pos += length;
+    return value;
+  }
+}
+
+export function decodeCallBatch(body: Buffer): DecodedCall[] {
+  const r = new Reader(gunzipSync(body, { maxOutputLength: MAX_INFLATED_BYTES }));
+  for (const m of MAGIC) {
+    if (r.byte() !== m) throw new Error('Not a call batch');
+  }
+  const version = r.byte();
+  if (version !== VERSION) throw new Error(`Unsupported call batch version ${version}`);
+
+  const rowCount = r.varint();
+  const numberCount = r.varint();
+  if (rowCount > MAX_ROWS || numberCount > MAX_ROWS) throw new Error('Call batch too large');
+
+  const numbers: string[] = [];
+  for (let i = 0; i < numberCount; i++) {
+    const length = r.varint();
+    if (length > MAX_NUMBER_BYTES) throw new Error('Corrupt call batch');
+    numbers.push(r.utf8(length));
+  }
+
+  const calls: DecodedCall[] = [];
+  let date = 0;
+  let id = 0;
+  for (let i = 0; i < rowCount; i++) {
+    date += r.zigzag();
+    const duration = r.varint();
+    const type = r.byte();
+    const numberRef = r.varint();
+    id += r.zigzag();
+    if (numberRef > numberCount) throw new Error('Number index out of range');
+    calls.push({ id, number: numberRef === 0 ? null : numbers[numberRef - 1], type, date, duration });
+  }
+  return calls;
+}
+
+// Same mapping as the app's callLogSyncService mapCallLogTypeToCallType
+export function toBackendCallType(type: number, duration: number): 'outgoing' | 'incoming' | 'missed' {
+  switch (type) {
+    case 1:
+      return 'incoming';
+    case 2:
+      return 'outgoing';
+    case 3:
+    case 5:
+      return 'missed';
+    default:
+      return duration > 0 ? 'incoming' : 'missed';
+  }
+}
@@ -1,4 +1,4 @@
-import { Body, Controller, Get, Param, Patch, Post, Query, Req, UseGuards } from '@nestjs/common';
+import { BadRequestException, Body, Controller, Get, Param, Patch, Post, Query, Req, UseGuards } from '@nestjs/common';
 import { AuthGuard } from '@nestjs/passport';
 import { CallsService } from './calls.service';
 
@@ -16,12 +16,23 @@ export class CallsController {
     endTime?: Date | string;
     duration?: number;
     deviceCallLogId?: string;
+    deviceCallType?: number;
     disposition?: string;
     notes?: string;
   }) {
     return this.svc.logCall(req.user, body);
   }
 
+  @Get('lead-index')
+  getLeadIndex(@Req() req: any, @Query('since') since?: string) {
+    return this.svc.getLeadPhoneIndex(req.user, since ? Number(since) : undefined);
+  }
+
+  @Get('caller-ids')
+  getCallerIds(@Req() req: any, @Query('limit') limit?: string) {
+    return this.svc.getCallerIds(req.user, Number(limit) || undefined);
+  }
+
   @Get('lead/:leadId')
   getCallsForLead(@Req() req: any, @Param('leadId') leadId: string) {
     return this.svc.getCallLogsForLead(req.user, leadId);
@@ -50,4 +61,22 @@ export class CallsController {
   batchSync(@Req() req: any, @Body() body: { calls: Array<any> }) {
     return this.svc.batchSync(req.user, body.calls || []);
   }
+
+  // Inserts, field-level updates and deletes from the device call log change feed
+  @Post('device-changes')
+  applyDeviceChanges(@Req() req: any, @Body() body: { changes: Array<any> }) {
+    if (!Array.isArray(body?.changes)) {
+      throw new BadRequestException('Expected a changes array');
+    }
+    return this.svc.applyDeviceChanges(req.user, body.changes);
+  }
+
+  // Body is a raw application/x-call-batch buffer, parsed by express.raw in main.ts
+  @Post('batch-sync-compact')
+  batchSyncCompact(@Req() req: any) {
+    if (!Buffer.isBuffer(req.body)) {
+      throw new BadRequestException('Expected an application/x-call-batch body');
+    }
+    return this.svc.batchSyncCompact(req.user, req.body);
+  }
 }
@@ -1,11 +1,12 @@
 import { BadRequestException, ForbiddenException, Injectable, Inject, forwardRef } from '@nestjs/common';
 import { InjectRepository } from '@nestjs/typeorm';
-import { Repository } from 'typeorm';
+import { Brackets, Repository, SelectQueryBuilder } from 'typeorm';
 import { CallLog } from '../../database/entities/call-log.entity';
 import { Lead } from '../../database/entities/lead.entity';
 import { User } from '../../database/entities/user.entity';
 import { normalizeRole } from '../../common/role.util';
 import { DataSyncGateway } from '../../gateways/data-sync.gateway';
+import { decodeCallBatch, toBackendCallType } from './call-batch.codec';
 
 @Injectable()
 export class CallsService {
@@ -78,6 +79,7 @@ export class CallsService {
     endTime?: Date | string;
     duration?: number;
     deviceCallLogId?: string;
+    deviceCallType?: number;
     disposition?: string;
     notes?: string;
   }) {
@@ -192,6 +194,7 @@ export class CallsService {
       endTime: dto.endTime ? new Date(dto.endTime) : null,
       duration: dto.duration || 0,
       deviceCallLogId: dto.deviceCallLogId || null,
+      deviceCallType: typeof dto.deviceCallType === 'number' ? dto.deviceCallType : null,
       disposition: dto.disposition || null,
       notes: dto.notes || null,
       centerName: user?.centerName || null,
@@ -229,6 +232,135 @@ export class CallsService {
     return normalized;
   }
 
+  // Limits a lead query to the leads the user may see: counselors get their
+  // assigned leads, center managers their center's leads, admins everything.
+  private scopeLeadsToUser(qb: SelectQueryBuilder<Lead>, user: any) {
+    const role = normalizeRole(user?.role, user?.isAdmin);
+    if (role === 'counselor') {
+      qb.andWhere('lead.assigned_user_id = :uid', { uid: user?.id });
+    } else if (role === 'center-manager') {
+      qb.innerJoin(User, 'owner', 'owner.id = lead.assigned_user_id')
+        .andWhere('owner.center_name = :center', { center: user?.centerName || null });
+    }
+    return qb;
+  }
+
+  private collectNumbers(
+    rows: Array<{ mobile?: string; alternate?: string; whatsapp?: string }>,
+    target: Set<string>,
+  ) {
+    for (const row of rows) {
+      for (const phone of [row.mobile, row.alternate, row.whatsapp]) {
+        if (!phone) continue;
+        const normalized = this.normalizePhoneNumber(phone);
+        if (normalized.length >= 7) target.add(normalized);
+      }
+    }
+  }
+
+  // Normalized phone numbers of the live leads the user can see, for the
+  // device-side call log filter. With `since` (epoch ms) only the changes after it
+  // are returned: numbers of visible leads modified since in `added`, and in
+  // `removed` the numbers of leads deleted or moved out of the user's scope that
+  // no visible live lead still has. The device sends the returned serverTime
+  // back as the next `since`.
+  async getLeadPhoneIndex(user: any, since?: number) {
+    // Taken before the query so edits made while it runs show up in the next delta
+    const serverTime = Date.now();
+    const full = !since || !Number.isFinite(since) || since <= 0;
+    const phoneColumns = [
+      'lead.mobile_number AS mobile',
+      'lead.alternate_number AS alternate',
+      'lead.whatsapp_number AS whatsapp',
+    ];
+
+    const visible = this.scopeLeadsToUser(
+      this.leadRepo.createQueryBuilder('lead')
+        .select(phoneColumns)
+        .where('lead.deleted = :del', { del: false }),
+      user,
+    );
+    if (!full) {
+      visible.andWhere('lead.date_modified > :since', { since: new Date(since as number) });
+    }
+    const added = new Set<string>();
+    this.collectNumbers(await visible.getRawMany(), added);
+    if (full) {
+      return { full, serverTime, added: [...added], removed: [] };
+    }
+
+    // Every lead modified since, visible or not, may have taken a number out of the index
+    const changed = new Set<string>();
+    this.collectNumbers(
+      await this.leadRepo.createQueryBuilder('lead')
+        .select(phoneColumns)
+        .where('lead.date_modified > :since', { since: new Date(since as number) })
+        .getRawMany(),
+      changed,
+    );
+    for (const phone of added) changed.delete(phone);
+
+    // An unchanged visible lead with the same number keeps it in the index
+    const candidates = [...changed];
+    const kept = new Set<string>();
+    const normalizedColumn = (column: string) => `RIGHT(regexp_replace(COALESCE(${column}, ''), '\\D', '', 'g'), 10)`;
+    for (let i = 0; i < candidates.length; i += 1000) {
+      const chunk = candidates.slice(i, i + 1000);
+      const stillUsed = this.scopeLeadsToUser(
+        this.leadRepo.createQueryBuilder('lead')
+          .select(phoneColumns)
+          .where('lead.deleted = :del', { del: false })
+          .andWhere(new Brackets((or) => {
+            for (const column of ['lead.mobile_number', 'lead.alternate_number', 'lead.whatsapp_number']) {
+              or.orWhere(`${normalizedColumn(column)} IN (:...numbers)`, { numbers: chunk });
+            }
+          })),
+        user,
+      );
+      this.collectNumbers(await stillUsed.getRawMany(), kept);
+    }
+    const removed = candidates.filter((phone) => !kept.has(phone));
+
+    return { full, serverTime, added: [...added], removed };
+  }
+
+  // Lead names for the device's caller-ID cache, so an incoming call from a lead can
+  // be announced while it is still ringing. Scoped like lead access elsewhere.
+  async getCallerIds(user: any, limit = 5000) {
+    const qb = this.scopeLeadsToUser(
+      this.leadRepo.createQueryBuilder('lead')
+        .select([
+          'lead.id AS id',
+          'lead.first_name AS "firstName"',
+          'lead.last_name AS "lastName"',
+          'lead.mobile_number AS mobile',
+          'lead.alternate_number AS alternate',
+          'lead.whatsapp_number AS whatsapp',
+        ])
+        .where('lead.deleted = :del', { del: false })
+        .orderBy('lead.date_modified', 'DESC')
+        .limit(Math.min(Math.max(limit, 1), 20000)),
+      user,
+    );
+
+    const rows: Array<{ id: string; firstName?: string; lastName?: string; mobile?: string; alternate?: string; whatsapp?: string }> =
+      await qb.getRawMany();
+
+    const entries: Array<{ number: string; leadId: string; name: string }> = [];
+    for (const row of rows) {
+      const name = [row.firstName, row.lastName].filter(Boolean).join(' ');
+      const seen = new Set<string>();
+      for (const phone of [row.mobile, row.alternate, row.whatsapp]) {
+        if (!phone) continue;
+        const normalized = this.normalizePhoneNumber(phone);
+        if (normalized.length < 7 || seen.has(normalized)) continue;
+        seen.add(normalized);
+        entries.push({ number: normalized, leadId: row.id, name });
+      }
+    }
+    return { entries };
+  }
+
   // Get call logs for a lead
   async getCallLogsForLead(user: any, leadId: string) {
     const lead = await this.leadRepo.findOne({ where: { id: leadId, deleted: false } as any });
@@ -449,4 +581,109 @@ export class CallsService {
     }
     return results;
   }
+
+  // Compact binary variant of batchSync, see call-batch.codec.ts. Returns counts
+  // only: calls from non-lead numbers are skipped, as in logCall.
+  async batchSyncCompact(user: any, body: Buffer) {
+    let calls;
+    try {
+      calls = decodeCallBatch(body);
+    } catch (e) {
+      throw new BadRequestException(`Invalid call batch: ${(e as any).message}`);
+    }
+
+    const result = { total: calls.length, synced: 0, skipped: 0, failed: 0 };
+    for (const c of calls) {
+      if (!c.number) {
+        result.skipped++;
+        continue;
+      }
+      try {
+        const logged = await this.logCall(user, {
+          phoneNumber: c.number,
+          callType: toBackendCallType(c.type, c.duration),
+          startTime: new Date(c.date),
+          endTime: new Date(c.date + c.duration * 1000),
+          duration: c.duration,
+          deviceCallLogId: String(c.id),
+          deviceCallType: c.type,
+        });
+        if (logged) result.synced++;
+        else result.skipped++;
+      } catch {
+        result.failed++;
+      }
+    }
+    return result;
+  }
+
+  // Applies the device call log change feed. Rows are matched on deviceCallLogId
+  // and the signed-in user; updates carry only the changed fields and deletes
+  // soft-delete. Ids the server never stored are skipped, so replaying a batch
+  // after a lost response is harmless.
+  async applyDeviceChanges(user: any, changes: Array<{
+    op: 'insert' | 'update' | 'delete';
+    id: number;
+    duration?: number;
+    date?: number;
+    type?: number;
+    number?: string;
+  }>) {
+    const result = { inserted: 0, updated: 0, deleted: 0, skipped: 0, failed: 0 };
+    for (const c of changes) {
+      try {
+        if (c.op === 'insert') {
+          if (!c.number || typeof c.date !== 'number') {
+            result.skipped++;
+            continue;
+          }
+          const duration = c.duration || 0;
+          const logged = await this.logCall(user, {
+            phoneNumber: c.number,
+            callType: toBackendCallType(c.type ?? 0, duration),
+            startTime: new Date(c.date),
+            endTime: new Date(c.date + duration * 1000),
+            duration,
+            deviceCallLogId: String(c.id),
+            deviceCallType: c.type,
+          });
+          if (logged) result.inserted++;
+          else result.skipped++;
+          continue;
+        }
+
+        const existing = await this.callRepo.findOne({
+          where: { deviceCallLogId: String(c.id), userId: user?.id, deleted: false } as any,
+        });
+        if (!existing) {
+          result.skipped++;
+          continue;
+        }
+
+        if (c.op === 'delete') {
+          existing.deleted = true;
+          await this.callRepo.save(existing);
+          result.deleted++;
+          continue;
+        }
+
+        if (typeof c.date === 'number') existing.startTime = new Date(c.date);
+        if (typeof c.duration === 'number') existing.duration = c.duration;
+        if (typeof c.number === 'string' && c.number) existing.phoneNumber = c.number;
+        if (typeof c.type === 'number') existing.deviceCallType = c.type;
+        // The direction of some OEM types follows from the duration, so a
+        // duration fix can change it too. Rows logged without the device type
+        // keep theirs unless the type itself changes.
+        if ((typeof c.type === 'number' || typeof c.duration === 'number') && typeof existing.deviceCallType === 'number') {
+          existing.callType = toBackendCallType(existing.deviceCallType, existing.duration);
+        }
+        existing.endTime = new Date(existing.startTime.getTime() + (existing.duration || 0) * 1000);
+        await this.callRepo.save(existing);
+        result.updated++;
+      } catch {
+        result.failed++;
+      }
+    }
+    return result;
+  }
 }
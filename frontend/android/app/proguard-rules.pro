@@ -12,20 +12,33 @@
 #   public *;
 #}
 
-# Uncomment this to preserve the line number information for
-# debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
+# Line numbers for stack traces from the field; map them back with the
+# build/outputs/mapping/release/mapping.txt of the same build.
+-keepattributes SourceFile,LineNumberTable
+-renamesourcefileattribute SourceFile
 
-# If you keep the line number information, uncomment this to
-# hide the original source file name.
-#-renamesourcefileattribute SourceFile
+# Capacitor finds plugins by their @CapacitorPlugin annotation (including the
+# class names listed in capacitor.plugins.json), creates them through the no-arg
+# constructor and calls @PluginMethod, @PermissionCallback and @ActivityCallback
+# methods reflectively by name. Everything else in the plugin classes, and all
+# of com.edforce.telephony, is left to R8.
+-keepattributes *Annotation*,Signature,InnerClasses,EnclosingMethod
+-keep @com.getcapacitor.annotation.CapacitorPlugin public class * extends com.getcapacitor.Plugin {
+    public <init>();
+    @com.getcapacitor.PluginMethod public <methods>;
+    @com.getcapacitor.annotation.PermissionCallback <methods>;
+    @com.getcapacitor.annotation.ActivityCallback <methods>;
+}
+-keep class com.getcapacitor.** { *; }
+# Cordova plugins bridged by capacitor-cordova-android-plugins are created by class name
+-keep class org.apache.cordova.** { *; }
+-keep public class * extends org.apache.cordova.CordovaPlugin
 
-# Keep Capacitor plugins
--keep class com.cccrm.app.plugins.** { *; }
--keep @com.getcapacitor.annotation.CapacitorPlugin class * {
-    @com.getcapacitor.PluginMethod <methods>;
+# Strip debug and verbose logging from minified builds
+-assumenosideeffects class android.util.Log {
+    public static int v(...);
+    public static int d(...);
 }
--keepclassmembers class * {
-    @com.getcapacitor.annotation.CapacitorPlugin *;
+-assumenosideeffects class com.edforce.app.plugins.AppLog {
+    public static void d(...);
 }
--keep class com.getcapacitor.** { *; }
@@ -0,0 +1,158 @@
+package com.edforce.app;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.util.Log;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.FileProvider;
+import com.edforce.app.plugins.CallLogQueries;
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.LeadIndexStore;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.telephony.CallLogExportWriter;
+import com.edforce.telephony.LeadNumberIndex;
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Exports call log windows to NDJSON or CSV files in the app cache, for audits
+ * and uploads too large for the bridge. Rows go from the cursor straight to
+ * the file through {@link CallLogExportWriter}; the web app only receives the
+ * file's location and reads or uploads it from there.
+ *
+ * Exports run one at a time on their own thread so a long window does not hold
+ * up other plugin calls. Files older than a day are removed on the next export.
+ */
+@CapacitorPlugin(name = "CallLogExport")
+public class CallLogExportPlugin extends Plugin {
+    private static final String TAG = "CallLogExportPlugin";
+    private static final String EXPORT_DIR = "call-log-exports";
+    private static final long EXPORT_TTL_MS = 24L * 60 * 60 * 1000;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * {daysBack = 90, format = "ndjson" | "csv", leadsOnly = false}. Resolves
+     * with {path, url, uri, format, mimeType, rows, bytes}: url is readable
+     * with fetch() from the page, uri is a content:// URI to share the file.
+     */
+    @PluginMethod
+    public void exportCallLogs(PluginCall call) {
+        int format = CallLogExportWriter.formatOf(call.getString("format", "ndjson"));
+        if (format < 0) {
+            call.reject("format must be ndjson or csv");
+            return;
+        }
+        if (ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+            call.reject("READ_CALL_LOG permission not granted");
+            return;
+        }
+        int daysBack = call.getInt("daysBack", 90);
+        LeadNumberIndex leadFilter = call.getBoolean("leadsOnly", false)
+                ? LeadIndexStore.getInstance(getContext()).syncFilter()
+                : null;
+        executor.execute(() -> export(call, daysBack, format, leadFilter));
+    }
+
+    /**
+     * Deletes an export once the web app is done with it: {path}.
+     */
+    @PluginMethod
+    public void deleteExport(PluginCall call) {
+        String path = call.getString("path");
+        File dir = exportDir(getContext());
+        File file = path != null ? new File(path) : null;
+        if (file == null || !dir.equals(file.getParentFile())) {
+            call.reject("Not an export: " + path);
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("deleted", file.delete());
+        call.resolve(result);
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        executor.shutdown();
+        super.handleOnDestroy();
+    }
+
+    private void export(PluginCall call, int daysBack, int format, LeadNumberIndex leadFilter) {
+        long started = Diagnostics.start();
+        boolean traced = Tracing.begin("CallLogExport.exportCallLogs");
+        File dir = exportDir(getContext());
+        String ext = CallLogExportWriter.extensionOf(format);
+        File file = new File(dir, "call-logs-" + System.currentTimeMillis() + "." + ext);
+        File partial = new File(dir, file.getName() + ".part");
+        try {
+            removeExpired(dir);
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            long cutoff = System.currentTimeMillis() - (long) daysBack * 24 * 60 * 60 * 1000;
+            int rows;
+            long bytes;
+            try (FileOutputStream out = new FileOutputStream(partial);
+                 FileChannel channel = out.getChannel()) {
+                CallLogExportWriter writer = new CallLogExportWriter(channel, format);
+                CallLogQueries.forEachSince(getContext().getContentResolver(), cutoff,
+                        CallLogQueries.leadsOnly(leadFilter, writer::writeCallLog));
+                rows = writer.finish();
+                bytes = writer.getBytesWritten();
+                channel.force(false);
+            }
+            if (!partial.renameTo(file)) {
+                throw new IOException("Cannot rename " + partial);
+            }
+            Tracing.counter("export.bytes", bytes);
+            Log.d(TAG, "Exported " + rows + " call logs from last " + daysBack + " days, " + bytes + " bytes");
+
+            JSObject result = new JSObject();
+            result.put("path", file.getAbsolutePath());
+            result.put("url", getBridge().getLocalUrl() + Bridge.CAPACITOR_FILE_START + file.getAbsolutePath());
+            Uri uri = FileProvider.getUriForFile(getContext(), getContext().getPackageName() + ".fileprovider", file);
+            result.put("uri", uri != null ? uri.toString() : null);
+            result.put("format", ext);
+            result.put("mimeType", CallLogExportWriter.mimeTypeOf(format));
+            result.put("rows", rows);
+            result.put("bytes", bytes);
+            call.resolve(result);
+        } catch (Exception e) {
+            partial.delete();
+            Log.e(TAG, "Failed to export call logs: " + e.getMessage());
+            call.reject("Failed to export call logs: " + e.getMessage());
+        } finally {
+            Tracing.end(traced);
+            Diagnostics.end("CallLogExport.exportCallLogs", started);
+        }
+    }
+
+    private static File exportDir(Context context) {
+        return new File(context.getCacheDir(), EXPORT_DIR);
+    }
+
+    private static void removeExpired(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            if (now - file.lastModified() > EXPORT_TTL_MS || file.getName().endsWith(".part")) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.edforce.app;
 
 import android.Manifest;
+import android.content.ContentResolver;
 import android.content.pm.PackageManager;
+import android.util.Base64;
 import android.util.Log;
 import androidx.core.app.ActivityCompat;
 import com.getcapacitor.Plugin;
@@ -10,6 +12,14 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.JSArray;
+import com.edforce.app.plugins.CallLogQueries;
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.LeadIndexStore;
+import com.edforce.app.plugins.MemoryPressure;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.telephony.CallBatchEncoder;
+import com.edforce.telephony.ChunkedJsonArrayWriter;
+import com.edforce.telephony.LeadNumberIndex;
 import org.json.JSONException;
 import org.json.JSONObject;
 import java.util.ArrayList;
@@ -18,63 +28,149 @@ import java.util.List;
 @CapacitorPlugin(name = "CallLogSync")
 public class CallLogSyncPlugin extends Plugin {
     private static final String TAG = "CallLogSyncPlugin";
+    static final String CHUNK_EVENT = "callLogsChunk";
+    private static final int PRESSURE_CHUNK_CHARS = 8 * 1024;
 
     @PluginMethod()
     public void getCallLogs(PluginCall call) {
-        int daysBack = call.getInt("daysBack", 7);
+        Diagnostics.timed("CallLogSync.getCallLogs", () -> {
+            int daysBack = call.getInt("daysBack", 7);
         
-        if (ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
-            Log.w(TAG, "READ_CALL_LOG permission not granted");
-            JSObject result = new JSObject();
-            result.put("callLogs", new JSArray());
-            result.put("error", "READ_CALL_LOG permission not granted");
-            call.resolve(result);
-            return;
-        }
+            if (ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+                Log.w(TAG, "READ_CALL_LOG permission not granted");
+                JSObject result = new JSObject();
+                result.put("callLogs", new JSArray());
+                result.put("error", "READ_CALL_LOG permission not granted");
+                call.resolve(result);
+                return;
+            }
 
-        try {
-            long cutoff = System.currentTimeMillis() - (long) daysBack * 24 * 60 * 60 * 1000;
-            android.database.Cursor cursor = getContext().getContentResolver().query(
-                    android.provider.CallLog.Calls.CONTENT_URI,
-                    new String[]{
-                            android.provider.CallLog.Calls._ID,
-                            android.provider.CallLog.Calls.DURATION,
-                            android.provider.CallLog.Calls.DATE,
-                            android.provider.CallLog.Calls.TYPE,
-                            android.provider.CallLog.Calls.NUMBER
-                    },
-                    android.provider.CallLog.Calls.DATE + ">?",
-                    new String[]{String.valueOf(cutoff)},
-                    android.provider.CallLog.Calls.DATE + " DESC"
-            );
+            try {
+                long cutoff = System.currentTimeMillis() - (long) daysBack * 24 * 60 * 60 * 1000;
+                // Non-lead calls are dropped natively unless the caller asks for everything
+                LeadNumberIndex leadFilter = call.getBoolean("leadsOnly", true)
+                        ? LeadIndexStore.getInstance(getContext()).syncFilter()
+                        : null;
 
-            JSArray callLogs = new JSArray();
+                boolean streamed = call.getBoolean("stream", false);
+                if (!streamed && !MemoryPressure.allowsBulkWork()) {
+                    // Whole-window results are built in memory; streaming still works, in smaller chunks
+                    Log.w(TAG, "Deferring getCallLogs under memory pressure");
+                    JSObject result = new JSObject();
+                    result.put("callLogs", new JSArray());
+                    result.put("error", "Deferred under memory pressure");
+                    result.put("deferred", true);
+                    call.resolve(result);
+                    return;
+                }
+
+                if ("batch".equals(call.getString("format"))) {
+                    // Compact gzipped encoding for POST /calls/batch-sync-compact, base64 for the bridge,
+                    // split into batches each under the upload limits
+                    List<CallBatchEncoder> batches = encodeCallLogs(getContext().getContentResolver(), cutoff, leadFilter);
+                    JSArray encoded = new JSArray();
+                    int total = 0;
+                    long bytes = 0;
+                    for (CallBatchEncoder batch : batches) {
+                        byte[] body = batch.toByteArray();
+                        String text = Base64.encodeToString(body, Base64.NO_WRAP);
+                        Diagnostics.count(Diagnostics.BYTES_BRIDGED, text.length());
+                        encoded.put(text);
+                        total += batch.getRowCount();
+                        bytes += body.length;
+                    }
+                    Tracing.counter("bridge.batchBytes", bytes);
+                    Log.d(TAG, "Encoded " + total + " call logs into " + batches.size() + " batches of " + bytes + " bytes");
+
+                    JSObject result = new JSObject();
+                    result.put("batches", encoded);
+                    result.put("total", total);
+                    call.resolve(result);
+                    return;
+                }
 
-            if (cursor != null) {
-                while (cursor.moveToNext()) {
-                    try {
-                        JSObject callLog = new JSObject();
-                        callLog.put("id", cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls._ID)));
-                        callLog.put("duration", cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.DURATION)));
-                        callLog.put("date", cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls.DATE)));
-                        callLog.put("type", cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.TYPE)));
-                        callLog.put("number", cursor.getString(cursor.getColumnIndex(android.provider.CallLog.Calls.NUMBER)));
-                        callLogs.put(callLog);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to create call log JSON: " + e.getMessage());
+                if (streamed) {
+                    // Rows arrive as bounded callLogsChunk window events instead of one large result
+                    int chunkChars = call.getInt("chunkSize", ChunkedJsonArrayWriter.DEFAULT_CHUNK_CHARS);
+                    if (MemoryPressure.level() >= MemoryPressure.LOW) {
+                        chunkChars = Math.min(chunkChars, PRESSURE_CHUNK_CHARS);
                     }
+                    CallLogsStream stream = new CallLogsStream(getContext().getContentResolver(),
+                            (eventName, detailJson) -> WebViewEvents.post(getBridge(), eventName, detailJson),
+                            CHUNK_EVENT, chunkChars, leadFilter);
+                    int total = stream.streamSince(cutoff);
+                    Log.d(TAG, "Streamed " + total + " call logs from last " + daysBack + " days");
+
+                    JSObject result = new JSObject();
+                    result.put("total", total);
+                    call.resolve(result);
+                    return;
                 }
-                cursor.close();
-            }
 
-            Log.d(TAG, "Found " + callLogs.length() + " call logs from last " + daysBack + " days");
+                JSArray callLogs = readCallLogs(getContext().getContentResolver(), cutoff, leadFilter);
+
+                Log.d(TAG, "Found " + callLogs.length() + " call logs from last " + daysBack + " days");
             
-            JSObject result = new JSObject();
-            result.put("callLogs", callLogs);
-            call.resolve(result);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to query call logs: " + e.getMessage());
-            call.reject("Failed to query call logs: " + e.getMessage());
+                JSObject result = new JSObject();
+                result.put("callLogs", callLogs);
+                call.resolve(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Failed to query call logs: " + e.getMessage());
+                call.reject("Failed to query call logs: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads every call newer than the cutoff into the getCallLogs response shape.
+     * A non-null leadFilter keeps only calls with known leads.
+     */
+    static JSArray readCallLogs(ContentResolver resolver, long cutoff, LeadNumberIndex leadFilter) {
+        boolean traced = Tracing.begin("CallLogSync.readCallLogs");
+        try {
+            JSArray callLogs = new JSArray();
+            CallLogQueries.forEachSince(resolver, cutoff, CallLogQueries.leadsOnly(leadFilter, (id, duration, date, type, number) -> {
+                try {
+                    JSObject callLog = new JSObject();
+                    callLog.put("id", id);
+                    callLog.put("duration", duration);
+                    callLog.put("date", date);
+                    callLog.put("type", type);
+                    callLog.put("number", number);
+                    callLogs.put(callLog);
+                } catch (Exception e) {
+                    Log.e(TAG, "Failed to create call log JSON: " + e.getMessage());
+                }
+            }));
+            return callLogs;
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Reads every call newer than the cutoff into compact upload batches, a new
+     * one whenever the current one is full. A non-null leadFilter keeps only
+     * calls with known leads.
+     *
+     * @return at least one batch, possibly empty
+     */
+    static List<CallBatchEncoder> encodeCallLogs(ContentResolver resolver, long cutoff, LeadNumberIndex leadFilter) {
+        boolean traced = Tracing.begin("CallLogSync.encodeCallLogs");
+        try {
+            List<CallBatchEncoder> batches = new ArrayList<>();
+            batches.add(new CallBatchEncoder());
+            CallLogQueries.forEachSince(resolver, cutoff, CallLogQueries.leadsOnly(leadFilter, (id, duration, date, type, number) -> {
+                CallBatchEncoder batch = batches.get(batches.size() - 1);
+                if (batch.isFull()) {
+                    batch = new CallBatchEncoder();
+                    batches.add(batch);
+                }
+                batch.add(id, duration, date, type, number);
+            }));
+            return batches;
+        } finally {
+            Tracing.end(traced);
         }
     }
 }
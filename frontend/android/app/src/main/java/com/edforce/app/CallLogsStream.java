@@ -0,0 +1,77 @@
+package com.edforce.app;
+
+import android.content.ContentResolver;
+import com.edforce.app.plugins.CallLogQueries;
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.telephony.ChunkedJsonArrayWriter;
+import com.edforce.telephony.LeadNumberIndex;
+
+/**
+ * Streams call log rows from the cursor to the web app as a sequence of events,
+ * each carrying one bounded chunk:
+ * {"callLogs":[...],"chunk":0,"last":false}
+ *
+ * Only one chunk is ever held in memory, so large windows no longer build the
+ * whole list (and its JSON copy) on the heap. An empty window still produces a
+ * single event with an empty array and last=true. With a lead index, rows from
+ * numbers that are not leads are dropped before serialization.
+ */
+public class CallLogsStream {
+    private final ContentResolver resolver;
+    private final WebEventSink sink;
+    private final String eventName;
+    private final int chunkChars;
+    private final LeadNumberIndex leadFilter;
+
+    public CallLogsStream(ContentResolver resolver, WebEventSink sink, String eventName, int chunkChars) {
+        this(resolver, sink, eventName, chunkChars, null);
+    }
+
+    /**
+     * @param leadFilter numbers to stream, or null to stream every call
+     */
+    public CallLogsStream(ContentResolver resolver, WebEventSink sink, String eventName, int chunkChars,
+                          LeadNumberIndex leadFilter) {
+        this.resolver = resolver;
+        this.sink = sink;
+        this.eventName = eventName;
+        this.chunkChars = chunkChars;
+        this.leadFilter = leadFilter;
+    }
+
+    /**
+     * @return number of rows streamed
+     */
+    public int streamSince(long cutoff) {
+        boolean traced = Tracing.begin("CallLogsStream.streamSince");
+        try {
+            ChunkedJsonArrayWriter writer = newWriter();
+            CallLogQueries.forEachSince(resolver, cutoff, CallLogQueries.leadsOnly(leadFilter, writer::writeCallLog));
+            return writer.finish();
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Sends a single empty, final chunk, e.g. when the query cannot run.
+     */
+    public void streamEmpty() {
+        newWriter().finish();
+    }
+
+    private ChunkedJsonArrayWriter newWriter() {
+        StringBuilder detail = new StringBuilder(chunkChars + 320);
+        return new ChunkedJsonArrayWriter(chunkChars, (arrayJson, rows, index, last) -> {
+            Diagnostics.count(Diagnostics.ROWS_DISPATCHED, rows);
+            Tracing.counter("stream.chunkRows", rows);
+            detail.setLength(0);
+            detail.append("{\"callLogs\":").append(arrayJson)
+                    .append(",\"chunk\":").append(index)
+                    .append(",\"last\":").append(last)
+                    .append('}');
+            sink.post(eventName, detail);
+        });
+    }
+}
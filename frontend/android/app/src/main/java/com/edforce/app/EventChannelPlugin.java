@@ -0,0 +1,57 @@
+package com.edforce.app;
+
+import android.util.Log;
+import android.webkit.WebView;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.WebViewListener;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Lets the page open the {@link WebEventChannel} once its message listener is
+ * installed. The channel is dropped whenever a new page starts loading.
+ */
+@CapacitorPlugin(name = "EventChannel")
+public class EventChannelPlugin extends Plugin {
+    private static final String TAG = "EventChannelPlugin";
+
+    @Override
+    public void load() {
+        super.load();
+        getBridge().addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageStarted(WebView webView) {
+                WebEventChannel.close();
+            }
+        });
+    }
+
+    @PluginMethod
+    public void connect(PluginCall call) {
+        WebView view = getBridge().getWebView();
+        if (view == null) {
+            call.reject("WebView not ready");
+            return;
+        }
+        view.post(() -> {
+            try {
+                boolean connected = WebEventChannel.open(view);
+                if (!connected) {
+                    // Page origin unknown: events stay on evaluateJavascript
+                    Log.w(TAG, "Not opening event channel: page origin unknown");
+                }
+                JSObject result = new JSObject();
+                result.put("connected", connected);
+                call.resolve(result);
+            } catch (Exception e) {
+                // Old System WebView without message channels: events stay on evaluateJavascript
+                Log.w(TAG, "Could not open event channel: " + e.getMessage());
+                JSObject result = new JSObject();
+                result.put("connected", false);
+                call.resolve(result);
+            }
+        });
+    }
+}
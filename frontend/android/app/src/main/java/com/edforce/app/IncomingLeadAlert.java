@@ -0,0 +1,79 @@
+package com.edforce.app;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+import androidx.core.app.NotificationCompat;
+import com.edforce.telephony.CallerIdCache;
+
+/**
+ * Heads-up notification naming the lead behind a ringing call. Tapping it
+ * opens the app with the lead ID in the launch intent; {@link MainActivity}
+ * hands it to the page as a native-open-lead event, which opens the lead.
+ */
+public class IncomingLeadAlert {
+    private static final String TAG = "IncomingLeadAlert";
+    private static final String CHANNEL_ID = "incoming_lead";
+    private static final int NOTIFICATION_ID = 4201;
+    // A ringing call is answered or missed within a minute
+    private static final long TIMEOUT_MS = 60_000L;
+
+    public static final String EXTRA_LEAD_ID = "leadId";
+
+    private IncomingLeadAlert() {
+    }
+
+    public static void show(Context context, String phoneNumber, CallerIdCache.Entry lead) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            return;
+        }
+        ensureChannel(manager);
+
+        Intent open = new Intent(context, MainActivity.class)
+                .addFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP)
+                .putExtra(EXTRA_LEAD_ID, lead.getLeadId());
+        PendingIntent contentIntent = PendingIntent.getActivity(context, 0, open,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        String name = lead.getName() == null || lead.getName().isEmpty() ? "Lead" : lead.getName();
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(context.getApplicationInfo().icon)
+                .setContentTitle("Incoming call: " + name)
+                .setContentText(phoneNumber)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setCategory(NotificationCompat.CATEGORY_CALL)
+                .setOnlyAlertOnce(true)
+                .setAutoCancel(true)
+                .setTimeoutAfter(TIMEOUT_MS)
+                .setContentIntent(contentIntent);
+        try {
+            manager.notify(NOTIFICATION_ID, builder.build());
+        } catch (SecurityException e) {
+            // POST_NOTIFICATIONS denied on Android 13+; the web event still goes out
+            Log.w(TAG, "Cannot post caller notification: " + e.getMessage());
+        }
+    }
+
+    public static void cancel(Context context) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null) {
+            manager.cancel(NOTIFICATION_ID);
+        }
+    }
+
+    private static void ensureChannel(NotificationManager manager) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O || manager.getNotificationChannel(CHANNEL_ID) != null) {
+            return;
+        }
+        // High importance is what makes the notification peek in as heads-up
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Incoming lead calls",
+                NotificationManager.IMPORTANCE_HIGH);
+        channel.setDescription("Shows which lead is calling while the phone rings");
+        manager.createNotificationChannel(channel);
+    }
+}
@@ -1,9 +1,13 @@
 package com.edforce.app;
 
 import android.Manifest;
+import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.telephony.PhoneStateListener;
 import android.telephony.TelephonyManager;
 import android.util.Log;
@@ -19,80 +23,152 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.List;
+import com.edforce.app.plugins.AppLog;
+import com.edforce.app.plugins.AppLogPlugin;
+import com.edforce.app.plugins.BackfillPlugin;
+import com.edforce.app.plugins.CallLogBackfill;
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.DiagnosticsPlugin;
 import com.edforce.app.plugins.DialerPlugin;
 import com.edforce.app.plugins.WhatsAppChooserPlugin;
+import com.edforce.app.plugins.WhatsAppOutreachPlugin;
 import com.edforce.app.plugins.WhatsAppPlugin;
 import com.edforce.app.plugins.EdforceWhatsAppPlugin;
+import com.edforce.app.plugins.CallChangesPlugin;
+import com.edforce.app.plugins.CallHistoryPlugin;
+import com.edforce.app.plugins.ContactTimePlugin;
+import com.edforce.app.plugins.EngagementPlugin;
 import com.edforce.app.plugins.CallLogPlugin;
+import com.edforce.app.plugins.LeadIndexPlugin;
+import com.edforce.app.plugins.LeadIndexStore;
+import com.edforce.app.plugins.MemoryPressure;
+import com.edforce.app.plugins.CallerIdStore;
+import com.edforce.app.plugins.CallLogQueries;
+import com.edforce.app.plugins.CallMonitorService;
+import com.edforce.app.plugins.CallTracePlugin;
+import com.edforce.app.plugins.CallTraceRecorder;
+import com.edforce.app.plugins.TalkTimePlugin;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.app.plugins.TracingPlugin;
+import com.edforce.telephony.CallerIdCache;
+import com.edforce.telephony.CallRecord;
+import com.edforce.telephony.CallStateMachine;
+import com.edforce.telephony.EventDispatchQueue;
+import com.edforce.telephony.CallPayloads;
+import com.edforce.telephony.ChunkedJsonArrayWriter;
 
 public class MainActivity extends BridgeActivity {
     private static final String TAG = "NativeDialerBridge";
     private static final int PERMISSION_REQUEST_CODE = 1010;
+    private static final String EVENT_CALLER_ID = "native-caller-id";
+    private static final String EVENT_OPEN_LEAD = "native-open-lead";
+    // Gives the page time to register its listeners before the first sync of a launch
+    private static final long STARTUP_SYNC_DELAY_MS = 2000;
     private TelephonyManager telephonyManager;
     private PhoneStateListener phoneStateListener;
-    private long callStartTs = 0L;
-    private boolean inCall = false;
-    private boolean wasRinging = false;
-    private String lastRingingNumber = null;
-    private long lastDispatchEpoch = 0L;
+    private boolean listening;
+    private CallStateMachine callFlow;
+    private final WebEventSink webEvents = this::postWebEvent;
+    // Call results and sync rows share the WebView; live results go first
+    private final NativeEventDispatcher callEvents = new NativeEventDispatcher(webEvents);
+    // Bulk sync rows queue behind live call results and are merged with them by call log id
+    private final WebEventSink syncEvents = callEvents.sink(EventDispatchQueue.BULK);
+    private SyncCoordinator syncs;
+    private boolean startupSyncPosted;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        Tracing.init(this);
 
         // Register our custom plugins
         registerPlugin(CallLogPlugin.class);
+        registerPlugin(CallLogSyncPlugin.class);
         registerPlugin(DialerPlugin.class);
         registerPlugin(WhatsAppChooserPlugin.class);
         registerPlugin(WhatsAppPlugin.class);
         registerPlugin(EdforceWhatsAppPlugin.class);
-
+        registerPlugin(LeadIndexPlugin.class);
+        registerPlugin(TalkTimePlugin.class);
+        registerPlugin(TracingPlugin.class);
+        registerPlugin(AppLogPlugin.class);
+        registerPlugin(EventChannelPlugin.class);
+        registerPlugin(CallHistoryPlugin.class);
+        registerPlugin(WhatsAppOutreachPlugin.class);
+        registerPlugin(BackfillPlugin.class);
+        registerPlugin(CallChangesPlugin.class);
+        registerPlugin(CallTracePlugin.class);
+        registerPlugin(DiagnosticsPlugin.class);
+        registerPlugin(CallLogExportPlugin.class);
+        registerPlugin(EngagementPlugin.class);
+        registerPlugin(SyncPlugin.class);
+        registerPlugin(ContactTimePlugin.class);
+
+        syncs = SyncCoordinator.getInstance(this);
+        syncs.attach(syncEvents);
+        CallMonitorService monitor = CallMonitorService.getInstance(this);
+        callFlow = new CallStateMachine(new DeviceCallHost(), monitor.getDialCorrelator());
+        // A call left open by a killed process is resumed or closed on the listener's first callback
+        callFlow.setJournal(monitor.getSessionJournal());
         telephonyManager = (TelephonyManager) getSystemService(TELEPHONY_SERVICE);
         phoneStateListener = new PhoneStateListener() {
             @Override
             public void onCallStateChanged(int state, String phoneNumber) {
-                switch (state) {
-                    case TelephonyManager.CALL_STATE_RINGING:
-                        // Incoming call detected
-                        wasRinging = true;
-                        lastRingingNumber = phoneNumber;
-                        Log.d(TAG, "Phone RINGING - incoming call from: " + phoneNumber);
-                        break;
-                    case TelephonyManager.CALL_STATE_OFFHOOK:
-                        if (!inCall) {
-                            callStartTs = System.currentTimeMillis();
-                            inCall = true;
-                            if (wasRinging) {
-                                Log.d(TAG, "Call OFFHOOK (answered incoming) - start timestamp=" + callStartTs);
-                            } else {
-                                Log.d(TAG, "Call OFFHOOK (outgoing) - start timestamp=" + callStartTs);
-                            }
-                        }
-                        break;
-                    case TelephonyManager.CALL_STATE_IDLE:
-                        if (wasRinging && !inCall) {
-                            // Missed incoming call - never went OFFHOOK
-                            Log.d(TAG, "Missed incoming call from: " + lastRingingNumber);
-                            scheduleCallLogLookup(500); // Faster lookup for missed calls
-                        } else if (inCall && callStartTs > 0) {
-                            long endTs = System.currentTimeMillis();
-                            int durationSec = (int) ((endTs - callStartTs) / 1000);
-                            Log.d(TAG, "Call IDLE - endTs=" + endTs + " durationSec=" + durationSec);
-                            inCall = false;
-                            callStartTs = 0L;
-                            // Faster lookup - 500ms for better UX
-                            scheduleCallLogLookup(500);
-                        }
-                        // Reset ringing state
-                        wasRinging = false;
-                        lastRingingNumber = null;
-                        break;
+                Tracing.counter("call.state", state);
+                // Backfill workers stay off the call log and the network while a call is live
+                CallLogBackfill.setCallActive(state != TelephonyManager.CALL_STATE_IDLE);
+                boolean traced = Tracing.begin(callStateSection(state));
+                try {
+                    // Picks up the CallTrace plugin switch between callbacks
+                    callFlow.setTrace(CallTraceRecorder.getInstance(MainActivity.this).activeTrace());
+                    callFlow.onCallStateChanged(state, phoneNumber);
+                } finally {
+                    Tracing.end(traced);
                 }
             }
         };
 
         // Request all permissions together on app start
         requestAllPermissions();
+        openLeadFromIntent(getIntent(), STARTUP_SYNC_DELAY_MS);
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        openLeadFromIntent(intent, 0L);
+    }
+
+    // A tap on the ringing-lead notification asks the page to open that lead. On a
+    // cold start the page first needs time to register its listeners.
+    private void openLeadFromIntent(Intent intent, long delayMs) {
+        String leadId = intent != null ? intent.getStringExtra(IncomingLeadAlert.EXTRA_LEAD_ID) : null;
+        if (leadId == null || leadId.isEmpty()) {
+            return;
+        }
+        // Handled once, not again when the activity is recreated with the same intent
+        intent.removeExtra(IncomingLeadAlert.EXTRA_LEAD_ID);
+        StringBuilder detail = new StringBuilder(64).append("{\"leadId\":");
+        CallPayloads.appendString(detail, leadId).append('}');
+        new Handler(getMainLooper()).postDelayed(() -> {
+            if (!webEvents.post(EVENT_OPEN_LEAD, detail)) {
+                Log.w(TAG, "Bridge/WebView not ready to open lead " + leadId);
+            }
+        }, delayMs);
+    }
+
+    private static String callStateSection(int state) {
+        switch (state) {
+            case TelephonyManager.CALL_STATE_RINGING:
+                return "CallState.RINGING";
+            case TelephonyManager.CALL_STATE_OFFHOOK:
+                return "CallState.OFFHOOK";
+            case TelephonyManager.CALL_STATE_IDLE:
+                return "CallState.IDLE";
+            default:
+                return "CallState.UNKNOWN";
+        }
     }
 
     @Override
@@ -103,14 +179,40 @@ public class MainActivity extends BridgeActivity {
             if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_PHONE_STATE) == PackageManager.PERMISSION_GRANTED) {
                 startListening();
             }
-            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
-                startIncomingCallMonitor();
-            }
+            // Usually a no-op: full syncs are rate limited and a resume only catches up on new rows
+            requestSync("resume");
         } catch (Exception e) {
             Log.e(TAG, "onResume listener init failed: " + e.getMessage());
         }
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        // A recorded call trace survives the process being killed in the background
+        CallTraceRecorder.getInstance(this).save();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        onMemoryPressure(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        onMemoryPressure(TRIM_MEMORY_COMPLETE);
+    }
+
+    // Releases caches and tells the page; the call state listener keeps running
+    private void onMemoryPressure(int trimLevel) {
+        int pressure = MemoryPressure.onTrimMemory(this, trimLevel);
+        if (pressure != MemoryPressure.NONE) {
+            webEvents.post(MemoryPressure.EVENT, MemoryPressure.eventDetail(pressure, trimLevel));
+        }
+    }
+
     private void requestAllPermissions() {
         List<String> permissionsNeeded = new ArrayList<>();
         
@@ -124,6 +226,11 @@ public class MainActivity extends BridgeActivity {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.CALL_PHONE) != PackageManager.PERMISSION_GRANTED) {
             permissionsNeeded.add(Manifest.permission.CALL_PHONE);
         }
+        // Needed for the ringing-lead heads-up notification on Android 13+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ActivityCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            permissionsNeeded.add(Manifest.permission.POST_NOTIFICATIONS);
+        }
         
         if (!permissionsNeeded.isEmpty()) {
             // Request all permissions at once
@@ -134,8 +241,6 @@ public class MainActivity extends BridgeActivity {
             // All permissions already granted
             Log.d(TAG, "All permissions already granted");
             startListening();
-            // Start incoming call monitor
-            startIncomingCallMonitor();
         }
     }
 
@@ -149,90 +254,60 @@ public class MainActivity extends BridgeActivity {
             Log.w(TAG, "READ_PHONE_STATE not granted; deferring PhoneStateListener registration");
             return;
         }
+        if (listening) {
+            return;
+        }
 
         try {
             telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_CALL_STATE);
+            listening = true;
             Log.d(TAG, "PhoneStateListener registered");
         } catch (Exception e) {
             Log.e(TAG, "Failed to register PhoneStateListener: " + e.getMessage());
         }
     }
 
-    private void startIncomingCallMonitor() {
-        // Query recent incoming calls that might have been missed while app was closed
+    // Asks the coordinator for a sync; the first request of a launch waits for the page
+    private void requestSync(String trigger) {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
             return;
         }
-        
-        // Sync all calls from the last 7 days on app start
-        new Handler(getMainLooper()).postDelayed(() -> {
-            syncAllRecentCalls(7);
-        }, 2000);
+        if (startupSyncPosted) {
+            syncs.request(trigger, false);
+            return;
+        }
+        startupSyncPosted = true;
+        new Handler(getMainLooper()).postDelayed(() -> syncs.request("start", false), STARTUP_SYNC_DELAY_MS);
     }
 
-    private void syncAllRecentCalls(int daysBack) {
-        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
-            Log.w(TAG, "READ_CALL_LOG permission not granted for sync");
+    // Names a ringing lead from the native caller-ID cache. Runs on the call state
+    // callback, so it must not touch the network or wait on the WebView.
+    private void announceIfLead(String phoneNumber) {
+        if (phoneNumber == null || phoneNumber.isEmpty()) {
             return;
         }
-        
-        try {
-            long cutoff = System.currentTimeMillis() - (long) daysBack * 24 * 60 * 60 * 1000;
-            android.database.Cursor cursor = getContentResolver().query(
-                    android.provider.CallLog.Calls.CONTENT_URI,
-                    new String[]{
-                            android.provider.CallLog.Calls._ID,
-                            android.provider.CallLog.Calls.DURATION,
-                            android.provider.CallLog.Calls.DATE,
-                            android.provider.CallLog.Calls.TYPE,
-                            android.provider.CallLog.Calls.NUMBER
-                    },
-                    android.provider.CallLog.Calls.DATE + ">?",
-                    new String[]{String.valueOf(cutoff)},
-                    android.provider.CallLog.Calls.DATE + " DESC"
-            );
-            
-            int count = 0;
-            if (cursor != null) {
-                while (cursor.moveToNext()) {
-                    long callId = cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls._ID));
-                    int duration = cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.DURATION));
-                    long callDate = cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls.DATE));
-                    int type = cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.TYPE));
-                    String phoneNumber = cursor.getString(cursor.getColumnIndex(android.provider.CallLog.Calls.NUMBER));
-                    
-                    // Dispatch each call to the web app for syncing
-                    dispatchCallLogForSync(duration, callDate, phoneNumber, type, callId);
-                    count++;
-                }
-                cursor.close();
-            }
-            Log.d(TAG, "Synced " + count + " call logs from last " + daysBack + " days");
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to sync call logs: " + e.getMessage());
+        CallerIdCache.Entry lead = CallerIdStore.cache().get(phoneNumber);
+        if (lead == null) {
+            return;
         }
+        Log.d(TAG, "Ringing lead " + lead.getLeadId());
+        IncomingLeadAlert.show(this, phoneNumber, lead);
+        StringBuilder detail = new StringBuilder(128);
+        CallPayloads.appendCallerIdDetail(detail, phoneNumber, lead.getLeadId(), lead.getName());
+        webEvents.post(EVENT_CALLER_ID, detail);
     }
 
-    private void dispatchCallLogForSync(int durationSec, long callLogDateEpoch, String phoneNumber, int callLogType, long callLogId) {
-        try {
-            JSONObject detail = new JSONObject();
-            detail.put("duration", durationSec);
-            detail.put("source", "bulk-sync");
-            detail.put("callLogDate", callLogDateEpoch);
-            detail.put("phoneNumber", phoneNumber);
-            detail.put("callLogType", callLogType);
-            detail.put("callLogId", callLogId);
-
-            JSONObject payload = new JSONObject();
-            payload.put("detail", detail);
-            final String js = "window.dispatchEvent(new CustomEvent('native-call-finished', " + payload.toString() + "));";
-
-            if (getBridge() != null && getBridge().getWebView() != null) {
-                getBridge().getWebView().post(() -> getBridge().getWebView().evaluateJavascript(js, null));
-            }
-        } catch (JSONException e) {
-            Log.e(TAG, "Failed to dispatch call log for sync: " + e.getMessage());
-        }
+    // Queued ahead of sync traffic; a repeat for the same call log row replaces the queued one
+    private boolean postCallFinishedEvent(int priority, int durationSec, String source, long callLogDateEpoch, String phoneNumber,
+                                          int callLogType, long callLogId, long dialToken, String confidence, String leadId) {
+        StringBuilder detail = new StringBuilder(192);
+        CallPayloads.appendCallFinishedDetail(detail, durationSec, source, callLogDateEpoch, phoneNumber, callLogType, callLogId,
+                dialToken, confidence, leadId);
+        return callEvents.post(priority, callLogId, RecentCallsSync.EVENT_CALL_FINISHED, detail);
+    }
+
+    private boolean postWebEvent(String eventName, CharSequence detailJson) {
+        return WebViewEvents.post(getBridge(), eventName, detailJson);
     }
 
     private void queryRecentIncomingCalls() {
@@ -276,7 +351,7 @@ public class MainActivity extends BridgeActivity {
                     Log.d(TAG, "Found recent incoming/missed call: type=" + type + " duration=" + duration + " number=" + phoneNumber);
                     
                     // Dispatch this incoming call to the web app
-                    dispatchDurationToWeb(duration, "incoming-sync", callDate, phoneNumber, type, callId);
+                    callFlow.dispatch(duration, CallStateMachine.SOURCE_INCOMING_SYNC, new CallRecord(callId, phoneNumber, type, callDate, duration));
                 }
                 cursor.close();
             }
@@ -285,146 +360,76 @@ public class MainActivity extends BridgeActivity {
         }
     }
 
-    private void dispatchDurationToWeb(int durationSec, String source) {
-        dispatchDurationToWeb(durationSec, source, null, null, null, null);
-    }
+    // Device side of the call state machine: main thread timers, the call log
+    // provider and the WebView bridge
+    private final class DeviceCallHost implements CallStateMachine.Host {
+        private final Handler handler = new Handler(Looper.getMainLooper());
 
-    private void dispatchDurationToWeb(int durationSec, String source, Long callLogDateEpoch, String phoneNumber, Integer callLogType, Long callLogId) {
-        if (durationSec < 0) return;
-        long now = System.currentTimeMillis();
-        // Reduce debounce time for faster response
-        if (("calllog".equals(source) || "incoming-sync".equals(source)) && now - lastDispatchEpoch < 500) {
-            Log.d(TAG, "Skipping duplicate dispatch within 500ms");
-            return;
+        @Override
+        public long now() {
+            return System.currentTimeMillis();
         }
-        lastDispatchEpoch = now;
 
-        try {
-            JSONObject detail = new JSONObject();
-            detail.put("duration", durationSec);
-            detail.put("source", source);
-            if (callLogDateEpoch != null && callLogDateEpoch > 0) {
-                detail.put("callLogDate", callLogDateEpoch);
-            }
-            if (phoneNumber != null) {
-                detail.put("phoneNumber", phoneNumber);
-            }
-            if (callLogType != null && callLogType >= 0) {
-                detail.put("callLogType", callLogType);
-            }
-            if (callLogId != null && callLogId > 0) {
-                detail.put("callLogId", callLogId);
-            }
+        @Override
+        public long elapsed() {
+            return SystemClock.elapsedRealtime();
+        }
 
-            JSONObject payload = new JSONObject();
-            payload.put("detail", detail);
-            final String js = "window.dispatchEvent(new CustomEvent('native-call-finished', " + payload.toString() + "));";
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            handler.postDelayed(task, delayMs);
+        }
 
-            if (getBridge() != null && getBridge().getWebView() != null) {
-                getBridge().getWebView().post(() -> getBridge().getWebView().evaluateJavascript(js, null));
-                Log.d(TAG, "Dispatched native-call-finished event duration=" + durationSec + " source=" + source + " type=" + callLogType);
-            } else {
-                Log.w(TAG, "Bridge/WebView not ready to dispatch duration event");
+        @Override
+        public List<CallRecord> queryCallLog(long since) {
+            if (ActivityCompat.checkSelfPermission(MainActivity.this, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+                Log.d(TAG, "READ_CALL_LOG not granted; skipping calllog lookup");
+                return null;
             }
-        } catch (JSONException e) {
-            Log.e(TAG, "Failed to serialize duration payload: " + e.getMessage());
+            List<CallRecord> rows = new ArrayList<>();
+            try {
+                CallLogQueries.forEachSince(getContentResolver(), since,
+                        (id, duration, date, type, number) -> rows.add(new CallRecord(id, number, type, date, duration)));
+            } catch (Exception e) {
+                Log.e(TAG, "CallLog query failed: " + e.getMessage());
+            }
+            return rows;
         }
-    }
 
-    private void scheduleCallLogLookup(int delayMs) {
-        Handler handler = new Handler(getMainLooper());
-        handler.postDelayed(() -> queryLatestCallLogDuration(0), delayMs);
-    }
-
-    private void queryLatestCallLogDuration(int attempt) {
-        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
-            Log.d(TAG, "READ_CALL_LOG not granted; skipping calllog lookup");
-            return;
+        @Override
+        public void onRinging(String number) {
+            Log.d(TAG, "Phone RINGING - incoming call from: " + number);
+            announceIfLead(number);
         }
-        try {
-            long cutoff = System.currentTimeMillis() - 5 * 60 * 1000;
-            android.database.Cursor cursor = getContentResolver().query(
-                    android.provider.CallLog.Calls.CONTENT_URI,
-                    new String[]{
-                            android.provider.CallLog.Calls._ID,
-                            android.provider.CallLog.Calls.DURATION,
-                            android.provider.CallLog.Calls.DATE,
-                            android.provider.CallLog.Calls.TYPE,
-                            android.provider.CallLog.Calls.NUMBER
-                    },
-                    android.provider.CallLog.Calls.DATE + ">?",
-                    new String[]{String.valueOf(cutoff)},
-                    android.provider.CallLog.Calls.DATE + " DESC"
-            );
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    int durationIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.DURATION);
-                    int dateIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.DATE);
-                    int typeIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.TYPE);
-                    int numberIdx = cursor.getColumnIndex(android.provider.CallLog.Calls.NUMBER);
-
-                    long callId = cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls._ID));
-                    int duration = cursor.getInt(durationIdx);
-                    long callDate = cursor.getLong(dateIdx);
-                    int type = cursor.getInt(typeIdx);
-                    String dialedNumber = numberIdx >= 0 ? cursor.getString(numberIdx) : null;
 
-                    Log.d(TAG, "CallLog lookup duration=" + duration + " type=" + type + " number=" + dialedNumber);
+        @Override
+        public void onRingingEnded() {
+            IncomingLeadAlert.cancel(MainActivity.this);
+        }
 
-                    boolean isMissed = type == android.provider.CallLog.Calls.MISSED_TYPE
-                            || type == android.provider.CallLog.Calls.REJECTED_TYPE
-                            || type == android.provider.CallLog.Calls.BLOCKED_TYPE;
-                    
-                    boolean isIncoming = type == android.provider.CallLog.Calls.INCOMING_TYPE;
-
-                    // For missed/rejected calls, dispatch immediately even with 0 duration
-                    if (isMissed) {
-                        Log.d(TAG, "Missed/rejected call detected, dispatching immediately");
-                        dispatchDurationToWeb(0, "calllog", callDate, dialedNumber, type, callId);
-                        cursor.close();
-                        return;
-                    }
-
-                    // For incoming answered calls, dispatch with duration
-                    if (isIncoming && duration > 0) {
-                        Log.d(TAG, "Incoming answered call detected, dispatching");
-                        dispatchDurationToWeb(duration, "calllog", callDate, dialedNumber, type, callId);
-                        cursor.close();
-                        return;
-                    }
-
-                    // For outgoing calls, check if duration is ready
-                    if (duration <= 0 && !isMissed) {
-                        // Retry with shorter delays for faster feedback
-                        if (attempt < 3) {
-                            int nextAttempt = attempt + 1;
-                            long delayMs = nextAttempt * 500L; // 500ms, 1000ms, 1500ms
-                            Log.d(TAG, "Duration not yet available, retrying in " + delayMs + "ms (attempt " + nextAttempt + ")");
-                            new Handler(getMainLooper()).postDelayed(() -> queryLatestCallLogDuration(nextAttempt), delayMs);
-                            cursor.close();
-                            return;
-                        }
-                        Log.d(TAG, "Duration remained 0 after retries; dispatching as unanswered call");
-                    }
-
-                    dispatchDurationToWeb(duration, "calllog", callDate, dialedNumber, type, callId);
-                    cursor.close();
-                    return;
-                }
-                cursor.close();
+        @Override
+        public boolean dispatch(int durationSec, String source, CallRecord row, long dialToken, String confidence,
+                                String leadId) {
+            // Recovered calls are from an earlier session, not the page's current dial
+            int priority = CallStateMachine.SOURCE_INCOMING_SYNC.equals(source) || CallStateMachine.SOURCE_RECOVERED.equals(source)
+                    ? EventDispatchQueue.SYNC : EventDispatchQueue.LIVE;
+            boolean posted = postCallFinishedEvent(priority, durationSec, source,
+                    row != null ? row.getDate() : 0L,
+                    row != null ? row.getNumber() : null,
+                    row != null ? row.getType() : -1,
+                    row != null ? row.getId() : 0L,
+                    dialToken, confidence, leadId);
+            if (dialToken > 0 && row != null) {
+                AppLog.event(AppLog.EV_CORRELATED, dialToken, row.getId());
+            }
+            if (posted) {
+                Diagnostics.count(Diagnostics.ROWS_DISPATCHED);
+                Log.d(TAG, "Dispatched native-call-finished event duration=" + durationSec + " source=" + source
+                        + " dialToken=" + dialToken + " confidence=" + confidence);
             } else {
-                Log.d(TAG, "CallLog query returned null cursor");
+                Log.w(TAG, "Bridge/WebView not ready to dispatch duration event");
             }
-        } catch (Exception e) {
-            Log.e(TAG, "CallLog query failed: " + e.getMessage());
-        }
-
-        // Retry if no result found yet
-        if (attempt < 3 && !inCall) {
-            int nextAttempt = attempt + 1;
-            long delayMs = nextAttempt * 500L;
-            Log.d(TAG, "Scheduling additional call log lookup in " + delayMs + "ms (attempt " + nextAttempt + ")");
-            new Handler(getMainLooper()).postDelayed(() -> queryLatestCallLogDuration(nextAttempt), delayMs);
+            return posted;
         }
     }
 
@@ -461,10 +466,8 @@ public class MainActivity extends BridgeActivity {
                 startListening();
             }
             
-            // Start incoming call monitor if READ_CALL_LOG was granted
-            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
-                startIncomingCallMonitor();
-            }
+            // Sync now if READ_CALL_LOG was granted
+            requestSync("permission");
             
             if (allGranted) {
                 Log.d(TAG, "All permissions granted - call logging fully enabled");
@@ -477,80 +480,30 @@ public class MainActivity extends BridgeActivity {
         super.onDestroy();
         if (telephonyManager != null && phoneStateListener != null) {
             telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_NONE);
+            listening = false;
             Log.d(TAG, "PhoneStateListener unregistered");
         }
+        syncs.detach(syncEvents);
     }
 
     // Method to get all call logs for syncing - called from web
     public void getAllCallLogs(int daysBack) {
+        CallLogsStream stream = new CallLogsStream(getContentResolver(), webEvents, "call-logs-sync",
+                ChunkedJsonArrayWriter.DEFAULT_CHUNK_CHARS, LeadIndexStore.getInstance(this).syncFilter());
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
             Log.w(TAG, "READ_CALL_LOG permission not granted for getAllCallLogs");
-            dispatchCallLogsToWeb(new ArrayList<>());
+            stream.streamEmpty();
             return;
         }
 
         try {
             long cutoff = System.currentTimeMillis() - (long) daysBack * 24 * 60 * 60 * 1000;
-            android.database.Cursor cursor = getContentResolver().query(
-                    android.provider.CallLog.Calls.CONTENT_URI,
-                    new String[]{
-                            android.provider.CallLog.Calls._ID,
-                            android.provider.CallLog.Calls.DURATION,
-                            android.provider.CallLog.Calls.DATE,
-                            android.provider.CallLog.Calls.TYPE,
-                            android.provider.CallLog.Calls.NUMBER
-                    },
-                    android.provider.CallLog.Calls.DATE + ">?",
-                    new String[]{String.valueOf(cutoff)},
-                    android.provider.CallLog.Calls.DATE + " DESC"
-            );
-
-            List<JSONObject> callLogs = new ArrayList<>();
-
-            if (cursor != null) {
-                while (cursor.moveToNext()) {
-                    try {
-                        JSONObject callLog = new JSONObject();
-                        callLog.put("id", cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls._ID)));
-                        callLog.put("duration", cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.DURATION)));
-                        callLog.put("date", cursor.getLong(cursor.getColumnIndex(android.provider.CallLog.Calls.DATE)));
-                        callLog.put("type", cursor.getInt(cursor.getColumnIndex(android.provider.CallLog.Calls.TYPE)));
-                        callLog.put("number", cursor.getString(cursor.getColumnIndex(android.provider.CallLog.Calls.NUMBER)));
-                        callLogs.add(callLog);
-                    } catch (JSONException e) {
-                        Log.e(TAG, "Failed to create call log JSON: " + e.getMessage());
-                    }
-                }
-                cursor.close();
-            }
-
-            Log.d(TAG, "Found " + callLogs.size() + " call logs from last " + daysBack + " days");
-            dispatchCallLogsToWeb(callLogs);
+            // Rows go straight from the cursor into bounded call-logs-sync chunks
+            int count = stream.streamSince(cutoff);
+            Log.d(TAG, "Streamed " + count + " call logs from last " + daysBack + " days");
         } catch (Exception e) {
             Log.e(TAG, "Failed to query call logs: " + e.getMessage());
-            dispatchCallLogsToWeb(new ArrayList<>());
-        }
-    }
-
-    private void dispatchCallLogsToWeb(List<JSONObject> callLogs) {
-        try {
-            JSONObject payload = new JSONObject();
-            org.json.JSONArray logsArray = new org.json.JSONArray();
-            for (JSONObject log : callLogs) {
-                logsArray.put(log);
-            }
-            payload.put("callLogs", logsArray);
-
-            final String js = "window.dispatchEvent(new CustomEvent('call-logs-sync', { detail: " + payload.toString() + " }));";
-
-            if (getBridge() != null && getBridge().getWebView() != null) {
-                getBridge().getWebView().post(() -> getBridge().getWebView().evaluateJavascript(js, null));
-                Log.d(TAG, "Dispatched call-logs-sync event with " + callLogs.size() + " logs");
-            } else {
-                Log.w(TAG, "Bridge/WebView not ready to dispatch call logs");
-            }
-        } catch (JSONException e) {
-            Log.e(TAG, "Failed to serialize call logs payload: " + e.getMessage());
+            stream.streamEmpty();
         }
     }
 
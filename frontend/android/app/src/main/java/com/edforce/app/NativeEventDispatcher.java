@@ -0,0 +1,138 @@
+package com.edforce.app;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.edforce.app.plugins.AppLog;
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.telephony.EventDispatchQueue;
+
+/**
+ * Feeds web events to the WebView through an {@link EventDispatchQueue}, so a
+ * finished call's result goes out ahead of any bulk sync still draining and
+ * repeats for the same call log row are merged rather than sent twice.
+ *
+ * The queue is drained on the main thread a few events per turn, leaving room
+ * between turns for call state callbacks; live events are drained right away.
+ * Bulk producers must run off the main thread: {@link #sink(int)} blocks them
+ * while the queue is full.
+ */
+public final class NativeEventDispatcher {
+    private static final String TAG = "NativeEventDispatcher";
+    // Non-live events queued before bulk producers wait
+    private static final int CAPACITY = 256;
+    // Events handed to the WebView per main-thread turn
+    private static final int BATCH = 16;
+    private static final long RETRY_MS = 500;
+    // A bulk producer gives up on an event after this long, e.g. with no WebView
+    private static final long PUT_TIMEOUT_MS = 10_000;
+
+    private final WebEventSink target;
+    private final EventDispatchQueue queue = new EventDispatchQueue(CAPACITY);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable drainTask = this::drain;
+    private boolean scheduled;
+
+    /**
+     * @param target delivers to the WebView; called on the main thread only
+     */
+    public NativeEventDispatcher(WebEventSink target) {
+        this.target = target;
+    }
+
+    /**
+     * Queues an event. Live events are never refused; on the main thread
+     * they go out before this returns.
+     *
+     * @param key call log _ID, or {@link EventDispatchQueue#NO_KEY}
+     * @return false if a non-live event did not fit, or could not wait for
+     *         room because the caller is the main thread
+     */
+    public boolean post(int priority, long key, String eventName, CharSequence detailJson) {
+        boolean mainThread = Looper.myLooper() == Looper.getMainLooper();
+        int result;
+        if (priority == EventDispatchQueue.LIVE || mainThread) {
+            result = queue.offer(priority, key, eventName, detailJson.toString());
+        } else {
+            try {
+                result = queue.put(priority, key, eventName, detailJson.toString(), PUT_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (result == EventDispatchQueue.MERGED || result == EventDispatchQueue.DUPLICATE) {
+            Diagnostics.count(Diagnostics.ROWS_MERGED);
+        }
+        if (result == EventDispatchQueue.FULL) {
+            AppLog.w(TAG, "Dispatch queue full; dropped " + eventName);
+            return false;
+        }
+        if (priority == EventDispatchQueue.LIVE && mainThread) {
+            drain();
+        } else {
+            schedule(0L);
+        }
+        return true;
+    }
+
+    /**
+     * A sink for producers that do not know about priorities, e.g.
+     * {@link RecentCallsSync}. Keyed posts are merged by key.
+     */
+    public WebEventSink sink(int priority) {
+        return new WebEventSink() {
+            @Override
+            public boolean post(String eventName, CharSequence detailJson) {
+                return NativeEventDispatcher.this.post(priority, EventDispatchQueue.NO_KEY, eventName, detailJson);
+            }
+
+            @Override
+            public boolean post(String eventName, CharSequence detailJson, long key) {
+                return NativeEventDispatcher.this.post(priority, key, eventName, detailJson);
+            }
+        };
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    private void schedule(long delayMs) {
+        synchronized (this) {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        handler.postDelayed(drainTask, delayMs);
+    }
+
+    private void drain() {
+        synchronized (this) {
+            scheduled = false;
+        }
+        boolean traced = Tracing.begin("NativeEventDispatcher.drain");
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                EventDispatchQueue.Event event = queue.poll();
+                if (event == null) {
+                    return;
+                }
+                if (!target.post(event.getName(), event.getDetail())) {
+                    // WebView not ready yet: hold the event and its successors
+                    queue.requeue(event);
+                    schedule(RETRY_MS);
+                    return;
+                }
+                queue.delivered(event);
+            }
+            if (queue.size() > 0) {
+                schedule(0L);
+            }
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+}
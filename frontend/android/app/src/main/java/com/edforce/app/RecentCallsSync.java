@@ -0,0 +1,122 @@
+package com.edforce.app;
+
+import android.content.ContentResolver;
+import com.edforce.app.plugins.CallLogQueries;
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.telephony.CallPayloads;
+import com.edforce.telephony.LeadNumberIndex;
+
+/**
+ * Startup sync: replays every call in a window to the web app as a
+ * bulk-sync native-call-finished event. With a lead index, calls from numbers
+ * that are not leads are skipped before any JSON is built.
+ */
+public class RecentCallsSync {
+    public static final String EVENT_CALL_FINISHED = "native-call-finished";
+    public static final String SOURCE_BULK_SYNC = "bulk-sync";
+
+    private final ContentResolver resolver;
+    private final WebEventSink sink;
+    private final LeadNumberIndex leadFilter;
+    private final StringBuilder detail = new StringBuilder(160);
+    private int dispatched;
+    private int failed;
+    private long maxId;
+    private long firstFailedId = Long.MAX_VALUE;
+
+    public RecentCallsSync(ContentResolver resolver, WebEventSink sink) {
+        this(resolver, sink, null);
+    }
+
+    /**
+     * @param leadFilter numbers to sync, or null to sync every call
+     */
+    public RecentCallsSync(ContentResolver resolver, WebEventSink sink, LeadNumberIndex leadFilter) {
+        this.resolver = resolver;
+        this.sink = sink;
+        this.leadFilter = leadFilter;
+    }
+
+    /**
+     * Replays every call newer than the cutoff.
+     *
+     * @return number of call log rows dispatched
+     */
+    public int syncSince(long cutoff) {
+        dispatched = 0;
+        failed = 0;
+        boolean traced = Tracing.begin("RecentCallsSync.syncSince");
+        try {
+            CallLogQueries.forEachSince(resolver, cutoff, rowHandler());
+        } finally {
+            finishRun(traced);
+        }
+        return dispatched;
+    }
+
+    /**
+     * Replays only calls with an _ID above afterId that are newer than the
+     * cutoff, for catch-ups between full syncs.
+     *
+     * @return number of call log rows dispatched
+     */
+    public int syncAfterId(long afterId, long cutoff) {
+        dispatched = 0;
+        failed = 0;
+        boolean traced = Tracing.begin("RecentCallsSync.syncAfterId");
+        try {
+            CallLogQueries.forEachAfterId(resolver, afterId, cutoff, rowHandler());
+        } finally {
+            finishRun(traced);
+        }
+        return dispatched;
+    }
+
+    /**
+     * Highest call log _ID read so far, lead or not; 0 if none.
+     */
+    public long getMaxId() {
+        return maxId;
+    }
+
+    /**
+     * Highest _ID up to which every row read was delivered: {@link #getMaxId()}
+     * unless a post was refused, then just below the lowest refused row, so a
+     * catch-up from here reads it again.
+     */
+    public long getDeliveredId() {
+        return firstFailedId == Long.MAX_VALUE ? maxId : Math.min(maxId, firstFailedId - 1);
+    }
+
+    /**
+     * Rows the sink refused in the last run, e.g. dropped after a queue timeout.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    private CallLogQueries.RowHandler rowHandler() {
+        CallLogQueries.RowHandler leads = CallLogQueries.leadsOnly(leadFilter, (id, duration, date, type, number) -> {
+            // The sink copies the detail into its script, so one builder serves every row
+            detail.setLength(0);
+            CallPayloads.appendCallFinishedDetail(detail, duration, SOURCE_BULK_SYNC, date, number, type, id);
+            if (sink.post(EVENT_CALL_FINISHED, detail, id)) {
+                dispatched++;
+            } else {
+                failed++;
+                firstFailedId = Math.min(firstFailedId, id);
+            }
+        });
+        return (id, duration, date, type, number) -> {
+            maxId = Math.max(maxId, id);
+            leads.onRow(id, duration, date, type, number);
+        };
+    }
+
+    private void finishRun(boolean traced) {
+        Diagnostics.count(Diagnostics.ROWS_DISPATCHED, dispatched);
+        Tracing.counter("sync.dispatched", dispatched);
+        Tracing.end(traced);
+    }
+}
@@ -0,0 +1,184 @@
+package com.edforce.app;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.util.Log;
+import androidx.core.app.ActivityCompat;
+import com.edforce.app.plugins.CallHistoryStore;
+import com.edforce.app.plugins.CallLogModelStore;
+import com.edforce.app.plugins.ContactTimeStore;
+import com.edforce.app.plugins.EngagementStore;
+import com.edforce.app.plugins.LeadIndexStore;
+import com.edforce.app.plugins.MemoryPressure;
+import com.edforce.app.plugins.TalkTimeStore;
+import com.edforce.app.plugins.Tracing;
+import com.edforce.telephony.SyncSchedule;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the startup call log sync for the activity's start, resume and
+ * permission triggers, as decided by a persisted {@link SyncSchedule}: the
+ * full window replay at most once per full interval (or after the lead index
+ * gained numbers), otherwise a catch-up on rows added since the last sync.
+ *
+ * Syncs run one at a time on a background thread so their rows can wait for
+ * the event dispatcher without blocking the UI; a trigger that arrives while
+ * one runs gets one forced catch-up right after it. The local stores (talk
+ * time, call history, engagement, contact times) catch up after each sync
+ * unless {@link MemoryPressure} defers bulk work, in which case their own
+ * reads catch them up later.
+ */
+public class SyncCoordinator {
+    private static final String TAG = "SyncCoordinator";
+    private static final String PREFS_NAME = "edforce_sync";
+    private static final String KEY_LAST_FULL = "lastFull";
+    private static final String KEY_LAST_SYNC = "lastSync";
+    private static final String KEY_LAST_ID = "lastId";
+    private static final String KEY_FILTER_VERSION = "filterVersion";
+    private static final String KEY_FULL_INTERVAL = "fullIntervalMs";
+    private static final String KEY_CATCH_UP_INTERVAL = "catchUpIntervalMs";
+
+    /** Window replayed by a full sync. */
+    public static final int DAYS_BACK = 7;
+
+    private static SyncCoordinator instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final SyncSchedule schedule = new SyncSchedule();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private volatile WebEventSink sink;
+
+    private SyncCoordinator(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        schedule.setIntervals(
+                prefs.getLong(KEY_FULL_INTERVAL, SyncSchedule.DEFAULT_FULL_INTERVAL_MS),
+                prefs.getLong(KEY_CATCH_UP_INTERVAL, SyncSchedule.DEFAULT_CATCH_UP_INTERVAL_MS));
+        schedule.restore(
+                prefs.getLong(KEY_LAST_FULL, 0L),
+                prefs.getLong(KEY_LAST_SYNC, 0L),
+                prefs.getLong(KEY_LAST_ID, 0L),
+                prefs.getLong(KEY_FILTER_VERSION, 0L));
+    }
+
+    public static synchronized SyncCoordinator getInstance(Context context) {
+        if (instance == null) {
+            instance = new SyncCoordinator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Sets where synced rows go; null while there is no activity.
+     */
+    public void attach(WebEventSink sink) {
+        this.sink = sink;
+    }
+
+    public void detach(WebEventSink sink) {
+        if (this.sink == sink) {
+            this.sink = null;
+        }
+    }
+
+    /**
+     * Starts a sync if one is due; cheap enough to call on every resume.
+     *
+     * @param trigger what asked, for the log
+     * @param force catch up even within the catch-up interval
+     * @return {@link SyncSchedule#FULL}, {@link SyncSchedule#INCREMENTAL}, or
+     *         {@link SyncSchedule#SKIP} when nothing was started
+     */
+    public int request(String trigger, boolean force) {
+        WebEventSink target = sink;
+        if (target == null) {
+            return SyncSchedule.SKIP;
+        }
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "READ_CALL_LOG permission not granted for sync");
+            return SyncSchedule.SKIP;
+        }
+        LeadIndexStore leads = LeadIndexStore.getInstance(context);
+        long filterVersion = leads.getVersion();
+        int kind = schedule.begin(System.currentTimeMillis(), filterVersion, force);
+        if (kind == SyncSchedule.SKIP) {
+            Log.d(TAG, "Sync not due on " + trigger);
+            return kind;
+        }
+        if (kind == SyncSchedule.FULL && !MemoryPressure.allowsBulkWork()) {
+            // Due again on the next trigger once the pressure has lapsed
+            schedule.abandoned();
+            Log.d(TAG, "Deferring full call log sync under memory pressure");
+            return SyncSchedule.SKIP;
+        }
+        executor.execute(() -> run(kind, target, leads, filterVersion));
+        return kind;
+    }
+
+    /**
+     * @param fullIntervalMs minimum time between full window syncs
+     * @param catchUpIntervalMs minimum time between catch-ups
+     */
+    public void setIntervals(long fullIntervalMs, long catchUpIntervalMs) {
+        schedule.setIntervals(fullIntervalMs, catchUpIntervalMs);
+        prefs.edit()
+                .putLong(KEY_FULL_INTERVAL, fullIntervalMs)
+                .putLong(KEY_CATCH_UP_INTERVAL, catchUpIntervalMs)
+                .apply();
+    }
+
+    public SyncSchedule schedule() {
+        return schedule;
+    }
+
+    private void run(int kind, WebEventSink target, LeadIndexStore leads, long filterVersion) {
+        boolean full = kind == SyncSchedule.FULL;
+        boolean traced = Tracing.begin(full ? "SyncCoordinator.full" : "SyncCoordinator.catchUp");
+        try {
+            long cutoff = System.currentTimeMillis() - (long) DAYS_BACK * 24 * 60 * 60 * 1000;
+            RecentCallsSync sync = new RecentCallsSync(context.getContentResolver(), target, leads.syncFilter());
+            int count = full
+                    ? sync.syncSince(cutoff)
+                    : sync.syncAfterId(schedule.getLastSyncedId(), cutoff);
+            Log.d(TAG, (full ? "Synced " : "Caught up on ") + count + " lead call logs");
+            if (sync.getFailed() > 0) {
+                // The watermark stops below the first dropped row; the next catch-up posts it again
+                Log.w(TAG, sync.getFailed() + " call log events were not delivered");
+            }
+            // Keep the local stores and models warm so the first reads have nothing to query;
+            // not under memory pressure, where the first catch-up is a whole call log scan and
+            // call history maps its file back in
+            if (MemoryPressure.allowsBulkWork()) {
+                CallLogModelStore.catchUpAll(context.getContentResolver(),
+                        TalkTimeStore.getInstance(context),
+                        EngagementStore.getInstance(context),
+                        ContactTimeStore.getInstance(context));
+                CallHistoryStore.getInstance(context).catchUp(context.getContentResolver());
+            } else {
+                Log.d(TAG, "Deferring store catch-ups under memory pressure");
+            }
+
+            schedule.finished(System.currentTimeMillis(), sync.getDeliveredId(), filterVersion);
+            prefs.edit()
+                    .putLong(KEY_LAST_FULL, schedule.getLastFullAt())
+                    .putLong(KEY_LAST_SYNC, schedule.getLastSyncAt())
+                    .putLong(KEY_LAST_ID, schedule.getLastSyncedId())
+                    .putLong(KEY_FILTER_VERSION, schedule.getFilterVersion())
+                    .apply();
+        } catch (Exception e) {
+            schedule.abandoned();
+            Log.e(TAG, "Failed to sync call logs: " + e.getMessage());
+            return;
+        } finally {
+            Tracing.end(traced);
+        }
+        if (schedule.takeRerun()) {
+            // Starts once this run returns; the executor runs one sync at a time
+            request("rerun", true);
+        }
+    }
+}
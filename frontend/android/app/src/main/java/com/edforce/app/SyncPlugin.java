@@ -0,0 +1,64 @@
+package com.edforce.app;
+
+import com.edforce.telephony.SyncSchedule;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Web-facing controls for the startup sync; see {@link SyncCoordinator}.
+ */
+@CapacitorPlugin(name = "Sync")
+public class SyncPlugin extends Plugin {
+    private static final String[] KINDS = {"none", "incremental", "full"};
+
+    /**
+     * Sets the rate limits, persisted: {fullIntervalMinutes?, catchUpIntervalSeconds?}.
+     * Resolves with the status.
+     */
+    @PluginMethod
+    public void configure(PluginCall call) {
+        SyncCoordinator coordinator = SyncCoordinator.getInstance(getContext());
+        SyncSchedule schedule = coordinator.schedule();
+        long fullMinutes = call.getLong("fullIntervalMinutes", schedule.getFullIntervalMs() / 60_000L);
+        long catchUpSeconds = call.getLong("catchUpIntervalSeconds", schedule.getCatchUpIntervalMs() / 1000L);
+        if (fullMinutes < 0 || catchUpSeconds < 0) {
+            call.reject("Intervals must not be negative");
+            return;
+        }
+        coordinator.setIntervals(fullMinutes * 60_000L, catchUpSeconds * 1000L);
+        call.resolve(status(coordinator));
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        call.resolve(status(SyncCoordinator.getInstance(getContext())));
+    }
+
+    /**
+     * Catches up now, or replays the whole window if a full sync is due.
+     * Resolves with the status; started is "none" if a sync was already running.
+     */
+    @PluginMethod
+    public void syncNow(PluginCall call) {
+        SyncCoordinator coordinator = SyncCoordinator.getInstance(getContext());
+        int kind = coordinator.request("plugin", true);
+        JSObject result = status(coordinator);
+        result.put("started", KINDS[kind]);
+        call.resolve(result);
+    }
+
+    private static JSObject status(SyncCoordinator coordinator) {
+        SyncSchedule schedule = coordinator.schedule();
+        JSObject status = new JSObject();
+        status.put("running", schedule.isRunning());
+        status.put("lastFullAt", schedule.getLastFullAt());
+        status.put("lastSyncAt", schedule.getLastSyncAt());
+        status.put("lastSyncedId", schedule.getLastSyncedId());
+        status.put("fullIntervalMinutes", schedule.getFullIntervalMs() / 60_000L);
+        status.put("catchUpIntervalSeconds", schedule.getCatchUpIntervalMs() / 1000L);
+        return status;
+    }
+}
@@ -0,0 +1,138 @@
+package com.edforce.app;
+
+import android.net.Uri;
+import android.webkit.WebMessage;
+import android.webkit.WebMessagePort;
+import android.webkit.WebView;
+
+import com.edforce.telephony.CallPayloads;
+
+/**
+ * Persistent WebMessagePort channel for native-to-web events.
+ *
+ * The page asks for the channel (EventChannel plugin), native transfers one end
+ * of a message channel with postWebMessage, and the page answers "ready" on it.
+ * From then on each event is posted as a plain string message
+ * {"event":"..","detail":{..}} that the page turns back into the same window
+ * CustomEvent; nothing goes through JavaScript source, so there is no per-event
+ * parse and compile. Until the page answers, and after it navigates away,
+ * {@link WebViewEvents} keeps using evaluateJavascript.
+ */
+final class WebEventChannel {
+    static final String PORT_MESSAGE = "edforce-event-port";
+    static final String READY_MESSAGE = "ready";
+
+    private static WebMessagePort port;
+    private static WebView portView;
+    private static volatile boolean ready;
+
+    private WebEventChannel() {
+    }
+
+    /**
+     * Replaces any open channel with a new one and hands its far end to the
+     * page loaded in the view. Must run on the WebView's thread.
+     *
+     * @return false, leaving no channel open, if the page's origin is unknown;
+     *     posting the port to an empty origin would hand it to any page
+     */
+    static boolean open(WebView view) {
+        close();
+        Uri origin = originOf(view.getUrl());
+        if (origin == null) {
+            return false;
+        }
+        WebMessagePort[] ports = view.createWebMessageChannel();
+        WebMessagePort nativeEnd = ports[0];
+        nativeEnd.setWebMessageCallback(new WebMessagePort.WebMessageCallback() {
+            @Override
+            public void onMessage(WebMessagePort source, WebMessage message) {
+                synchronized (WebEventChannel.class) {
+                    if (source == port && READY_MESSAGE.equals(message.getData())) {
+                        ready = true;
+                    }
+                }
+            }
+        });
+        synchronized (WebEventChannel.class) {
+            port = nativeEnd;
+            portView = view;
+        }
+        view.postWebMessage(new WebMessage(PORT_MESSAGE, new WebMessagePort[]{ports[1]}), origin);
+        return true;
+    }
+
+    /**
+     * Drops the channel, e.g. when the page starts loading again and its end is gone.
+     */
+    static void close() {
+        WebMessagePort closing;
+        synchronized (WebEventChannel.class) {
+            ready = false;
+            closing = port;
+            port = null;
+            portView = null;
+        }
+        if (closing != null) {
+            try {
+                closing.close();
+            } catch (IllegalStateException ignored) {
+                // Already closed
+            }
+        }
+    }
+
+    static boolean isReady(WebView view) {
+        return ready && portView == view;
+    }
+
+    /**
+     * Envelope posted on the channel. Its detail is already JSON, so the
+     * result is also a valid JavaScript expression.
+     */
+    static String message(String eventName, CharSequence detailJson) {
+        StringBuilder out = new StringBuilder(detailJson.length() + eventName.length() + 24);
+        out.append("{\"event\":");
+        CallPayloads.appendString(out, eventName);
+        return out.append(",\"detail\":").append(detailJson).append('}').toString();
+    }
+
+    /**
+     * Script that dispatches an envelope the old way, for a message that lost
+     * its channel between being built and being posted.
+     */
+    static String fallbackScript(String message) {
+        return "(function(m){window.dispatchEvent(new CustomEvent(m.event,{detail:m.detail}));})(" + message + ");";
+    }
+
+    /**
+     * Posts a message built by {@link #message}. Must run on the WebView's thread.
+     *
+     * @return false if the channel is not open for this view
+     */
+    static boolean post(WebView view, String message) {
+        WebMessagePort target;
+        synchronized (WebEventChannel.class) {
+            target = ready && portView == view ? port : null;
+        }
+        if (target == null) {
+            return false;
+        }
+        try {
+            target.postMessage(new WebMessage(message));
+            return true;
+        } catch (IllegalStateException e) {
+            close();
+            return false;
+        }
+    }
+
+    // Null when the URL has no scheme and authority to pin the target origin to
+    private static Uri originOf(String url) {
+        Uri uri = url != null ? Uri.parse(url) : null;
+        if (uri == null || uri.getScheme() == null || uri.getAuthority() == null) {
+            return null;
+        }
+        return new Uri.Builder().scheme(uri.getScheme()).authority(uri.getAuthority()).build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.edforce.app;
+
+/**
+ * Delivers a DOM CustomEvent to the web app.
+ */
+public interface WebEventSink {
+    /**
+     * @param eventName  CustomEvent type, e.g. "native-call-finished"
+     * @param detailJson serialized event detail; callers may reuse the buffer
+     *                   once this returns, so implementations must copy it
+     * @return false if the WebView was not ready and the event was dropped
+     */
+    boolean post(String eventName, CharSequence detailJson);
+
+    /**
+     * Posts an event about one call log row. Sinks that queue events may merge
+     * it with a pending one for the same key; by default the key is ignored.
+     *
+     * @param key the row's _ID
+     */
+    default boolean post(String eventName, CharSequence detailJson, long key) {
+        return post(eventName, detailJson);
+    }
+}
@@ -0,0 +1,81 @@
+package com.edforce.app;
+
+import android.webkit.WebView;
+
+import com.edforce.app.plugins.Diagnostics;
+import com.edforce.app.plugins.Tracing;
+import com.getcapacitor.Bridge;
+
+/**
+ * Dispatches DOM CustomEvents into the Capacitor WebView. Events go over the
+ * {@link WebEventChannel} message port once the page has connected it, and
+ * through evaluateJavascript otherwise. Payload sizes are summed into the
+ * bridge.bytes trace counter.
+ */
+public final class WebViewEvents {
+    private static long bridgedChars;
+
+    private WebViewEvents() {
+    }
+
+    /**
+     * Posts the event to the WebView's thread.
+     *
+     * @return false if the bridge or WebView is not ready
+     */
+    public static boolean post(Bridge bridge, String eventName, CharSequence detailJson) {
+        if (bridge == null || bridge.getWebView() == null) {
+            return false;
+        }
+        WebView view = bridge.getWebView();
+        boolean channel = WebEventChannel.isReady(view);
+        boolean traced = Tracing.begin(channel ? "WebViewEvents.message" : "WebViewEvents.script");
+        final String payload;
+        try {
+            payload = channel ? WebEventChannel.message(eventName, detailJson) : script(eventName, detailJson);
+        } finally {
+            Tracing.end(traced);
+        }
+        // Counted in chars; payloads are mostly ASCII so this tracks UTF-8 bytes closely
+        Diagnostics.count(Diagnostics.BYTES_BRIDGED, payload.length());
+        if (Tracing.isEnabled()) {
+            Tracing.counter("bridge.bytes", addBridged(payload.length()));
+        }
+        if (channel) {
+            view.post(() -> {
+                boolean posted = Tracing.begin("WebViewEvents.postMessage");
+                try {
+                    if (!WebEventChannel.post(view, payload)) {
+                        // Channel closed after the message was built
+                        view.evaluateJavascript(WebEventChannel.fallbackScript(payload), null);
+                    }
+                } finally {
+                    Tracing.end(posted);
+                }
+            });
+        } else {
+            view.post(() -> {
+                boolean posted = Tracing.begin("WebViewEvents.evaluateJavascript");
+                try {
+                    view.evaluateJavascript(payload, null);
+                } finally {
+                    Tracing.end(posted);
+                }
+            });
+        }
+        return true;
+    }
+
+    private static synchronized long addBridged(int chars) {
+        bridgedChars += chars;
+        return bridgedChars;
+    }
+
+    public static String script(String eventName, CharSequence detailJson) {
+        return new StringBuilder(detailJson.length() + eventName.length() + 64)
+                .append("window.dispatchEvent(new CustomEvent('").append(eventName).append("', { detail: ")
+                .append(detailJson)
+                .append(" }));")
+                .toString();
+    }
+}
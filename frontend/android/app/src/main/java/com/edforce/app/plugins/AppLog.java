@@ -0,0 +1,150 @@
+package com.edforce.app.plugins;
+
+import android.util.Log;
+
+import com.edforce.app.BuildConfig;
+import com.edforce.telephony.FlightRecorder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Logging facade for the native call paths.
+ *
+ * Debug and verbose output only exists in debug builds: {@link #DEBUG} is a
+ * compile-time false in release, so guarded blocks compile away, and the
+ * proguard rules strip the rest when minified. Messages that need concatenation
+ * are built behind a level check:
+ * <pre>
+ *   if (AppLog.debug()) {
+ *       AppLog.d(TAG, "Matched call: ID=" + id);
+ *   }
+ * </pre>
+ * Independently of the log level, {@link #event(int, long, long)} records a
+ * structured event in a fixed-size in-memory flight recorder that support can
+ * export on demand (AppLog plugin). Recording is a few array stores.
+ */
+public final class AppLog {
+    public static final boolean DEBUG = BuildConfig.DEBUG;
+
+    // Flight recorder event codes; the two arguments are listed per code
+    public static final int EV_CALL_STATE = 1;       // TelephonyManager state, 0
+    public static final int EV_DIAL = 2;             // dial token, 0
+    public static final int EV_CALL_STARTED = 3;     // start ms, 0
+    public static final int EV_CALL_ENDED = 4;       // duration s, 0
+    public static final int EV_CALL_LOG_MATCH = 5;   // call log id, duration s
+    public static final int EV_CALL_LOG_QUERY = 6;   // rows scanned, rows matched
+    public static final int EV_WHATSAPP_OPEN = 7;    // 1 = WhatsApp, 2 = Business, 3 = chooser, 4 = fallback
+    public static final int EV_WHATSAPP_MISSING = 8; // 0, 0
+    public static final int EV_PERMISSION = 9;       // 1 = granted, 0 = denied
+    public static final int EV_ERROR = 10;           // 0, 0
+    public static final int EV_CORRELATED = 11;      // dial token, call log id
+    public static final int EV_OUTREACH_OPEN = 12;   // queue position, queue size
+    public static final int EV_MEMORY_PRESSURE = 13; // MemoryPressure level, trim level
+
+    private static final String[] EVENT_NAMES = {
+            null,
+            "call_state",
+            "dial",
+            "call_started",
+            "call_ended",
+            "calllog_match",
+            "calllog_query",
+            "whatsapp_open",
+            "whatsapp_missing",
+            "permission",
+            "error",
+            "correlated",
+            "outreach_open",
+            "memory_pressure"
+    };
+
+    private static final int RECORDER_EVENTS = 2048;
+    private static final FlightRecorder RECORDER = new FlightRecorder(RECORDER_EVENTS);
+
+    private static volatile int level = DEBUG ? Log.DEBUG : Log.INFO;
+
+    private AppLog() {
+    }
+
+    /**
+     * Lowest android.util.Log priority that is written; debug and verbose are
+     * ignored in release builds.
+     */
+    public static void setLevel(int priority) {
+        level = priority;
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    public static boolean debug() {
+        return DEBUG && level <= Log.DEBUG;
+    }
+
+    public static boolean isLoggable(int priority) {
+        return priority >= Log.INFO ? priority >= level : DEBUG && priority >= level;
+    }
+
+    public static void d(String tag, String message) {
+        if (debug()) {
+            Log.d(tag, message);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (level <= Log.INFO) {
+            Log.i(tag, message);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        if (level <= Log.WARN) {
+            Log.w(tag, message);
+        }
+    }
+
+    public static void e(String tag, String message) {
+        e(tag, message, null);
+    }
+
+    /**
+     * Errors are always written and also leave an EV_ERROR event behind.
+     */
+    public static void e(String tag, String message, Throwable error) {
+        RECORDER.record(EV_ERROR, 0L, 0L);
+        if (error != null) {
+            Log.e(tag, message, error);
+        } else {
+            Log.e(tag, message);
+        }
+    }
+
+    public static void event(int code, long a, long b) {
+        RECORDER.record(code, a, b);
+    }
+
+    public static FlightRecorder recorder() {
+        return RECORDER;
+    }
+
+    /**
+     * Recorder contents as text lines, oldest first: "timeMs name a b".
+     */
+    public static String exportText() {
+        return RECORDER.appendText(new StringBuilder(RECORDER.size() * 40), EVENT_NAMES).toString();
+    }
+
+    public static byte[] exportBinary() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORDER.size() * 28 + 32);
+        try {
+            RECORDER.writeTo(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            // In-memory stream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package com.edforce.app.plugins;
+
+import android.util.Base64;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Log level control and flight recorder export for support.
+ */
+@CapacitorPlugin(name = "AppLog")
+public class AppLogPlugin extends Plugin {
+
+    @PluginMethod
+    public void setLevel(PluginCall call) {
+        String level = call.getString("level", "info");
+        int priority;
+        switch (level) {
+            case "verbose":
+                priority = Log.VERBOSE;
+                break;
+            case "debug":
+                priority = Log.DEBUG;
+                break;
+            case "info":
+                priority = Log.INFO;
+                break;
+            case "warn":
+                priority = Log.WARN;
+                break;
+            case "error":
+                priority = Log.ERROR;
+                break;
+            default:
+                call.reject("Unknown level: " + level);
+                return;
+        }
+        AppLog.setLevel(priority);
+        getStatus(call);
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("debugBuild", AppLog.DEBUG);
+        result.put("level", levelName(AppLog.getLevel()));
+        result.put("events", AppLog.recorder().size());
+        result.put("capacity", AppLog.recorder().capacity());
+        result.put("recorded", AppLog.recorder().getRecorded());
+        call.resolve(result);
+    }
+
+    /**
+     * Returns the recorded events, as text lines or base64 of the binary export.
+     */
+    @PluginMethod
+    public void exportEvents(PluginCall call) {
+        JSObject result = new JSObject();
+        if ("binary".equals(call.getString("format", "text"))) {
+            result.put("data", Base64.encodeToString(AppLog.exportBinary(), Base64.NO_WRAP));
+        } else {
+            result.put("data", AppLog.exportText());
+        }
+        result.put("events", AppLog.recorder().size());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clearEvents(PluginCall call) {
+        AppLog.recorder().clear();
+        call.resolve();
+    }
+
+    private static String levelName(int priority) {
+        switch (priority) {
+            case Log.VERBOSE:
+                return "verbose";
+            case Log.DEBUG:
+                return "debug";
+            case Log.INFO:
+                return "info";
+            case Log.WARN:
+                return "warn";
+            default:
+                return "error";
+        }
+    }
+}
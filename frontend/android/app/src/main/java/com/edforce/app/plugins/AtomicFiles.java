@@ -0,0 +1,35 @@
+package com.edforce.app.plugins;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Crash-safe replacement of small binary state files: the new content goes to a
+ * temp file that is synced and then renamed over the old one, so readers see
+ * either the old or the new file, never a partial one.
+ */
+final class AtomicFiles {
+
+    interface Body {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    static void write(File file, Body body) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            body.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.edforce.app.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Blocking JSON requests to the backend API for the native stores and workers
+ * that talk to it directly (lead index, caller IDs, backfill), with the signed-in
+ * user's bearer token. Call off the main thread.
+ */
+final class BackendHttp {
+    private static final int TIMEOUT_MS = 15000;
+
+    private BackendHttp() {
+    }
+
+    /**
+     * Response status outside 2xx.
+     */
+    static final class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpStatusException(int status) {
+            super("Request failed with HTTP " + status);
+            this.status = status;
+        }
+    }
+
+    /**
+     * GETs a URL and returns the response text.
+     *
+     * @throws HttpStatusException for any status outside 2xx
+     */
+    static String get(String url, String token) throws IOException {
+        HttpURLConnection conn = open(url, token);
+        try {
+            return readText(conn);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * POSTs a body and returns the response text.
+     *
+     * @throws HttpStatusException for any status outside 2xx
+     */
+    static String post(String url, String token, String contentType, byte[] body) throws IOException {
+        HttpURLConnection conn = open(url, token);
+        try {
+            conn.setDoOutput(true);
+            conn.setFixedLengthStreamingMode(body.length);
+            conn.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+            return readText(conn);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    static String trimTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static HttpURLConnection open(String url, String token) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(TIMEOUT_MS);
+        conn.setReadTimeout(TIMEOUT_MS);
+        conn.setRequestProperty("Accept", "application/json");
+        if (token != null && !token.isEmpty()) {
+            conn.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        return conn;
+    }
+
+    private static String readText(HttpURLConnection conn) throws IOException {
+        int status = conn.getResponseCode();
+        if (status < 200 || status >= 300) {
+            throw new HttpStatusException(status);
+        }
+        try (InputStream in = new BufferedInputStream(conn.getInputStream())) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toString("UTF-8");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.edforce.app.plugins;
+
+import com.edforce.app.WebViewEvents;
+import com.edforce.telephony.BackfillPlan;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+/**
+ * Web-facing controls for {@link CallLogBackfill}. Progress is published as
+ * call-backfill-progress window events carrying the getStatus() shape.
+ */
+@CapacitorPlugin(name = "Backfill")
+public class BackfillPlugin extends Plugin {
+    static final String PROGRESS_EVENT = "call-backfill-progress";
+
+    @Override
+    public void load() {
+        super.load();
+        CallLogBackfill.getInstance(getContext()).setListener(
+                backfill -> WebViewEvents.post(getBridge(), PROGRESS_EVENT, status(backfill).toString()));
+    }
+
+    /**
+     * Starts or resumes the backfill: {baseUrl, token?, daysBack?, shardDays?,
+     * parallelism?, restart?}. Resolves with the status; started is false when a
+     * run is already in progress or the saved one is complete.
+     */
+    @PluginMethod
+    public void start(PluginCall call) {
+        boolean traced = Tracing.begin("Backfill.start");
+        try {
+            String baseUrl = call.getString("baseUrl");
+            if (baseUrl == null || baseUrl.isEmpty()) {
+                call.reject("baseUrl is required");
+                return;
+            }
+            CallLogBackfill backfill = CallLogBackfill.getInstance(getContext());
+            boolean started = backfill.start(baseUrl, call.getString("token"),
+                    call.getInt("daysBack", CallLogBackfill.DEFAULT_DAYS),
+                    call.getInt("shardDays", CallLogBackfill.DEFAULT_SHARD_DAYS),
+                    call.getInt("parallelism", 2),
+                    call.getBoolean("restart", false));
+            JSObject result = status(backfill);
+            result.put("started", started);
+            call.resolve(result);
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        call.resolve(status(CallLogBackfill.getInstance(getContext())));
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        CallLogBackfill backfill = CallLogBackfill.getInstance(getContext());
+        backfill.cancel();
+        call.resolve(status(backfill));
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        CallLogBackfill.getInstance(getContext()).clear();
+        call.resolve();
+    }
+
+    private static JSObject status(CallLogBackfill backfill) {
+        JSObject status = new JSObject();
+        BackfillPlan plan = backfill.plan();
+        status.put("running", backfill.isRunning());
+        status.put("planned", plan != null);
+        if (plan != null) {
+            status.put("from", plan.getFrom());
+            status.put("to", plan.getTo());
+            status.put("shards", plan.size());
+            status.put("shardsDone", plan.getDoneCount());
+            status.put("calls", plan.getRows());
+            status.put("complete", plan.isComplete());
+        }
+        String error = backfill.getError();
+        if (error != null) {
+            status.put("error", error);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,155 @@
+package com.edforce.app.plugins;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Build;
+import android.provider.CallLog;
+
+import com.edforce.telephony.CallChangeFeed;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * {@link CallChangeFeed} over the device call log, driven by
+ * CallLog.Calls.LAST_MODIFIED (API 24+).
+ *
+ * {@link #scan(ContentResolver)} reads only rows modified since the saved
+ * watermark; the _ID-only presence pass for deletes runs when the window's row
+ * count falls below what the feed expects. The scan stays pending until
+ * {@link #commit(long)} confirms it was delivered, so changes lost on the way
+ * to the server are reported again on the next scan.
+ */
+public class CallChangeStore {
+    private static final String TAG = "CallChangeStore";
+    private static final String FILE_NAME = "call-changes.bin";
+    // OEM fixes and user deletes concern recent calls; older rows are not tracked
+    public static final int WINDOW_DAYS = 30;
+    private static final long DAY_MS = 86_400_000L;
+
+    private static CallChangeStore instance;
+
+    private final File file;
+    private CallChangeFeed feed;
+    private CallChangeFeed.Scan pending;
+
+    private CallChangeStore(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    public static synchronized CallChangeStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallChangeStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+    }
+
+    /**
+     * Collects changes since the last commit and keeps them pending.
+     */
+    public synchronized CallChangeFeed.Scan scan(ContentResolver resolver) {
+        CallChangeFeed current = feed();
+        long windowStart = System.currentTimeMillis() - WINDOW_DAYS * DAY_MS;
+        CallChangeFeed.Scan scan = current.begin(windowStart);
+
+        Cursor modified = CallLogQueries.queryModifiedSince(resolver, current.getWatermark(), windowStart);
+        if (modified != null) {
+            try {
+                int idIdx = modified.getColumnIndex(CallLog.Calls._ID);
+                int durationIdx = modified.getColumnIndex(CallLog.Calls.DURATION);
+                int dateIdx = modified.getColumnIndex(CallLog.Calls.DATE);
+                int typeIdx = modified.getColumnIndex(CallLog.Calls.TYPE);
+                int numberIdx = modified.getColumnIndex(CallLog.Calls.NUMBER);
+                int modifiedIdx = modified.getColumnIndex(CallLog.Calls.LAST_MODIFIED);
+                while (modified.moveToNext()) {
+                    scan.row(modified.getLong(idIdx), modified.getInt(durationIdx), modified.getLong(dateIdx),
+                            modified.getInt(typeIdx), modified.getString(numberIdx), modified.getLong(modifiedIdx));
+                }
+                Diagnostics.count(Diagnostics.ROWS_SCANNED, modified.getCount());
+                Tracing.counter("calllog.modifiedRows", modified.getCount());
+            } finally {
+                modified.close();
+            }
+        }
+
+        Cursor ids = CallLogQueries.queryIdsSince(resolver, windowStart);
+        if (ids != null) {
+            try {
+                // Only walk the ids when something disappeared
+                if (ids.getCount() < scan.expectedCount()) {
+                    while (ids.moveToNext()) {
+                        scan.present(ids.getLong(0));
+                    }
+                    scan.finishPresence();
+                }
+            } finally {
+                ids.close();
+            }
+        }
+        pending = scan;
+        if (AppLog.debug()) {
+            AppLog.d(TAG, "Found " + scan.getChanges().size() + " call log changes");
+        }
+        return scan;
+    }
+
+    /**
+     * Applies the pending scan if it ends at this watermark and saves the feed.
+     *
+     * @return false if there was no matching pending scan
+     */
+    public synchronized boolean commit(long watermark) {
+        CallChangeFeed.Scan scan = pending;
+        if (scan == null || scan.getWatermark() != watermark) {
+            return false;
+        }
+        CallChangeFeed current = feed();
+        current.commit(scan);
+        pending = null;
+        try {
+            AtomicFiles.write(file, current::writeTo);
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save call change feed: " + e.getMessage());
+        }
+        return true;
+    }
+
+    public synchronized long getWatermark() {
+        return feed().getWatermark();
+    }
+
+    public synchronized int size() {
+        return feed().size();
+    }
+
+    public synchronized void clear() {
+        feed = new CallChangeFeed();
+        pending = null;
+        if (file.exists() && !file.delete()) {
+            AppLog.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    private CallChangeFeed feed() {
+        if (feed == null) {
+            feed = new CallChangeFeed();
+            if (file.exists()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    feed = CallChangeFeed.readFrom(in);
+                } catch (IOException e) {
+                    // Starts over: the window is reported again as inserts, which the server dedupes
+                    AppLog.e(TAG, "Discarding call change feed: " + e.getMessage());
+                }
+            }
+        }
+        return feed;
+    }
+}
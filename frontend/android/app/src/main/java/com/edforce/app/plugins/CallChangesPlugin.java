@@ -0,0 +1,106 @@
+package com.edforce.app.plugins;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+
+import androidx.core.app.ActivityCompat;
+
+import com.edforce.telephony.CallChangeFeed;
+import com.edforce.telephony.CallPayloads;
+import com.edforce.telephony.LeadNumberIndex;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONException;
+
+/**
+ * Change-feed sync of call log edits and deletes; see {@link CallChangeStore}.
+ *
+ * The page calls getChanges(), sends the changes to POST /calls/device-changes
+ * and then commit({watermark}); until then the same changes come back.
+ */
+@CapacitorPlugin(name = "CallChanges")
+public class CallChangesPlugin extends Plugin {
+    private static final String TAG = "CallChangesPlugin";
+
+    /**
+     * Resolves {supported, changes, watermark}. Inserts of non-lead numbers are
+     * left out unless leadsOnly is false; updates and deletes always pass, the
+     * server ignores ids it does not have. Under memory pressure the scan is
+     * deferred: {deferred: true} with no changes and no watermark.
+     */
+    @PluginMethod
+    public void getChanges(PluginCall call) {
+        boolean traced = Tracing.begin("CallChanges.getChanges");
+        try {
+            JSObject result = new JSObject();
+            result.put("supported", CallChangeStore.isSupported());
+            if (!CallChangeStore.isSupported()) {
+                result.put("changes", new JSArray());
+                call.resolve(result);
+                return;
+            }
+            if (ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+                call.reject("READ_CALL_LOG permission not granted");
+                return;
+            }
+            if (!MemoryPressure.allowsBulkWork()) {
+                AppLog.w(TAG, "Deferring getChanges under memory pressure");
+                result.put("changes", new JSArray());
+                result.put("deferred", true);
+                call.resolve(result);
+                return;
+            }
+
+            LeadNumberIndex leadFilter = call.getBoolean("leadsOnly", true)
+                    ? LeadIndexStore.getInstance(getContext()).syncFilter()
+                    : null;
+            CallChangeFeed.Scan scan = CallChangeStore.getInstance(getContext()).scan(getContext().getContentResolver());
+            StringBuilder json = new StringBuilder(64 + scan.getChanges().size() * 80).append('[');
+            int count = 0;
+            for (CallChangeFeed.Change change : scan.getChanges()) {
+                if (change.getOp() == CallChangeFeed.OP_INSERT && leadFilter != null
+                        && !leadFilter.containsNumber(change.getNumber())) {
+                    continue;
+                }
+                if (count++ > 0) {
+                    json.append(',');
+                }
+                CallPayloads.appendCallChange(json, change);
+            }
+            result.put("changes", new JSArray(json.append(']').toString()));
+            result.put("watermark", scan.getWatermark());
+            call.resolve(result);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Failed to encode call changes: " + e.getMessage());
+            call.reject("Failed to encode call changes: " + e.getMessage());
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Marks the changes of the last getChanges() as delivered: {watermark}.
+     */
+    @PluginMethod
+    public void commit(PluginCall call) {
+        Long watermark = call.getLong("watermark");
+        if (watermark == null) {
+            call.reject("watermark is required");
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("committed", CallChangeStore.getInstance(getContext()).commit(watermark));
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        CallChangeStore.getInstance(getContext()).clear();
+        call.resolve();
+    }
+}
@@ -0,0 +1,92 @@
+package com.edforce.app.plugins;
+
+import android.Manifest;
+import android.content.pm.PackageManager;
+import android.util.Log;
+import androidx.core.app.ActivityCompat;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+@CapacitorPlugin(name = "CallHistory")
+public class CallHistoryPlugin extends Plugin {
+    private static final String TAG = "CallHistoryPlugin";
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 200;
+
+    /**
+     * One page of a number's calls, newest first, from the on-device history.
+     * Works offline; with refresh: true, rows added to the call log since the
+     * last catch-up are stored first.
+     */
+    @PluginMethod
+    public void getHistory(PluginCall call) {
+        String phoneNumber = call.getString("phoneNumber");
+        int offset = Math.max(0, call.getInt("offset", 0));
+        int limit = Math.min(MAX_LIMIT, Math.max(0, call.getInt("limit", DEFAULT_LIMIT)));
+        if (phoneNumber == null || phoneNumber.isEmpty()) {
+            call.reject("Phone number is required");
+            return;
+        }
+
+        CallHistoryStore store = CallHistoryStore.getInstance(getContext());
+        if (call.getBoolean("refresh", false)) {
+            catchUp(store);
+        }
+
+        JSArray calls = new JSArray();
+        store.page(phoneNumber, offset, limit, (id, duration, date, type) -> {
+            JSObject item = new JSObject();
+            item.put("id", id);
+            item.put("date", date);
+            item.put("duration", duration);
+            item.put("type", type);
+            calls.put(item);
+        });
+
+        JSObject result = new JSObject();
+        result.put("calls", calls);
+        result.put("total", store.countFor(phoneNumber));
+        result.put("offset", offset);
+        call.resolve(result);
+    }
+
+    /**
+     * Stores call log rows added since the last catch-up.
+     */
+    @PluginMethod
+    public void refresh(PluginCall call) {
+        CallHistoryStore store = CallHistoryStore.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("added", catchUp(store));
+        result.put("size", store.size());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        CallHistoryStore.getInstance(getContext()).clear();
+        call.resolve();
+    }
+
+    private int catchUp(CallHistoryStore store) {
+        if (ActivityCompat.checkSelfPermission(getContext(), Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+            return 0;
+        }
+        if (!MemoryPressure.allowsBulkWork()) {
+            // A discarded history file would be rebuilt from the whole call log; serve what is stored
+            return 0;
+        }
+        try {
+            return store.catchUp(getContext().getContentResolver());
+        } catch (Exception e) {
+            // Serve what is already stored
+            Log.e(TAG, "Call history catch-up failed: " + e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.edforce.app.plugins;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.util.Log;
+
+import com.edforce.telephony.CallHistoryLog;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * On-device call history for lead detail screens, kept in a memory-mapped
+ * {@link CallHistoryLog} so a lead's history is available offline without a
+ * CallLog query.
+ *
+ * {@link #catchUp(ContentResolver)} appends only call log rows with an _ID
+ * above the last one stored. Calls older than the retention window are pruned,
+ * at most once per PRUNE_SLACK_DAYS since pruning rewrites the file.
+ */
+public class CallHistoryStore {
+    private static final String TAG = "CallHistoryStore";
+    private static final String FILE_NAME = "call-history.bin";
+    public static final int RETENTION_DAYS = 365;
+    private static final int PRUNE_SLACK_DAYS = 7;
+    private static final long DAY_MS = 86_400_000L;
+
+    private static CallHistoryStore instance;
+
+    private final File file;
+    private CallHistoryLog log;
+
+    /**
+     * Carries a failed append out of the row walk.
+     */
+    private static final class AppendFailedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final long callId;
+
+        AppendFailedException(long callId, IOException cause) {
+            super(cause);
+            this.callId = callId;
+        }
+    }
+
+    private CallHistoryStore(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    public static synchronized CallHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallHistoryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Appends call log rows added since the last catch-up and prunes old calls.
+     *
+     * @return number of new rows stored
+     */
+    public synchronized int catchUp(ContentResolver resolver) {
+        CallHistoryLog history = log();
+        if (history == null) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - RETENTION_DAYS * DAY_MS;
+        int[] stored = new int[1];
+        try {
+            CallLogQueries.forEachAfterId(resolver, history.getLastCallId(), cutoff,
+                    (id, duration, date, type, number) -> {
+                        try {
+                            history.append(id, duration, date, type, number);
+                        } catch (IOException e) {
+                            throw new AppendFailedException(id, e);
+                        }
+                        stored[0]++;
+                    });
+        } catch (AppendFailedException e) {
+            // Growing the mapping failed. The walk stops here so the last stored
+            // _ID stays below this row and the next catch-up retries it.
+            Log.e(TAG, "Failed to append call " + e.callId + ": " + e.getCause().getMessage());
+        }
+        int rows = stored[0];
+        long first = history.getFirstDate();
+        if (first >= 0 && first < cutoff - PRUNE_SLACK_DAYS * DAY_MS) {
+            try {
+                int dropped = history.prune(cutoff);
+                Log.d(TAG, "Pruned " + dropped + " calls older than " + RETENTION_DAYS + " days");
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to prune call history: " + e.getMessage());
+                closeQuietly();
+            }
+        }
+        if (rows > 0) {
+            Log.d(TAG, "Stored " + rows + " new call log rows");
+        }
+        return rows;
+    }
+
+    /**
+     * Visits one page of a number's calls, newest first.
+     *
+     * @return number of rows visited
+     */
+    public synchronized int page(String phoneNumber, int offset, int limit, CallHistoryLog.Row row) {
+        CallHistoryLog history = log();
+        return history == null ? 0 : history.page(phoneNumber, offset, limit, row);
+    }
+
+    public synchronized int countFor(String phoneNumber) {
+        CallHistoryLog history = log();
+        return history == null ? 0 : history.countFor(phoneNumber);
+    }
+
+    public synchronized int size() {
+        CallHistoryLog history = log();
+        return history == null ? 0 : history.size();
+    }
+
+    /**
+     * Unmaps the file and drops the per-number index; both are rebuilt on next use.
+     */
+    public synchronized void release() {
+        closeQuietly();
+    }
+
+    public synchronized void clear() {
+        closeQuietly();
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    private CallHistoryLog log() {
+        if (log == null) {
+            try {
+                log = CallHistoryLog.open(file);
+            } catch (IOException e) {
+                // Rebuilt from the call log on the next catch-up
+                Log.e(TAG, "Discarding call history: " + e.getMessage());
+                if (!file.delete()) {
+                    return null;
+                }
+                try {
+                    log = CallHistoryLog.open(file);
+                } catch (IOException again) {
+                    Log.e(TAG, "Call history unavailable: " + again.getMessage());
+                    return null;
+                }
+            }
+        }
+        return log;
+    }
+
+    private void closeQuietly() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            log = null;
+        }
+    }
+}
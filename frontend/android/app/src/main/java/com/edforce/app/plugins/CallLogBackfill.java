@@ -0,0 +1,326 @@
+package com.edforce.app.plugins;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.edforce.telephony.BackfillPlan;
+import com.edforce.telephony.CallBatchEncoder;
+import com.edforce.telephony.LeadNumberIndex;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Historical call log backfill for a new or reinstalled device.
+ *
+ * The window is split into a {@link BackfillPlan} of time shards. A small
+ * fixed pool of background-priority workers claims shards newest first and
+ * reads each in keyset pages on _ID, so no query returns more than PAGE_ROWS
+ * rows. Every page is encoded as a compact batch and uploaded natively to
+ * /calls/batch-sync-compact; only then is the shard's cursor advanced and the
+ * plan saved, so after process death start() resumes from the last uploaded
+ * page. The backend skips calls it already has, so a page sent twice is
+ * harmless.
+ *
+ * Workers yield to live calls: they wait while a call is ringing or active,
+ * for a short grace period after it ends (the call log lookup runs then), and
+ * while {@link MemoryPressure} defers bulk work. They also pause between
+ * pages.
+ */
+public class CallLogBackfill {
+    private static final String TAG = "CallLogBackfill";
+    private static final String FILE_NAME = "call-backfill.bin";
+    private static final String CONTENT_TYPE = "application/x-call-batch";
+    public static final int DEFAULT_DAYS = 180;
+    public static final int DEFAULT_SHARD_DAYS = 15;
+    public static final int MAX_PARALLELISM = 3;
+    private static final long DAY_MS = 86_400_000L;
+    private static final int PAGE_ROWS = 500;
+    private static final long PAGE_PAUSE_MS = 250;
+    private static final long QUIET_POLL_MS = 2000;
+    private static final long CALL_GRACE_MS = 10_000;
+    private static final int MAX_FAILURES = 5;
+
+    /**
+     * Notified from worker threads after every uploaded page and when the job stops.
+     */
+    public interface Listener {
+        void onProgress(CallLogBackfill backfill);
+    }
+
+    private static CallLogBackfill instance;
+
+    // Live call gate, set from the call state listener
+    private static volatile boolean callActive;
+    private static volatile long callQuietAt;
+
+    private final Context context;
+    private final File file;
+    private final AtomicInteger running = new AtomicInteger();
+    private BackfillPlan plan;
+    private volatile boolean cancelled;
+    private volatile String error;
+    private int failures;
+    private Listener listener;
+
+    private CallLogBackfill(Context context) {
+        this.context = context;
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    public static synchronized CallLogBackfill getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallLogBackfill(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Call state hook: workers hold off while a call rings or is active.
+     */
+    public static void setCallActive(boolean active) {
+        callActive = active;
+        if (!active) {
+            callQuietAt = SystemClock.elapsedRealtime() + CALL_GRACE_MS;
+        }
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts or resumes the backfill. An unfinished saved plan is resumed as is;
+     * a finished one is kept unless restart is set.
+     *
+     * @return false if a backfill is already running or already complete
+     */
+    public synchronized boolean start(String baseUrl, String token, int daysBack, int shardDays, int parallelism,
+                                      boolean restart) {
+        if (isRunning()) {
+            return false;
+        }
+        BackfillPlan current = restart ? null : plan();
+        if (current == null) {
+            long to = System.currentTimeMillis();
+            current = BackfillPlan.create(to - daysBack * DAY_MS, to, Math.max(1, shardDays) * DAY_MS);
+            plan = current;
+            save();
+        } else if (current.isComplete()) {
+            return false;
+        }
+
+        String url = BackendHttp.trimTrailingSlash(baseUrl) + "/calls/batch-sync-compact";
+        int threads = Math.max(1, Math.min(parallelism, MAX_PARALLELISM));
+        cancelled = false;
+        error = null;
+        failures = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+        running.set(threads);
+        BackfillPlan target = current;
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> work(target, url, token));
+        }
+        pool.shutdown();
+        AppLog.i(TAG, "Backfill running on " + threads + " workers, " + target.getDoneCount() + "/" + target.size() + " shards done");
+        return true;
+    }
+
+    /**
+     * Stops after the pages in flight; progress so far is kept.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isRunning() {
+        return running.get() > 0;
+    }
+
+    /**
+     * Saved plan, or null if no backfill was ever started.
+     */
+    public synchronized BackfillPlan plan() {
+        if (plan == null && file.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                plan = BackfillPlan.readFrom(in);
+            } catch (IOException e) {
+                AppLog.e(TAG, "Discarding backfill progress: " + e.getMessage());
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Why the last run stopped early, or null.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public synchronized void clear() {
+        cancelled = true;
+        plan = null;
+        if (file.exists() && !file.delete()) {
+            AppLog.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    private void work(BackfillPlan target, String url, String token) {
+        try {
+            BackfillPlan.Shard shard;
+            while (!cancelled && (shard = target.claim()) != null) {
+                try {
+                    backfillShard(target, shard, url, token);
+                } finally {
+                    // No-op when the shard was completed
+                    target.release(shard);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped(target);
+        }
+    }
+
+    private void backfillShard(BackfillPlan target, BackfillPlan.Shard shard, String url, String token)
+            throws InterruptedException {
+        ContentResolver resolver = context.getContentResolver();
+        while (!cancelled) {
+            awaitQuiet();
+            if (cancelled) {
+                return;
+            }
+            LeadNumberIndex leadFilter = LeadIndexStore.getInstance(context).syncFilter();
+            CallBatchEncoder batch = new CallBatchEncoder();
+            long[] lastId = {target.getAfterId(shard)};
+            int rows = CallLogQueries.forEachRow(
+                    CallLogQueries.queryPage(resolver, shard.getStart(), shard.getEnd(), lastId[0], PAGE_ROWS),
+                    (id, duration, date, type, number) -> {
+                        lastId[0] = id;
+                        if (leadFilter == null || leadFilter.containsNumber(number)) {
+                            batch.add(id, duration, date, type, number);
+                        }
+                    });
+            if (batch.getRowCount() > 0 && !upload(url, token, batch)) {
+                return;
+            }
+            target.advance(shard, lastId[0], batch.getRowCount());
+            if (rows < PAGE_ROWS) {
+                target.complete(shard);
+            }
+            save();
+            notifyListener();
+            if (rows < PAGE_ROWS) {
+                return;
+            }
+            Thread.sleep(PAGE_PAUSE_MS);
+        }
+    }
+
+    /**
+     * @return false if the page was not uploaded; the shard is retried later,
+     * or the job is stopped after repeated or fatal failures
+     */
+    private boolean upload(String url, String token, CallBatchEncoder batch) throws InterruptedException {
+        try {
+            JSONObject result = new JSONObject(BackendHttp.post(url, token, CONTENT_TYPE, batch.toByteArray()));
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "Uploaded " + batch.getRowCount() + " calls, " + result.optInt("synced") + " new");
+            }
+            synchronized (this) {
+                failures = 0;
+            }
+            return true;
+        } catch (BackendHttp.HttpStatusException e) {
+            if (e.status == HttpURLConnection.HTTP_UNAUTHORIZED || e.status == HttpURLConnection.HTTP_FORBIDDEN) {
+                stop("Not signed in");
+                return false;
+            }
+            return failed(e);
+        } catch (IOException | JSONException e) {
+            return failed(e);
+        }
+    }
+
+    private boolean failed(Exception e) throws InterruptedException {
+        int count;
+        synchronized (this) {
+            count = ++failures;
+        }
+        AppLog.w(TAG, "Backfill upload failed (" + count + "): " + e.getMessage());
+        if (count >= MAX_FAILURES) {
+            stop("Upload failed: " + e.getMessage());
+        } else {
+            // Back off; another worker may pick the shard up in the meantime
+            Thread.sleep(count * QUIET_POLL_MS);
+        }
+        return false;
+    }
+
+    private void stop(String reason) {
+        error = reason;
+        cancelled = true;
+    }
+
+    private void awaitQuiet() throws InterruptedException {
+        while (!cancelled && (callActive || SystemClock.elapsedRealtime() < callQuietAt
+                || !MemoryPressure.allowsBulkWork())) {
+            Thread.sleep(QUIET_POLL_MS);
+        }
+    }
+
+    private void stopped(BackfillPlan target) {
+        if (running.decrementAndGet() > 0) {
+            return;
+        }
+        if (target.isComplete()) {
+            AppLog.i(TAG, "Backfill complete: " + target.getRows() + " calls");
+        } else {
+            AppLog.i(TAG, "Backfill stopped at " + target.getDoneCount() + "/" + target.size() + " shards");
+        }
+        notifyListener();
+    }
+
+    private synchronized void save() {
+        BackfillPlan current = plan;
+        if (current == null) {
+            return;
+        }
+        try {
+            AtomicFiles.write(file, current::writeTo);
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save backfill progress: " + e.getMessage());
+        }
+    }
+
+    private void notifyListener() {
+        Listener current;
+        synchronized (this) {
+            current = listener;
+        }
+        if (current != null) {
+            current.onProgress(this);
+        }
+    }
+}
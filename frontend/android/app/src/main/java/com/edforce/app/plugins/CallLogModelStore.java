@@ -0,0 +1,169 @@
+package com.edforce.app.plugins;
+
+import android.Manifest;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.Log;
+import androidx.core.app.ActivityCompat;
+
+import com.edforce.telephony.CallLogModel;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * A {@link CallLogModel} saved in filesDir and kept current from the call log.
+ *
+ * Each {@link #catchUp(ContentResolver)} reads only call log rows with an _ID
+ * above the last one the model counted, so keeping it current costs one small
+ * indexed query; the first one reads the whole call log once.
+ * {@link #catchUpAll} feeds several stores from a single query, which is how
+ * the sync keeps them all warm. A released model is read back from its file
+ * on next use.
+ */
+public abstract class CallLogModelStore<M extends CallLogModel> {
+    private final String tag;
+    private final String label;
+    private final File file;
+    private M model;
+
+    /**
+     * @param label what the model holds, for the log, e.g. "talk time buckets"
+     */
+    CallLogModelStore(Context context, String fileName, String tag, String label) {
+        this.file = new File(context.getFilesDir(), fileName);
+        this.tag = tag;
+        this.label = label;
+    }
+
+    abstract M newModel();
+
+    /**
+     * Rows dated before this are not read; 0 for the whole call log.
+     */
+    long cutoff() {
+        return 0L;
+    }
+
+    /**
+     * Counts call log rows added since the last catch-up and saves the model if any were.
+     *
+     * @return number of new rows read
+     */
+    public synchronized int catchUp(ContentResolver resolver) {
+        M current = model();
+        int rows = CallLogQueries.forEachAfterId(resolver, current.getLastCallId(), cutoff(), current::add);
+        if (rows > 0) {
+            save();
+            Log.d(tag, "Counted " + rows + " new call log rows");
+        }
+        return rows;
+    }
+
+    /**
+     * {@link #catchUp(ContentResolver)} for a plugin about to read the model:
+     * skipped without READ_CALL_LOG or under memory pressure, where a model
+     * just released may have to be rebuilt from the whole call log. A failure
+     * or a skip leaves what is already counted to be served.
+     */
+    public void catchUpIfPermitted(Context context) {
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED
+                || !MemoryPressure.allowsBulkWork()) {
+            return;
+        }
+        try {
+            catchUp(context.getContentResolver());
+        } catch (Exception e) {
+            Log.e(tag, "Catch-up of " + label + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Catches up every store from one query starting at the lowest watermark;
+     * each model skips the rows it has already counted. Takes the stores' locks
+     * in argument order, so callers pass them in a fixed order.
+     *
+     * @return number of rows read
+     */
+    public static int catchUpAll(ContentResolver resolver, CallLogModelStore<?>... stores) {
+        return catchUpLocked(resolver, stores, 0);
+    }
+
+    private static int catchUpLocked(ContentResolver resolver, CallLogModelStore<?>[] stores, int locked) {
+        if (locked < stores.length) {
+            synchronized (stores[locked]) {
+                return catchUpLocked(resolver, stores, locked + 1);
+            }
+        }
+        if (stores.length == 0) {
+            return 0;
+        }
+        CallLogModel[] models = new CallLogModel[stores.length];
+        long[] afterIds = new long[stores.length];
+        long afterId = Long.MAX_VALUE;
+        long cutoff = Long.MAX_VALUE;
+        for (int i = 0; i < stores.length; i++) {
+            models[i] = stores[i].model();
+            afterIds[i] = models[i].getLastCallId();
+            afterId = Math.min(afterId, afterIds[i]);
+            cutoff = Math.min(cutoff, stores[i].cutoff());
+        }
+        int rows = CallLogQueries.forEachAfterId(resolver, afterId, cutoff, (id, duration, date, type, number) -> {
+            for (CallLogModel current : models) {
+                current.add(id, duration, date, type, number);
+            }
+        });
+        for (int i = 0; i < stores.length; i++) {
+            if (models[i].getLastCallId() > afterIds[i]) {
+                stores[i].save();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Drops the in-memory model; it is read back from the saved file on next use.
+     */
+    public synchronized void release() {
+        model = null;
+    }
+
+    public synchronized void clear() {
+        model = newModel();
+        if (file.exists() && !file.delete()) {
+            Log.w(tag, "Could not delete " + file);
+        }
+    }
+
+    /**
+     * The model, loaded on first use. Callers hold the store's lock.
+     */
+    final M model() {
+        if (model == null) {
+            model = newModel();
+            if (file.exists()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    model.readFrom(in);
+                } catch (IOException e) {
+                    // Rebuilt from the call log on the next catch-up
+                    Log.e(tag, "Discarding " + label + ": " + e.getMessage());
+                    model = newModel();
+                }
+            }
+        }
+        return model;
+    }
+
+    private void save() {
+        M current = model;
+        try {
+            AtomicFiles.write(file, current::writeTo);
+        } catch (IOException e) {
+            Log.e(tag, "Failed to save " + label + ": " + e.getMessage());
+        }
+    }
+}
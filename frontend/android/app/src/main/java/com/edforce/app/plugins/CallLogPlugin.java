@@ -1,6 +1,7 @@
 package com.edforce.app.plugins;
 
 import android.Manifest;
+import android.content.ContentResolver;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
 import android.provider.CallLog;
@@ -12,6 +13,8 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
+import com.edforce.telephony.CallTypes;
+import com.edforce.telephony.PhoneNumbers;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -29,158 +32,181 @@ public class CallLogPlugin extends Plugin {
 
     public CallLogPlugin() {
         super();
-        android.util.Log.d(TAG, "CallLogPlugin constructor called - plugin is being loaded!");
+        AppLog.d(TAG, "CallLogPlugin constructor called - plugin is being loaded!");
     }
 
     @Override
     public void load() {
         super.load();
-        android.util.Log.d(TAG, "CallLogPlugin loaded successfully!");
+        AppLog.d(TAG, "CallLogPlugin loaded successfully!");
     }
 
     @PluginMethod
     public void checkPermission(PluginCall call) {
-        if (ActivityCompat.checkSelfPermission(getContext(),
-                Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
-            call.resolve();
-        } else {
-            call.reject("Permission not granted");
-        }
+        Diagnostics.timed("CallLog.checkPermission", () -> {
+            if (ActivityCompat.checkSelfPermission(getContext(),
+                    Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
+                call.resolve();
+            } else {
+                call.reject("Permission not granted");
+            }
+        });
     }
 
     @PluginMethod
     public void requestPermission(PluginCall call) {
-        android.util.Log.d("CallLogPlugin", "requestPermission called");
-
-        if (ActivityCompat.checkSelfPermission(getContext(),
-                Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
-            android.util.Log.d("CallLogPlugin", "Requesting READ_CALL_LOG permission...");
-            requestPermissionForAlias("callLog", call, "handlePermissionResult");
-        } else {
-            android.util.Log.d("CallLogPlugin", "READ_CALL_LOG permission already granted");
-            JSObject result = new JSObject();
-            result.put("granted", true);
-            call.resolve(result);
-        }
+        Diagnostics.timed("CallLog.requestPermission", () -> {
+            AppLog.d("CallLogPlugin", "requestPermission called");
+
+            if (ActivityCompat.checkSelfPermission(getContext(),
+                    Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+                AppLog.d("CallLogPlugin", "Requesting READ_CALL_LOG permission...");
+                requestPermissionForAlias("callLog", call, "handlePermissionResult");
+            } else {
+                AppLog.d("CallLogPlugin", "READ_CALL_LOG permission already granted");
+                JSObject result = new JSObject();
+                result.put("granted", true);
+                call.resolve(result);
+            }
+        });
     }
 
     @PluginMethod
     public void handlePermissionResult(PluginCall call) {
-        android.util.Log.d("CallLogPlugin", "handlePermissionResult callback triggered");
-
-        if (ActivityCompat.checkSelfPermission(getContext(),
-                Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
-            android.util.Log.d("CallLogPlugin", "Permission GRANTED by user");
-            JSObject result = new JSObject();
-            result.put("granted", true);
-            call.resolve(result);
-        } else {
-            android.util.Log.d("CallLogPlugin", "Permission DENIED by user");
-            call.reject("Permission denied by user");
-        }
+        Diagnostics.timed("CallLog.handlePermissionResult", () -> {
+            AppLog.d("CallLogPlugin", "handlePermissionResult callback triggered");
+
+            if (ActivityCompat.checkSelfPermission(getContext(),
+                    Manifest.permission.READ_CALL_LOG) == PackageManager.PERMISSION_GRANTED) {
+                AppLog.d("CallLogPlugin", "Permission GRANTED by user");
+                AppLog.event(AppLog.EV_PERMISSION, 1L, 0L);
+                JSObject result = new JSObject();
+                result.put("granted", true);
+                call.resolve(result);
+            } else {
+                AppLog.d("CallLogPlugin", "Permission DENIED by user");
+                AppLog.event(AppLog.EV_PERMISSION, 0L, 0L);
+                call.reject("Permission denied by user");
+            }
+        });
     }
 
     @PluginMethod
     public void getRecentCalls(PluginCall call) {
-        String phoneNumber = call.getString("phoneNumber");
-        Long sinceTimestamp = call.getLong("sinceTimestamp");
+        Diagnostics.timed("CallLog.getRecentCalls", () -> {
+            String phoneNumber = call.getString("phoneNumber");
+            Long sinceTimestamp = call.getLong("sinceTimestamp");
 
-        if (phoneNumber == null || sinceTimestamp == null) {
-            call.reject("Missing required parameters: phoneNumber and sinceTimestamp");
-            return;
-        }
+            if (phoneNumber == null || sinceTimestamp == null) {
+                call.reject("Missing required parameters: phoneNumber and sinceTimestamp");
+                return;
+            }
 
-        if (ActivityCompat.checkSelfPermission(getContext(),
-                Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
-            call.reject("Permission denied. Call requestPermission first.");
-            return;
-        }
+            if (ActivityCompat.checkSelfPermission(getContext(),
+                    Manifest.permission.READ_CALL_LOG) != PackageManager.PERMISSION_GRANTED) {
+                call.reject("Permission denied. Call requestPermission first.");
+                return;
+            }
+
+            try {
+                JSONArray callsArray = findRecentCalls(getContext().getContentResolver(), phoneNumber, sinceTimestamp);
+
+                JSObject result = new JSObject();
+                result.put("calls", callsArray.toString());
+                call.resolve(result);
 
+            } catch (JSONException e) {
+                call.reject("Error reading call log", e);
+            } catch (Exception e) {
+                call.reject("Unexpected error", e);
+            }
+        });
+    }
+
+    /**
+     * The ten most recent calls since the timestamp whose number matches phoneNumber.
+     */
+    public static JSONArray findRecentCalls(ContentResolver resolver, String phoneNumber, long sinceTimestamp) throws JSONException {
+        JSONArray callsArray = new JSONArray();
+        String[] projection = new String[] {
+            CallLog.Calls._ID,
+            CallLog.Calls.NUMBER,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.DATE,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.CACHED_NAME
+        };
+
+        String selection = CallLog.Calls.DATE + " >= ?";
+        String[] selectionArgs = new String[] {
+            String.valueOf(sinceTimestamp)
+        };
+
+        boolean queryTraced = Tracing.begin("CallLog.query");
+        Diagnostics.count(Diagnostics.QUERIES);
+        Cursor cursor;
         try {
-            JSONArray callsArray = new JSONArray();
-            String normalizedNumber = phoneNumber.replaceAll("[^0-9+]", "");
-            String[] projection = new String[] {
-                CallLog.Calls._ID,
-                CallLog.Calls.NUMBER,
-                CallLog.Calls.TYPE,
-                CallLog.Calls.DATE,
-                CallLog.Calls.DURATION,
-                CallLog.Calls.CACHED_NAME
-            };
-
-            String selection = CallLog.Calls.DATE + " >= ?";
-            String[] selectionArgs = new String[] {
-                String.valueOf(sinceTimestamp)
-            };
-
-            Cursor cursor = getContext().getContentResolver().query(
+            cursor = resolver.query(
                 CallLog.Calls.CONTENT_URI,
                 projection,
                 selection,
                 selectionArgs,
                 CallLog.Calls.DATE + " DESC LIMIT 10"
             );
+        } finally {
+            Tracing.end(queryTraced);
+        }
 
-            android.util.Log.d("CallLogPlugin", "Querying calls since: " + sinceTimestamp + " for number: " + phoneNumber);
-
-            if (cursor != null) {
-                android.util.Log.d("CallLogPlugin", "Found " + cursor.getCount() + " total calls");
-
-                while (cursor.moveToNext()) {
-                    String number = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls.NUMBER));
-                    String normalizedCallNumber = number != null ? number.replaceAll("[^0-9+]", "") : "";
-
-                    if (normalizedCallNumber.contains(normalizedNumber) ||
-                        normalizedNumber.contains(normalizedCallNumber)) {
-
-                        JSONObject callObj = new JSONObject();
-
-                        String id = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls._ID));
-                        int type = cursor.getInt(cursor.getColumnIndexOrThrow(CallLog.Calls.TYPE));
-                        long date = cursor.getLong(cursor.getColumnIndexOrThrow(CallLog.Calls.DATE));
-                        int duration = cursor.getInt(cursor.getColumnIndexOrThrow(CallLog.Calls.DURATION));
-                        String name = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls.CACHED_NAME));
-
-                        callObj.put("id", id);
-                        callObj.put("number", number);
-                        callObj.put("type", getCallTypeString(type));
-                        callObj.put("date", date);
-                        callObj.put("duration", duration);
-                        callObj.put("name", name);
+        if (AppLog.debug()) {
+            AppLog.d(TAG, "Querying calls since: " + sinceTimestamp + " for number: " + phoneNumber);
+        }
 
-                        android.util.Log.d("CallLogPlugin", "Matched call: ID=" + id + ", Duration=" + duration + "s, Type=" + getCallTypeString(type));
+        if (cursor == null) {
+            return callsArray;
+        }
+        if (AppLog.debug()) {
+            AppLog.d(TAG, "Found " + cursor.getCount() + " total calls");
+        }
 
-                        callsArray.put(callObj);
+        boolean rowsTraced = Tracing.begin("CallLog.rows");
+        int rows = 0;
+        try {
+            while (cursor.moveToNext()) {
+                rows++;
+                String number = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls.NUMBER));
+
+                if (PhoneNumbers.matches(number, phoneNumber)) {
+
+                    JSONObject callObj = new JSONObject();
+
+                    String id = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls._ID));
+                    int type = cursor.getInt(cursor.getColumnIndexOrThrow(CallLog.Calls.TYPE));
+                    long date = cursor.getLong(cursor.getColumnIndexOrThrow(CallLog.Calls.DATE));
+                    int duration = cursor.getInt(cursor.getColumnIndexOrThrow(CallLog.Calls.DURATION));
+                    String name = cursor.getString(cursor.getColumnIndexOrThrow(CallLog.Calls.CACHED_NAME));
+
+                    callObj.put("id", id);
+                    callObj.put("number", number);
+                    callObj.put("type", CallTypes.label(type));
+                    callObj.put("date", date);
+                    callObj.put("duration", duration);
+                    callObj.put("name", name);
+
+                    AppLog.event(AppLog.EV_CALL_LOG_MATCH, Long.parseLong(id), duration);
+                    if (AppLog.debug()) {
+                        AppLog.d(TAG, "Matched call: ID=" + id + ", Duration=" + duration + "s, Type=" + CallTypes.label(type));
                     }
+
+                    callsArray.put(callObj);
                 }
-                cursor.close();
             }
-
-            JSObject result = new JSObject();
-            result.put("calls", callsArray.toString());
-            call.resolve(result);
-
-        } catch (JSONException e) {
-            call.reject("Error reading call log", e);
-        } catch (Exception e) {
-            call.reject("Unexpected error", e);
-        }
-    }
-
-    private String getCallTypeString(int type) {
-        switch (type) {
-            case CallLog.Calls.INCOMING_TYPE:
-                return "incoming";
-            case CallLog.Calls.OUTGOING_TYPE:
-                return "outgoing";
-            case CallLog.Calls.MISSED_TYPE:
-                return "missed";
-            case CallLog.Calls.VOICEMAIL_TYPE:
-                return "voicemail";
-            case CallLog.Calls.REJECTED_TYPE:
-                return "rejected";
-            default:
-                return "unknown";
+        } finally {
+            cursor.close();
+            Diagnostics.count(Diagnostics.ROWS_SCANNED, rows);
+            Tracing.counter("calllog.rows", rows);
+            Tracing.end(rowsTraced);
         }
+        AppLog.event(AppLog.EV_CALL_LOG_QUERY, rows, callsArray.length());
+        return callsArray;
     }
 }
@@ -0,0 +1,210 @@
+package com.edforce.app.plugins;
+
+import android.content.ContentResolver;
+import android.database.Cursor;
+import android.os.Build;
+import android.os.Bundle;
+import android.provider.CallLog;
+
+import com.edforce.telephony.LeadNumberIndex;
+
+/**
+ * Shared CallLog.Calls queries used by the sync paths.
+ * Column indexes are resolved once per cursor rather than once per row.
+ */
+public final class CallLogQueries {
+    public static final String[] SYNC_PROJECTION = new String[]{
+            CallLog.Calls._ID,
+            CallLog.Calls.DURATION,
+            CallLog.Calls.DATE,
+            CallLog.Calls.TYPE,
+            CallLog.Calls.NUMBER
+    };
+
+    /**
+     * Receives one call log row at a time.
+     */
+    public interface RowHandler {
+        void onRow(long id, int duration, long date, int type, String number);
+    }
+
+    private CallLogQueries() {
+    }
+
+    /**
+     * Wraps a handler so rows whose number is not a known lead never reach it.
+     * A null index lets every row through.
+     */
+    public static RowHandler leadsOnly(LeadNumberIndex index, RowHandler handler) {
+        if (index == null) {
+            return handler;
+        }
+        return (id, duration, date, type, number) -> {
+            if (index.containsNumber(number)) {
+                handler.onRow(id, duration, date, type, number);
+            }
+        };
+    }
+
+    /**
+     * All calls strictly newer than the cutoff, newest first. May return null.
+     */
+    public static Cursor querySince(ContentResolver resolver, long cutoff) {
+        boolean traced = Tracing.begin("CallLogQueries.querySince");
+        Diagnostics.count(Diagnostics.QUERIES);
+        try {
+            return resolver.query(
+                    CallLog.Calls.CONTENT_URI,
+                    SYNC_PROJECTION,
+                    CallLog.Calls.DATE + ">?",
+                    new String[]{String.valueOf(cutoff)},
+                    CallLog.Calls.DATE + " DESC"
+            );
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Calls with an _ID above afterId that are also newer than the cutoff, in
+     * _ID order. Lets incremental consumers pick up only rows they have not seen.
+     * May return null.
+     */
+    public static Cursor queryAfterId(ContentResolver resolver, long afterId, long cutoff) {
+        boolean traced = Tracing.begin("CallLogQueries.queryAfterId");
+        Diagnostics.count(Diagnostics.QUERIES);
+        try {
+            return resolver.query(
+                    CallLog.Calls.CONTENT_URI,
+                    SYNC_PROJECTION,
+                    CallLog.Calls._ID + ">? AND " + CallLog.Calls.DATE + ">?",
+                    new String[]{String.valueOf(afterId), String.valueOf(cutoff)},
+                    CallLog.Calls._ID + " ASC"
+            );
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * One keyset page of calls dated in [start, end) with an _ID above afterId,
+     * in _ID order, at most limit rows. May return null.
+     */
+    public static Cursor queryPage(ContentResolver resolver, long start, long end, long afterId, int limit) {
+        boolean traced = Tracing.begin("CallLogQueries.queryPage");
+        Diagnostics.count(Diagnostics.QUERIES);
+        try {
+            String selection = CallLog.Calls.DATE + ">=? AND " + CallLog.Calls.DATE + "<? AND " + CallLog.Calls._ID + ">?";
+            String[] args = {String.valueOf(start), String.valueOf(end), String.valueOf(afterId)};
+            String order = CallLog.Calls._ID + " ASC";
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                Bundle query = new Bundle();
+                query.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection);
+                query.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, args);
+                query.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, order);
+                query.putInt(ContentResolver.QUERY_ARG_LIMIT, limit);
+                return resolver.query(CallLog.Calls.CONTENT_URI, SYNC_PROJECTION, query, null);
+            }
+            // Older providers take the limit as part of the sort order
+            return resolver.query(CallLog.Calls.CONTENT_URI, SYNC_PROJECTION, selection, args, order + " LIMIT " + limit);
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Calls dated at or after windowStart and changed since the LAST_MODIFIED
+     * watermark, oldest change first, with LAST_MODIFIED as an extra sixth
+     * column. API 24+; may return null.
+     */
+    public static Cursor queryModifiedSince(ContentResolver resolver, long watermark, long windowStart) {
+        boolean traced = Tracing.begin("CallLogQueries.queryModifiedSince");
+        Diagnostics.count(Diagnostics.QUERIES);
+        try {
+            String[] projection = new String[SYNC_PROJECTION.length + 1];
+            System.arraycopy(SYNC_PROJECTION, 0, projection, 0, SYNC_PROJECTION.length);
+            projection[SYNC_PROJECTION.length] = CallLog.Calls.LAST_MODIFIED;
+            return resolver.query(
+                    CallLog.Calls.CONTENT_URI,
+                    projection,
+                    CallLog.Calls.LAST_MODIFIED + ">? AND " + CallLog.Calls.DATE + ">=?",
+                    new String[]{String.valueOf(watermark), String.valueOf(windowStart)},
+                    CallLog.Calls.LAST_MODIFIED + " ASC"
+            );
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * _IDs only of calls dated at or after windowStart. May return null.
+     */
+    public static Cursor queryIdsSince(ContentResolver resolver, long windowStart) {
+        boolean traced = Tracing.begin("CallLogQueries.queryIdsSince");
+        Diagnostics.count(Diagnostics.QUERIES);
+        try {
+            return resolver.query(
+                    CallLog.Calls.CONTENT_URI,
+                    new String[]{CallLog.Calls._ID},
+                    CallLog.Calls.DATE + ">=?",
+                    new String[]{String.valueOf(windowStart)},
+                    null
+            );
+        } finally {
+            Tracing.end(traced);
+        }
+    }
+
+    /**
+     * Streams every call newer than the cutoff to the handler, newest first.
+     *
+     * @return number of rows visited
+     */
+    public static int forEachSince(ContentResolver resolver, long cutoff, RowHandler handler) {
+        return forEachRow(querySince(resolver, cutoff), handler);
+    }
+
+    /**
+     * Streams calls above afterId and newer than the cutoff to the handler, oldest _ID first.
+     *
+     * @return number of rows visited
+     */
+    public static int forEachAfterId(ContentResolver resolver, long afterId, long cutoff, RowHandler handler) {
+        return forEachRow(queryAfterId(resolver, afterId, cutoff), handler);
+    }
+
+    /**
+     * Feeds every row of a SYNC_PROJECTION cursor to the handler and closes it.
+     * A null cursor counts as empty. The row count is published as the
+     * calllog.rows trace counter.
+     */
+    public static int forEachRow(Cursor cursor, RowHandler handler) {
+        if (cursor == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean traced = Tracing.begin("CallLogQueries.rows");
+        try {
+            int idIdx = cursor.getColumnIndex(CallLog.Calls._ID);
+            int durationIdx = cursor.getColumnIndex(CallLog.Calls.DURATION);
+            int dateIdx = cursor.getColumnIndex(CallLog.Calls.DATE);
+            int typeIdx = cursor.getColumnIndex(CallLog.Calls.TYPE);
+            int numberIdx = cursor.getColumnIndex(CallLog.Calls.NUMBER);
+            while (cursor.moveToNext()) {
+                handler.onRow(
+                        cursor.getLong(idIdx),
+                        cursor.getInt(durationIdx),
+                        cursor.getLong(dateIdx),
+                        cursor.getInt(typeIdx),
+                        cursor.getString(numberIdx));
+                count++;
+            }
+        } finally {
+            cursor.close();
+            Diagnostics.count(Diagnostics.ROWS_SCANNED, count);
+            Tracing.counter("calllog.rows", count);
+            Tracing.end(traced);
+        }
+        return count;
+    }
+}
@@ -1,16 +1,25 @@
 package com.edforce.app.plugins;
 
 import android.content.Context;
+import android.os.SystemClock;
 import android.telephony.PhoneStateListener;
 import android.telephony.TelephonyManager;
-import android.util.Log;
+import com.edforce.telephony.CallSessionJournal;
+import com.edforce.telephony.DialCorrelator;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Service to monitor phone call state and track call duration.
  * Runs in the background and listens to phone state changes.
+ *
+ * Owns the call session journal: dials are journaled here, and a session left
+ * open by a killed process is resumed on the first state callback if the call
+ * is still OFFHOOK.
  */
 public class CallMonitorService {
     private static final String TAG = "CallMonitorService";
+    private static final String JOURNAL_FILE = "call-session.jnl";
     private static CallMonitorService instance;
 
     private Context context;
@@ -22,11 +31,31 @@ public class CallMonitorService {
     private int lastCallDuration = 0;
     private String lastCalledNumber = null;
     private boolean isCallActive = false;
+    private final DialCorrelator dialCorrelator = new DialCorrelator();
+    private final CallSessionJournal sessionJournal;
+    private CallSessionJournal.Session recoveredSession;
 
     private CallMonitorService(Context context) {
         this.context = context;
         this.telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
         this.phoneStateListener = new CallStateListener();
+        this.sessionJournal = openJournal(context);
+        if (sessionJournal != null) {
+            recoveredSession = sessionJournal.recovered();
+            if (recoveredSession != null) {
+                AppLog.w(TAG, "Recovered open call session: " + recoveredSession);
+            }
+        }
+    }
+
+    private static CallSessionJournal openJournal(Context context) {
+        try {
+            return CallSessionJournal.open(new File(context.getFilesDir(), JOURNAL_FILE));
+        } catch (IOException e) {
+            // Calls still work, they just do not survive the process
+            AppLog.e(TAG, "Could not open call session journal: " + e.getMessage());
+            return null;
+        }
     }
 
     public static synchronized CallMonitorService getInstance(Context context) {
@@ -40,10 +69,10 @@ public class CallMonitorService {
         try {
             if (telephonyManager != null) {
                 telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_CALL_STATE);
-                Log.d(TAG, "Call monitoring started");
+                AppLog.d(TAG, "Call monitoring started");
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error starting call monitoring: " + e.getMessage());
+            AppLog.e(TAG, "Error starting call monitoring: " + e.getMessage());
         }
     }
 
@@ -51,10 +80,10 @@ public class CallMonitorService {
         try {
             if (telephonyManager != null && phoneStateListener != null) {
                 telephonyManager.listen(phoneStateListener, PhoneStateListener.LISTEN_NONE);
-                Log.d(TAG, "Call monitoring stopped");
+                AppLog.d(TAG, "Call monitoring stopped");
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error stopping call monitoring: " + e.getMessage());
+            AppLog.e(TAG, "Error stopping call monitoring: " + e.getMessage());
         }
     }
 
@@ -68,7 +97,40 @@ public class CallMonitorService {
 
     public void setLastCalledNumber(String number) {
         this.lastCalledNumber = number;
-        Log.d(TAG, "Set last called number: " + number);
+        if (AppLog.debug()) {
+            AppLog.d(TAG, "Set last called number: " + number);
+        }
+    }
+
+    /**
+     * Records a call placed from the app and returns the token the resulting
+     * call log row will be matched against.
+     *
+     * @param leadId lead the call is for, or null; journaled so a call that
+     *     outlives the process can still be reported for it
+     */
+    public DialCorrelator.DialToken recordDial(String number, String leadId) {
+        setLastCalledNumber(number);
+        long now = System.currentTimeMillis();
+        DialCorrelator.DialToken token = dialCorrelator.onDial(number, now, SystemClock.elapsedRealtime());
+        CallTraceRecorder.getInstance(context).recordDial(number, now);
+        AppLog.event(AppLog.EV_DIAL, token.getId(), 0L);
+        // Forced to storage before the dialer starts, so the call can be matched after a crash
+        if (sessionJournal != null && !sessionJournal.dialed(token.getId(), number, leadId, now)) {
+            AppLog.w(TAG, "Could not journal dial " + token.getId());
+        }
+        return token;
+    }
+
+    public DialCorrelator getDialCorrelator() {
+        return dialCorrelator;
+    }
+
+    /**
+     * Journal shared with the call state machine; null if it could not be opened.
+     */
+    public CallSessionJournal getSessionJournal() {
+        return sessionJournal;
     }
 
     public boolean isCallActive() {
@@ -79,6 +141,11 @@ public class CallMonitorService {
         @Override
         public void onCallStateChanged(int state, String phoneNumber) {
             super.onCallStateChanged(state, phoneNumber);
+            AppLog.event(AppLog.EV_CALL_STATE, state, 0L);
+            if (recoveredSession != null) {
+                resume(recoveredSession, state);
+                recoveredSession = null;
+            }
 
             switch (state) {
                 case TelephonyManager.CALL_STATE_IDLE:
@@ -86,11 +153,11 @@ public class CallMonitorService {
                         callEndTime = System.currentTimeMillis();
                         lastCallDuration = (int) ((callEndTime - callStartTime) / 1000);
 
-                        Log.d(TAG, "=== CALL ENDED ===");
-                        Log.d(TAG, "Call Duration: " + lastCallDuration + " seconds");
-                        Log.d(TAG, "Called Number: " + lastCalledNumber);
-                        Log.d(TAG, "Start Time: " + callStartTime);
-                        Log.d(TAG, "End Time: " + callEndTime);
+                        AppLog.event(AppLog.EV_CALL_ENDED, lastCallDuration, 0L);
+                        if (AppLog.debug()) {
+                            AppLog.d(TAG, "Call ended: duration=" + lastCallDuration + "s number=" + lastCalledNumber
+                                    + " start=" + callStartTime + " end=" + callEndTime);
+                        }
 
                         isCallActive = false;
                         notifyCallEnded();
@@ -104,22 +171,40 @@ public class CallMonitorService {
                         lastCallDuration = 0;
                         isCallActive = true;
 
-                        Log.d(TAG, "=== CALL STARTED ===");
-                        Log.d(TAG, "Start Time: " + callStartTime);
-                        if (lastCalledNumber != null) {
-                            Log.d(TAG, "Calling: " + lastCalledNumber);
+                        AppLog.event(AppLog.EV_CALL_STARTED, callStartTime, 0L);
+                        if (AppLog.debug()) {
+                            AppLog.d(TAG, "Call started: start=" + callStartTime + " number=" + lastCalledNumber);
                         }
                     }
                     break;
 
                 case TelephonyManager.CALL_STATE_RINGING:
-                    Log.d(TAG, "Phone is ringing from: " + phoneNumber);
+                    if (AppLog.debug()) {
+                        AppLog.d(TAG, "Phone is ringing from: " + phoneNumber);
+                    }
                     break;
             }
         }
     }
 
+    // The first callback reports the current state: a call still OFFHOOK keeps its
+    // journaled start time instead of restarting the clock now
+    private void resume(CallSessionJournal.Session session, int state) {
+        if (lastCalledNumber == null && !session.getNumber().isEmpty()) {
+            lastCalledNumber = session.getNumber();
+        }
+        if (state == TelephonyManager.CALL_STATE_OFFHOOK && session.getState() == CallSessionJournal.ACTIVE) {
+            callStartTime = session.getStartMs();
+            callEndTime = 0;
+            lastCallDuration = 0;
+            isCallActive = true;
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "Resumed call started at " + callStartTime);
+            }
+        }
+    }
+
     private void notifyCallEnded() {
-        Log.d(TAG, "Call ended notification ready for plugin");
+        AppLog.d(TAG, "Call ended notification ready for plugin");
     }
 }
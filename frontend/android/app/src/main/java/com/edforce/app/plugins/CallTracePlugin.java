@@ -0,0 +1,57 @@
+package com.edforce.app.plugins;
+
+import android.util.Base64;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.io.IOException;
+
+/**
+ * Call trace recording for support; see {@link CallTraceRecorder}.
+ */
+@CapacitorPlugin(name = "CallTrace")
+public class CallTracePlugin extends Plugin {
+    private static final String TAG = "CallTracePlugin";
+
+    @PluginMethod
+    public void setRecording(PluginCall call) {
+        CallTraceRecorder.getInstance(getContext()).setEnabled(call.getBoolean("enabled", false));
+        getStatus(call);
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        CallTraceRecorder recorder = CallTraceRecorder.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("recording", recorder.isEnabled());
+        result.put("entries", recorder.size());
+        call.resolve(result);
+    }
+
+    /**
+     * Returns the trace as base64 of the file the replayer reads.
+     */
+    @PluginMethod
+    public void exportTrace(PluginCall call) {
+        CallTraceRecorder recorder = CallTraceRecorder.getInstance(getContext());
+        try {
+            JSObject result = new JSObject();
+            result.put("data", Base64.encodeToString(recorder.export(), Base64.NO_WRAP));
+            result.put("entries", recorder.size());
+            call.resolve(result);
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to export call trace: " + e.getMessage());
+            call.reject("Failed to export call trace: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        CallTraceRecorder.getInstance(getContext()).clear();
+        call.resolve();
+    }
+}
@@ -0,0 +1,130 @@
+package com.edforce.app.plugins;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.edforce.telephony.CallTrace;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Device side of call trace recording: owns the {@link CallTrace} the call
+ * state machine records into while recording is on, and keeps it in
+ * call-trace.bin across restarts.
+ *
+ * Off by default and switchable at runtime (CallTrace plugin, persisted), so a
+ * support case can turn it on for a device that misreports durations, then
+ * export the trace and replay it with the telephony-core replayTrace task.
+ */
+public class CallTraceRecorder {
+    private static final String TAG = "CallTraceRecorder";
+    private static final String FILE_NAME = "call-trace.bin";
+    private static final String PREFS_NAME = "edforce_call_trace";
+    private static final String KEY_ENABLED = "enabled";
+
+    private static CallTraceRecorder instance;
+
+    private final File file;
+    private final SharedPreferences prefs;
+    private volatile boolean enabled;
+    private CallTrace trace;
+
+    private CallTraceRecorder(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.enabled = prefs.getBoolean(KEY_ENABLED, false);
+    }
+
+    public static synchronized CallTraceRecorder getInstance(Context context) {
+        if (instance == null) {
+            instance = new CallTraceRecorder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void setEnabled(boolean on) {
+        enabled = on;
+        prefs.edit().putBoolean(KEY_ENABLED, on).apply();
+        if (!on) {
+            save();
+        }
+    }
+
+    /**
+     * The trace to record into, or null while recording is off.
+     */
+    public synchronized CallTrace activeTrace() {
+        return enabled ? trace() : null;
+    }
+
+    /**
+     * Records a dial placed from the app; no-op while recording is off.
+     */
+    public void recordDial(String number, long wallMs) {
+        CallTrace current = activeTrace();
+        if (current != null) {
+            current.dial(wallMs, number);
+        }
+    }
+
+    public synchronized int size() {
+        return trace == null && !file.exists() ? 0 : trace().size();
+    }
+
+    /**
+     * Saves the trace if one was loaded or recorded.
+     */
+    public synchronized void save() {
+        if (trace == null) {
+            return;
+        }
+        try {
+            AtomicFiles.write(file, trace::writeTo);
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save call trace: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves and returns the trace in its file format.
+     */
+    public synchronized byte[] export() throws IOException {
+        save();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trace().writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    public synchronized void clear() {
+        if (trace != null) {
+            trace.clear();
+        }
+        if (file.exists() && !file.delete()) {
+            AppLog.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    private CallTrace trace() {
+        if (trace == null) {
+            trace = new CallTrace();
+            if (file.exists()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                    trace = CallTrace.readFrom(in);
+                } catch (IOException e) {
+                    AppLog.e(TAG, "Discarding call trace: " + e.getMessage());
+                }
+            }
+        }
+        return trace;
+    }
+}
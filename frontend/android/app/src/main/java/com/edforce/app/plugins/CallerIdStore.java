@@ -0,0 +1,63 @@
+package com.edforce.app.plugins;
+
+import android.util.Log;
+
+import com.edforce.telephony.CallerIdCache;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide caller-ID cache consulted by the call state listener on RINGING.
+ *
+ * Filled ahead of time from GET /calls/caller-ids and from leads the web app
+ * pushes while the counselor works, so a ringing lead is identified without
+ * touching the network or the WebView.
+ */
+public final class CallerIdStore {
+    private static final String TAG = "CallerIdStore";
+    private static final int MAX_ENTRIES = 5000;
+    private static final long TTL_MS = TimeUnit.HOURS.toMillis(12);
+
+    private static final CallerIdCache CACHE = new CallerIdCache(MAX_ENTRIES, TTL_MS);
+
+    private CallerIdStore() {
+    }
+
+    public static CallerIdCache cache() {
+        return CACHE;
+    }
+
+    /**
+     * Loads the signed-in user's leads from the backend. Blocking; call off the main thread.
+     *
+     * @return number of entries cached
+     */
+    public static int prime(String baseUrl, String token) throws IOException, JSONException {
+        String url = BackendHttp.trimTrailingSlash(baseUrl) + "/calls/caller-ids";
+        JSONObject body = new JSONObject(BackendHttp.get(url, token));
+        int count = putAll(body.optJSONArray("entries"));
+        Log.d(TAG, "Primed caller IDs: " + count + " entries, cache size " + CACHE.size());
+        return count;
+    }
+
+    /**
+     * Caches entries of the form {number, leadId, name}.
+     *
+     * @return number of entries read
+     */
+    public static int putAll(JSONArray entries) throws JSONException {
+        if (entries == null) {
+            return 0;
+        }
+        for (int i = 0; i < entries.length(); i++) {
+            JSONObject entry = entries.getJSONObject(i);
+            CACHE.put(entry.optString("number", null), entry.optString("leadId", null), entry.optString("name", ""));
+        }
+        return entries.length();
+    }
+}
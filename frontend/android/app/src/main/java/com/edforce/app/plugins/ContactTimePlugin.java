@@ -0,0 +1,67 @@
+package com.edforce.app.plugins;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+@CapacitorPlugin(name = "ContactTime")
+public class ContactTimePlugin extends Plugin {
+    // Lists longer than this are refused rather than bridged
+    private static final int MAX_NUMBERS = 10_000;
+
+    /**
+     * Ranks {numbers, at?} by the probability that a call placed at `at`
+     * (default now) connects, most likely first. Resolves with {ranked:
+     * [{number, index, probability, bestHour}]}, index being the position in
+     * the input. Rows added to the call log since the last catch-up are
+     * learned first.
+     */
+    @PluginMethod
+    public void rankLeads(PluginCall call) {
+        Diagnostics.timed("ContactTime.rankLeads", () -> {
+            JSArray input = call.getArray("numbers");
+            if (input == null) {
+                call.reject("numbers is required");
+                return;
+            }
+            if (input.length() > MAX_NUMBERS) {
+                call.reject("More than " + MAX_NUMBERS + " numbers");
+                return;
+            }
+            String[] numbers = new String[input.length()];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = input.optString(i, null);
+            }
+            long at = call.getLong("at", System.currentTimeMillis());
+
+            ContactTimeStore store = ContactTimeStore.getInstance(getContext());
+            store.catchUpIfPermitted(getContext());
+            double[] probabilities = new double[numbers.length];
+            int[] bestHours = new int[numbers.length];
+            int[] order = store.rank(numbers, at, probabilities, bestHours);
+
+            JSArray ranked = new JSArray();
+            for (int index : order) {
+                JSObject item = new JSObject();
+                item.put("number", numbers[index]);
+                item.put("index", index);
+                item.put("probability", Math.round(probabilities[index] * 1000d) / 1000d);
+                item.put("bestHour", bestHours[index]);
+                ranked.put(item);
+            }
+            JSObject result = new JSObject();
+            result.put("ranked", ranked);
+            result.put("at", at);
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        ContactTimeStore.getInstance(getContext()).clear();
+        call.resolve();
+    }
+}
@@ -0,0 +1,53 @@
+package com.edforce.app.plugins;
+
+import android.content.Context;
+
+import com.edforce.telephony.ContactTimeModel;
+import com.edforce.telephony.LeadNumberIndex;
+
+import java.util.TimeZone;
+
+/**
+ * Persistent best-time-to-call model for ranking leads before dialing.
+ */
+public class ContactTimeStore extends CallLogModelStore<ContactTimeModel> {
+    private static final String TAG = "ContactTimeStore";
+    private static final String FILE_NAME = "contact-time.bin";
+
+    private static ContactTimeStore instance;
+
+    private ContactTimeStore(Context context) {
+        super(context, FILE_NAME, TAG, "contact time model");
+    }
+
+    public static synchronized ContactTimeStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ContactTimeStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Input indexes of the numbers, most likely to connect at atMs first.
+     *
+     * @param probabilities receives each number's probability, by input index
+     * @param bestHours receives each number's best local hour that day, by input index
+     */
+    public synchronized int[] rank(String[] numbers, long atMs, double[] probabilities, int[] bestHours) {
+        ContactTimeModel current = model();
+        long[] keys = LeadNumberIndex.keysOf(numbers);
+        for (int i = 0; i < keys.length; i++) {
+            bestHours[i] = current.bestHour(keys[i], atMs);
+        }
+        return current.rank(keys, atMs, probabilities);
+    }
+
+    public synchronized int size() {
+        return model().size();
+    }
+
+    @Override
+    ContactTimeModel newModel() {
+        return new ContactTimeModel(TimeZone.getDefault());
+    }
+}
@@ -0,0 +1,124 @@
+package com.edforce.app.plugins;
+
+import android.os.SystemClock;
+
+import com.edforce.telephony.LatencyHistogram;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on, fleet-level numbers for the native bridge: a latency histogram
+ * per plugin method and counters for the sync pipeline. Unlike {@link Tracing}
+ * this needs no capture on the device; the page reads and resets a snapshot
+ * through the Diagnostics plugin and uploads it.
+ *
+ * Plugin methods run their body through {@link #timed(String, Runnable)},
+ * which records it under its trace section:
+ * <pre>
+ *   Diagnostics.timed("CallLog.getRecentCalls", () -> { ... });
+ * </pre>
+ * The time covers the method body on the bridge thread, not work it hands to
+ * other threads or the activity.
+ */
+public final class Diagnostics {
+    public static final int ROWS_SCANNED = 0;
+    public static final int ROWS_DISPATCHED = 1;
+    public static final int ROWS_MERGED = 2;
+    public static final int BYTES_BRIDGED = 3;
+    public static final int QUERIES = 4;
+
+    private static final String[] COUNTER_NAMES = {
+            "rowsScanned", "rowsDispatched", "rowsMerged", "bytesBridged", "queries"
+    };
+
+    private static final ConcurrentHashMap<String, LatencyHistogram> methods = new ConcurrentHashMap<>();
+    private static final AtomicLongArray counters = new AtomicLongArray(COUNTER_NAMES.length);
+    private static volatile long sinceMs = System.currentTimeMillis();
+
+    private Diagnostics() {
+    }
+
+    /**
+     * Runs a plugin method body inside a {@link Tracing} section and records
+     * its time under the same name.
+     */
+    public static void timed(String method, Runnable body) {
+        long started = start();
+        boolean traced = Tracing.begin(method);
+        try {
+            body.run();
+        } finally {
+            Tracing.end(traced);
+            end(method, started);
+        }
+    }
+
+    public static long start() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    public static void end(String method, long started) {
+        LatencyHistogram histogram = methods.get(method);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = methods.putIfAbsent(method, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.recordNanos(SystemClock.elapsedRealtimeNanos() - started);
+    }
+
+    public static void count(int counter, long delta) {
+        counters.addAndGet(counter, delta);
+    }
+
+    public static void count(int counter) {
+        counters.incrementAndGet(counter);
+    }
+
+    public static String counterName(int counter) {
+        return COUNTER_NAMES[counter];
+    }
+
+    /**
+     * Method histograms since the last reset, by method name.
+     *
+     * @param reset start a new period; each sample and count is then reported once
+     */
+    public static List<Map.Entry<String, LatencyHistogram>> methodSnapshot(boolean reset) {
+        List<Map.Entry<String, LatencyHistogram>> out = new ArrayList<>(methods.size());
+        for (Map.Entry<String, LatencyHistogram> entry : methods.entrySet()) {
+            LatencyHistogram histogram = reset ? entry.getValue().drain() : entry.getValue().copy();
+            out.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), histogram));
+        }
+        return out;
+    }
+
+    /**
+     * Counter values since the last reset, in {@link #counterName(int)} order.
+     */
+    public static long[] counterSnapshot(boolean reset) {
+        long[] values = new long[COUNTER_NAMES.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = reset ? counters.getAndSet(i, 0L) : counters.get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Wall clock start of the current period.
+     */
+    public static long getSinceMs() {
+        return sinceMs;
+    }
+
+    public static void markReset() {
+        sinceMs = System.currentTimeMillis();
+    }
+}
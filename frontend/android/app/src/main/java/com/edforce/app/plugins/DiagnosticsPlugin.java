@@ -0,0 +1,59 @@
+package com.edforce.app.plugins;
+
+import com.edforce.telephony.LatencyHistogram;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.Map;
+
+/**
+ * Bridge latency and sync pipeline numbers for fleet dashboards; see
+ * {@link Diagnostics}.
+ */
+@CapacitorPlugin(name = "Diagnostics")
+public class DiagnosticsPlugin extends Plugin {
+
+    /**
+     * Resolves {sinceMs, untilMs, methods: {name: {count, meanUs, p50Us, p90Us,
+     * p99Us, maxUs}}, counters: {name: value}}. With reset (the default) the
+     * next snapshot starts where this one ended, so uploads can be summed.
+     */
+    @PluginMethod
+    public void getSnapshot(PluginCall call) {
+        boolean reset = call.getBoolean("reset", true);
+        JSObject result = new JSObject();
+        result.put("sinceMs", Diagnostics.getSinceMs());
+        result.put("untilMs", System.currentTimeMillis());
+        if (reset) {
+            Diagnostics.markReset();
+        }
+
+        JSObject methods = new JSObject();
+        for (Map.Entry<String, LatencyHistogram> entry : Diagnostics.methodSnapshot(reset)) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            JSObject method = new JSObject();
+            method.put("count", histogram.getCount());
+            method.put("meanUs", histogram.getMeanUs());
+            method.put("p50Us", histogram.percentileUs(50));
+            method.put("p90Us", histogram.percentileUs(90));
+            method.put("p99Us", histogram.percentileUs(99));
+            method.put("maxUs", histogram.getMaxUs());
+            methods.put(entry.getKey(), method);
+        }
+        result.put("methods", methods);
+
+        JSObject counters = new JSObject();
+        long[] values = Diagnostics.counterSnapshot(reset);
+        for (int i = 0; i < values.length; i++) {
+            counters.put(Diagnostics.counterName(i), values[i]);
+        }
+        result.put("counters", counters);
+        call.resolve(result);
+    }
+}
@@ -0,0 +1,76 @@
+package com.edforce.app.plugins;
+
+import com.edforce.telephony.EngagementStats;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+@CapacitorPlugin(name = "Engagement")
+public class EngagementPlugin extends Plugin {
+    // Lists longer than this are refused rather than bridged
+    private static final int MAX_NUMBERS = 10_000;
+
+    /**
+     * Engagement columns for a list of numbers, aligned with the input:
+     * {numbers: [...]} resolves with {lastCallAt: [...], lastConnectedAt: [...],
+     * attempts: [...], ...}, zeros where a number has no calls. Rows added to
+     * the call log since the last catch-up are counted first.
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        Diagnostics.timed("Engagement.getStats", () -> {
+            JSArray input = call.getArray("numbers");
+            if (input == null) {
+                call.reject("numbers is required");
+                return;
+            }
+            if (input.length() > MAX_NUMBERS) {
+                call.reject("More than " + MAX_NUMBERS + " numbers");
+                return;
+            }
+            String[] numbers = new String[input.length()];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = input.optString(i, null);
+            }
+
+            EngagementStore store = EngagementStore.getInstance(getContext());
+            store.catchUpIfPermitted(getContext());
+            EngagementStats.Stats[] stats = store.getAll(numbers);
+
+            JSArray lastCallAt = new JSArray();
+            JSArray lastConnectedAt = new JSArray();
+            JSArray attempts = new JSArray();
+            JSArray incoming = new JSArray();
+            JSArray missed = new JSArray();
+            JSArray connected = new JSArray();
+            JSArray talkSeconds = new JSArray();
+            for (EngagementStats.Stats s : stats) {
+                lastCallAt.put(s != null ? s.getLastCallAt() : 0L);
+                lastConnectedAt.put(s != null ? s.getLastConnectedAt() : 0L);
+                attempts.put(s != null ? s.getAttempts() : 0);
+                incoming.put(s != null ? s.getIncoming() : 0);
+                missed.put(s != null ? s.getMissed() : 0);
+                connected.put(s != null ? s.getConnected() : 0);
+                talkSeconds.put(s != null ? s.getTalkSeconds() : 0L);
+            }
+            JSObject result = new JSObject();
+            result.put("lastCallAt", lastCallAt);
+            result.put("lastConnectedAt", lastConnectedAt);
+            result.put("attempts", attempts);
+            result.put("incoming", incoming);
+            result.put("missed", missed);
+            result.put("connected", connected);
+            result.put("talkSeconds", talkSeconds);
+            call.resolve(result);
+        });
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        EngagementStore.getInstance(getContext()).clear();
+        call.resolve();
+    }
+}
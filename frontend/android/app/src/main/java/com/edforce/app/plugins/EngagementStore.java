@@ -0,0 +1,47 @@
+package com.edforce.app.plugins;
+
+import android.content.Context;
+
+import com.edforce.telephony.EngagementStats;
+
+/**
+ * Persistent per-number engagement totals for lead lists.
+ */
+public class EngagementStore extends CallLogModelStore<EngagementStats> {
+    private static final String TAG = "EngagementStore";
+    private static final String FILE_NAME = "engagement.bin";
+
+    private static EngagementStore instance;
+
+    private EngagementStore(Context context) {
+        super(context, FILE_NAME, TAG, "engagement stats");
+    }
+
+    public static synchronized EngagementStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new EngagementStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Totals for each number, in order; null where a number has no calls.
+     */
+    public synchronized EngagementStats.Stats[] getAll(String[] numbers) {
+        EngagementStats current = model();
+        EngagementStats.Stats[] result = new EngagementStats.Stats[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            result[i] = current.getNumber(numbers[i]);
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return model().size();
+    }
+
+    @Override
+    EngagementStats newModel() {
+        return new EngagementStats();
+    }
+}
@@ -0,0 +1,100 @@
+package com.edforce.app.plugins;
+
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+@CapacitorPlugin(name = "LeadIndex")
+public class LeadIndexPlugin extends Plugin {
+    private static final String TAG = "LeadIndexPlugin";
+
+    @PluginMethod
+    public void refresh(PluginCall call) {
+        String baseUrl = call.getString("baseUrl");
+        String token = call.getString("token");
+        boolean full = call.getBoolean("full", false);
+
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            call.reject("baseUrl is required");
+            return;
+        }
+
+        try {
+            LeadIndexStore.RefreshResult refreshed = LeadIndexStore.getInstance(getContext()).refresh(baseUrl, token, full);
+            JSObject result = new JSObject();
+            result.put("full", refreshed.full);
+            result.put("added", refreshed.added);
+            result.put("removed", refreshed.removed);
+            result.put("size", refreshed.size);
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Lead index refresh failed: " + e.getMessage());
+            call.reject("Lead index refresh failed: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        LeadIndexStore store = LeadIndexStore.getInstance(getContext());
+        JSObject result = new JSObject();
+        result.put("ready", store.hasSnapshot());
+        result.put("size", store.current().size());
+        result.put("lastRefresh", store.getLastRefresh());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        LeadIndexStore.getInstance(getContext()).clear();
+        CallerIdStore.cache().clear();
+        call.resolve();
+    }
+
+    /**
+     * Fills the caller-ID cache from the backend so ringing leads can be named offline.
+     */
+    @PluginMethod
+    public void primeCallerIds(PluginCall call) {
+        String baseUrl = call.getString("baseUrl");
+        String token = call.getString("token");
+
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            call.reject("baseUrl is required");
+            return;
+        }
+
+        try {
+            int count = CallerIdStore.prime(baseUrl, token);
+            JSObject result = new JSObject();
+            result.put("count", count);
+            result.put("size", CallerIdStore.cache().size());
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Caller ID prime failed: " + e.getMessage());
+            call.reject("Caller ID prime failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Caches leads the web app already has, as [{number, leadId, name}].
+     */
+    @PluginMethod
+    public void putCallerIds(PluginCall call) {
+        JSArray entries = call.getArray("entries");
+        try {
+            int count = CallerIdStore.putAll(entries);
+            JSObject result = new JSObject();
+            result.put("count", count);
+            result.put("size", CallerIdStore.cache().size());
+            call.resolve(result);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to cache caller IDs: " + e.getMessage());
+            call.reject("Failed to cache caller IDs: " + e.getMessage());
+        }
+    }
+}
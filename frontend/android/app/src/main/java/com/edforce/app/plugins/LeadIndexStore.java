@@ -0,0 +1,198 @@
+package com.edforce.app.plugins;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.edforce.telephony.LeadNumberIndex;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * On-device index of normalized lead phone numbers, used to drop personal and
+ * vendor calls from the sync paths before anything is serialized.
+ *
+ * The index is downloaded from GET /calls/lead-index, refreshed with deltas
+ * ("since" the last server time) and persisted to app storage so the startup
+ * sync can use it before the web app is up. Until the first download succeeds,
+ * {@link #syncFilter()} returns null and every call is synced as before.
+ */
+public class LeadIndexStore {
+    private static final String TAG = "LeadIndexStore";
+    private static final String FILE_NAME = "lead-index.bin";
+    private static final String PREFS_NAME = "edforce_lead_index";
+    private static final String KEY_SINCE = "since";
+    private static final String KEY_LAST_FULL = "lastFull";
+    private static final String KEY_LAST_REFRESH = "lastRefresh";
+    private static final String KEY_VERSION = "version";
+    // Deltas cannot see a lead's old number after an edit, so rebuild daily
+    private static final long FULL_REFRESH_INTERVAL_MS = 24L * 60 * 60 * 1000;
+
+    private static LeadIndexStore instance;
+
+    private final File file;
+    private final SharedPreferences prefs;
+    private volatile LeadNumberIndex index;
+
+    /**
+     * Outcome of a refresh.
+     */
+    public static class RefreshResult {
+        public final boolean full;
+        public final int added;
+        public final int removed;
+        public final int size;
+
+        RefreshResult(boolean full, int added, int removed, int size) {
+            this.full = full;
+            this.added = added;
+            this.removed = removed;
+            this.size = size;
+        }
+    }
+
+    private LeadIndexStore(Context context) {
+        this.file = new File(context.getFilesDir(), FILE_NAME);
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized LeadIndexStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new LeadIndexStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Current index, loaded from disk on first use. Empty if none was downloaded.
+     */
+    public LeadNumberIndex current() {
+        LeadNumberIndex loaded = index;
+        if (loaded == null) {
+            synchronized (this) {
+                if (index == null) {
+                    index = load();
+                }
+                loaded = index;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Index the sync paths should filter with, or null to sync every call
+     * because no index has been downloaded yet.
+     */
+    public LeadNumberIndex syncFilter() {
+        return hasSnapshot() ? current() : null;
+    }
+
+    public boolean hasSnapshot() {
+        return prefs.getLong(KEY_SINCE, 0L) > 0L;
+    }
+
+    public long getLastRefresh() {
+        return prefs.getLong(KEY_LAST_REFRESH, 0L);
+    }
+
+    /**
+     * Changes whenever a refresh may have added numbers, so a sync filtered
+     * by an older index knows it missed their calls. Removals keep it.
+     */
+    public long getVersion() {
+        return prefs.getLong(KEY_VERSION, 0L);
+    }
+
+    /**
+     * Downloads a full index or a delta since the last refresh and persists it.
+     * Blocking; call off the main thread.
+     *
+     * @param baseUrl   API base URL, e.g. https://host/api
+     * @param token     bearer token of the signed-in user
+     * @param forceFull ignore the stored watermark and rebuild from scratch
+     */
+    public RefreshResult refresh(String baseUrl, String token, boolean forceFull) throws IOException, JSONException {
+        long since = prefs.getLong(KEY_SINCE, 0L);
+        boolean wantFull = forceFull || since <= 0L
+                || System.currentTimeMillis() - prefs.getLong(KEY_LAST_FULL, 0L) > FULL_REFRESH_INTERVAL_MS;
+
+        String url = BackendHttp.trimTrailingSlash(baseUrl) + "/calls/lead-index" + (wantFull ? "" : "?since=" + since);
+        JSONObject body = new JSONObject(BackendHttp.get(url, token));
+
+        boolean full = body.optBoolean("full", wantFull);
+        long[] added = keysOf(body.optJSONArray("added"));
+        long[] removed = keysOf(body.optJSONArray("removed"));
+        long serverTime = body.optLong("serverTime", System.currentTimeMillis());
+
+        LeadNumberIndex next = full
+                ? LeadNumberIndex.of(added)
+                : current().withDelta(added, removed);
+
+        synchronized (this) {
+            AtomicFiles.write(file, next::writeTo);
+            index = next;
+            SharedPreferences.Editor editor = prefs.edit()
+                    .putLong(KEY_SINCE, serverTime)
+                    .putLong(KEY_LAST_REFRESH, System.currentTimeMillis());
+            if (full) {
+                editor.putLong(KEY_LAST_FULL, System.currentTimeMillis());
+            }
+            if (full || added.length > 0) {
+                editor.putLong(KEY_VERSION, prefs.getLong(KEY_VERSION, 0L) + 1);
+            }
+            editor.apply();
+        }
+        Log.d(TAG, "Lead index refreshed full=" + full + " added=" + added.length + " removed=" + removed.length + " size=" + next.size());
+        return new RefreshResult(full, added.length, removed.length, next.size());
+    }
+
+    /**
+     * Drops the in-memory index; it is loaded from disk again on next use.
+     */
+    public synchronized void release() {
+        index = null;
+    }
+
+    public synchronized void clear() {
+        index = LeadNumberIndex.EMPTY;
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+        // Syncs go back to every call, so the version still moves on
+        prefs.edit().clear().putLong(KEY_VERSION, getVersion() + 1).apply();
+    }
+
+    private LeadNumberIndex load() {
+        if (!file.exists()) {
+            return LeadNumberIndex.EMPTY;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            LeadNumberIndex loaded = LeadNumberIndex.readFrom(in);
+            Log.d(TAG, "Loaded lead index with " + loaded.size() + " numbers");
+            return loaded;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to load lead index, syncing unfiltered: " + e.getMessage());
+            prefs.edit().remove(KEY_SINCE).apply();
+            return LeadNumberIndex.EMPTY;
+        }
+    }
+
+    private static long[] keysOf(JSONArray numbers) throws JSONException {
+        if (numbers == null) {
+            return new long[0];
+        }
+        String[] raw = new String[numbers.length()];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = numbers.getString(i);
+        }
+        return LeadNumberIndex.keysOf(raw);
+    }
+}
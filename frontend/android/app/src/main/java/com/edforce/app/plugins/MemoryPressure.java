@@ -0,0 +1,136 @@
+package com.edforce.app.plugins;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.os.SystemClock;
+
+/**
+ * Reacts to onTrimMemory/onLowMemory by releasing what can be rebuilt later.
+ *
+ * Trim levels are folded into four pressure levels. Each level releases a bit
+ * more: talk-time buckets and part of the caller-ID cache first, then the
+ * memory-mapped call history, then the lead index. Everything released is
+ * reloaded lazily from disk on next use. From LOW on, bulk work (the startup
+ * call log sync, the stores' catch-ups whether the sync or a plugin asks, the
+ * call change scan, non-streamed getCallLogs results) is deferred until the
+ * system has been quiet for {@link #DECAY_MS}; plugins serve what is stored.
+ *
+ * Call state capture is never touched: the phone state listener, the dial
+ * correlator and the most recently used caller IDs stay in memory, so a call
+ * that ends under pressure is still matched and reported.
+ */
+public final class MemoryPressure {
+    public static final int NONE = 0;
+    public static final int MODERATE = 1;
+    public static final int LOW = 2;
+    public static final int CRITICAL = 3;
+
+    public static final String EVENT = "native-memory-pressure";
+
+    // The system sends no all-clear, so a level lapses this long after the last signal
+    static final long DECAY_MS = 60_000L;
+
+    private static final String TAG = "MemoryPressure";
+    private static final String[] NAMES = {"none", "moderate", "low", "critical"};
+
+    // Caller IDs kept per level, most recently used first
+    private static final int CALLER_IDS_MODERATE = 2500;
+    private static final int CALLER_IDS_LOW = 1000;
+    private static final int CALLER_IDS_CRITICAL = 250;
+
+    private static volatile int level = NONE;
+    private static volatile long signalledAt;
+
+    private MemoryPressure() {
+    }
+
+    /**
+     * Pressure level for an onTrimMemory level. UI_HIDDEN is not pressure; it
+     * comes every time the counselor switches to the dialer.
+     */
+    public static int fromTrimLevel(int trimLevel) {
+        if (trimLevel >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            return CRITICAL;
+        }
+        if (trimLevel >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return LOW;
+        }
+        if (trimLevel >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            return MODERATE;
+        }
+        if (trimLevel == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return NONE;
+        }
+        if (trimLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return CRITICAL;
+        }
+        if (trimLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return LOW;
+        }
+        return trimLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE ? MODERATE : NONE;
+    }
+
+    /**
+     * Records the new level and releases caches for it.
+     *
+     * @return the pressure level, NONE if the signal was ignored
+     */
+    public static int onTrimMemory(Context context, int trimLevel) {
+        int next = fromTrimLevel(trimLevel);
+        if (next == NONE) {
+            return NONE;
+        }
+        level = next;
+        signalledAt = SystemClock.elapsedRealtime();
+        Tracing.counter("memory.pressure", next);
+        AppLog.event(AppLog.EV_MEMORY_PRESSURE, next, trimLevel);
+        AppLog.i(TAG, "Memory pressure " + NAMES[next] + " (trim level " + trimLevel + ")");
+        release(context, next);
+        return next;
+    }
+
+    /**
+     * Current level; lapses back to NONE once no signal arrived for DECAY_MS.
+     */
+    public static int level() {
+        int current = level;
+        if (current != NONE && SystemClock.elapsedRealtime() - signalledAt > DECAY_MS) {
+            level = NONE;
+            return NONE;
+        }
+        return current;
+    }
+
+    /**
+     * Whether bulk reads and catch-ups may run now.
+     */
+    public static boolean allowsBulkWork() {
+        return level() < LOW;
+    }
+
+    public static String name(int pressure) {
+        return NAMES[pressure];
+    }
+
+    /**
+     * Detail of the EVENT web event: {level, trimLevel, bulkWorkPaused}.
+     */
+    public static String eventDetail(int pressure, int trimLevel) {
+        return "{\"level\":\"" + NAMES[pressure] + "\",\"trimLevel\":" + trimLevel
+                + ",\"bulkWorkPaused\":" + (pressure >= LOW) + "}";
+    }
+
+    private static void release(Context context, int pressure) {
+        TalkTimeStore.getInstance(context).release();
+        EngagementStore.getInstance(context).release();
+        ContactTimeStore.getInstance(context).release();
+        CallerIdStore.cache().trimTo(pressure == CRITICAL ? CALLER_IDS_CRITICAL
+                : pressure == LOW ? CALLER_IDS_LOW : CALLER_IDS_MODERATE);
+        if (pressure >= LOW) {
+            CallHistoryStore.getInstance(context).release();
+        }
+        if (pressure == CRITICAL) {
+            LeadIndexStore.getInstance(context).release();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.edforce.app.plugins;
+
+import com.edforce.telephony.TalkTimeAggregates;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import java.util.Calendar;
+
+@CapacitorPlugin(name = "TalkTime")
+public class TalkTimePlugin extends Plugin {
+    // Series longer than this are refused rather than bridged
+    private static final int MAX_BUCKETS = 24 * 62;
+
+    /**
+     * Talk-time totals for [from, to), default today so far, with an optional
+     * per-hour or per-day series. Each total is read from prefix sums, so the
+     * cost depends on the number of buckets returned, not on the call count.
+     */
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        long now = System.currentTimeMillis();
+        long from = call.getLong("from", startOfDay(now));
+        long to = call.getLong("to", now);
+        String bucket = call.getString("bucket", "none");
+
+        if (to <= from) {
+            call.reject("'to' must be after 'from'");
+            return;
+        }
+
+        TalkTimeStore store = TalkTimeStore.getInstance(getContext());
+        store.catchUpIfPermitted(getContext());
+
+        JSObject result = toJson(store.range(from, to));
+        result.put("from", from);
+        result.put("to", to);
+
+        if ("hour".equals(bucket) || "day".equals(bucket)) {
+            int field = "hour".equals(bucket) ? Calendar.HOUR_OF_DAY : Calendar.DAY_OF_MONTH;
+            Calendar cursor = Calendar.getInstance();
+            cursor.setTimeInMillis(from);
+            JSArray series = new JSArray();
+            while (cursor.getTimeInMillis() < to) {
+                if (series.length() >= MAX_BUCKETS) {
+                    call.reject("Range has more than " + MAX_BUCKETS + " buckets");
+                    return;
+                }
+                long start = cursor.getTimeInMillis();
+                cursor.add(field, 1);
+                long end = Math.min(cursor.getTimeInMillis(), to);
+                JSObject item = toJson(store.range(start, end));
+                item.put("start", start);
+                series.put(item);
+            }
+            result.put("buckets", series);
+        }
+        call.resolve(result);
+    }
+
+    private static JSObject toJson(TalkTimeAggregates.Totals totals) {
+        JSObject json = new JSObject();
+        json.put("total", totals.getTotal());
+        json.put("incoming", totals.getIncoming());
+        json.put("outgoing", totals.getOutgoing());
+        json.put("missed", totals.getMissed());
+        json.put("connected", totals.getConnected());
+        json.put("talkSeconds", totals.getTalkSeconds());
+        json.put("avgTalkSeconds", Math.round(totals.getAverageTalkSeconds()));
+        json.put("connectRate", totals.getConnectRate());
+        return json;
+    }
+
+    private static long startOfDay(long epochMs) {
+        Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(epochMs);
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        return day.getTimeInMillis();
+    }
+}
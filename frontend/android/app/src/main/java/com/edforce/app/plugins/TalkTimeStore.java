@@ -0,0 +1,43 @@
+package com.edforce.app.plugins;
+
+import android.content.Context;
+
+import com.edforce.telephony.TalkTimeAggregates;
+
+import java.util.TimeZone;
+
+/**
+ * Persistent per-hour talk-time buckets for the "my stats" views. Catch-ups
+ * only read rows inside the retention window.
+ */
+public class TalkTimeStore extends CallLogModelStore<TalkTimeAggregates> {
+    private static final String TAG = "TalkTimeStore";
+    private static final String FILE_NAME = "talk-time.bin";
+
+    private static TalkTimeStore instance;
+
+    private TalkTimeStore(Context context) {
+        super(context, FILE_NAME, TAG, "talk time buckets");
+    }
+
+    public static synchronized TalkTimeStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new TalkTimeStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public synchronized TalkTimeAggregates.Totals range(long fromMs, long toMs) {
+        return model().range(fromMs, toMs);
+    }
+
+    @Override
+    TalkTimeAggregates newModel() {
+        return new TalkTimeAggregates(TimeZone.getDefault());
+    }
+
+    @Override
+    long cutoff() {
+        return System.currentTimeMillis() - TalkTimeAggregates.DEFAULT_RETENTION_DAYS * 86_400_000L;
+    }
+}
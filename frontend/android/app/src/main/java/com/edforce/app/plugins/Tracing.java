@@ -0,0 +1,86 @@
+package com.edforce.app.plugins;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * Named android.os.Trace sections and counters for the native call paths, so
+ * Perfetto and systrace captures show which phase a stall belongs to.
+ *
+ * Off by default and switchable at runtime (Tracing plugin, persisted across
+ * restarts). While off, or while no trace is being recorded, each call is a
+ * couple of field reads. Sections must be closed with the flag begin returned:
+ * <pre>
+ *   boolean traced = Tracing.begin("CallLog.getRecentCalls");
+ *   try { ... } finally { Tracing.end(traced); }
+ * </pre>
+ * Counters need API 29 and are skipped on older devices.
+ */
+public final class Tracing {
+    private static final String PREFS_NAME = "edforce_tracing";
+    private static final String KEY_ENABLED = "enabled";
+    // Trace rejects section names longer than this
+    private static final int MAX_NAME_LENGTH = 127;
+
+    private static volatile boolean enabled;
+    private static SharedPreferences prefs;
+
+    private Tracing() {
+    }
+
+    /**
+     * Restores the switch saved by {@link #setEnabled(boolean)}.
+     */
+    public static synchronized void init(Context context) {
+        if (prefs == null) {
+            prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            enabled = prefs.getBoolean(KEY_ENABLED, false);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void setEnabled(boolean on) {
+        enabled = on;
+        if (prefs != null) {
+            prefs.edit().putBoolean(KEY_ENABLED, on).apply();
+        }
+    }
+
+    /**
+     * Opens a section on the calling thread.
+     *
+     * @return whether a section was opened; pass it to {@link #end(boolean)}
+     */
+    public static boolean begin(String name) {
+        if (!active()) {
+            return false;
+        }
+        Trace.beginSection(name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name);
+        return true;
+    }
+
+    public static void end(boolean begun) {
+        if (begun) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Sets a named counter track, e.g. rows read or bytes bridged.
+     */
+    public static void counter(String name, long value) {
+        if (active() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.setCounter(name, value);
+        }
+    }
+
+    private static boolean active() {
+        // Trace.isEnabled avoids the JNI call when nothing is recording
+        return enabled && (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q || Trace.isEnabled());
+    }
+}
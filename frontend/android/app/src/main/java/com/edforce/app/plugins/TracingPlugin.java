@@ -0,0 +1,30 @@
+package com.edforce.app.plugins;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+@CapacitorPlugin(name = "Tracing")
+public class TracingPlugin extends Plugin {
+
+    @Override
+    public void load() {
+        super.load();
+        Tracing.init(getContext());
+    }
+
+    @PluginMethod
+    public void setEnabled(PluginCall call) {
+        Tracing.setEnabled(call.getBoolean("enabled", false));
+        getStatus(call);
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("enabled", Tracing.isEnabled());
+        call.resolve(result);
+    }
+}
@@ -5,7 +5,6 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.ImageView;
@@ -18,6 +17,7 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.google.android.material.bottomsheet.BottomSheetDialog;
+import com.edforce.telephony.PhoneNumbers;
 
 @CapacitorPlugin(name = "WhatsAppChooser")
 public class WhatsAppChooserPlugin extends Plugin {
@@ -27,77 +27,86 @@ public class WhatsAppChooserPlugin extends Plugin {
 
     @PluginMethod
     public void openChooser(PluginCall call) {
-        Log.d(TAG, "openChooser invoked");
-        String phoneNumber = call.getString("phoneNumber");
+        Diagnostics.timed("WhatsAppChooser.openChooser", () -> {
+            AppLog.d(TAG, "openChooser invoked");
+            String phoneNumber = call.getString("phoneNumber");
         
-        if (phoneNumber == null || phoneNumber.isEmpty()) {
-            call.reject("Phone number is required");
-            return;
-        }
+            if (phoneNumber == null || phoneNumber.isEmpty()) {
+                call.reject("Phone number is required");
+                return;
+            }
 
-        // Clean phone number - keep only digits
-        final String cleanNumber = phoneNumber.replaceAll("[^0-9]", "");
-        Log.d(TAG, "=== WhatsApp Chooser Debug ===");
-        Log.d(TAG, "Phone number: " + cleanNumber);
+            // Clean phone number - keep only digits
+            final String cleanNumber = PhoneNumbers.digitsOnly(phoneNumber);
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "WhatsApp chooser for " + cleanNumber);
+            }
 
-        getActivity().runOnUiThread(() -> {
-            try {
-                PackageManager pm = getActivity().getPackageManager();
+            getActivity().runOnUiThread(() -> {
+                try {
+                    PackageManager pm = getActivity().getPackageManager();
                 
-                boolean hasWhatsApp = isPackageInstalled(WHATSAPP_PACKAGE, pm);
-                boolean hasWhatsAppBusiness = isPackageInstalled(WHATSAPP_BUSINESS_PACKAGE, pm);
+                    boolean hasWhatsApp = isPackageInstalled(WHATSAPP_PACKAGE, pm);
+                    boolean hasWhatsAppBusiness = isPackageInstalled(WHATSAPP_BUSINESS_PACKAGE, pm);
                 
-                Log.d(TAG, "Package check results:");
-                Log.d(TAG, "  - com.whatsapp: " + hasWhatsApp);
-                Log.d(TAG, "  - com.whatsapp.w4b: " + hasWhatsAppBusiness);
+                    if (AppLog.debug()) {
+                        AppLog.d(TAG, "Installed: com.whatsapp=" + hasWhatsApp + " com.whatsapp.w4b=" + hasWhatsAppBusiness);
+                    }
 
-                if (!hasWhatsApp && !hasWhatsAppBusiness) {
-                    Log.w(TAG, "No WhatsApp apps installed!");
-                    call.reject("No WhatsApp app installed");
-                    return;
-                }
+                    if (!hasWhatsApp && !hasWhatsAppBusiness) {
+                        AppLog.w(TAG, "No WhatsApp apps installed!");
+                        AppLog.event(AppLog.EV_WHATSAPP_MISSING, 0L, 0L);
+                        call.reject("No WhatsApp app installed");
+                        return;
+                    }
 
-                // If only one app, open directly
-                if (hasWhatsApp && !hasWhatsAppBusiness) {
-                    Log.d(TAG, "Decision: Only WhatsApp installed -> opening directly");
-                    openWhatsAppIntent(cleanNumber, WHATSAPP_PACKAGE);
-                    call.resolve();
-                    return;
-                }
+                    // If only one app, open directly
+                    if (hasWhatsApp && !hasWhatsAppBusiness) {
+                        AppLog.d(TAG, "Decision: Only WhatsApp installed -> opening directly");
+                        AppLog.event(AppLog.EV_WHATSAPP_OPEN, 1L, 0L);
+                        openWhatsAppIntent(cleanNumber, WHATSAPP_PACKAGE);
+                        call.resolve();
+                        return;
+                    }
                 
-                if (!hasWhatsApp && hasWhatsAppBusiness) {
-                    Log.d(TAG, "Decision: Only WhatsApp Business installed -> opening directly");
-                    openWhatsAppIntent(cleanNumber, WHATSAPP_BUSINESS_PACKAGE);
-                    call.resolve();
-                    return;
-                }
+                    if (!hasWhatsApp && hasWhatsAppBusiness) {
+                        AppLog.d(TAG, "Decision: Only WhatsApp Business installed -> opening directly");
+                        AppLog.event(AppLog.EV_WHATSAPP_OPEN, 2L, 0L);
+                        openWhatsAppIntent(cleanNumber, WHATSAPP_BUSINESS_PACKAGE);
+                        call.resolve();
+                        return;
+                    }
 
-                // Both apps installed - show custom bottom sheet chooser
-                Log.d(TAG, "Decision: BOTH apps installed -> showing bottom sheet chooser");
-                showBottomSheetChooser(cleanNumber, pm);
-                call.resolve();
+                    // Both apps installed - show custom bottom sheet chooser
+                    AppLog.d(TAG, "Decision: BOTH apps installed -> showing bottom sheet chooser");
+                    AppLog.event(AppLog.EV_WHATSAPP_OPEN, 3L, 0L);
+                    showBottomSheetChooser(cleanNumber, pm);
+                    call.resolve();
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error opening WhatsApp: " + e.getMessage(), e);
-                call.reject("Failed to open WhatsApp: " + e.getMessage());
-            }
+                } catch (Exception e) {
+                    AppLog.e(TAG, "Error opening WhatsApp: " + e.getMessage(), e);
+                    call.reject("Failed to open WhatsApp: " + e.getMessage());
+                }
+            });
         });
     }
 
     @Override
     public void load() {
         super.load();
-        Log.d(TAG, "WhatsApp plugin loaded and registered");
+        AppLog.d(TAG, "WhatsApp plugin loaded and registered");
     }
 
     @PluginMethod
     public void ping(PluginCall call) {
-        Log.d(TAG, "ping invoked");
-        call.resolve();
+        Diagnostics.timed("WhatsAppChooser.ping", () -> {
+            AppLog.d(TAG, "ping invoked");
+            call.resolve();
+        });
     }
     
     private void showBottomSheetChooser(String phoneNumber, PackageManager pm) {
-        Log.d(TAG, "showBottomSheetChooser called");
+        AppLog.d(TAG, "showBottomSheetChooser called");
         
         BottomSheetDialog bottomSheetDialog = new BottomSheetDialog(getActivity());
         
@@ -133,7 +142,7 @@ public class WhatsAppChooserPlugin extends Plugin {
         
         bottomSheetDialog.setContentView(layout);
         bottomSheetDialog.show();
-        Log.d(TAG, "Bottom sheet dialog shown");
+        AppLog.d(TAG, "Bottom sheet dialog shown");
     }
     
     private LinearLayout createAppOption(PackageManager pm, String packageName, String appName, Runnable onClick) {
@@ -179,13 +188,15 @@ public class WhatsAppChooserPlugin extends Plugin {
             
             return optionLayout;
         } catch (PackageManager.NameNotFoundException e) {
-            Log.w(TAG, "Package not found: " + packageName);
+            AppLog.w(TAG, "Package not found: " + packageName);
             return null;
         }
     }
     
     private void openWhatsAppIntent(String phoneNumber, String packageName) {
-        Log.d(TAG, "Opening WhatsApp intent for package: " + packageName);
+        if (AppLog.debug()) {
+            AppLog.d(TAG, "Opening WhatsApp intent for package: " + packageName);
+        }
         Intent intent = new Intent(Intent.ACTION_VIEW);
         intent.setData(Uri.parse("https://api.whatsapp.com/send?phone=" + phoneNumber));
         intent.setPackage(packageName);
@@ -194,65 +205,77 @@ public class WhatsAppChooserPlugin extends Plugin {
 
     @PluginMethod
     public void openWhatsApp(PluginCall call) {
-        String phoneNumber = call.getString("phoneNumber");
-        String type = call.getString("type", "normal"); // "normal" or "business"
+        Diagnostics.timed("WhatsAppChooser.openWhatsApp", () -> {
+            String phoneNumber = call.getString("phoneNumber");
+            String type = call.getString("type", "normal"); // "normal" or "business"
         
-        if (phoneNumber == null || phoneNumber.isEmpty()) {
-            call.reject("Phone number is required");
-            return;
-        }
+            if (phoneNumber == null || phoneNumber.isEmpty()) {
+                call.reject("Phone number is required");
+                return;
+            }
 
-        final String cleanNumber = phoneNumber.replaceAll("[^0-9]", "");
-        final String packageName = "business".equals(type) ? WHATSAPP_BUSINESS_PACKAGE : WHATSAPP_PACKAGE;
+            final String cleanNumber = PhoneNumbers.digitsOnly(phoneNumber);
+            final String packageName = "business".equals(type) ? WHATSAPP_BUSINESS_PACKAGE : WHATSAPP_PACKAGE;
         
-        Log.d(TAG, "Opening " + type + " WhatsApp for number: " + cleanNumber);
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "Opening " + type + " WhatsApp for number: " + cleanNumber);
+            }
 
-        getActivity().runOnUiThread(() -> {
-            try {
-                PackageManager pm = getActivity().getPackageManager();
+            getActivity().runOnUiThread(() -> {
+                try {
+                    PackageManager pm = getActivity().getPackageManager();
                 
-                if (!isPackageInstalled(packageName, pm)) {
-                    call.reject(type + " WhatsApp is not installed");
-                    return;
-                }
+                    if (!isPackageInstalled(packageName, pm)) {
+                        call.reject(type + " WhatsApp is not installed");
+                        return;
+                    }
 
-                Intent intent = new Intent(Intent.ACTION_VIEW);
-                intent.setData(Uri.parse("https://api.whatsapp.com/send?phone=" + cleanNumber));
-                intent.setPackage(packageName);
-                getActivity().startActivity(intent);
-                call.resolve();
+                    Intent intent = new Intent(Intent.ACTION_VIEW);
+                    intent.setData(Uri.parse("https://api.whatsapp.com/send?phone=" + cleanNumber));
+                    intent.setPackage(packageName);
+                    getActivity().startActivity(intent);
+                    call.resolve();
 
-            } catch (Exception e) {
-                Log.e(TAG, "Error opening WhatsApp: " + e.getMessage(), e);
-                call.reject("Failed to open WhatsApp: " + e.getMessage());
-            }
+                } catch (Exception e) {
+                    AppLog.e(TAG, "Error opening WhatsApp: " + e.getMessage(), e);
+                    call.reject("Failed to open WhatsApp: " + e.getMessage());
+                }
+            });
         });
     }
 
     @PluginMethod
     public void checkAvailability(PluginCall call) {
-        PackageManager pm = getActivity().getPackageManager();
+        Diagnostics.timed("WhatsAppChooser.checkAvailability", () -> {
+            PackageManager pm = getActivity().getPackageManager();
         
-        boolean hasWhatsApp = isPackageInstalled(WHATSAPP_PACKAGE, pm);
-        boolean hasWhatsAppBusiness = isPackageInstalled(WHATSAPP_BUSINESS_PACKAGE, pm);
+            boolean hasWhatsApp = isPackageInstalled(WHATSAPP_PACKAGE, pm);
+            boolean hasWhatsAppBusiness = isPackageInstalled(WHATSAPP_BUSINESS_PACKAGE, pm);
         
-        Log.d(TAG, "WhatsApp availability - Normal: " + hasWhatsApp + ", Business: " + hasWhatsAppBusiness);
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "WhatsApp availability - Normal: " + hasWhatsApp + ", Business: " + hasWhatsAppBusiness);
+            }
         
-        JSObject result = new JSObject();
-        result.put("whatsapp", hasWhatsApp);
-        result.put("whatsappBusiness", hasWhatsAppBusiness);
-        result.put("anyAvailable", hasWhatsApp || hasWhatsAppBusiness);
+            JSObject result = new JSObject();
+            result.put("whatsapp", hasWhatsApp);
+            result.put("whatsappBusiness", hasWhatsAppBusiness);
+            result.put("anyAvailable", hasWhatsApp || hasWhatsAppBusiness);
         
-        call.resolve(result);
+            call.resolve(result);
+        });
     }
 
     private boolean isPackageInstalled(String packageName, PackageManager pm) {
         try {
             pm.getPackageInfo(packageName, 0);
-            Log.d(TAG, "Package " + packageName + " IS installed");
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "Package " + packageName + " IS installed");
+            }
             return true;
         } catch (PackageManager.NameNotFoundException e) {
-            Log.d(TAG, "Package " + packageName + " NOT installed");
+            if (AppLog.debug()) {
+                AppLog.d(TAG, "Package " + packageName + " NOT installed");
+            }
             return false;
         }
     }
@@ -0,0 +1,338 @@
+package com.edforce.app.plugins;
+
+import android.content.ActivityNotFoundException;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.edforce.app.WebViewEvents;
+import com.edforce.telephony.OutreachQueue;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Bulk WhatsApp follow-ups: opens one prefilled chat after another.
+ *
+ * start() normalizes every number, renders the message for every lead and picks
+ * the WhatsApp package once. Each time the user comes back to the app from a
+ * chat, the next one opens after a short delay, without a round trip through
+ * the WebView; the page only watches whatsapp-outreach-progress events and can
+ * pause, skip or stop. Progress is saved after every step, so a run continues
+ * where it left off if the app was killed while WhatsApp was in front. A run
+ * restored more than RESUME_WINDOW_MS after it was saved comes back paused,
+ * for the page to offer resuming it.
+ *
+ * All queue state is touched on the main thread only.
+ */
+@CapacitorPlugin(name = "WhatsAppOutreach")
+public class WhatsAppOutreachPlugin extends Plugin {
+    private static final String TAG = "WhatsAppOutreach";
+    private static final String FILE_NAME = "whatsapp-outreach.bin";
+    static final String PROGRESS_EVENT = "whatsapp-outreach-progress";
+    private static final String WHATSAPP_PACKAGE = "com.whatsapp";
+    private static final String WHATSAPP_BUSINESS_PACKAGE = "com.whatsapp.w4b";
+    // Time for the page to show "opening next" and for the user to pause
+    private static final long ADVANCE_DELAY_MS = 1200;
+    // Longer than a chat normally stays open; a run left for longer is not opened unasked
+    static final long RESUME_WINDOW_MS = 5 * 60_000L;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable advance = this::openNext;
+
+    private File file;
+    private OutreachQueue queue;
+    private String packageName;
+    private boolean paused;
+    private boolean awaitingReturn;
+
+    @Override
+    public void load() {
+        super.load();
+        file = new File(getContext().getFilesDir(), FILE_NAME);
+        // Before the first resume: after the app was killed in a chat, that resume is the return from it
+        restore();
+    }
+
+    /**
+     * Starts a run over {items: [{phoneNumber, name?, leadId?}], template,
+     * app?: 'auto' | 'whatsapp' | 'business'} and opens the first chat.
+     */
+    @PluginMethod
+    public void start(PluginCall call) {
+        JSArray items = call.getArray("items");
+        String template = call.getString("template", "");
+        String app = call.getString("app", "auto");
+        if (items == null || items.length() == 0) {
+            call.reject("At least one item is required");
+            return;
+        }
+
+        String target = resolvePackage(app);
+        if (target == null) {
+            call.reject("auto".equals(app) ? "No WhatsApp app installed" : app + " WhatsApp is not installed");
+            return;
+        }
+
+        OutreachQueue next = new OutreachQueue(template);
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.optJSONObject(i);
+            if (item != null) {
+                next.add(optString(item, "phoneNumber"), optString(item, "name"), optString(item, "leadId"));
+            }
+        }
+        if (next.size() == 0) {
+            call.reject("No valid phone numbers");
+            return;
+        }
+
+        handler.post(() -> {
+            handler.removeCallbacks(advance);
+            queue = next;
+            packageName = target;
+            paused = false;
+            awaitingReturn = false;
+            AppLog.d(TAG, "Outreach started");
+            openNext();
+            call.resolve(status());
+        });
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        handler.post(() -> call.resolve(status()));
+    }
+
+    /**
+     * Stops opening chats on return until resume() is called.
+     */
+    @PluginMethod
+    public void pause(PluginCall call) {
+        handler.post(() -> {
+            handler.removeCallbacks(advance);
+            if (queue != null) {
+                paused = true;
+                save();
+                publish();
+            }
+            call.resolve(status());
+        });
+    }
+
+    /**
+     * Opens the next chat now.
+     */
+    @PluginMethod
+    public void resume(PluginCall call) {
+        handler.post(() -> {
+            if (queue == null) {
+                call.reject("No outreach in progress");
+                return;
+            }
+            handler.removeCallbacks(advance);
+            paused = false;
+            openNext();
+            call.resolve(status());
+        });
+    }
+
+    /**
+     * Skips the next chat; a running queue then opens the one after it.
+     */
+    @PluginMethod
+    public void skip(PluginCall call) {
+        handler.post(() -> {
+            if (queue == null) {
+                call.reject("No outreach in progress");
+                return;
+            }
+            handler.removeCallbacks(advance);
+            queue.skip();
+            if (paused || queue.isFinished()) {
+                save();
+                publish();
+            } else {
+                openNext();
+            }
+            call.resolve(status());
+        });
+    }
+
+    @PluginMethod
+    public void stop(PluginCall call) {
+        handler.post(() -> {
+            handler.removeCallbacks(advance);
+            finish();
+            call.resolve(status());
+        });
+    }
+
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        if (!awaitingReturn || queue == null) {
+            return;
+        }
+        // Back from the chat that was opened last
+        awaitingReturn = false;
+        publish();
+        if (!paused) {
+            handler.postDelayed(advance, ADVANCE_DELAY_MS);
+        }
+    }
+
+    private void openNext() {
+        if (queue == null) {
+            return;
+        }
+        OutreachQueue.Item item = queue.peek();
+        if (item == null) {
+            finish();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(item.getLink()));
+        intent.setPackage(packageName);
+        try {
+            openChat(intent);
+        } catch (ActivityNotFoundException e) {
+            // Uninstalled mid-run; keep the position so the run can resume later
+            AppLog.e(TAG, "Could not open WhatsApp: " + e.getMessage());
+            paused = true;
+            save();
+            publish();
+            return;
+        }
+        queue.open();
+        awaitingReturn = true;
+        AppLog.event(AppLog.EV_OUTREACH_OPEN, queue.getPosition(), queue.size());
+        save();
+        publish();
+    }
+
+    void openChat(Intent intent) {
+        getActivity().startActivity(intent);
+    }
+
+    private void finish() {
+        if (queue != null) {
+            AppLog.d(TAG, "Outreach finished");
+        }
+        queue = null;
+        packageName = null;
+        paused = false;
+        awaitingReturn = false;
+        if (file.exists() && !file.delete()) {
+            AppLog.w(TAG, "Could not delete " + file);
+        }
+        publish();
+    }
+
+    private String resolvePackage(String app) {
+        PackageManager pm = getContext().getPackageManager();
+        switch (app) {
+            case "whatsapp":
+                return isPackageInstalled(WHATSAPP_PACKAGE, pm) ? WHATSAPP_PACKAGE : null;
+            case "business":
+                return isPackageInstalled(WHATSAPP_BUSINESS_PACKAGE, pm) ? WHATSAPP_BUSINESS_PACKAGE : null;
+            default:
+                if (isPackageInstalled(WHATSAPP_PACKAGE, pm)) {
+                    return WHATSAPP_PACKAGE;
+                }
+                return isPackageInstalled(WHATSAPP_BUSINESS_PACKAGE, pm) ? WHATSAPP_BUSINESS_PACKAGE : null;
+        }
+    }
+
+    private static String optString(JSONObject item, String key) {
+        return item.isNull(key) ? null : item.optString(key);
+    }
+
+    private static boolean isPackageInstalled(String packageName, PackageManager pm) {
+        try {
+            pm.getPackageInfo(packageName, 0);
+            return true;
+        } catch (PackageManager.NameNotFoundException e) {
+            return false;
+        }
+    }
+
+    private JSObject status() {
+        JSObject status = new JSObject();
+        status.put("active", queue != null);
+        if (queue == null) {
+            return status;
+        }
+        status.put("paused", paused);
+        status.put("finished", queue.isFinished());
+        status.put("app", WHATSAPP_BUSINESS_PACKAGE.equals(packageName) ? "business" : "whatsapp");
+        status.put("total", queue.size());
+        status.put("position", queue.getPosition());
+        status.put("opened", queue.count(OutreachQueue.OPENED));
+        status.put("skipped", queue.count(OutreachQueue.SKIPPED));
+        OutreachQueue.Item next = queue.peek();
+        if (next != null) {
+            JSObject item = new JSObject();
+            item.put("phoneNumber", next.getNumber());
+            item.put("leadId", next.getLeadId());
+            status.put("next", item);
+        }
+        return status;
+    }
+
+    private void publish() {
+        WebViewEvents.post(getBridge(), PROGRESS_EVENT, status().toString());
+    }
+
+    private void save() {
+        OutreachQueue current = queue;
+        String target = packageName;
+        boolean isPaused = paused;
+        long savedAt = System.currentTimeMillis();
+        try {
+            AtomicFiles.write(file, out -> {
+                out.writeLong(savedAt);
+                out.writeUTF(target);
+                out.writeBoolean(isPaused);
+                current.writeTo(out);
+            });
+        } catch (IOException e) {
+            AppLog.e(TAG, "Failed to save outreach progress: " + e.getMessage());
+        }
+    }
+
+    private void restore() {
+        if (queue != null || !file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long age = System.currentTimeMillis() - in.readLong();
+            packageName = in.readUTF();
+            paused = in.readBoolean();
+            queue = OutreachQueue.readFrom(in);
+            if (age < 0 || age > RESUME_WINDOW_MS) {
+                // Left long ago: the user resumes it from the page
+                paused = true;
+            }
+            // Killed while a chat was open: the next resume is the return from it
+            awaitingReturn = !paused && !queue.isFinished();
+            AppLog.d(TAG, "Restored outreach progress");
+        } catch (IOException e) {
+            AppLog.e(TAG, "Discarding outreach progress: " + e.getMessage());
+            queue = null;
+            packageName = null;
+            paused = false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.edforce.app;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentResolver;
+import android.provider.CallLog;
+
+import com.edforce.app.loadtest.FakeCallLogProvider;
+import com.edforce.app.loadtest.SyntheticCallLog;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class RecentCallsSyncTest {
+    private static final long DAY_MS = 86_400_000L;
+
+    private ContentResolver resolver;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(FakeCallLogProvider.class, CallLog.AUTHORITY);
+        resolver = RuntimeEnvironment.getApplication().getContentResolver();
+    }
+
+    @Test
+    public void deliveredIdStopsBelowTheFirstRefusedRow() {
+        long now = System.currentTimeMillis();
+        FakeCallLogProvider.install(SyntheticCallLog.generate(100, 30, now, 7));
+        // Ids run 1..100; the dispatcher drops two of them after a queue timeout
+        WebEventSink sink = new WebEventSink() {
+            @Override
+            public boolean post(String eventName, CharSequence detailJson) {
+                return true;
+            }
+
+            @Override
+            public boolean post(String eventName, CharSequence detailJson, long key) {
+                return key != 40 && key != 70;
+            }
+        };
+
+        RecentCallsSync sync = new RecentCallsSync(resolver, sink);
+        int dispatched = sync.syncSince(now - 90 * DAY_MS);
+
+        assertEquals(98, dispatched);
+        assertEquals(2, sync.getFailed());
+        assertEquals(100, sync.getMaxId());
+        assertEquals(39, sync.getDeliveredId());
+    }
+
+    @Test
+    public void deliveredIdIsMaxIdWhenEverythingWasPosted() {
+        long now = System.currentTimeMillis();
+        FakeCallLogProvider.install(SyntheticCallLog.generate(50, 30, now, 7));
+
+        RecentCallsSync sync = new RecentCallsSync(resolver, (eventName, detailJson) -> true);
+        sync.syncSince(now - 90 * DAY_MS);
+
+        assertEquals(0, sync.getFailed());
+        assertEquals(50, sync.getDeliveredId());
+    }
+}
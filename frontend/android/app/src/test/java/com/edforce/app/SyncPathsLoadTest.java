@@ -0,0 +1,271 @@
+package com.edforce.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentResolver;
+import android.provider.CallLog;
+
+import com.edforce.app.loadtest.FakeCallLogProvider;
+import com.edforce.app.loadtest.SyntheticCallLog;
+import com.edforce.app.plugins.CallLogPlugin;
+import com.edforce.telephony.CallBatchDecoder;
+import com.edforce.telephony.CallBatchEncoder;
+import com.edforce.telephony.ChunkedJsonArrayWriter;
+import com.edforce.telephony.LeadNumberIndex;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Load harness for the call log sync paths against a synthetic 90-day call log.
+ *
+ * Sizes come from -PloadTestRows (comma separated, default 10000):
+ *   ./gradlew :app:testDebugUnitTest --tests '*SyncPathsLoadTest' -PloadTestRows=10000,50000,200000
+ *
+ * For each path it reports wall time, rows per second, peak heap growth, bytes
+ * that would cross the WebView bridge and provider queries issued. Results are
+ * printed and written to build/reports/sync-load.txt.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SyncPathsLoadTest {
+    private static final int SPAN_DAYS = 90;
+    private static final int RECENT_CALL_LOOKUPS = 500;
+    private static final List<String> REPORT = new ArrayList<>();
+
+    private ContentResolver resolver;
+
+    @Before
+    public void setUp() {
+        Robolectric.setupContentProvider(FakeCallLogProvider.class, CallLog.AUTHORITY);
+        resolver = RuntimeEnvironment.getApplication().getContentResolver();
+    }
+
+    @Test
+    public void syncAllRecentCalls() {
+        for (int rows : sizes()) {
+            long now = System.currentTimeMillis();
+            FakeCallLogProvider.install(SyntheticCallLog.generate(rows, SPAN_DAYS, now, rows));
+            long[] bridged = new long[2];
+            WebEventSink sink = (eventName, detailJson) -> {
+                bridged[0] += WebViewEvents.script(eventName, detailJson).length();
+                bridged[1]++;
+                return true;
+            };
+
+            Measurement m = Measurement.start();
+            int synced = new RecentCallsSync(resolver, sink).syncSince(now - SPAN_DAYS * 86_400_000L);
+            m.stop("syncAllRecentCalls", rows, synced, bridged[0]);
+
+            assertEquals(rows, synced);
+            assertEquals(rows, bridged[1]);
+        }
+    }
+
+    @Test
+    public void syncAllRecentCallsLeadsOnly() {
+        for (int rows : sizes()) {
+            long now = System.currentTimeMillis();
+            SyntheticCallLog log = SyntheticCallLog.generate(rows, SPAN_DAYS, now, rows);
+            FakeCallLogProvider.install(log);
+            LeadNumberIndex leads = LeadNumberIndex.ofNumbers(log.leadNumbers);
+            long[] bridged = new long[2];
+            WebEventSink sink = (eventName, detailJson) -> {
+                bridged[0] += WebViewEvents.script(eventName, detailJson).length();
+                bridged[1]++;
+                return true;
+            };
+
+            Measurement m = Measurement.start();
+            int synced = new RecentCallsSync(resolver, sink, leads).syncSince(now - SPAN_DAYS * 86_400_000L);
+            m.stop("syncAllRecentCalls (leads only)", rows, synced, bridged[0]);
+
+            int expected = 0;
+            for (String number : log.numbers) {
+                if (leads.containsNumber(number)) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, synced);
+            assertEquals(expected, bridged[1]);
+            assertTrue(synced < rows);
+        }
+    }
+
+    @Test
+    public void callLogSyncGetCallLogs() {
+        for (int rows : sizes()) {
+            long now = System.currentTimeMillis();
+            FakeCallLogProvider.install(SyntheticCallLog.generate(rows, SPAN_DAYS, now, rows));
+
+            Measurement m = Measurement.start();
+            JSArray callLogs = CallLogSyncPlugin.readCallLogs(resolver, now - SPAN_DAYS * 86_400_000L, null);
+            JSObject result = new JSObject();
+            result.put("callLogs", callLogs);
+            // Capacitor serializes the resolved object to a string for the bridge
+            long bytes = result.toString().length();
+            m.stop("CallLogSync.getCallLogs", rows, callLogs.length(), bytes);
+
+            assertEquals(rows, callLogs.length());
+        }
+    }
+
+    @Test
+    public void callLogSyncBatchEncoded() throws Exception {
+        for (int rows : sizes()) {
+            long now = System.currentTimeMillis();
+            FakeCallLogProvider.install(SyntheticCallLog.generate(rows, SPAN_DAYS, now, rows));
+
+            Measurement m = Measurement.start();
+            List<CallBatchEncoder> batches = CallLogSyncPlugin.encodeCallLogs(resolver, now - SPAN_DAYS * 86_400_000L, null);
+            long bridged = 0;
+            int encoded = 0;
+            int decoded = 0;
+            for (CallBatchEncoder batch : batches) {
+                byte[] bytes = batch.toByteArray();
+                // Bridged as base64 inside the resolved object
+                bridged += (bytes.length + 2) / 3 * 4;
+                encoded += batch.getRowCount();
+                decoded += CallBatchDecoder.decode(bytes).size();
+                assertTrue(batch.getRowCount() <= CallBatchEncoder.MAX_ROWS);
+            }
+            m.stop("CallLogSync.getCallLogs (batch)", rows, encoded, bridged);
+
+            assertEquals(rows, encoded);
+            assertEquals(rows, decoded);
+        }
+    }
+
+    @Test
+    public void getAllCallLogsStreamed() {
+        for (int rows : sizes()) {
+            long now = System.currentTimeMillis();
+            FakeCallLogProvider.install(SyntheticCallLog.generate(rows, SPAN_DAYS, now, rows));
+            long[] bridged = new long[2];
+            WebEventSink sink = (eventName, detailJson) -> {
+                bridged[0] += WebViewEvents.script(eventName, detailJson).length();
+                bridged[1]++;
+                return true;
+            };
+
+            Measurement m = Measurement.start();
+            int streamed = new CallLogsStream(resolver, sink, "call-logs-sync", ChunkedJsonArrayWriter.DEFAULT_CHUNK_CHARS)
+                    .streamSince(now - SPAN_DAYS * 86_400_000L);
+            m.stop("getAllCallLogs (" + bridged[1] + " chunks)", rows, streamed, bridged[0]);
+
+            assertEquals(rows, streamed);
+        }
+    }
+
+    @Test
+    public void callLogGetRecentCalls() throws Exception {
+        for (int rows : sizes()) {
+            long now = System.currentTimeMillis();
+            SyntheticCallLog log = SyntheticCallLog.generate(rows, SPAN_DAYS, now, rows);
+            FakeCallLogProvider.install(log);
+            Random random = new Random(rows);
+
+            Measurement m = Measurement.start();
+            long bytes = 0;
+            int matched = 0;
+            for (int i = 0; i < RECENT_CALL_LOOKUPS; i++) {
+                String number = log.leadNumbers[random.nextInt(log.leadNumbers.length)];
+                JSONArray calls = CallLogPlugin.findRecentCalls(resolver, number, now - SPAN_DAYS * 86_400_000L);
+                matched += calls.length();
+                bytes += calls.toString().length();
+            }
+            m.stop("CallLog.getRecentCalls x" + RECENT_CALL_LOOKUPS, rows, matched, bytes);
+
+            assertTrue(matched <= RECENT_CALL_LOOKUPS * 10);
+        }
+    }
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        String path = System.getProperty("edforce.loadtest.report");
+        if (path == null) {
+            return;
+        }
+        java.io.File file = new java.io.File(path);
+        file.getParentFile().mkdirs();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write(String.format("%-34s %8s %8s %10s %12s %12s %14s %8s%n",
+                    "path", "rows", "out", "wall ms", "rows/s", "peak heap MB", "bytes bridged", "queries"));
+            for (String line : REPORT) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+    }
+
+    private static int[] sizes() {
+        String[] parts = System.getProperty("edforce.loadtest.rows", "10000").split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return sizes;
+    }
+
+    /**
+     * Wall time plus peak heap growth, taken from the heap pools' peak usage
+     * counters so short-lived spikes between samples are not missed.
+     */
+    private static final class Measurement {
+        private long baselineHeap;
+        private long startNanos;
+        private int queriesBefore;
+
+        static Measurement start() {
+            Measurement m = new Measurement();
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                    m.baselineHeap += pool.getUsage().getUsed();
+                }
+            }
+            m.queriesBefore = FakeCallLogProvider.queryCount();
+            m.startNanos = System.nanoTime();
+            return m;
+        }
+
+        void stop(String path, int rows, int out, long bytesBridged) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            double wallMs = elapsedNanos / 1_000_000.0;
+            double rowsPerSec = rows / Math.max(elapsedNanos / 1_000_000_000.0, 1e-9);
+            String line = String.format("%-34s %8d %8d %10.1f %12.0f %12.1f %14d %8d",
+                    path, rows, out, wallMs, rowsPerSec,
+                    Math.max(0, peak - baselineHeap) / (1024.0 * 1024.0),
+                    bytesBridged,
+                    FakeCallLogProvider.queryCount() - queriesBefore);
+            System.out.println("[sync-load] " + line);
+            REPORT.add(line);
+        }
+    }
+}
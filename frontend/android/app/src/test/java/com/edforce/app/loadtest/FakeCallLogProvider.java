@@ -0,0 +1,125 @@
+package com.edforce.app.loadtest;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.CallLog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for the system CallLog provider backed by a {@link SyntheticCallLog}.
+ *
+ * Understands the selections the app issues: a DATE lower bound ("date>?" or
+ * "date >= ?"), optional "type=?" alternatives, and "LIMIT n" in the sort order.
+ * Rows are always returned newest first. Query count is recorded so callers can
+ * report how many round trips a path costs.
+ */
+public class FakeCallLogProvider extends ContentProvider {
+    private static volatile SyntheticCallLog data;
+    private static volatile int queryCount;
+
+    public static void install(SyntheticCallLog log) {
+        data = log;
+        queryCount = 0;
+    }
+
+    public static int queryCount() {
+        return queryCount;
+    }
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Override
+    public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        queryCount++;
+        SyntheticCallLog log = data;
+        String[] columns = projection != null ? projection : new String[]{
+                CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.TYPE, CallLog.Calls.DATE, CallLog.Calls.DURATION
+        };
+        MatrixCursor cursor = new MatrixCursor(columns);
+        if (log == null) {
+            return cursor;
+        }
+
+        long lowerBound = Long.MIN_VALUE;
+        boolean inclusive = false;
+        List<Integer> allowedTypes = new ArrayList<>();
+        if (selection != null && selectionArgs != null && selectionArgs.length > 0) {
+            lowerBound = Long.parseLong(selectionArgs[0]);
+            inclusive = selection.replace(" ", "").startsWith(CallLog.Calls.DATE + ">=");
+            for (int i = 1; i < selectionArgs.length; i++) {
+                allowedTypes.add(Integer.parseInt(selectionArgs[i]));
+            }
+        }
+        int limit = Integer.MAX_VALUE;
+        if (sortOrder != null) {
+            int at = sortOrder.toUpperCase().indexOf("LIMIT");
+            if (at >= 0) {
+                limit = Integer.parseInt(sortOrder.substring(at + 5).trim());
+            }
+        }
+
+        int emitted = 0;
+        for (int i = 0; i < log.size() && emitted < limit; i++) {
+            long date = log.dates[i];
+            if (inclusive ? date < lowerBound : date <= lowerBound) {
+                // Rows are sorted newest first, nothing older can match
+                break;
+            }
+            if (!allowedTypes.isEmpty() && !allowedTypes.contains(log.types[i])) {
+                continue;
+            }
+            Object[] row = new Object[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                row[c] = column(log, i, columns[c]);
+            }
+            cursor.addRow(row);
+            emitted++;
+        }
+        return cursor;
+    }
+
+    private static Object column(SyntheticCallLog log, int row, String name) {
+        switch (name) {
+            case CallLog.Calls._ID:
+                return log.ids[row];
+            case CallLog.Calls.NUMBER:
+                return log.numbers[row];
+            case CallLog.Calls.TYPE:
+                return log.types[row];
+            case CallLog.Calls.DATE:
+                return log.dates[row];
+            case CallLog.Calls.DURATION:
+                return log.durations[row];
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String getType(Uri uri) {
+        return CallLog.Calls.CONTENT_TYPE;
+    }
+
+    @Override
+    public Uri insert(Uri uri, ContentValues values) {
+        throw new UnsupportedOperationException("read-only");
+    }
+
+    @Override
+    public int delete(Uri uri, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("read-only");
+    }
+
+    @Override
+    public int update(Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        throw new UnsupportedOperationException("read-only");
+    }
+}
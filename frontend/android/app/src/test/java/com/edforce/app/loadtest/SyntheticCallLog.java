@@ -0,0 +1,115 @@
+package com.edforce.app.loadtest;
+
+import com.edforce.telephony.CallTypes;
+
+import java.util.Random;
+
+/**
+ * Generates a heavy counselor's call log: mostly outbound calls to a large lead
+ * pool with a long tail, a handful of personal contacts called every day, one-off
+ * vendor numbers and some private callers, in the mix of formats OEM dialers store.
+ *
+ * Rows are held in parallel primitive arrays, newest first, so 200k rows stay small.
+ */
+public final class SyntheticCallLog {
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    public final long[] ids;
+    public final long[] dates;
+    public final int[] types;
+    public final int[] durations;
+    public final String[] numbers;
+    public final String[] leadNumbers;
+
+    private SyntheticCallLog(int rows, int leads) {
+        ids = new long[rows];
+        dates = new long[rows];
+        types = new int[rows];
+        durations = new int[rows];
+        numbers = new String[rows];
+        leadNumbers = new String[leads];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param rows     number of call log rows
+     * @param spanDays rows are spread evenly over this many days before now
+     */
+    public static SyntheticCallLog generate(int rows, int spanDays, long now, long seed) {
+        Random random = new Random(seed);
+        int leadCount = Math.max(50, rows / 4);
+        SyntheticCallLog log = new SyntheticCallLog(rows, leadCount);
+        for (int i = 0; i < leadCount; i++) {
+            log.leadNumbers[i] = mobile(random);
+        }
+        String[] personal = new String[20];
+        for (int i = 0; i < personal.length; i++) {
+            personal[i] = mobile(random);
+        }
+
+        long step = Math.max(1L, spanDays * DAY_MS / rows);
+        long date = now;
+        for (int i = 0; i < rows; i++) {
+            date -= 1 + (long) (random.nextDouble() * 2 * step);
+            log.ids[i] = rows - i;
+            log.dates[i] = date;
+
+            int bucket = random.nextInt(100);
+            String number;
+            if (bucket < 70) {
+                // Leads: skewed so recent/hot leads get repeat attempts
+                int idx = (int) (leadCount * Math.pow(random.nextDouble(), 2.5));
+                number = log.leadNumbers[Math.min(idx, leadCount - 1)];
+            } else if (bucket < 85) {
+                number = personal[random.nextInt(personal.length)];
+            } else if (bucket < 97) {
+                number = mobile(random);
+            } else {
+                number = random.nextBoolean() ? "" : null;
+            }
+            log.numbers[i] = number == null ? null : format(number, random);
+
+            int roll = random.nextInt(100);
+            int type;
+            if (roll < 58) {
+                type = CallTypes.OUTGOING;
+            } else if (roll < 82) {
+                type = CallTypes.INCOMING;
+            } else if (roll < 96) {
+                type = CallTypes.MISSED;
+            } else {
+                type = CallTypes.REJECTED;
+            }
+            log.types[i] = type;
+
+            int duration = 0;
+            if (type == CallTypes.INCOMING || (type == CallTypes.OUTGOING && random.nextInt(100) >= 40)) {
+                duration = 5 + (int) Math.min(3600, Math.exp(3.5 + random.nextGaussian()));
+            }
+            log.durations[i] = duration;
+        }
+        return log;
+    }
+
+    private static String mobile(Random random) {
+        return String.valueOf(6_000_000_000L + (long) (random.nextDouble() * 3_999_999_999L));
+    }
+
+    private static String format(String local, Random random) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return "+91" + local;
+            case 1:
+                return "+91 " + local.substring(0, 5) + " " + local.substring(5);
+            case 2:
+                return "0" + local;
+            case 3:
+                return local.substring(0, 5) + "-" + local.substring(5);
+            default:
+                return local;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.edforce.app.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.Intent;
+
+import com.edforce.telephony.OutreachQueue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class WhatsAppOutreachPluginTest {
+
+    @Test
+    public void restoredRunAdvancesOnFirstResume() throws IOException {
+        Context context = RuntimeEnvironment.getApplication();
+        // Left by a process killed while the first chat was open
+        writeProgress(context, System.currentTimeMillis() - 30_000L);
+
+        RecordingPlugin plugin = new RecordingPlugin(context);
+        plugin.load();
+        // The activity resumes as soon as it is recreated, before the main looper runs anything posted
+        plugin.handleOnResume();
+        ShadowLooper.idleMainLooper(5, TimeUnit.SECONDS);
+
+        assertEquals(1, plugin.opened.size());
+        assertTrue(plugin.opened.get(0).getDataString().contains("9876543211"));
+        assertEquals("com.whatsapp", plugin.opened.get(0).getPackage());
+    }
+
+    @Test
+    public void staleRunIsRestoredPaused() throws IOException {
+        Context context = RuntimeEnvironment.getApplication();
+        writeProgress(context, System.currentTimeMillis() - WhatsAppOutreachPlugin.RESUME_WINDOW_MS - 60_000L);
+
+        RecordingPlugin plugin = new RecordingPlugin(context);
+        plugin.load();
+        plugin.handleOnResume();
+        ShadowLooper.idleMainLooper(5, TimeUnit.SECONDS);
+
+        assertTrue(plugin.opened.isEmpty());
+    }
+
+    private static void writeProgress(Context context, long savedAt) throws IOException {
+        OutreachQueue queue = new OutreachQueue("Hi {name}");
+        queue.add("9876543210", "Asha", "lead-1");
+        queue.add("9876543211", "Ravi", "lead-2");
+        queue.open();
+        File file = new File(context.getFilesDir(), "whatsapp-outreach.bin");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeLong(savedAt);
+            out.writeUTF("com.whatsapp");
+            out.writeBoolean(false);
+            queue.writeTo(out);
+        }
+    }
+
+    private static final class RecordingPlugin extends WhatsAppOutreachPlugin {
+        final List<Intent> opened = new ArrayList<>();
+        private final Context context;
+
+        RecordingPlugin(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public Context getContext() {
+            return context;
+        }
+
+        @Override
+        void openChat(Intent intent) {
+            opened.add(intent);
+        }
+    }
+}
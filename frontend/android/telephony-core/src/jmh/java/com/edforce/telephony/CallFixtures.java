@@ -0,0 +1,37 @@
+package com.edforce.telephony;
+
+import java.util.Random;
+
+/**
+ * Deterministic call-log rows with a realistic spread of number formats.
+ */
+final class CallFixtures {
+    private static final String[] FORMATS = {
+            "+91%s", "0%s", "%s", "+91 %s", "91%s"
+    };
+
+    private CallFixtures() {
+    }
+
+    static String number(Random random) {
+        String local = String.valueOf(6_000_000_000L + (long) (random.nextDouble() * 3_999_999_999L));
+        String format = FORMATS[random.nextInt(FORMATS.length)];
+        if (random.nextInt(4) == 0) {
+            local = local.substring(0, 5) + "-" + local.substring(5);
+        }
+        return String.format(format, local);
+    }
+
+    static CallRecord[] records(int count, long seed) {
+        Random random = new Random(seed);
+        CallRecord[] rows = new CallRecord[count];
+        long date = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            date -= 60_000L + random.nextInt(3_600_000);
+            int type = 1 + random.nextInt(3);
+            int duration = type == CallTypes.MISSED ? 0 : random.nextInt(600);
+            rows[i] = new CallRecord(100_000L - i, number(random), type, date, duration);
+        }
+        return rows;
+    }
+}
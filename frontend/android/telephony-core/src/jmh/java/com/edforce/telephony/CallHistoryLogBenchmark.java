@@ -0,0 +1,60 @@
+package com.edforce.telephony;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * First page of one lead's history from the mapped call history file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CallHistoryLogBenchmark {
+    private static final int SIZE = 1024;
+
+    @Param({"10000", "200000"})
+    public int rows;
+
+    private File file;
+    private CallHistoryLog log;
+    private String[] numbers;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("call-history", ".bin");
+        file.delete();
+        log = CallHistoryLog.open(file);
+        CallRecord[] records = CallFixtures.records(rows, 11);
+        numbers = new String[SIZE];
+        for (int i = 0; i < records.length; i++) {
+            CallRecord record = records[i];
+            log.append(i + 1, record.getDuration(), record.getDate(), record.getType(), record.getNumber());
+            numbers[i & (SIZE - 1)] = record.getNumber();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public int firstPage(Blackhole blackhole) {
+        cursor = (cursor + 1) & (SIZE - 1);
+        return log.page(numbers[cursor], 0, 20, (id, duration, date, type) -> blackhole.consume(id));
+    }
+}
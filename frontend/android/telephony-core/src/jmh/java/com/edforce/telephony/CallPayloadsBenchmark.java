@@ -0,0 +1,74 @@
+package com.edforce.telephony;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serialization cost of a call-logs-sync payload, built whole or in bounded chunks,
+ * of the gzipped compact upload batch, and of single native-call-finished events.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CallPayloadsBenchmark {
+    @Param({"100", "10000"})
+    public int rows;
+
+    private CallRecord[] records;
+    private StringBuilder reused;
+
+    @Setup
+    public void setUp() {
+        records = CallFixtures.records(rows, 11);
+        reused = new StringBuilder(rows * 96);
+    }
+
+    @Benchmark
+    public int callLogsPayload() {
+        StringBuilder out = reused;
+        out.setLength(0);
+        out.append("{\"callLogs\":[");
+        for (int i = 0; i < records.length; i++) {
+            if (i > 0) out.append(',');
+            CallPayloads.appendCallLog(out, records[i]);
+        }
+        out.append("]}");
+        return out.length();
+    }
+
+    @Benchmark
+    public int chunkedCallLogs(Blackhole blackhole) {
+        ChunkedJsonArrayWriter writer = new ChunkedJsonArrayWriter(ChunkedJsonArrayWriter.DEFAULT_CHUNK_CHARS,
+                (json, count, index, last) -> blackhole.consume(json.length()));
+        for (CallRecord record : records) {
+            CallPayloads.appendCallLog(writer.beginRow(), record);
+            writer.endRow();
+        }
+        return writer.finish();
+    }
+
+    @Benchmark
+    public int compactBatch() {
+        CallBatchEncoder encoder = new CallBatchEncoder();
+        for (CallRecord record : records) {
+            encoder.add(record);
+        }
+        return encoder.toByteArray().length;
+    }
+
+    @Benchmark
+    public int callFinishedEvent() {
+        CallRecord record = records[0];
+        StringBuilder out = reused;
+        out.setLength(0);
+        CallPayloads.appendCallFinishedDetail(out, record.getDuration(), "calllog", record.getDate(),
+                record.getNumber(), record.getType(), record.getId());
+        return out.length();
+    }
+}
@@ -0,0 +1,58 @@
+package com.edforce.telephony;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Caller-ID lookup on RINGING against a full cache, hits and misses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CallerIdCacheBenchmark {
+    private static final int SIZE = 1024;
+    private static final int CACHE_ENTRIES = 5000;
+
+    private CallerIdCache cache;
+    private String[] cached;
+    private String[] unknown;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(11);
+        cache = new CallerIdCache(CACHE_ENTRIES, TimeUnit.HOURS.toMillis(12));
+        cached = new String[SIZE];
+        for (int i = 0; i < CACHE_ENTRIES; i++) {
+            String number = CallFixtures.number(random);
+            cache.put(number, "lead-" + i, "Lead " + i);
+            if (i < SIZE) {
+                cached[i] = number;
+            }
+        }
+        unknown = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            unknown[i] = CallFixtures.number(random);
+        }
+    }
+
+    @Benchmark
+    public CallerIdCache.Entry hit() {
+        cursor = (cursor + 1) & (SIZE - 1);
+        return cache.get(cached[cursor]);
+    }
+
+    @Benchmark
+    public CallerIdCache.Entry miss() {
+        cursor = (cursor + 1) & (SIZE - 1);
+        return cache.get(unknown[cursor]);
+    }
+}
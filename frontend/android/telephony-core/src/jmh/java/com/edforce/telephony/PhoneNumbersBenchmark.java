@@ -0,0 +1,67 @@
+package com.edforce.telephony;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-row number handling on the sync and lookup hot paths.
+ * legacyRegexMatch is the replaceAll-based rule the plugins used before
+ * PhoneNumbers and is kept as a baseline.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PhoneNumbersBenchmark {
+    private static final int SIZE = 1024;
+
+    private String[] numbers;
+    private String target;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        numbers = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            numbers[i] = CallFixtures.number(random);
+        }
+        target = numbers[SIZE / 2];
+    }
+
+    private String next() {
+        cursor = (cursor + 1) & (SIZE - 1);
+        return numbers[cursor];
+    }
+
+    @Benchmark
+    public long key() {
+        return PhoneNumbers.key(next());
+    }
+
+    @Benchmark
+    public String normalize() {
+        return PhoneNumbers.normalize(next());
+    }
+
+    @Benchmark
+    public boolean sameSubscriber() {
+        return PhoneNumbers.sameSubscriber(next(), target);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return PhoneNumbers.matches(next(), target);
+    }
+
+    @Benchmark
+    public boolean legacyRegexMatch() {
+        String a = next().replaceAll("[^0-9+]", "");
+        String b = target.replaceAll("[^0-9+]", "");
+        return a.contains(b) || b.contains(a);
+    }
+}
@@ -0,0 +1,197 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a historical call log backfill, split into time shards.
+ *
+ * The window [from, to) is cut into shards of equal length, handed out newest
+ * first so the most useful history arrives early. Each shard is read in pages
+ * keyed on call log _ID: a shard remembers the last _ID it uploaded, so
+ * resuming continues after that row instead of re-reading the shard. A shard
+ * handed to a worker is claimed until the worker completes or releases it;
+ * claims are not saved, so after a restart every unfinished shard is pending
+ * again.
+ *
+ * All methods are thread-safe.
+ */
+public final class BackfillPlan {
+    private static final int MAGIC = 0x45424650; // "EBFP"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * One time slice of the backfill window.
+     */
+    public static final class Shard {
+        private final int index;
+        private final long start;
+        private final long end;
+        private long afterId;
+        private int rows;
+        private boolean done;
+        private boolean claimed;
+
+        Shard(int index, long start, long end) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /** Inclusive lower bound on call date, in ms. */
+        public long getStart() {
+            return start;
+        }
+
+        /** Exclusive upper bound on call date, in ms. */
+        public long getEnd() {
+            return end;
+        }
+    }
+
+    private final long from;
+    private final long to;
+    private final List<Shard> shards = new ArrayList<>();
+
+    private BackfillPlan(long from, long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Plans [from, to) in shards of at most shardMs, newest first.
+     */
+    public static BackfillPlan create(long from, long to, long shardMs) {
+        if (from >= to || shardMs <= 0) {
+            throw new IllegalArgumentException("Empty backfill window");
+        }
+        BackfillPlan plan = new BackfillPlan(from, to);
+        int index = 0;
+        for (long end = to; end > from; end -= shardMs) {
+            plan.shards.add(new Shard(index++, Math.max(from, end - shardMs), end));
+        }
+        return plan;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    /**
+     * Claims the newest shard that is neither done nor claimed.
+     *
+     * @return the shard, or null if none is left to hand out
+     */
+    public synchronized Shard claim() {
+        for (Shard shard : shards) {
+            if (!shard.done && !shard.claimed) {
+                shard.claimed = true;
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a claimed shard unfinished, e.g. after a failed upload.
+     */
+    public synchronized void release(Shard shard) {
+        shard.claimed = false;
+    }
+
+    /**
+     * Records an uploaded page: rows up to and including lastId are done.
+     */
+    public synchronized void advance(Shard shard, long lastId, int pageRows) {
+        if (lastId > shard.afterId) {
+            shard.afterId = lastId;
+        }
+        shard.rows += pageRows;
+    }
+
+    public synchronized void complete(Shard shard) {
+        shard.done = true;
+        shard.claimed = false;
+    }
+
+    /**
+     * Keyset cursor of the shard: the next page starts after this _ID.
+     */
+    public synchronized long getAfterId(Shard shard) {
+        return shard.afterId;
+    }
+
+    public synchronized int getDoneCount() {
+        int n = 0;
+        for (Shard shard : shards) {
+            if (shard.done) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Rows uploaded over all shards.
+     */
+    public synchronized long getRows() {
+        long n = 0;
+        for (Shard shard : shards) {
+            n += shard.rows;
+        }
+        return n;
+    }
+
+    public synchronized boolean isComplete() {
+        return getDoneCount() == shards.size();
+    }
+
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(from);
+        out.writeLong(to);
+        out.writeInt(shards.size());
+        for (Shard shard : shards) {
+            out.writeLong(shard.start);
+            out.writeLong(shard.end);
+            out.writeLong(shard.afterId);
+            out.writeInt(shard.rows);
+            out.writeBoolean(shard.done);
+        }
+    }
+
+    public static BackfillPlan readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a backfill plan file");
+        }
+        BackfillPlan plan = new BackfillPlan(in.readLong(), in.readLong());
+        int count = in.readInt();
+        if (count < 0 || plan.from >= plan.to) {
+            throw new IOException("Corrupt backfill plan");
+        }
+        for (int i = 0; i < count; i++) {
+            Shard shard = new Shard(i, in.readLong(), in.readLong());
+            shard.afterId = in.readLong();
+            shard.rows = in.readInt();
+            shard.done = in.readBoolean();
+            plan.shards.add(shard);
+        }
+        return plan;
+    }
+}
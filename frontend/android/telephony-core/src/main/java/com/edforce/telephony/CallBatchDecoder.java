@@ -0,0 +1,93 @@
+package com.edforce.telephony;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reference reader for the {@link CallBatchEncoder} format. The backend's
+ * call-batch.codec.ts implements the same steps.
+ */
+public final class CallBatchDecoder {
+    // The encoder's limits also guard against hostile length prefixes
+    private static final int MAX_ROWS = CallBatchEncoder.MAX_ROWS;
+    private static final int MAX_NUMBER_BYTES = CallBatchEncoder.MAX_NUMBER_BYTES;
+
+    private CallBatchDecoder() {
+    }
+
+    public static List<CallRecord> decode(byte[] batch) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(batch)))) {
+            byte[] magic = new byte[CallBatchEncoder.MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < magic.length; i++) {
+                if (magic[i] != CallBatchEncoder.MAGIC[i]) {
+                    throw new IOException("Not a call batch");
+                }
+            }
+            int version = in.readUnsignedByte();
+            if (version != CallBatchEncoder.VERSION) {
+                throw new IOException("Unsupported call batch version " + version);
+            }
+
+            int rowCount = readCount(in, MAX_ROWS);
+            int numberCount = readCount(in, MAX_ROWS);
+            String[] numbers = new String[numberCount];
+            for (int i = 0; i < numberCount; i++) {
+                byte[] utf8 = new byte[readCount(in, MAX_NUMBER_BYTES)];
+                in.readFully(utf8);
+                numbers[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+
+            List<CallRecord> records = new ArrayList<>(rowCount);
+            long date = 0L;
+            long id = 0L;
+            for (int i = 0; i < rowCount; i++) {
+                date += readZigZag(in);
+                int duration = (int) readVarLong(in);
+                int type = in.readUnsignedByte();
+                int numberRef = (int) readVarLong(in);
+                id += readZigZag(in);
+                if (numberRef > numberCount) {
+                    throw new IOException("Number index out of range");
+                }
+                records.add(new CallRecord(id, numberRef == 0 ? null : numbers[numberRef - 1], type, date, duration));
+            }
+            return records;
+        }
+    }
+
+    private static int readCount(InputStream in, int max) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > max) {
+            throw new IOException("Corrupt call batch");
+        }
+        return (int) value;
+    }
+
+    static long readZigZag(InputStream in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated call batch");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,151 @@
+package com.edforce.telephony;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary encoding of a batch of call log rows for upload, an
+ * alternative to one JSON body per call on metered connections.
+ *
+ * Layout before compression (varints are unsigned LEB128, "zigzag" values are
+ * signed varints):
+ * <pre>
+ *   magic    'E' 'C' 'B' version(1)
+ *   rows     varint
+ *   numbers  varint count, then per number: varint byte length + UTF-8 bytes
+ *   per row:
+ *     date      zigzag  epoch millis minus the previous row's (first row: minus 0)
+ *     duration  varint  seconds
+ *     type      1 byte  CallLog.Calls.TYPE
+ *     number    varint  1-based index into numbers, 0 when the row has none
+ *     id        zigzag  call log _ID minus the previous row's
+ * </pre>
+ * The whole buffer is gzipped. Each distinct number is stored once, in the
+ * form the device recorded it; normalization stays on the server.
+ * {@link CallBatchDecoder} is the reference reader.
+ *
+ * A batch holds at most {@link #MAX_ROWS} rows and {@link #MAX_BATCH_BYTES}
+ * bytes before compression, so its upload stays under the backend's body
+ * limit even when it does not compress; longer windows are split across
+ * batches while {@link #isFull()}. The backend decoder enforces the same limits.
+ */
+public final class CallBatchEncoder {
+    static final byte[] MAGIC = {'E', 'C', 'B'};
+    static final int VERSION = 1;
+
+    /** Rows per batch; call-batch.codec.ts uses the same value. */
+    public static final int MAX_ROWS = 20_000;
+    /** Longer numbers keep their trailing bytes. */
+    public static final int MAX_NUMBER_BYTES = 256;
+    /** Uncompressed size of a batch; the backend accepts 2 MB compressed bodies. */
+    public static final int MAX_BATCH_BYTES = 1 << 20;
+    // Worst case for one row: its fields plus a new number with its length prefix
+    private static final int MAX_ROW_BYTES = 10 + 5 + 1 + 5 + 10 + 2 + MAX_NUMBER_BYTES;
+
+    private final ByteArrayOutputStream rows = new ByteArrayOutputStream(4096);
+    private final Map<String, Integer> numberIndex = new HashMap<>();
+    private final ByteArrayOutputStream numbers = new ByteArrayOutputStream(1024);
+    private long previousDate;
+    private long previousId;
+    private int rowCount;
+
+    /**
+     * @throws IllegalStateException if the batch {@link #isFull()}
+     */
+    public void add(long id, int duration, long date, int type, String number) {
+        if (isFull()) {
+            throw new IllegalStateException("Call batch is full");
+        }
+        writeZigZag(rows, date - previousDate);
+        writeVarLong(rows, Math.max(duration, 0));
+        rows.write(type & 0xff);
+        writeVarLong(rows, indexOf(number));
+        writeZigZag(rows, id - previousId);
+        previousDate = date;
+        previousId = id;
+        rowCount++;
+    }
+
+    public void add(CallRecord record) {
+        add(record.getId(), record.getDuration(), record.getDate(), record.getType(), record.getNumber());
+    }
+
+    /**
+     * Whether the next row could break a limit; start a new batch for it.
+     */
+    public boolean isFull() {
+        return rowCount >= MAX_ROWS || rows.size() + numbers.size() > MAX_BATCH_BYTES - MAX_ROW_BYTES;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getNumberCount() {
+        return numberIndex.size();
+    }
+
+    /**
+     * @return the gzipped batch; the encoder can keep accepting rows afterwards
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() / 2 + numbers.size() / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(MAGIC);
+            gzip.write(VERSION);
+            writeVarLong(gzip, rowCount);
+            writeVarLong(gzip, numberIndex.size());
+            numbers.writeTo(gzip);
+            rows.writeTo(gzip);
+        } catch (IOException e) {
+            // In-memory streams do not fail
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private int indexOf(String number) {
+        if (number == null || number.isEmpty()) {
+            return 0;
+        }
+        Integer index = numberIndex.get(number);
+        if (index == null) {
+            index = numberIndex.size() + 1;
+            numberIndex.put(number, index);
+            byte[] utf8 = number.getBytes(StandardCharsets.UTF_8);
+            int cut = 0;
+            while (utf8.length - cut > MAX_NUMBER_BYTES || (cut < utf8.length && (utf8[cut] & 0xc0) == 0x80)) {
+                // Whole characters only; the trailing digits are what numbers are matched on
+                cut++;
+            }
+            if (cut > 0) {
+                utf8 = Arrays.copyOfRange(utf8, cut, utf8.length);
+            }
+            writeVarLong(numbers, utf8.length);
+            numbers.write(utf8, 0, utf8.length);
+        }
+        return index;
+    }
+
+    static void writeZigZag(OutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    static void writeVarLong(OutputStream out, long value) {
+        try {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
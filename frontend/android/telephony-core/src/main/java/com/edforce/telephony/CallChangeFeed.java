@@ -0,0 +1,297 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns call log rows modified since a watermark into inserts, updates and
+ * deletes.
+ *
+ * The feed remembers a small fingerprint (date, duration, type, number key) of
+ * every row it has reported inside a trailing window, plus the highest
+ * LAST_MODIFIED seen. A pass over the rows modified since then reports new
+ * rows as inserts and changed rows as updates carrying only the fields that
+ * differ, so an OEM correcting one row's duration costs one row. The call log
+ * keeps no tombstones; deletes are found by a separate presence pass over the
+ * window's _IDs, which callers only need to run when the row count shows that
+ * something disappeared.
+ *
+ * Reading is two-phase: {@link #begin(long)} collects a {@link Scan} without
+ * touching the feed, and {@link #commit(Scan)} applies it once the changes were
+ * delivered, so a crash in between reports them again.
+ */
+public final class CallChangeFeed {
+    public static final int OP_INSERT = 1;
+    public static final int OP_UPDATE = 2;
+    public static final int OP_DELETE = 3;
+
+    // Changed-field bits of an update
+    public static final int FIELD_DURATION = 1;
+    public static final int FIELD_TYPE = 2;
+    public static final int FIELD_DATE = 4;
+    public static final int FIELD_NUMBER = 8;
+    public static final int ALL_FIELDS = FIELD_DURATION | FIELD_TYPE | FIELD_DATE | FIELD_NUMBER;
+
+    private static final int MAGIC = 0x45434346; // "ECCF"
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * One reported change. Fields outside {@link #getFields()} are unset.
+     */
+    public static final class Change {
+        private final int op;
+        private final long id;
+        private final int fields;
+        private final int duration;
+        private final long date;
+        private final int type;
+        private final String number;
+
+        Change(int op, long id, int fields, int duration, long date, int type, String number) {
+            this.op = op;
+            this.id = id;
+            this.fields = fields;
+            this.duration = duration;
+            this.date = date;
+            this.type = type;
+            this.number = number;
+        }
+
+        public int getOp() {
+            return op;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getFields() {
+            return fields;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+
+        public long getDate() {
+            return date;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public String getNumber() {
+            return number;
+        }
+    }
+
+    private static final class Fingerprint {
+        final long date;
+        final int duration;
+        final int type;
+        final long key;
+
+        Fingerprint(long date, int duration, int type, long key) {
+            this.date = date;
+            this.duration = duration;
+            this.type = type;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Changes collected by one pass; see {@link #begin(long)}.
+     */
+    public final class Scan {
+        private final long windowStart;
+        private final List<Change> changes = new ArrayList<>();
+        private final HashMap<Long, Fingerprint> seen = new HashMap<>();
+        private HashSet<Long> present;
+        private long watermark = CallChangeFeed.this.watermark;
+        private int inserts;
+
+        Scan(long windowStart) {
+            this.windowStart = windowStart;
+        }
+
+        /**
+         * Feeds one row modified since {@link #getWatermark()}.
+         */
+        public void row(long id, int duration, long date, int type, String number, long lastModified) {
+            if (lastModified > watermark) {
+                watermark = lastModified;
+            }
+            if (date < windowStart) {
+                return;
+            }
+            Fingerprint next = new Fingerprint(date, duration, type, PhoneNumbers.key(number));
+            Fingerprint known = seen.containsKey(id) ? seen.get(id) : rows.get(id);
+            if (known == null) {
+                changes.add(new Change(OP_INSERT, id, ALL_FIELDS, duration, date, type, number));
+                inserts++;
+            } else {
+                int fields = 0;
+                if (known.duration != next.duration) {
+                    fields |= FIELD_DURATION;
+                }
+                if (known.type != next.type) {
+                    fields |= FIELD_TYPE;
+                }
+                if (known.date != next.date) {
+                    fields |= FIELD_DATE;
+                }
+                if (known.key != next.key) {
+                    fields |= FIELD_NUMBER;
+                }
+                if (fields == 0) {
+                    return;
+                }
+                changes.add(new Change(OP_UPDATE, id, fields,
+                        (fields & FIELD_DURATION) != 0 ? duration : 0,
+                        (fields & FIELD_DATE) != 0 ? date : 0L,
+                        (fields & FIELD_TYPE) != 0 ? type : 0,
+                        (fields & FIELD_NUMBER) != 0 ? number : null));
+            }
+            seen.put(id, next);
+        }
+
+        /**
+         * Rows the window should hold once this scan is applied; a presence count
+         * below this means rows were deleted.
+         */
+        public int expectedCount() {
+            return trackedSince(windowStart) + inserts;
+        }
+
+        /**
+         * Marks an _ID as still present in the window. Once called, every
+         * tracked row of the window not marked is reported deleted by
+         * {@link #finishPresence()}.
+         */
+        public void present(long id) {
+            if (present == null) {
+                present = new HashSet<>();
+            }
+            present.add(id);
+        }
+
+        /**
+         * Reports tracked rows of the window that were not marked present.
+         */
+        public void finishPresence() {
+            HashSet<Long> ids = present == null ? new HashSet<Long>() : present;
+            for (Map.Entry<Long, Fingerprint> entry : rows.entrySet()) {
+                long id = entry.getKey();
+                if (entry.getValue().date >= windowStart && !ids.contains(id) && !seen.containsKey(id)) {
+                    changes.add(new Change(OP_DELETE, id, 0, 0, 0L, 0, null));
+                }
+            }
+            present = null;
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        /**
+         * LAST_MODIFIED to resume from once this scan is committed.
+         */
+        public long getWatermark() {
+            return watermark;
+        }
+    }
+
+    private final HashMap<Long, Fingerprint> rows = new HashMap<>();
+    private long watermark;
+
+    /**
+     * Highest LAST_MODIFIED committed; the next pass reads rows modified after it.
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Rows currently tracked.
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    public int trackedSince(long windowStart) {
+        int n = 0;
+        for (Fingerprint row : rows.values()) {
+            if (row.date >= windowStart) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Starts a pass over rows dated at or after windowStart. The feed is not
+     * changed until the scan is committed.
+     */
+    public Scan begin(long windowStart) {
+        return new Scan(windowStart);
+    }
+
+    /**
+     * Applies a delivered scan and forgets rows that left its window.
+     */
+    public void commit(Scan scan) {
+        for (Change change : scan.changes) {
+            if (change.op == OP_DELETE) {
+                rows.remove(change.id);
+            }
+        }
+        rows.putAll(scan.seen);
+        Iterator<Fingerprint> it = rows.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().date < scan.windowStart) {
+                it.remove();
+            }
+        }
+        watermark = Math.max(watermark, scan.watermark);
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(watermark);
+        out.writeInt(rows.size());
+        for (Map.Entry<Long, Fingerprint> entry : rows.entrySet()) {
+            Fingerprint row = entry.getValue();
+            out.writeLong(entry.getKey());
+            out.writeLong(row.date);
+            out.writeInt(row.duration);
+            out.writeInt(row.type);
+            out.writeLong(row.key);
+        }
+    }
+
+    public static CallChangeFeed readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a call change feed file");
+        }
+        CallChangeFeed feed = new CallChangeFeed();
+        feed.watermark = in.readLong();
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt call change feed");
+        }
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            feed.rows.put(id, new Fingerprint(in.readLong(), in.readInt(), in.readInt(), in.readLong()));
+        }
+        return feed;
+    }
+}
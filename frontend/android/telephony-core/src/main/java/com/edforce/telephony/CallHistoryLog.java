@@ -0,0 +1,275 @@
+package com.edforce.telephony;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Append-only, memory-mapped file of call history with a per-number index.
+ *
+ * Every call is a fixed 32-byte record (id, date, number key, duration, type),
+ * appended in call log _ID order behind a small header that holds the record
+ * count and the last _ID stored. On open the records are scanned once to chain
+ * each number's calls together, after which a page of one number's history is
+ * a hash lookup plus a walk over mapped memory, with no I/O and no query.
+ *
+ * Numbers are stored as {@link PhoneNumbers#key(CharSequence)}, so any format
+ * of a number finds the same history. Old calls are dropped by
+ * {@link #prune(long)}, which rewrites the file and swaps it in with a rename.
+ */
+public final class CallHistoryLog implements Closeable {
+
+    /**
+     * Receives one call of a history page.
+     */
+    public interface Row {
+        void onRow(long id, int duration, long date, int type);
+    }
+
+    public static final int RECORD_BYTES = 32;
+
+    private static final int MAGIC = 0x4543484c; // "ECHL"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int COUNT_OFFSET = 8;
+    private static final int LAST_ID_OFFSET = 16;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int NONE = -1;
+
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private long lastCallId;
+
+    // Newest record of each number, and each record's previous one of the same number
+    private final HashMap<Long, Integer> newestByKey = new HashMap<>();
+    private final HashMap<Long, Integer> countByKey = new HashMap<>();
+    private int[] previous = new int[0];
+
+    private CallHistoryLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the file, creating it if missing.
+     *
+     * @throws IOException if the file exists but is not a valid history log
+     */
+    public static CallHistoryLog open(File file) throws IOException {
+        CallHistoryLog log = new CallHistoryLog(file);
+        try {
+            log.load();
+        } catch (IOException e) {
+            log.close();
+            throw e;
+        }
+        return log;
+    }
+
+    private void load() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        long length = channel.size();
+        if (length == 0) {
+            map(MIN_CAPACITY);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            writeHeader();
+            return;
+        }
+        if (length < HEADER_BYTES) {
+            throw new IOException("Truncated call history file");
+        }
+        int fileCapacity = (int) Math.min(Integer.MAX_VALUE, (length - HEADER_BYTES) / RECORD_BYTES);
+        map(Math.max(fileCapacity, MIN_CAPACITY));
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a call history file");
+        }
+        count = buffer.getInt(COUNT_OFFSET);
+        lastCallId = buffer.getLong(LAST_ID_OFFSET);
+        if (count < 0 || count > fileCapacity) {
+            throw new IOException("Corrupt call history file");
+        }
+        previous = new int[Math.max(count, 16)];
+        for (int i = 0; i < count; i++) {
+            index(i, buffer.getLong(offset(i) + 16));
+        }
+    }
+
+    /**
+     * Appends a call unless its _ID is not above the last one stored.
+     *
+     * @return whether the call was appended
+     */
+    public synchronized boolean append(long id, int duration, long date, int type, CharSequence number) throws IOException {
+        if (id <= lastCallId) {
+            return false;
+        }
+        if (count == capacity) {
+            map(capacity * 2);
+        }
+        long key = PhoneNumbers.key(number);
+        int at = offset(count);
+        buffer.putLong(at, id);
+        buffer.putLong(at + 8, date);
+        buffer.putLong(at + 16, key);
+        buffer.putInt(at + 24, duration);
+        buffer.putInt(at + 28, type);
+        index(count, key);
+        count++;
+        lastCallId = id;
+        // Count last, so a record is only visible once fully written
+        writeHeader();
+        return true;
+    }
+
+    public synchronized long getLastCallId() {
+        return lastCallId;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Date of the first stored record, or -1 when empty. Records arrive in _ID
+     * order, so this is about the oldest call kept.
+     */
+    public synchronized long getFirstDate() {
+        return count == 0 ? -1L : buffer.getLong(offset(0) + 8);
+    }
+
+    public synchronized int countFor(CharSequence number) {
+        Integer n = countByKey.get(PhoneNumbers.key(number));
+        return n == null ? 0 : n;
+    }
+
+    /**
+     * Visits one page of a number's calls, newest first.
+     *
+     * @return number of rows visited
+     */
+    public synchronized int page(CharSequence number, int offset, int limit, Row row) {
+        long key = PhoneNumbers.key(number);
+        if (key == PhoneNumbers.NO_KEY || limit <= 0) {
+            return 0;
+        }
+        Integer newest = newestByKey.get(key);
+        int i = newest == null ? NONE : newest;
+        for (int skipped = 0; i != NONE && skipped < offset; skipped++) {
+            i = previous[i];
+        }
+        int visited = 0;
+        for (; i != NONE && visited < limit; i = previous[i]) {
+            int at = offset(i);
+            row.onRow(buffer.getLong(at), buffer.getInt(at + 24), buffer.getLong(at + 8), buffer.getInt(at + 28));
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * Drops every call dated before the cutoff by writing the kept records to a
+     * new file and renaming it over this one.
+     *
+     * @return number of calls dropped
+     */
+    public synchronized int prune(long cutoffDate) throws IOException {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (buffer.getLong(offset(i) + 8) >= cutoffDate) {
+                kept++;
+            }
+        }
+        int dropped = count - kept;
+        if (dropped == 0) {
+            return 0;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(0, MAGIC);
+            header.putInt(4, FORMAT_VERSION);
+            header.putInt(COUNT_OFFSET, kept);
+            header.putLong(LAST_ID_OFFSET, lastCallId);
+            outChannel.write(header, 0);
+            long position = HEADER_BYTES;
+            for (int i = 0; i < count; i++) {
+                int at = offset(i);
+                if (buffer.getLong(at + 8) < cutoffDate) {
+                    continue;
+                }
+                ByteBuffer record = buffer.duplicate();
+                record.limit(at + RECORD_BYTES).position(at);
+                position += outChannel.write(record, position);
+            }
+            outChannel.force(true);
+        }
+        close();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+        newestByKey.clear();
+        countByKey.clear();
+        count = 0;
+        load();
+        return dropped;
+    }
+
+    /**
+     * Writes dirty pages to storage. Appends survive a process crash without
+     * this; it only matters for power loss.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer = null;
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    private void map(int records) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) records * RECORD_BYTES);
+        capacity = records;
+    }
+
+    private void writeHeader() {
+        buffer.putLong(LAST_ID_OFFSET, lastCallId);
+        buffer.putInt(COUNT_OFFSET, count);
+    }
+
+    private void index(int record, long key) {
+        if (record == previous.length) {
+            previous = Arrays.copyOf(previous, Math.max(16, record * 2));
+        }
+        if (key == PhoneNumbers.NO_KEY) {
+            previous[record] = NONE;
+            return;
+        }
+        Integer newest = newestByKey.put(key, record);
+        previous[record] = newest == null ? NONE : newest;
+        Integer n = countByKey.get(key);
+        countByKey.put(key, n == null ? 1 : n + 1);
+    }
+
+    private static int offset(int record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+}
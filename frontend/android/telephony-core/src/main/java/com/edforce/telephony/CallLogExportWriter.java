@@ -0,0 +1,206 @@
+package com.edforce.telephony;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams call log rows into a file as NDJSON or CSV, for exports too large
+ * to pass through the WebView bridge.
+ *
+ * NDJSON has one {@link CallPayloads#appendCallLog} object per line. CSV has
+ * a header line "id,duration,date,type,number" and RFC 4180 quoting; numbers
+ * that a spreadsheet would read as a formula are prefixed with a quote.
+ *
+ * Each row is encoded into one reusable byte buffer that is written to the
+ * channel whenever it fills, so memory stays at one buffer plus one row
+ * whatever the row count. The write methods match
+ * CallLogQueries.RowHandler and do not throw: the first I/O error stops
+ * further writes and is thrown from {@link #finish()}.
+ *
+ * Not thread-safe. The channel is not closed.
+ */
+public final class CallLogExportWriter {
+    public static final int NDJSON = 0;
+    public static final int CSV = 1;
+
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+    static final String CSV_HEADER = "id,duration,date,type,number\n";
+
+    private final WritableByteChannel channel;
+    private final int format;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder row = new StringBuilder(160);
+    private IOException error;
+    private long bytesWritten;
+    private int rows;
+    private boolean finished;
+
+    public CallLogExportWriter(WritableByteChannel channel, int format) {
+        this(channel, format, DEFAULT_BUFFER_BYTES);
+    }
+
+    public CallLogExportWriter(WritableByteChannel channel, int format, int bufferBytes) {
+        if (format != NDJSON && format != CSV) {
+            throw new IllegalArgumentException("Unknown format " + format);
+        }
+        if (bufferBytes < 64) {
+            throw new IllegalArgumentException("bufferBytes must be at least 64");
+        }
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+        if (format == CSV) {
+            row.append(CSV_HEADER);
+            encodeRow();
+        }
+    }
+
+    /**
+     * @return {@link #NDJSON} or {@link #CSV}, or -1 for an unknown name
+     */
+    public static int formatOf(String name) {
+        if ("ndjson".equals(name)) {
+            return NDJSON;
+        }
+        if ("csv".equals(name)) {
+            return CSV;
+        }
+        return -1;
+    }
+
+    public static String extensionOf(int format) {
+        return format == CSV ? "csv" : "ndjson";
+    }
+
+    public static String mimeTypeOf(int format) {
+        return format == CSV ? "text/csv" : "application/x-ndjson";
+    }
+
+    public void writeCallLog(long id, int duration, long date, int type, String number) {
+        if (finished) {
+            throw new IllegalStateException("writer already finished");
+        }
+        if (format == NDJSON) {
+            CallPayloads.appendCallLog(row, id, duration, date, type, number);
+        } else {
+            row.append(id).append(',')
+                    .append(duration).append(',')
+                    .append(date).append(',')
+                    .append(type).append(',');
+            appendCsvField(row, number);
+        }
+        row.append('\n');
+        rows++;
+        encodeRow();
+    }
+
+    public void writeCallLog(CallRecord record) {
+        writeCallLog(record.getId(), record.getDuration(), record.getDate(), record.getType(), record.getNumber());
+    }
+
+    /**
+     * Writes what is still buffered.
+     *
+     * @return rows written
+     * @throws IOException the first error hit while writing
+     */
+    public int finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            if (error == null) {
+                drain();
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return rows;
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Bytes handed to the channel so far; the file size once finished.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Appends a CSV field, quoted when it holds a separator, quote or line
+     * break. Values starting with '=' or '@' get a leading quote so they stay
+     * text when opened in a spreadsheet; '+' and '-' are left alone since
+     * phone numbers start with them. A null value is an empty field.
+     */
+    static StringBuilder appendCsvField(StringBuilder out, String value) {
+        if (value == null || value.isEmpty()) {
+            return out;
+        }
+        char first = value.charAt(0);
+        boolean guard = first == '=' || first == '@';
+        boolean quote = guard;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return out.append(value);
+        }
+        out.append('"');
+        if (guard) {
+            out.append('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    private void encodeRow() {
+        if (error != null) {
+            row.setLength(0);
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(row);
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, true);
+                if (result.isOverflow()) {
+                    drain();
+                    continue;
+                }
+                if (result.isError()) {
+                    // Unpaired surrogate in a number: keep the row, drop the character
+                    chars.position(chars.position() + result.length());
+                    continue;
+                }
+                break;
+            }
+            encoder.reset();
+        } catch (IOException e) {
+            error = e;
+        }
+        row.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A model kept up to date row by row from the device call log and saved as a
+ * binary snapshot.
+ *
+ * Rows are deduplicated by call log _ID: only IDs above {@link #getLastCallId()}
+ * are counted, so one query from the lowest watermark can feed several models.
+ */
+public interface CallLogModel {
+    /**
+     * Highest call log _ID counted so far; feed only rows above it.
+     */
+    long getLastCallId();
+
+    /**
+     * Counts one call log row; rows at or below {@link #getLastCallId()} are ignored.
+     *
+     * @return true if the row changed the model beyond its _ID watermark
+     */
+    boolean add(long id, int duration, long date, int type, String number);
+
+    void writeTo(DataOutputStream out) throws IOException;
+
+    void readFrom(DataInputStream in) throws IOException;
+}
@@ -0,0 +1,181 @@
+package com.edforce.telephony;
+
+/**
+ * JSON serialization of the call payloads sent to the web app.
+ *
+ * Output is written straight into a caller-owned StringBuilder instead of going
+ * through org.json, so one row costs no intermediate objects. Strings are escaped
+ * so the result is also safe to embed in JavaScript source passed to
+ * evaluateJavascript.
+ */
+public final class CallPayloads {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CallPayloads() {
+    }
+
+    /**
+     * Row of the call-logs-sync / getCallLogs payload:
+     * {"id":..,"duration":..,"date":..,"type":..,"number":".."}
+     */
+    public static StringBuilder appendCallLog(StringBuilder out, long id, int duration, long date, int type, String number) {
+        out.append("{\"id\":").append(id)
+                .append(",\"duration\":").append(duration)
+                .append(",\"date\":").append(date)
+                .append(",\"type\":").append(type)
+                .append(",\"number\":");
+        appendString(out, number);
+        return out.append('}');
+    }
+
+    public static StringBuilder appendCallLog(StringBuilder out, CallRecord record) {
+        return appendCallLog(out, record.getId(), record.getDuration(), record.getDate(), record.getType(), record.getNumber());
+    }
+
+    /**
+     * Detail object of the native-call-finished event. Optional fields are
+     * omitted when unknown: callLogDate and callLogId when not positive,
+     * callLogType when negative and phoneNumber when null.
+     */
+    public static StringBuilder appendCallFinishedDetail(StringBuilder out, int durationSec, String source,
+                                                         long callLogDate, String phoneNumber, int callLogType, long callLogId) {
+        return appendCallFinishedDetail(out, durationSec, source, callLogDate, phoneNumber, callLogType, callLogId, 0L, null);
+    }
+
+    /**
+     * As above, plus the dial token a row was correlated with and the match
+     * confidence; both are omitted when dialToken is not positive.
+     */
+    public static StringBuilder appendCallFinishedDetail(StringBuilder out, int durationSec, String source,
+                                                         long callLogDate, String phoneNumber, int callLogType, long callLogId,
+                                                         long dialToken, String confidence) {
+        return appendCallFinishedDetail(out, durationSec, source, callLogDate, phoneNumber, callLogType, callLogId,
+                dialToken, confidence, null);
+    }
+
+    /**
+     * As above, plus the lead the dial was placed for, omitted when null.
+     */
+    public static StringBuilder appendCallFinishedDetail(StringBuilder out, int durationSec, String source,
+                                                         long callLogDate, String phoneNumber, int callLogType, long callLogId,
+                                                         long dialToken, String confidence, String leadId) {
+        out.append("{\"duration\":").append(durationSec)
+                .append(",\"source\":");
+        appendString(out, source);
+        if (callLogDate > 0) {
+            out.append(",\"callLogDate\":").append(callLogDate);
+        }
+        if (phoneNumber != null) {
+            out.append(",\"phoneNumber\":");
+            appendString(out, phoneNumber);
+        }
+        if (callLogType >= 0) {
+            out.append(",\"callLogType\":").append(callLogType);
+        }
+        if (callLogId > 0) {
+            out.append(",\"callLogId\":").append(callLogId);
+        }
+        if (dialToken > 0) {
+            out.append(",\"dialToken\":").append(dialToken)
+                    .append(",\"confidence\":");
+            appendString(out, confidence);
+        }
+        if (leadId != null) {
+            out.append(",\"leadId\":");
+            appendString(out, leadId);
+        }
+        return out.append('}');
+    }
+
+    /**
+     * Detail object of the native-caller-id event fired when a known lead rings:
+     * {"phoneNumber":"..","leadId":"..","name":".."}
+     */
+    public static StringBuilder appendCallerIdDetail(StringBuilder out, String phoneNumber, String leadId, String name) {
+        out.append("{\"phoneNumber\":");
+        appendString(out, phoneNumber);
+        out.append(",\"leadId\":");
+        appendString(out, leadId);
+        out.append(",\"name\":");
+        appendString(out, name);
+        return out.append('}');
+    }
+
+    /**
+     * One entry of a call change feed: {"op":"insert"|"update"|"delete","id":..}
+     * followed by the changed fields only (all of them for an insert, none for
+     * a delete).
+     */
+    public static StringBuilder appendCallChange(StringBuilder out, CallChangeFeed.Change change) {
+        int op = change.getOp();
+        out.append("{\"op\":\"")
+                .append(op == CallChangeFeed.OP_INSERT ? "insert" : op == CallChangeFeed.OP_UPDATE ? "update" : "delete")
+                .append("\",\"id\":").append(change.getId());
+        int fields = change.getFields();
+        if ((fields & CallChangeFeed.FIELD_DURATION) != 0) {
+            out.append(",\"duration\":").append(change.getDuration());
+        }
+        if ((fields & CallChangeFeed.FIELD_DATE) != 0) {
+            out.append(",\"date\":").append(change.getDate());
+        }
+        if ((fields & CallChangeFeed.FIELD_TYPE) != 0) {
+            out.append(",\"type\":").append(change.getType());
+        }
+        if ((fields & CallChangeFeed.FIELD_NUMBER) != 0) {
+            out.append(",\"number\":");
+            appendString(out, change.getNumber());
+        }
+        return out.append('}');
+    }
+
+    /**
+     * Appends a quoted JSON string, or null.
+     */
+    public static StringBuilder appendString(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        int len = value.length();
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '/':
+                    // Avoid "</script>" when the payload ends up in page source
+                    if (i > 0 && value.charAt(i - 1) == '<') {
+                        out.append("\\/");
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+                default:
+                    // Control characters, plus U+2028/U+2029 which are line terminators in JS source
+                    if (c < 0x20 || (c >= 0x7f && c <= 0x9f) || c == '\u2028' || c == '\u2029') {
+                        out.append("\\u")
+                                .append(HEX[(c >> 12) & 0xf])
+                                .append(HEX[(c >> 8) & 0xf])
+                                .append(HEX[(c >> 4) & 0xf])
+                                .append(HEX[c & 0xf]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+}
@@ -0,0 +1,47 @@
+package com.edforce.telephony;
+
+/**
+ * One row of the device call log, reduced to the columns the app syncs.
+ */
+public final class CallRecord {
+    private final long id;
+    private final String number;
+    private final int type;
+    private final long date;
+    private final int duration;
+
+    public CallRecord(long id, String number, int type, long date, int duration) {
+        this.id = id;
+        this.number = number;
+        this.type = type;
+        this.date = date;
+        this.duration = duration;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    /** Call start, epoch millis. */
+    public long getDate() {
+        return date;
+    }
+
+    /** Talk time in seconds. */
+    public int getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return "CallRecord{id=" + id + ", type=" + type + ", date=" + date + ", duration=" + duration + "}";
+    }
+}
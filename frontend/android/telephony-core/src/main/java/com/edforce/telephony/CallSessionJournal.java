@@ -0,0 +1,329 @@
+package com.edforce.telephony;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead record of the call session in progress, so a call outlives the
+ * process being killed in the middle of it.
+ *
+ * The file is two fixed-size slots written alternately, each carrying a
+ * sequence number and a CRC32. A transition overwrites the older slot and
+ * forces it to storage before returning, so a torn write can only damage the
+ * slot being replaced and the other one still holds the previous state.
+ * Opening reads both slots and keeps the valid one with the higher sequence:
+ * recovery costs two small reads however many calls came before.
+ *
+ * Only transitions that open or close a session are written, a dial from the
+ * app, OFFHOOK and the IDLE that ends it; repeats are not rewritten. Thread-safe.
+ */
+public final class CallSessionJournal implements Closeable {
+    /** No session open. */
+    public static final int CLOSED = 0;
+    /** A call was placed from the app and has not gone OFFHOOK yet. */
+    public static final int DIALED = 1;
+    /** A call is OFFHOOK. */
+    public static final int ACTIVE = 2;
+
+    // Slots of the first, 64-byte format carried "CSSJ" and are ignored
+    private static final int MAGIC = 0x43535332; // "CSS2"
+    static final int SLOT_BYTES = 128;
+    static final int MAX_NUMBER_BYTES = 20;
+    static final int MAX_LEAD_ID_BYTES = 64;
+    private static final int FLAG_INCOMING = 1;
+    // magic, seq, state, flags, number length, lead id length, token, dial time, start time
+    private static final int NUMBER_OFFSET = 40;
+    private static final int LEAD_ID_OFFSET = NUMBER_OFFSET + MAX_NUMBER_BYTES;
+    private static final int CRC_OFFSET = SLOT_BYTES - 4;
+
+    /**
+     * A journaled session.
+     */
+    public static final class Session {
+        private final int state;
+        private final long dialToken;
+        private final String number;
+        private final String leadId;
+        private final long dialWallMs;
+        private final long startMs;
+        private final boolean incoming;
+
+        Session(int state, long dialToken, String number, String leadId, long dialWallMs, long startMs, boolean incoming) {
+            this.state = state;
+            this.dialToken = dialToken;
+            this.number = number;
+            this.leadId = leadId;
+            this.dialWallMs = dialWallMs;
+            this.startMs = startMs;
+            this.incoming = incoming;
+        }
+
+        /** {@link #DIALED} or {@link #ACTIVE}; {@link #CLOSED} only internally. */
+        public int getState() {
+            return state;
+        }
+
+        /** Id of the dial token, 0 if the call was not placed from the app. */
+        public long getDialToken() {
+            return dialToken;
+        }
+
+        /** Dialed number with formatting stripped, empty if not placed from the app. */
+        public String getNumber() {
+            return number;
+        }
+
+        /** Lead the call was placed for, empty if unknown or not placed from the app. */
+        public String getLeadId() {
+            return leadId;
+        }
+
+        public long getDialWallMs() {
+            return dialWallMs;
+        }
+
+        /** Wall clock time the call went OFFHOOK, 0 while only dialed. */
+        public long getStartMs() {
+            return startMs;
+        }
+
+        /** Whether the call rang before going OFFHOOK. */
+        public boolean isIncoming() {
+            return incoming;
+        }
+
+        /** Earliest wall clock time the session's call log row can be dated. */
+        public long since() {
+            if (dialWallMs > 0 && (startMs == 0 || dialWallMs < startMs)) {
+                return dialWallMs;
+            }
+            return startMs;
+        }
+
+        @Override
+        public String toString() {
+            return "Session{state=" + state + ", dialToken=" + dialToken + ", dialWallMs=" + dialWallMs
+                    + ", startMs=" + startMs + ", incoming=" + incoming + "}";
+        }
+    }
+
+    private static final Session NONE = new Session(CLOSED, 0L, "", "", 0L, 0L, false);
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(SLOT_BYTES);
+    private final CRC32 crc = new CRC32();
+    private final Session recovered;
+    private Session unclaimed;
+    private Session current;
+    private long seq;
+
+    private CallSessionJournal(RandomAccessFile file) throws IOException {
+        this.file = file;
+        this.channel = file.getChannel();
+        long bestSeq = -1;
+        Session best = NONE;
+        for (int slot = 0; slot < 2; slot++) {
+            if (!readSlot(slot)) {
+                continue;
+            }
+            long slotSeq = buffer.getLong(4);
+            if (slotSeq > bestSeq) {
+                bestSeq = slotSeq;
+                best = decode(buffer);
+            }
+        }
+        seq = Math.max(bestSeq, 0L);
+        current = best;
+        recovered = best.state == CLOSED ? null : best;
+        unclaimed = recovered;
+    }
+
+    /**
+     * Opens or creates the journal at file.
+     */
+    public static CallSessionJournal open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            return new CallSessionJournal(raf);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Session that was open when the journal was opened, typically left by a
+     * process that died mid-call, or null.
+     */
+    public Session recovered() {
+        return recovered;
+    }
+
+    /**
+     * {@link #recovered()} for whoever resumes or closes it: returned once per
+     * journal, null afterwards, so a state machine created again in the same
+     * process does not replay it.
+     */
+    public synchronized Session takeRecovered() {
+        Session session = unclaimed;
+        unclaimed = null;
+        return session;
+    }
+
+    /**
+     * Current state; {@link #CLOSED} when no session is open.
+     */
+    public synchronized Session current() {
+        return current;
+    }
+
+    /**
+     * Records a call placed from the app for no particular lead.
+     *
+     * @return false if the record could not be written
+     */
+    public boolean dialed(long dialToken, String number, long wallMs) {
+        return dialed(dialToken, number, null, wallMs);
+    }
+
+    /**
+     * Records a call placed from the app. Dialing during an active call keeps
+     * the session active.
+     *
+     * @param leadId lead the call is for, or null; an id that is not ASCII or is
+     *     longer than {@link #MAX_LEAD_ID_BYTES} is not kept, since a cut one
+     *     would name another lead
+     * @return false if the record could not be written
+     */
+    public synchronized boolean dialed(long dialToken, String number, String leadId, long wallMs) {
+        int state = current.state == ACTIVE ? ACTIVE : DIALED;
+        return write(new Session(state, dialToken, fit(number), leadIdOf(leadId), wallMs, current.startMs, current.incoming));
+    }
+
+    /**
+     * Records the call going OFFHOOK; a no-op while a session is active.
+     *
+     * @param incoming whether the call rang first
+     * @return false if the record could not be written
+     */
+    public synchronized boolean offhook(long startMs, boolean incoming) {
+        if (current.state == ACTIVE) {
+            return true;
+        }
+        return write(new Session(ACTIVE, current.dialToken, current.number, current.leadId, current.dialWallMs, startMs,
+                incoming));
+    }
+
+    /**
+     * Records the end of the session; a no-op if none is open.
+     *
+     * @return false if the record could not be written
+     */
+    public synchronized boolean closed() {
+        if (current.state == CLOSED) {
+            return true;
+        }
+        return write(NONE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    // Overwrites the older slot and forces it out before the state counts as recorded
+    private boolean write(Session session) {
+        long next = seq + 1;
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putLong(next);
+        buffer.put((byte) session.state);
+        buffer.put((byte) (session.incoming ? FLAG_INCOMING : 0));
+        byte[] number = session.number.getBytes(StandardCharsets.US_ASCII);
+        byte[] leadId = session.leadId.getBytes(StandardCharsets.US_ASCII);
+        buffer.put((byte) number.length);
+        buffer.put((byte) leadId.length);
+        buffer.putLong(session.dialToken);
+        buffer.putLong(session.dialWallMs);
+        buffer.putLong(session.startMs);
+        buffer.put(number);
+        buffer.position(LEAD_ID_OFFSET);
+        buffer.put(leadId);
+        buffer.position(CRC_OFFSET);
+        crc.reset();
+        crc.update(buffer.array(), 0, CRC_OFFSET);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        try {
+            long position = (next & 1) * SLOT_BYTES;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            // Data only: the file reaches its final size on the first two writes, and
+            // fdatasync still covers a size change
+            channel.force(false);
+        } catch (IOException e) {
+            return false;
+        }
+        seq = next;
+        current = session;
+        return true;
+    }
+
+    // Loads a slot into the buffer; false if it is missing, torn or not ours
+    private boolean readSlot(int slot) throws IOException {
+        buffer.clear();
+        long position = (long) slot * SLOT_BYTES;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            position += read;
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            return false;
+        }
+        crc.reset();
+        crc.update(buffer.array(), 0, CRC_OFFSET);
+        return buffer.getInt(CRC_OFFSET) == (int) crc.getValue();
+    }
+
+    private static Session decode(ByteBuffer slot) {
+        int state = slot.get(12);
+        boolean incoming = (slot.get(13) & FLAG_INCOMING) != 0;
+        int length = Math.min(slot.get(14) & 0xff, MAX_NUMBER_BYTES);
+        String number = new String(slot.array(), NUMBER_OFFSET, length, StandardCharsets.US_ASCII);
+        int leadIdLength = Math.min(slot.get(15) & 0xff, MAX_LEAD_ID_BYTES);
+        String leadId = new String(slot.array(), LEAD_ID_OFFSET, leadIdLength, StandardCharsets.US_ASCII);
+        if (state != DIALED && state != ACTIVE) {
+            return NONE;
+        }
+        return new Session(state, slot.getLong(16), number, leadId, slot.getLong(24), slot.getLong(32), incoming);
+    }
+
+    private static String leadIdOf(String leadId) {
+        if (leadId == null || leadId.length() > MAX_LEAD_ID_BYTES) {
+            return "";
+        }
+        for (int i = 0; i < leadId.length(); i++) {
+            if (leadId.charAt(i) > 0x7f) {
+                return "";
+            }
+        }
+        return leadId;
+    }
+
+    // Keeps the trailing digits, which are the ones numbers are matched on
+    private static String fit(String number) {
+        String stripped = PhoneNumbers.stripFormatting(number);
+        return stripped.length() > MAX_NUMBER_BYTES ? stripped.substring(stripped.length() - MAX_NUMBER_BYTES) : stripped;
+    }
+}
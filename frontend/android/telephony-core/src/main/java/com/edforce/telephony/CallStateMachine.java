@@ -0,0 +1,333 @@
+package com.edforce.telephony;
+
+import java.util.List;
+
+/**
+ * Call state handling behind the native-call-finished event: tracks
+ * RINGING/OFFHOOK/IDLE callbacks, then looks the finished call up in the call
+ * log, retrying while the provider has not written the row or its duration yet.
+ *
+ * Calls placed from the app are matched to their row through the
+ * {@link DialCorrelator}; everything else takes the newest row. Clock, timers,
+ * call log queries and event delivery go through a {@link Host}, so the same
+ * logic runs on the device and in {@link CallTraceReplayer} on a plain JVM.
+ *
+ * With a {@link CallSessionJournal}, OFFHOOK and the IDLE that ends the call
+ * are journaled, and a session a killed process left open is picked up on the
+ * first state callback: resumed if the call is still OFFHOOK, otherwise closed
+ * by looking its row up from the journaled dial or start time.
+ *
+ * Not thread-safe: callbacks and scheduled tasks must all run on one thread,
+ * the main thread on the device.
+ */
+public final class CallStateMachine {
+    // TelephonyManager.CALL_STATE_* values
+    public static final int STATE_IDLE = 0;
+    public static final int STATE_RINGING = 1;
+    public static final int STATE_OFFHOOK = 2;
+
+    public static final String SOURCE_CALL_LOG = "calllog";
+    public static final String SOURCE_INCOMING_SYNC = "incoming-sync";
+    /** A call that ended while the process was dead, found through the journal. */
+    public static final String SOURCE_RECOVERED = "recovered";
+
+    static final long LOOKUP_DELAY_MS = 500;
+    static final long RETRY_STEP_MS = 500;
+    static final int MAX_ATTEMPTS = 3;
+    static final long LOOKUP_WINDOW_MS = 5 * 60_000L;
+
+    /**
+     * What the state machine needs from its environment.
+     */
+    public interface Host {
+        /** Wall clock, epoch millis. */
+        long now();
+
+        /** Monotonic clock for dial token expiry. */
+        long elapsed();
+
+        void postDelayed(Runnable task, long delayMs);
+
+        /**
+         * Call log rows dated after since, newest first; empty if the query
+         * failed, null if the call log cannot be read at all (no permission).
+         */
+        List<CallRecord> queryCallLog(long since);
+
+        /** A call is ringing; the number may be null or empty. */
+        void onRinging(String number);
+
+        /** The ringing call was answered or ended. */
+        void onRingingEnded();
+
+        /**
+         * Delivers native-call-finished. row is null when the call log had
+         * nothing; dialToken is 0 unless the row was matched to a dial.
+         * leadId is the lead a dial journaled by a previous process was placed
+         * for, null otherwise: the page that knew it is gone. Repeats for the
+         * same row are the host's to merge, by row id.
+         *
+         * @return false if the event could not be delivered
+         */
+        boolean dispatch(int durationSec, String source, CallRecord row, long dialToken, String confidence, String leadId);
+    }
+
+    private final Host host;
+    private final DialCorrelator correlator;
+    private CallTrace trace;
+    private CallSessionJournal journal;
+    private CallSessionJournal.Session recovered;
+    // Dial of the recovered session and its lead, for the event that reports it
+    private long recoveredToken;
+    private String recoveredLeadId;
+
+    private long callStartTs;
+    private boolean inCall;
+    private boolean wasRinging;
+
+    public CallStateMachine(Host host, DialCorrelator correlator) {
+        this.host = host;
+        this.correlator = correlator;
+    }
+
+    /**
+     * Records state callbacks, call log snapshots and dispatches into the
+     * trace, or stops recording when null.
+     */
+    public void setTrace(CallTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Journals session transitions from now on and takes over the session the
+     * journal recovered, if no machine took it before, to resume or close on
+     * the next state callback.
+     */
+    public void setJournal(CallSessionJournal journal) {
+        this.journal = journal;
+        this.recovered = journal != null ? journal.takeRecovered() : null;
+    }
+
+    public boolean isInCall() {
+        return inCall;
+    }
+
+    public void onCallStateChanged(int state, String number) {
+        if (trace != null) {
+            trace.state(host.now(), state, number);
+        }
+        if (recovered != null) {
+            // The first callback after registering reports the current state
+            CallSessionJournal.Session session = recovered;
+            recovered = null;
+            recover(session, state);
+        }
+        switch (state) {
+            case STATE_RINGING:
+                wasRinging = true;
+                host.onRinging(number);
+                break;
+            case STATE_OFFHOOK:
+                if (wasRinging) {
+                    host.onRingingEnded();
+                }
+                if (!inCall) {
+                    callStartTs = host.now();
+                    inCall = true;
+                    if (journal != null) {
+                        journal.offhook(callStartTs, wasRinging);
+                    }
+                }
+                break;
+            case STATE_IDLE:
+                if (wasRinging) {
+                    host.onRingingEnded();
+                }
+                if (wasRinging && !inCall) {
+                    // Missed incoming call: never went OFFHOOK
+                    host.postDelayed(() -> lookUpLatest(0), LOOKUP_DELAY_MS);
+                } else if (inCall && callStartTs > 0) {
+                    inCall = false;
+                    callStartTs = 0L;
+                    if (journal != null) {
+                        journal.closed();
+                    }
+                    if (!wasRinging && correlator.hasPending()) {
+                        // Placed from the app: match the dial token instead of taking the newest row
+                        host.postDelayed(() -> correlate(0), LOOKUP_DELAY_MS);
+                    } else {
+                        host.postDelayed(() -> lookUpLatest(0), LOOKUP_DELAY_MS);
+                    }
+                }
+                wasRinging = false;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Delivers a finished call.
+     *
+     * @return whether the event was delivered
+     */
+    public boolean dispatch(int durationSec, String source, CallRecord row) {
+        if (durationSec < 0) {
+            return false;
+        }
+        return deliver(durationSec, source, row, 0L, null);
+    }
+
+    // Picks up a session left open by a previous process
+    private void recover(CallSessionJournal.Session session, int state) {
+        long now = host.now();
+        // Past the token lifetime a lookup could only guess; the sync still has the row
+        boolean fresh = now - session.since() <= DialCorrelator.TOKEN_TTL_MS;
+        if (session.getDialToken() > 0 && !session.getLeadId().isEmpty()) {
+            recoveredToken = session.getDialToken();
+            recoveredLeadId = session.getLeadId();
+        }
+        if (session.getDialToken() > 0 && fresh) {
+            long age = Math.max(0L, now - session.getDialWallMs());
+            correlator.restore(session.getDialToken(), session.getNumber(), session.getDialWallMs(), host.elapsed() - age);
+        }
+        if (state == STATE_OFFHOOK) {
+            if (session.getState() == CallSessionJournal.ACTIVE) {
+                // Still on the call: carry on as if the process had never died
+                callStartTs = session.getStartMs();
+                inCall = true;
+                wasRinging = session.isIncoming();
+            }
+            return;
+        }
+        // The call ended while the process was dead, so its row is already written
+        if (journal != null) {
+            journal.closed();
+        }
+        if (fresh) {
+            lookUpRecovered(session, 0);
+        }
+    }
+
+    // Finds a recovered session's row from the journaled times: the dial token's
+    // match if it was placed from the app, otherwise the call that was under way
+    // at its start. Gives up rather than credit a guess; the sync still sees the row.
+    void lookUpRecovered(CallSessionJournal.Session session, int attempt) {
+        boolean dialed = session.getDialToken() > 0 && !session.isIncoming();
+        if (!dialed && session.getStartMs() <= 0) {
+            return;
+        }
+        // An incoming row is dated when it started ringing, before OFFHOOK
+        long since = dialed
+                ? session.since() - DialCorrelator.CLOCK_SKEW_MS
+                : session.getStartMs() - LOOKUP_WINDOW_MS;
+        List<CallRecord> rows = query(since - 1);
+        if (rows == null) {
+            return;
+        }
+        if (dialed) {
+            for (DialCorrelator.Match match : correlator.resolve(rows)) {
+                if (match.getToken().getId() == session.getDialToken()) {
+                    CallRecord row = match.getRecord();
+                    int duration = CallTypes.isMissed(row.getType()) ? 0 : row.getDuration();
+                    deliver(duration, SOURCE_RECOVERED, row, session.getDialToken(), match.getConfidence().label());
+                    return;
+                }
+            }
+        } else {
+            // Newest first: the first row dated before the call went OFFHOOK
+            for (CallRecord row : rows) {
+                if (row.getDate() <= session.getStartMs() + DialCorrelator.CLOCK_SKEW_MS && !CallTypes.isMissed(row.getType())) {
+                    if (row.getDuration() > 0 || attempt >= MAX_ATTEMPTS) {
+                        deliver(row.getDuration(), SOURCE_RECOVERED, row, 0L, null);
+                        return;
+                    }
+                    break;
+                }
+            }
+        }
+        if (attempt < MAX_ATTEMPTS) {
+            // Right after a restart the provider may still be writing the row
+            int next = attempt + 1;
+            host.postDelayed(() -> lookUpRecovered(session, next), next * RETRY_STEP_MS);
+        }
+    }
+
+    // Matches pending dial tokens to call log rows by number and time window, so
+    // call waiting and quick redials cannot credit the wrong row. The newest
+    // match is reported once; older ones were superseded by the later dial.
+    void correlate(int attempt) {
+        correlator.expire(host.elapsed());
+        long since = correlator.earliestRowTime();
+        if (since < 0) {
+            lookUpLatest(0);
+            return;
+        }
+        List<CallRecord> rows = query(since - 1);
+        if (rows == null) {
+            return;
+        }
+        List<DialCorrelator.Match> matches = correlator.resolve(rows);
+        if (matches.isEmpty()) {
+            if (attempt < MAX_ATTEMPTS) {
+                // The row is written when the call ends; give the provider a moment
+                int next = attempt + 1;
+                host.postDelayed(() -> correlate(next), next * RETRY_STEP_MS);
+            } else {
+                lookUpLatest(MAX_ATTEMPTS);
+            }
+            return;
+        }
+        DialCorrelator.Match match = matches.get(matches.size() - 1);
+        CallRecord row = match.getRecord();
+        int duration = CallTypes.isMissed(row.getType()) ? 0 : row.getDuration();
+        deliver(duration, SOURCE_CALL_LOG, row, match.getToken().getId(), match.getConfidence().label());
+    }
+
+    void lookUpLatest(int attempt) {
+        List<CallRecord> rows = query(host.now() - LOOKUP_WINDOW_MS);
+        if (rows == null) {
+            return;
+        }
+        if (!rows.isEmpty()) {
+            CallRecord row = rows.get(0);
+            if (CallTypes.isMissed(row.getType())) {
+                // Missed or rejected: nothing to wait for
+                dispatch(0, SOURCE_CALL_LOG, row);
+                return;
+            }
+            if (row.getDuration() <= 0) {
+                if (attempt < MAX_ATTEMPTS) {
+                    // Duration not written yet: 500 ms, 1 s, 1.5 s
+                    int next = attempt + 1;
+                    host.postDelayed(() -> lookUpLatest(next), next * RETRY_STEP_MS);
+                    return;
+                }
+                // Still 0 after the retries: an unanswered call
+            }
+            dispatch(row.getDuration(), SOURCE_CALL_LOG, row);
+            return;
+        }
+        // No row yet
+        if (attempt < MAX_ATTEMPTS && !inCall) {
+            int next = attempt + 1;
+            host.postDelayed(() -> lookUpLatest(next), next * RETRY_STEP_MS);
+        }
+    }
+
+    private List<CallRecord> query(long since) {
+        List<CallRecord> rows = host.queryCallLog(since);
+        if (trace != null) {
+            trace.query(host.now(), since, rows);
+        }
+        return rows;
+    }
+
+    private boolean deliver(int durationSec, String source, CallRecord row, long dialToken, String confidence) {
+        if (trace != null) {
+            trace.dispatch(host.now(), durationSec, source, row == null ? 0L : row.getId(), dialToken);
+        }
+        String leadId = dialToken > 0 && dialToken == recoveredToken ? recoveredLeadId : null;
+        return host.dispatch(durationSec, source, row, dialToken, confidence, leadId);
+    }
+}
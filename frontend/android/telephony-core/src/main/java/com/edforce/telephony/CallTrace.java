@@ -0,0 +1,275 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Timestamped record of what the call state logic saw and did: call state
+ * callbacks, dials placed from the app, every call log query with the rows it
+ * returned, and every native-call-finished dispatch. Recorded on the device by
+ * {@link CallStateMachine#setTrace(CallTrace)} and fed back through the same
+ * logic by {@link CallTraceReplayer}.
+ *
+ * Phone numbers never reach the trace: each distinct subscriber (by
+ * {@link PhoneNumbers#key(CharSequence)}) is replaced by a made-up number, so
+ * the trace still tells which rows belong to which call. Only the newest
+ * MAX_ENTRIES entries are kept.
+ *
+ * Recording methods are thread-safe.
+ */
+public final class CallTrace {
+    public static final int STATE = 1;
+    public static final int DIAL = 2;
+    public static final int QUERY = 3;
+    public static final int DISPATCH = 4;
+
+    public static final int MAX_ENTRIES = 20_000;
+
+    private static final int MAGIC = 0x45435452; // "ECTR"
+    private static final int FORMAT_VERSION = 1;
+    private static final String ALIAS_PREFIX = "55501";
+
+    /**
+     * One recorded step. Which fields are set depends on the kind.
+     */
+    public static final class Entry {
+        private final int kind;
+        private final long timeMs;
+        private final int value;
+        private final long arg;
+        private final long dialToken;
+        private final String text;
+        private final List<CallRecord> rows;
+
+        Entry(int kind, long timeMs, int value, long arg, long dialToken, String text, List<CallRecord> rows) {
+            this.kind = kind;
+            this.timeMs = timeMs;
+            this.value = value;
+            this.arg = arg;
+            this.dialToken = dialToken;
+            this.text = text;
+            this.rows = rows;
+        }
+
+        public int getKind() {
+            return kind;
+        }
+
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        /** STATE: the call state. */
+        public int getState() {
+            return value;
+        }
+
+        /** DISPATCH: the reported duration in seconds. */
+        public int getDuration() {
+            return value;
+        }
+
+        /** QUERY: the lower date bound queried. */
+        public long getSince() {
+            return arg;
+        }
+
+        /** DISPATCH: the call log row reported, 0 if none. */
+        public long getRowId() {
+            return arg;
+        }
+
+        /** DISPATCH: the dial token the row was matched to, 0 if none. */
+        public long getDialToken() {
+            return dialToken;
+        }
+
+        /** STATE and DIAL: the (aliased) number. */
+        public String getNumber() {
+            return text;
+        }
+
+        /** DISPATCH: the event source. */
+        public String getSource() {
+            return text;
+        }
+
+        /** QUERY: the rows returned, or null when the call log was unreadable. */
+        public List<CallRecord> getRows() {
+            return rows;
+        }
+    }
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private final HashMap<Long, String> aliases = new HashMap<>();
+
+    public synchronized void state(long timeMs, int state, String number) {
+        add(new Entry(STATE, timeMs, state, 0L, 0L, alias(number), null));
+    }
+
+    public synchronized void dial(long timeMs, String number) {
+        add(new Entry(DIAL, timeMs, 0, 0L, 0L, alias(number), null));
+    }
+
+    public synchronized void query(long timeMs, long since, List<CallRecord> rows) {
+        List<CallRecord> copy = null;
+        if (rows != null) {
+            copy = new ArrayList<>(rows.size());
+            for (CallRecord row : rows) {
+                copy.add(new CallRecord(row.getId(), alias(row.getNumber()), row.getType(), row.getDate(), row.getDuration()));
+            }
+        }
+        add(new Entry(QUERY, timeMs, 0, since, 0L, null, copy));
+    }
+
+    public synchronized void dispatch(long timeMs, int durationSec, String source, long rowId, long dialToken) {
+        add(new Entry(DISPATCH, timeMs, durationSec, rowId, dialToken, source, null));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        aliases.clear();
+    }
+
+    private void add(Entry entry) {
+        if (entries.size() >= MAX_ENTRIES) {
+            // Drop the oldest quarter at once rather than shifting on every add
+            entries.subList(0, MAX_ENTRIES / 4).clear();
+        }
+        entries.add(entry);
+    }
+
+    private String alias(String number) {
+        long key = PhoneNumbers.key(number);
+        if (key == PhoneNumbers.NO_KEY) {
+            // Private and unknown numbers carry no digits to hide
+            return number;
+        }
+        String alias = aliases.get(key);
+        if (alias == null) {
+            String n = String.valueOf(aliases.size() + 1);
+            StringBuilder out = new StringBuilder(ALIAS_PREFIX);
+            for (int i = ALIAS_PREFIX.length() + n.length(); i < 10; i++) {
+                out.append('0');
+            }
+            alias = out.append(n).toString();
+            aliases.put(key, alias);
+        }
+        return alias;
+    }
+
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeByte(entry.kind);
+            out.writeLong(entry.timeMs);
+            switch (entry.kind) {
+                case STATE:
+                    out.writeInt(entry.value);
+                    writeString(out, entry.text);
+                    break;
+                case DIAL:
+                    writeString(out, entry.text);
+                    break;
+                case QUERY:
+                    out.writeLong(entry.arg);
+                    out.writeInt(entry.rows == null ? -1 : entry.rows.size());
+                    if (entry.rows != null) {
+                        for (CallRecord row : entry.rows) {
+                            out.writeLong(row.getId());
+                            writeString(out, row.getNumber());
+                            out.writeInt(row.getType());
+                            out.writeLong(row.getDate());
+                            out.writeInt(row.getDuration());
+                        }
+                    }
+                    break;
+                default:
+                    out.writeInt(entry.value);
+                    out.writeLong(entry.arg);
+                    out.writeLong(entry.dialToken);
+                    writeString(out, entry.text);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads a trace written by {@link #writeTo(DataOutputStream)}. Numbers in it
+     * are already aliases and are kept as they are.
+     */
+    public static CallTrace readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a call trace file");
+        }
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt call trace");
+        }
+        CallTrace trace = new CallTrace();
+        for (int i = 0; i < count; i++) {
+            int kind = in.readByte();
+            long timeMs = in.readLong();
+            switch (kind) {
+                case STATE:
+                    int state = in.readInt();
+                    trace.entries.add(new Entry(STATE, timeMs, state, 0L, 0L, readString(in), null));
+                    break;
+                case DIAL:
+                    trace.entries.add(new Entry(DIAL, timeMs, 0, 0L, 0L, readString(in), null));
+                    break;
+                case QUERY:
+                    long since = in.readLong();
+                    int rowCount = in.readInt();
+                    List<CallRecord> rows = null;
+                    if (rowCount >= 0) {
+                        rows = new ArrayList<>(rowCount);
+                        for (int r = 0; r < rowCount; r++) {
+                            long id = in.readLong();
+                            String number = readString(in);
+                            int type = in.readInt();
+                            long date = in.readLong();
+                            rows.add(new CallRecord(id, number, type, date, in.readInt()));
+                        }
+                    }
+                    trace.entries.add(new Entry(QUERY, timeMs, 0, since, 0L, null, rows));
+                    break;
+                case DISPATCH:
+                    int duration = in.readInt();
+                    long rowId = in.readLong();
+                    long dialToken = in.readLong();
+                    trace.entries.add(new Entry(DISPATCH, timeMs, duration, rowId, dialToken, readString(in), null));
+                    break;
+                default:
+                    throw new IOException("Unknown call trace entry " + kind);
+            }
+        }
+        return trace;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,349 @@
+package com.edforce.telephony;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Replays a {@link CallTrace} through {@link CallStateMachine} on a virtual
+ * clock, so a trace of a real device's call timing runs in milliseconds and
+ * deterministically.
+ *
+ * State callbacks and dials are fed at their recorded times. Call log queries
+ * are answered from the newest snapshot recorded at or before the virtual
+ * time, restricted to the rows the query asks for; a replay whose lookups
+ * drift far from the recorded ones can therefore see fewer rows than the
+ * device did. The dispatched events are compared with the recorded ones, and
+ * the report adds what the trace cost: queries, rows read and how long after
+ * the call ended each event went out.
+ *
+ * Run from the command line with trace files exported from the app:
+ *   ./gradlew :telephony-core:replayTrace -Ptrace=call-trace.bin
+ */
+public final class CallTraceReplayer {
+
+    /**
+     * One native-call-finished event, recorded or replayed.
+     */
+    public static final class Dispatch {
+        private final long timeMs;
+        private final int duration;
+        private final String source;
+        private final long rowId;
+        private final long dialToken;
+
+        Dispatch(long timeMs, int duration, String source, long rowId, long dialToken) {
+            this.timeMs = timeMs;
+            this.duration = duration;
+            this.source = source;
+            this.rowId = rowId;
+            this.dialToken = dialToken;
+        }
+
+        public long getTimeMs() {
+            return timeMs;
+        }
+
+        public int getDuration() {
+            return duration;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public long getRowId() {
+            return rowId;
+        }
+
+        public long getDialToken() {
+            return dialToken;
+        }
+
+        // Dial tokens are numbered per process, so only their presence is compared
+        boolean sameEvent(Dispatch other) {
+            return duration == other.duration
+                    && rowId == other.rowId
+                    && (dialToken > 0) == (other.dialToken > 0)
+                    && (source == null ? other.source == null : source.equals(other.source));
+        }
+
+        @Override
+        public String toString() {
+            return "{t=" + timeMs + ", duration=" + duration + ", source=" + source
+                    + ", row=" + rowId + ", dial=" + dialToken + "}";
+        }
+    }
+
+    /**
+     * Outcome of one replay.
+     */
+    public static final class Report {
+        private final List<Dispatch> expected;
+        private final List<Dispatch> actual;
+        private final List<String> mismatches;
+        private final int queries;
+        private final int rowsRead;
+        private final long totalLatencyMs;
+        private final long maxLatencyMs;
+        private final long replayNanos;
+
+        Report(List<Dispatch> expected, List<Dispatch> actual, List<String> mismatches, int queries, int rowsRead,
+               long totalLatencyMs, long maxLatencyMs, long replayNanos) {
+            this.expected = expected;
+            this.actual = actual;
+            this.mismatches = mismatches;
+            this.queries = queries;
+            this.rowsRead = rowsRead;
+            this.totalLatencyMs = totalLatencyMs;
+            this.maxLatencyMs = maxLatencyMs;
+            this.replayNanos = replayNanos;
+        }
+
+        public boolean matches() {
+            return mismatches.isEmpty();
+        }
+
+        public List<String> getMismatches() {
+            return mismatches;
+        }
+
+        public List<Dispatch> getExpected() {
+            return expected;
+        }
+
+        public List<Dispatch> getActual() {
+            return actual;
+        }
+
+        /** Call log queries issued during the replay. */
+        public int getQueries() {
+            return queries;
+        }
+
+        /** Rows those queries returned. */
+        public int getRowsRead() {
+            return rowsRead;
+        }
+
+        /** Virtual time from the end of a call to its event, summed over events. */
+        public long getTotalLatencyMs() {
+            return totalLatencyMs;
+        }
+
+        public long getMaxLatencyMs() {
+            return maxLatencyMs;
+        }
+
+        /** Real time the replay took. */
+        public long getReplayNanos() {
+            return replayNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(matches() ? "MATCH" : "MISMATCH")
+                    .append(" events=").append(actual.size()).append('/').append(expected.size())
+                    .append(" queries=").append(queries)
+                    .append(" rows=").append(rowsRead)
+                    .append(" latencyMs(total=").append(totalLatencyMs).append(", max=").append(maxLatencyMs).append(')')
+                    .append(" replayUs=").append(replayNanos / 1000);
+            for (String mismatch : mismatches) {
+                sb.append("\n  ").append(mismatch);
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class Task {
+        final long timeMs;
+        final long seq;
+        final Runnable run;
+
+        Task(long timeMs, long seq, Runnable run) {
+            this.timeMs = timeMs;
+            this.seq = seq;
+            this.run = run;
+        }
+    }
+
+    private final CallTrace trace;
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>(64, (a, b) -> a.timeMs != b.timeMs
+            ? Long.compare(a.timeMs, b.timeMs)
+            : Long.compare(a.seq, b.seq));
+    private final List<CallTrace.Entry> snapshots = new ArrayList<>();
+    private final List<Dispatch> actual = new ArrayList<>();
+    private final DialCorrelator correlator = new DialCorrelator();
+    private long seq;
+    private long startMs;
+    private long nowMs;
+    private long lastIdleMs = -1;
+    private int queries;
+    private int rowsRead;
+    private long totalLatencyMs;
+    private long maxLatencyMs;
+
+    public CallTraceReplayer(CallTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Runs the whole trace. A replayer is single-use.
+     */
+    public Report replay() {
+        long started = System.nanoTime();
+        List<CallTrace.Entry> entries = trace.getEntries();
+        List<Dispatch> expected = new ArrayList<>();
+        CallStateMachine machine = new CallStateMachine(new ReplayHost(), correlator);
+
+        startMs = entries.isEmpty() ? 0L : entries.get(0).getTimeMs();
+        nowMs = startMs;
+        for (CallTrace.Entry entry : entries) {
+            switch (entry.getKind()) {
+                case CallTrace.STATE:
+                    schedule(entry.getTimeMs(), () -> {
+                        if (entry.getState() == CallStateMachine.STATE_IDLE) {
+                            lastIdleMs = nowMs;
+                        }
+                        machine.onCallStateChanged(entry.getState(), entry.getNumber());
+                    });
+                    break;
+                case CallTrace.DIAL:
+                    schedule(entry.getTimeMs(), () -> correlator.onDial(entry.getNumber(), nowMs, nowMs - startMs));
+                    break;
+                case CallTrace.QUERY:
+                    snapshots.add(entry);
+                    break;
+                case CallTrace.DISPATCH:
+                    expected.add(new Dispatch(entry.getTimeMs(), entry.getDuration(), entry.getSource(),
+                            entry.getRowId(), entry.getDialToken()));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Task task;
+        while ((task = tasks.poll()) != null) {
+            nowMs = Math.max(nowMs, task.timeMs);
+            task.run.run();
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        int n = Math.max(expected.size(), actual.size());
+        for (int i = 0; i < n; i++) {
+            Dispatch want = i < expected.size() ? expected.get(i) : null;
+            Dispatch got = i < actual.size() ? actual.get(i) : null;
+            if (want == null) {
+                mismatches.add("#" + i + " unexpected " + got);
+            } else if (got == null) {
+                mismatches.add("#" + i + " missing " + want);
+            } else if (!want.sameEvent(got)) {
+                mismatches.add("#" + i + " expected " + want + " got " + got);
+            }
+        }
+        return new Report(expected, new ArrayList<>(actual), mismatches, queries, rowsRead,
+                totalLatencyMs, maxLatencyMs, System.nanoTime() - started);
+    }
+
+    private void schedule(long timeMs, Runnable run) {
+        tasks.add(new Task(timeMs, seq++, run));
+    }
+
+    private CallTrace.Entry snapshotAt(long timeMs) {
+        CallTrace.Entry found = null;
+        for (CallTrace.Entry snapshot : snapshots) {
+            if (snapshot.getTimeMs() > timeMs) {
+                break;
+            }
+            found = snapshot;
+        }
+        return found;
+    }
+
+    private final class ReplayHost implements CallStateMachine.Host {
+        @Override
+        public long now() {
+            return nowMs;
+        }
+
+        @Override
+        public long elapsed() {
+            return nowMs - startMs;
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            schedule(nowMs + delayMs, task);
+        }
+
+        @Override
+        public List<CallRecord> queryCallLog(long since) {
+            queries++;
+            CallTrace.Entry snapshot = snapshotAt(nowMs);
+            if (snapshot == null) {
+                return new ArrayList<>();
+            }
+            if (snapshot.getRows() == null) {
+                return null;
+            }
+            List<CallRecord> rows = new ArrayList<>();
+            for (CallRecord row : snapshot.getRows()) {
+                if (row.getDate() > since) {
+                    rows.add(row);
+                }
+            }
+            rowsRead += rows.size();
+            return rows;
+        }
+
+        @Override
+        public void onRinging(String number) {
+        }
+
+        @Override
+        public void onRingingEnded() {
+        }
+
+        @Override
+        public boolean dispatch(int durationSec, String source, CallRecord row, long dialToken, String confidence,
+                                String leadId) {
+            actual.add(new Dispatch(nowMs, durationSec, source, row == null ? 0L : row.getId(), dialToken));
+            if (lastIdleMs >= 0) {
+                long latency = nowMs - lastIdleMs;
+                totalLatencyMs += latency;
+                maxLatencyMs = Math.max(maxLatencyMs, latency);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Replays each trace file given and prints its report; exits with 1 if any
+     * replay diverged from its recording.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: CallTraceReplayer <trace file>...");
+            System.exit(2);
+        }
+        boolean allMatch = true;
+        for (String path : args) {
+            CallTrace trace;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+                trace = CallTrace.readFrom(in);
+            }
+            Report report = new CallTraceReplayer(trace).replay();
+            System.out.println(path + ": " + trace.size() + " entries, " + report);
+            allMatch &= report.matches();
+        }
+        if (!allMatch) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.edforce.telephony;
+
+/**
+ * Call log type codes and their mappings.
+ *
+ * The constants mirror android.provider.CallLog.Calls so this class can be used
+ * off-device; the values are fixed by the platform and never change.
+ */
+public final class CallTypes {
+    public static final int INCOMING = 1;
+    public static final int OUTGOING = 2;
+    public static final int MISSED = 3;
+    public static final int VOICEMAIL = 4;
+    public static final int REJECTED = 5;
+    public static final int BLOCKED = 6;
+    public static final int ANSWERED_EXTERNALLY = 7;
+
+    private CallTypes() {
+    }
+
+    /**
+     * Label used by the CallLog plugin's getRecentCalls response.
+     */
+    public static String label(int type) {
+        switch (type) {
+            case INCOMING:
+                return "incoming";
+            case OUTGOING:
+                return "outgoing";
+            case MISSED:
+                return "missed";
+            case VOICEMAIL:
+                return "voicemail";
+            case REJECTED:
+                return "rejected";
+            default:
+                return "unknown";
+        }
+    }
+
+    /**
+     * Call type accepted by the backend's POST /calls/log, same mapping as
+     * callLogSyncService.ts mapCallLogTypeToCallType.
+     */
+    public static String backendCallType(int type, int durationSec) {
+        switch (type) {
+            case INCOMING:
+                return "incoming";
+            case OUTGOING:
+                return "outgoing";
+            case MISSED:
+            case REJECTED:
+                return "missed";
+            default:
+                return durationSec > 0 ? "incoming" : "missed";
+        }
+    }
+
+    /**
+     * Missed, rejected and blocked calls never connect and are reported with zero duration.
+     */
+    public static boolean isMissed(int type) {
+        return type == MISSED || type == REJECTED || type == BLOCKED;
+    }
+
+    public static boolean isIncoming(int type) {
+        return type == INCOMING;
+    }
+
+    public static boolean isOutgoing(int type) {
+        return type == OUTGOING;
+    }
+}
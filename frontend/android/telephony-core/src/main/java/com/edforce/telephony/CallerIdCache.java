@@ -0,0 +1,119 @@
+package com.edforce.telephony;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, expiring map from phone number to the lead it belongs to, used to
+ * identify an incoming call the moment it rings.
+ *
+ * Entries are keyed by {@link PhoneNumbers#key(CharSequence)}, so any format of
+ * a number hits the same entry. The least recently used entry is evicted when
+ * the cache is full, and entries older than the TTL are treated as missing.
+ * A lookup is a hash probe under a lock and costs well under a microsecond.
+ */
+public final class CallerIdCache {
+
+    /**
+     * Time source, injectable for tests.
+     */
+    public interface Clock {
+        long nowMillis();
+    }
+
+    /**
+     * Lead identified for a number.
+     */
+    public static final class Entry {
+        private final String leadId;
+        private final String name;
+        private final long expiresAt;
+
+        Entry(String leadId, String name, long expiresAt) {
+            this.leadId = leadId;
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getLeadId() {
+            return leadId;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<Long, Entry> entries;
+
+    public CallerIdCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, System::currentTimeMillis);
+    }
+
+    public CallerIdCache(int maxEntries, long ttlMillis, Clock clock) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries and ttlMillis must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        // Access order makes iteration order LRU first
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > CallerIdCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Caches the lead for a number; numbers without a usable key are ignored.
+     */
+    public synchronized void put(CharSequence number, String leadId, String name) {
+        long key = PhoneNumbers.key(number);
+        if (key == PhoneNumbers.NO_KEY || leadId == null) {
+            return;
+        }
+        entries.put(key, new Entry(leadId, name, clock.nowMillis() + ttlMillis));
+    }
+
+    /**
+     * @return the cached lead, or null if unknown or expired
+     */
+    public synchronized Entry get(CharSequence number) {
+        long key = PhoneNumbers.key(number);
+        if (key == PhoneNumbers.NO_KEY) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt <= clock.nowMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Shrinks the cache to at most the given number of most recently used entries.
+     */
+    public synchronized void trimTo(int size) {
+        int excess = entries.size() - Math.max(size, 0);
+        Iterator<Long> it = entries.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,99 @@
+package com.edforce.telephony;
+
+/**
+ * Streams rows into JSON array chunks of bounded size.
+ *
+ * Rows are appended to one reusable buffer; once it reaches the chunk size the
+ * array is closed and handed to the sink, then the buffer is cleared for the
+ * next chunk. Peak memory is therefore one chunk plus one row, whatever the
+ * row count. Every chunk is a complete JSON array on its own, and
+ * {@link #finish()} always emits a final chunk (possibly "[]") flagged as last.
+ *
+ * Not thread-safe.
+ */
+public final class ChunkedJsonArrayWriter {
+    /** Default chunk size in chars; well under WebView message limits. */
+    public static final int DEFAULT_CHUNK_CHARS = 64 * 1024;
+
+    /**
+     * Receives each finished chunk. The buffer is reused as soon as the call
+     * returns, so the sink must copy or consume it synchronously.
+     */
+    public interface ChunkSink {
+        void onChunk(CharSequence arrayJson, int rows, int index, boolean last);
+    }
+
+    private final int chunkChars;
+    private final ChunkSink sink;
+    private final StringBuilder buffer;
+    private int rowsInChunk;
+    private int chunkIndex;
+    private int totalRows;
+    private boolean finished;
+
+    public ChunkedJsonArrayWriter(int chunkChars, ChunkSink sink) {
+        if (chunkChars <= 0) {
+            throw new IllegalArgumentException("chunkChars must be positive");
+        }
+        this.chunkChars = chunkChars;
+        this.sink = sink;
+        // Room for one row past the threshold so the buffer never regrows
+        this.buffer = new StringBuilder(chunkChars + 256);
+    }
+
+    /**
+     * Opens a row and returns the buffer to write exactly one JSON value into.
+     * Must be followed by {@link #endRow()}.
+     */
+    public StringBuilder beginRow() {
+        if (finished) {
+            throw new IllegalStateException("writer already finished");
+        }
+        buffer.append(rowsInChunk == 0 ? '[' : ',');
+        return buffer;
+    }
+
+    public void endRow() {
+        rowsInChunk++;
+        totalRows++;
+        if (buffer.length() >= chunkChars) {
+            flush(false);
+        }
+    }
+
+    public void writeCallLog(long id, int duration, long date, int type, String number) {
+        CallPayloads.appendCallLog(beginRow(), id, duration, date, type, number);
+        endRow();
+    }
+
+    /**
+     * Emits the last chunk.
+     *
+     * @return total rows written
+     */
+    public int finish() {
+        if (!finished) {
+            flush(true);
+            finished = true;
+        }
+        return totalRows;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getChunkCount() {
+        return chunkIndex;
+    }
+
+    private void flush(boolean last) {
+        if (rowsInChunk == 0) {
+            buffer.append('[');
+        }
+        buffer.append(']');
+        sink.onChunk(buffer, rowsInChunk, chunkIndex++, last);
+        buffer.setLength(0);
+        rowsInChunk = 0;
+    }
+}
@@ -0,0 +1,298 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Learns how likely an outgoing call is to connect at a given local time, from
+ * call log outcomes, and ranks leads by that likelihood.
+ *
+ * Two levels are kept. Device-wide (the counselor's center as seen from this
+ * phone): attempts and connects for each of the 168 weekday hours. Per lead,
+ * keyed by {@link PhoneNumbers#key(CharSequence)}: attempts and connects in
+ * eight three-hour bands, which is all a typical lead's handful of calls can
+ * support. An estimate shrinks each level towards the one above it, so a lead
+ * with no history gets the device-wide rate for the hour, and the device-wide
+ * rate falls back to the overall one for hours with few calls.
+ *
+ * An attempt is an outgoing row; it connected if its duration is non-zero.
+ * Rows are deduplicated by call log _ID like {@link TalkTimeAggregates}. Not
+ * thread-safe.
+ */
+public final class ContactTimeModel implements CallLogModel {
+    private static final int MAGIC = 0x43544d44; // "CTMD"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    static final int WEEK_HOURS = 7 * 24;
+    static final int BANDS = 8;
+    private static final int BAND_HOURS = 24 / BANDS;
+    // Pseudo-attempts each level borrows from the level above it
+    private static final double SLOT_PRIOR = 4d;
+    private static final double LEAD_PRIOR = 3d;
+    private static final int MIN_CAPACITY = 64;
+    private static final long EMPTY = 0L;
+
+    private final TimeZone zone;
+    private final int[] slotAttempts = new int[WEEK_HOURS];
+    private final int[] slotConnects = new int[WEEK_HOURS];
+    private long totalAttempts;
+    private long totalConnects;
+
+    private long[] keys;
+    // BANDS attempts then BANDS connects per slot, saturating
+    private short[] leadCounts;
+    private int size;
+    private long lastCallId;
+
+    public ContactTimeModel(TimeZone zone) {
+        this.zone = zone;
+        allocate(MIN_CAPACITY);
+    }
+
+    @Override
+    public long getLastCallId() {
+        return lastCallId;
+    }
+
+    /**
+     * Leads with at least one attempt.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getTotalAttempts() {
+        return totalAttempts;
+    }
+
+    /**
+     * Counts one call log row. Only outgoing rows above {@link #getLastCallId()}
+     * are attempts; the rest only move the _ID watermark.
+     *
+     * @return true if the row was counted as an attempt
+     */
+    @Override
+    public boolean add(long id, int duration, long date, int type, String number) {
+        if (id <= lastCallId) {
+            return false;
+        }
+        lastCallId = id;
+        if (!CallTypes.isOutgoing(type)) {
+            return false;
+        }
+        boolean connected = duration > 0;
+        int slot = weekHour(date);
+        slotAttempts[slot]++;
+        totalAttempts++;
+        if (connected) {
+            slotConnects[slot]++;
+            totalConnects++;
+        }
+
+        long key = PhoneNumbers.key(number);
+        if (key != PhoneNumbers.NO_KEY) {
+            int at = slotOf(key);
+            if (keys[at] == EMPTY) {
+                if ((size + 1) * 2 > keys.length) {
+                    allocate(keys.length * 2);
+                    at = slotOf(key);
+                }
+                keys[at] = key;
+                size++;
+            }
+            int band = (slot % 24) / BAND_HOURS;
+            increment(at * 2 * BANDS + band);
+            if (connected) {
+                increment(at * 2 * BANDS + BANDS + band);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimated probability that calling the key at the given time connects.
+     */
+    public double probability(long key, long atMs) {
+        return estimate(key == PhoneNumbers.NO_KEY ? -1 : find(key), weekHour(atMs));
+    }
+
+    /**
+     * Orders keys by connect probability at the given time, most likely first;
+     * ties keep their input order.
+     *
+     * @param probabilities receives each key's probability, by input index; may be null
+     * @return input indexes in ranked order
+     */
+    public int[] rank(long[] keys, long atMs, double[] probabilities) {
+        int slot = weekHour(atMs);
+        int n = keys.length;
+        double[] p = probabilities != null ? probabilities : new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            p[i] = estimate(keys[i] == PhoneNumbers.NO_KEY ? -1 : find(keys[i]), slot);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(p[b], p[a]));
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    /**
+     * Local hour (0-23) on the weekday of dayMs with the highest estimate for
+     * the key.
+     */
+    public int bestHour(long key, long dayMs) {
+        int at = key == PhoneNumbers.NO_KEY ? -1 : find(key);
+        int dayStart = weekHour(dayMs) / 24 * 24;
+        int best = 0;
+        double bestP = -1d;
+        for (int h = 0; h < 24; h++) {
+            double p = estimate(at, dayStart + h);
+            if (p > bestP) {
+                bestP = p;
+                best = h;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(lastCallId);
+        for (int i = 0; i < WEEK_HOURS; i++) {
+            LeadNumberIndex.writeVarLong(out, slotAttempts[i]);
+            LeadNumberIndex.writeVarLong(out, slotConnects[i]);
+        }
+        out.writeInt(size);
+        for (int at = 0; at < keys.length; at++) {
+            if (keys[at] == EMPTY) {
+                continue;
+            }
+            LeadNumberIndex.writeVarLong(out, keys[at]);
+            // Mostly zeros, so one byte per empty band
+            for (int i = 0; i < 2 * BANDS; i++) {
+                LeadNumberIndex.writeVarLong(out, leadCounts[at * 2 * BANDS + i]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the contents with a saved model.
+     */
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a contact time file");
+        }
+        long savedLastId = in.readLong();
+        totalAttempts = 0;
+        totalConnects = 0;
+        for (int i = 0; i < WEEK_HOURS; i++) {
+            slotAttempts[i] = (int) LeadNumberIndex.readVarLong(in);
+            slotConnects[i] = (int) LeadNumberIndex.readVarLong(in);
+            totalAttempts += slotAttempts[i];
+            totalConnects += slotConnects[i];
+        }
+        int count = in.readInt();
+        if (count < 0 || count > 1 << 24) {
+            throw new IOException("Bad entry count " + count);
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < count * 2) {
+            capacity *= 2;
+        }
+        keys = null;
+        allocate(capacity);
+        for (int i = 0; i < count; i++) {
+            long key = LeadNumberIndex.readVarLong(in);
+            int at = slotOf(key);
+            if (key == EMPTY || keys[at] != EMPTY) {
+                throw new IOException("Bad or repeated key " + key);
+            }
+            keys[at] = key;
+            for (int j = 0; j < 2 * BANDS; j++) {
+                leadCounts[at * 2 * BANDS + j] = (short) LeadNumberIndex.readVarLong(in);
+            }
+        }
+        size = count;
+        lastCallId = savedLastId;
+    }
+
+    // Lead band rate shrunk towards the device rate for the weekday hour,
+    // itself shrunk towards the overall rate
+    private double estimate(int at, int slot) {
+        double overall = (totalConnects + 1d) / (totalAttempts + 2d);
+        double device = (slotConnects[slot] + SLOT_PRIOR * overall) / (slotAttempts[slot] + SLOT_PRIOR);
+        if (at < 0) {
+            return device;
+        }
+        int band = (slot % 24) / BAND_HOURS;
+        int base = at * 2 * BANDS;
+        return (leadCounts[base + BANDS + band] + LEAD_PRIOR * device) / (leadCounts[base + band] + LEAD_PRIOR);
+    }
+
+    // Hours since Monday 00:00 local time, 0..167
+    int weekHour(long epochMs) {
+        long local = epochMs + zone.getOffset(epochMs);
+        long day = Math.floorDiv(local, DAY_MS);
+        // 1970-01-01 was a Thursday
+        int weekday = (int) Math.floorMod(day + 3, 7L);
+        int hour = (int) Math.floorDiv(Math.floorMod(local, DAY_MS), HOUR_MS);
+        return weekday * 24 + hour;
+    }
+
+    private void increment(int index) {
+        if (leadCounts[index] < Short.MAX_VALUE) {
+            leadCounts[index]++;
+        }
+    }
+
+    private int find(long key) {
+        int at = slotOf(key);
+        return keys[at] == EMPTY ? -1 : at;
+    }
+
+    // Slot holding the key, or the empty slot where it would go
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int at = mix(key) & mask;
+        while (keys[at] != EMPTY && keys[at] != key) {
+            at = (at + 1) & mask;
+        }
+        return at;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Sizes the table for capacity slots, rehashing any current entries
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        short[] oldCounts = leadCounts;
+        keys = new long[capacity];
+        leadCounts = new short[capacity * 2 * BANDS];
+        if (oldKeys == null) {
+            return;
+        }
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int at = slotOf(oldKeys[i]);
+            keys[at] = oldKeys[i];
+            System.arraycopy(oldCounts, i * 2 * BANDS, leadCounts, at * 2 * BANDS, 2 * BANDS);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.edforce.telephony;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Matches calls placed from the app to the call log rows they produced.
+ *
+ * Every dial records a {@link DialToken} with the normalized number, the wall
+ * clock time (comparable with CallLog DATE) and a monotonic time (for expiry,
+ * immune to clock changes). {@link #resolve(List)} assigns each pending token at
+ * most one outgoing row and each row at most one token, so a result is
+ * reported once and a row is never credited to two dials, even with call
+ * waiting or quick redials to the same number.
+ *
+ * A token's window runs from just before its dial to the next dial, capped at
+ * {@link #MAX_WINDOW_MS}. Within it the matching rule is, in order:
+ * <ul>
+ *   <li>HIGH: exactly one outgoing row for the dialed number</li>
+ *   <li>MEDIUM: several rows for the dialed number; the one closest to the dial wins</li>
+ *   <li>LOW: no row for the number, but one outgoing row to another number (e.g. the
+ *       number was edited in the dialer); only when it is the only candidate</li>
+ * </ul>
+ * Thread-safe.
+ */
+public final class DialCorrelator {
+    /** Rows can be stamped slightly before the app recorded the dial. */
+    public static final long CLOCK_SKEW_MS = 5_000L;
+    /** Time a user may spend in the dialer before placing the call. */
+    public static final long MAX_WINDOW_MS = 30 * 60_000L;
+    /** Tokens without a row after this long are dropped. */
+    public static final long TOKEN_TTL_MS = 2 * 60 * 60_000L;
+
+    private static final int MAX_PENDING = 16;
+    private static final int MAX_CLAIMED = 64;
+
+    public enum Confidence {
+        HIGH, MEDIUM, LOW;
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * One call placed from the app.
+     */
+    public static final class DialToken {
+        private final long id;
+        private final String number;
+        private final long numberKey;
+        private final long wallMs;
+        private final long elapsedMs;
+
+        DialToken(long id, String number, long wallMs, long elapsedMs) {
+            this.id = id;
+            this.number = number;
+            this.numberKey = PhoneNumbers.key(number);
+            this.wallMs = wallMs;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getNumber() {
+            return number;
+        }
+
+        /** Wall clock time of the dial, epoch millis. */
+        public long getWallMs() {
+            return wallMs;
+        }
+
+        /** Monotonic time of the dial, e.g. SystemClock.elapsedRealtime(). */
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+
+    /**
+     * A token and the call log row it produced.
+     */
+    public static final class Match {
+        private final DialToken token;
+        private final CallRecord record;
+        private final Confidence confidence;
+
+        Match(DialToken token, CallRecord record, Confidence confidence) {
+            this.token = token;
+            this.record = record;
+            this.confidence = confidence;
+        }
+
+        public DialToken getToken() {
+            return token;
+        }
+
+        public CallRecord getRecord() {
+            return record;
+        }
+
+        public Confidence getConfidence() {
+            return confidence;
+        }
+    }
+
+    private final ArrayDeque<DialToken> pending = new ArrayDeque<>();
+    private final ArrayDeque<Long> claimedIds = new ArrayDeque<>();
+    private long nextId = 1;
+
+    public synchronized DialToken onDial(String number, long wallMs, long elapsedMs) {
+        DialToken token = new DialToken(nextId++, number, wallMs, elapsedMs);
+        pending.addLast(token);
+        if (pending.size() > MAX_PENDING) {
+            pending.removeFirst();
+        }
+        return token;
+    }
+
+    /**
+     * Re-registers a dial recorded by a previous process, e.g. from a
+     * {@link CallSessionJournal}, under its original id. Ids handed out later
+     * continue above it.
+     */
+    public synchronized DialToken restore(long id, String number, long wallMs, long elapsedMs) {
+        DialToken token = new DialToken(id, number, wallMs, elapsedMs);
+        // Normally restored before any new dial; an older token goes first so windows stay in dial order
+        if (pending.isEmpty() || pending.peekLast().getWallMs() <= wallMs) {
+            pending.addLast(token);
+        } else {
+            pending.addFirst(token);
+        }
+        if (pending.size() > MAX_PENDING) {
+            pending.removeFirst();
+        }
+        nextId = Math.max(nextId, id + 1);
+        return token;
+    }
+
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Earliest wall clock time a row for any pending token can have, or -1 if
+     * nothing is pending. Query the call log from here.
+     */
+    public synchronized long earliestRowTime() {
+        return pending.isEmpty() ? -1L : pending.peekFirst().getWallMs() - CLOCK_SKEW_MS;
+    }
+
+    /**
+     * Drops tokens older than {@link #TOKEN_TTL_MS} of monotonic time.
+     */
+    public synchronized void expire(long nowElapsedMs) {
+        Iterator<DialToken> it = pending.iterator();
+        while (it.hasNext()) {
+            if (nowElapsedMs - it.next().getElapsedMs() > TOKEN_TTL_MS) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Matches pending tokens against call log rows, typically every row since
+     * {@link #earliestRowTime()}. Matched tokens are removed and their rows
+     * claimed; unmatched tokens stay pending for the next call.
+     *
+     * @return matches in dial order, empty if none
+     */
+    public synchronized List<Match> resolve(List<CallRecord> rows) {
+        List<Match> matches = new ArrayList<>();
+        if (pending.isEmpty()) {
+            return matches;
+        }
+        DialToken[] tokens = pending.toArray(new DialToken[0]);
+        boolean[] used = new boolean[rows.size()];
+        for (int r = 0; r < rows.size(); r++) {
+            used[r] = claimedIds.contains(rows.get(r).getId()) || !CallTypes.isOutgoing(rows.get(r).getType());
+        }
+
+        Match[] byToken = new Match[tokens.length];
+        // Number matches first, so a LOW fallback never takes a row another token dialed
+        for (int t = 0; t < tokens.length; t++) {
+            DialToken token = tokens[t];
+            long upper = windowEnd(tokens, t);
+            int best = -1;
+            int candidates = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                CallRecord row = rows.get(r);
+                if (used[r] || !inWindow(row, token, upper)
+                        || token.numberKey == PhoneNumbers.NO_KEY || PhoneNumbers.key(row.getNumber()) != token.numberKey) {
+                    continue;
+                }
+                candidates++;
+                if (best < 0 || distance(row, token) < distance(rows.get(best), token)) {
+                    best = r;
+                }
+            }
+            if (best >= 0) {
+                used[best] = true;
+                byToken[t] = new Match(token, rows.get(best), candidates == 1 ? Confidence.HIGH : Confidence.MEDIUM);
+            }
+        }
+        for (int t = 0; t < tokens.length; t++) {
+            if (byToken[t] != null) {
+                continue;
+            }
+            DialToken token = tokens[t];
+            long upper = windowEnd(tokens, t);
+            int only = -1;
+            int candidates = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                if (!used[r] && inWindow(rows.get(r), token, upper)) {
+                    candidates++;
+                    only = r;
+                }
+            }
+            if (candidates == 1) {
+                used[only] = true;
+                byToken[t] = new Match(token, rows.get(only), Confidence.LOW);
+            }
+        }
+
+        int lastMatched = -1;
+        for (int t = 0; t < tokens.length; t++) {
+            Match match = byToken[t];
+            if (match != null) {
+                matches.add(match);
+                pending.remove(match.getToken());
+                claimedIds.addLast(match.getRecord().getId());
+                if (claimedIds.size() > MAX_CLAIMED) {
+                    claimedIds.removeFirst();
+                }
+                lastMatched = t;
+            }
+        }
+        // A later dial has its row, so earlier dials without one never connected to the log
+        for (int t = 0; t < lastMatched; t++) {
+            pending.remove(tokens[t]);
+        }
+        return matches;
+    }
+
+    private static long windowEnd(DialToken[] tokens, int index) {
+        long cap = tokens[index].getWallMs() + MAX_WINDOW_MS;
+        return index + 1 < tokens.length ? Math.min(cap, tokens[index + 1].getWallMs() - CLOCK_SKEW_MS) : cap;
+    }
+
+    private static boolean inWindow(CallRecord row, DialToken token, long upper) {
+        return row.getDate() >= token.getWallMs() - CLOCK_SKEW_MS && row.getDate() < upper;
+    }
+
+    private static long distance(CallRecord row, DialToken token) {
+        return Math.abs(row.getDate() - token.getWallMs());
+    }
+}
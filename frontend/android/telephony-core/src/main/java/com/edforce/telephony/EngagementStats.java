@@ -0,0 +1,292 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Per-number engagement totals over the device call log: when the number was
+ * last called or heard from, outgoing attempts, connected calls and talk time.
+ * Kept up to date row by row so lead lists get their "last contacted" and
+ * scoring columns without rescanning calls.
+ *
+ * Numbers are keyed by {@link PhoneNumbers#key(CharSequence)}, so every format
+ * of a number adds to the same entry; rows without digits are skipped. Entries
+ * live in an open-addressing table of primitive columns, about 40 bytes per
+ * number, and a lookup allocates nothing until a hit is returned.
+ *
+ * Rows are deduplicated by call log _ID the same way as
+ * {@link TalkTimeAggregates}: only IDs above the highest one seen are counted.
+ * Not thread-safe.
+ */
+public final class EngagementStats implements CallLogModel {
+    private static final int MAGIC = 0x454e4753; // "ENGS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_CAPACITY = 64;
+    // Slot marker; real keys always carry a leading 1 digit
+    private static final long EMPTY = 0L;
+
+    /**
+     * Totals for one number.
+     */
+    public static final class Stats {
+        private final long lastCallAt;
+        private final long lastConnectedAt;
+        private final int attempts;
+        private final int incoming;
+        private final int missed;
+        private final int connected;
+        private final long talkSeconds;
+
+        Stats(long lastCallAt, long lastConnectedAt, int attempts, int incoming, int missed, int connected, long talkSeconds) {
+            this.lastCallAt = lastCallAt;
+            this.lastConnectedAt = lastConnectedAt;
+            this.attempts = attempts;
+            this.incoming = incoming;
+            this.missed = missed;
+            this.connected = connected;
+            this.talkSeconds = talkSeconds;
+        }
+
+        /** Epoch millis of the most recent call in either direction. */
+        public long getLastCallAt() {
+            return lastCallAt;
+        }
+
+        /** Epoch millis of the most recent connected call, 0 if none. */
+        public long getLastConnectedAt() {
+            return lastConnectedAt;
+        }
+
+        /** Outgoing calls, connected or not. */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /** Answered incoming calls. */
+        public int getIncoming() {
+            return incoming;
+        }
+
+        /** Missed, rejected, blocked and voicemail calls. */
+        public int getMissed() {
+            return missed;
+        }
+
+        public int getTotal() {
+            return attempts + incoming + missed;
+        }
+
+        /** Calls with a non-zero duration. */
+        public int getConnected() {
+            return connected;
+        }
+
+        public long getTalkSeconds() {
+            return talkSeconds;
+        }
+    }
+
+    private long[] keys;
+    private long[] lastCallAt;
+    private long[] lastConnectedAt;
+    private int[] attempts;
+    private int[] incoming;
+    private int[] missed;
+    private int[] connected;
+    private long[] talkSeconds;
+    private int size;
+    private long lastCallId;
+
+    public EngagementStats() {
+        allocate(MIN_CAPACITY);
+    }
+
+    @Override
+    public long getLastCallId() {
+        return lastCallId;
+    }
+
+    /**
+     * Numbers with at least one counted call.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts one call log row. Rows at or below {@link #getLastCallId()} and rows
+     * whose number has no digits are ignored.
+     *
+     * @return true if the row was counted
+     */
+    @Override
+    public boolean add(long id, int duration, long date, int type, String number) {
+        if (id <= lastCallId) {
+            return false;
+        }
+        lastCallId = id;
+        long key = PhoneNumbers.key(number);
+        if (key == PhoneNumbers.NO_KEY) {
+            return false;
+        }
+
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 2 > keys.length) {
+                allocate(keys.length * 2);
+                slot = slotOf(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        lastCallAt[slot] = Math.max(lastCallAt[slot], date);
+        boolean wasMissed = CallTypes.isMissed(type) || type == CallTypes.VOICEMAIL;
+        if (wasMissed) {
+            missed[slot]++;
+        } else if (CallTypes.isOutgoing(type)) {
+            attempts[slot]++;
+        } else {
+            incoming[slot]++;
+        }
+        if (!wasMissed && duration > 0) {
+            connected[slot]++;
+            talkSeconds[slot] += duration;
+            lastConnectedAt[slot] = Math.max(lastConnectedAt[slot], date);
+        }
+        return true;
+    }
+
+    /**
+     * @return totals for the key, or null if it has no counted calls
+     */
+    public Stats get(long key) {
+        if (key == PhoneNumbers.NO_KEY) {
+            return null;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            return null;
+        }
+        return new Stats(lastCallAt[slot], lastConnectedAt[slot], attempts[slot], incoming[slot], missed[slot],
+                connected[slot], talkSeconds[slot]);
+    }
+
+    public Stats getNumber(CharSequence number) {
+        return get(PhoneNumbers.key(number));
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(lastCallId);
+        out.writeInt(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            LeadNumberIndex.writeVarLong(out, keys[slot]);
+            LeadNumberIndex.writeVarLong(out, lastCallAt[slot]);
+            // Usually the same call or close to it, so a small number; 0 for never connected
+            LeadNumberIndex.writeVarLong(out, lastConnectedAt[slot] == 0 ? 0 : lastCallAt[slot] - lastConnectedAt[slot] + 1);
+            LeadNumberIndex.writeVarLong(out, attempts[slot]);
+            LeadNumberIndex.writeVarLong(out, incoming[slot]);
+            LeadNumberIndex.writeVarLong(out, missed[slot]);
+            LeadNumberIndex.writeVarLong(out, connected[slot]);
+            LeadNumberIndex.writeVarLong(out, talkSeconds[slot]);
+        }
+    }
+
+    /**
+     * Replaces the contents with saved totals.
+     */
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not an engagement stats file");
+        }
+        long savedLastId = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > 1 << 24) {
+            throw new IOException("Bad entry count " + count);
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < count * 2) {
+            capacity *= 2;
+        }
+        keys = null;
+        allocate(capacity);
+        for (int i = 0; i < count; i++) {
+            long key = LeadNumberIndex.readVarLong(in);
+            int slot = slotOf(key);
+            if (key == EMPTY || keys[slot] != EMPTY) {
+                throw new IOException("Bad or repeated key " + key);
+            }
+            keys[slot] = key;
+            lastCallAt[slot] = LeadNumberIndex.readVarLong(in);
+            long connectedGap = LeadNumberIndex.readVarLong(in);
+            lastConnectedAt[slot] = connectedGap == 0 ? 0 : lastCallAt[slot] - connectedGap + 1;
+            attempts[slot] = (int) LeadNumberIndex.readVarLong(in);
+            incoming[slot] = (int) LeadNumberIndex.readVarLong(in);
+            missed[slot] = (int) LeadNumberIndex.readVarLong(in);
+            connected[slot] = (int) LeadNumberIndex.readVarLong(in);
+            talkSeconds[slot] = LeadNumberIndex.readVarLong(in);
+        }
+        size = count;
+        lastCallId = savedLastId;
+    }
+
+    // Slot holding the key, or the empty slot where it would go
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Sizes the table for capacity slots, rehashing any current entries
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldLastCall = lastCallAt;
+        long[] oldLastConnected = lastConnectedAt;
+        int[] oldAttempts = attempts;
+        int[] oldIncoming = incoming;
+        int[] oldMissed = missed;
+        int[] oldConnected = connected;
+        long[] oldTalk = talkSeconds;
+
+        keys = new long[capacity];
+        lastCallAt = new long[capacity];
+        lastConnectedAt = new long[capacity];
+        attempts = new int[capacity];
+        incoming = new int[capacity];
+        missed = new int[capacity];
+        connected = new int[capacity];
+        talkSeconds = new long[capacity];
+        if (oldKeys == null) {
+            return;
+        }
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = slotOf(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            lastCallAt[slot] = oldLastCall[i];
+            lastConnectedAt[slot] = oldLastConnected[i];
+            attempts[slot] = oldAttempts[i];
+            incoming[slot] = oldIncoming[i];
+            missed[slot] = oldMissed[i];
+            connected[slot] = oldConnected[i];
+            talkSeconds[slot] = oldTalk[i];
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.edforce.telephony;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outgoing web events, ordered by priority and merged by key.
+ *
+ * Live call results ({@link #LIVE}) always leave before sync traffic
+ * ({@link #SYNC}, {@link #BULK}); within a priority, events leave in the order
+ * they arrived. Events carrying the same key, typically the call log _ID, are
+ * merged: while one is queued, a later one replaces its detail, or is folded
+ * into it when the queued one is more urgent. An event identical to the last
+ * one delivered for its key is dropped as a duplicate.
+ *
+ * The queue is bounded for everything but live events: {@link #offer} reports
+ * {@link #FULL} and {@link #put} waits until a consumer makes room, so a large
+ * sync is paced by delivery instead of piling up. Live events are never
+ * refused.
+ *
+ * Thread-safe; producers and the consumer may run on different threads.
+ */
+public final class EventDispatchQueue {
+    public static final int LIVE = 0;
+    public static final int SYNC = 1;
+    public static final int BULK = 2;
+    private static final int PRIORITIES = 3;
+
+    // offer and put results
+    public static final int ACCEPTED = 0;
+    public static final int MERGED = 1;
+    public static final int DUPLICATE = 2;
+    public static final int FULL = 3;
+
+    /** Key of events that are never merged. */
+    public static final long NO_KEY = 0L;
+
+    private static final int DELIVERED_KEYS = 1024;
+
+    /**
+     * One queued event.
+     */
+    public static final class Event {
+        private int priority;
+        private final long key;
+        private String name;
+        private String detail;
+
+        Event(int priority, long key, String name, String detail) {
+            this.priority = priority;
+            this.key = key;
+            this.name = name;
+            this.detail = detail;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+
+    private final int capacity;
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ArrayDeque<Event>[] queues = new ArrayDeque[PRIORITIES];
+    private final HashMap<Long, Event> queuedByKey = new HashMap<>();
+    private final LinkedHashMap<Long, String> delivered = new LinkedHashMap<Long, String>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > DELIVERED_KEYS;
+        }
+    };
+    private int size;
+
+    /**
+     * @param capacity queued non-live events at which producers are held back
+     */
+    public EventDispatchQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        for (int i = 0; i < PRIORITIES; i++) {
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Queues an event without waiting.
+     *
+     * @param key call log _ID or other merge key, {@link #NO_KEY} for none
+     * @return ACCEPTED, MERGED, DUPLICATE, or FULL if a non-live event did not fit
+     */
+    public synchronized int offer(int priority, long key, String name, String detail) {
+        if (priority < LIVE || priority > BULK) {
+            throw new IllegalArgumentException("Unknown priority " + priority);
+        }
+        if (key != NO_KEY) {
+            Event queued = queuedByKey.get(key);
+            if (queued != null) {
+                merge(queued, priority, name, detail);
+                return MERGED;
+            }
+            String last = delivered.get(key);
+            if (last != null && last.equals(name + '\n' + detail)) {
+                return DUPLICATE;
+            }
+        }
+        if (priority != LIVE && size - queues[LIVE].size() >= capacity) {
+            return FULL;
+        }
+        Event event = new Event(priority, key, name, detail);
+        queues[priority].addLast(event);
+        if (key != NO_KEY) {
+            queuedByKey.put(key, event);
+        }
+        size++;
+        return ACCEPTED;
+    }
+
+    /**
+     * Like {@link #offer}, but waits up to timeoutMs for room.
+     *
+     * @return as offer; FULL only if the wait timed out
+     */
+    public synchronized int put(int priority, long key, String name, String detail, long timeoutMs)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            int result = offer(priority, key, name, detail);
+            long left = deadline - System.currentTimeMillis();
+            if (result != FULL || left <= 0) {
+                return result;
+            }
+            wait(left);
+        }
+    }
+
+    /**
+     * Takes the most urgent event, or null if none is queued.
+     */
+    public synchronized Event poll() {
+        for (ArrayDeque<Event> queue : queues) {
+            Event event = queue.pollFirst();
+            if (event != null) {
+                if (event.key != NO_KEY) {
+                    queuedByKey.remove(event.key);
+                }
+                size--;
+                notifyAll();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a polled event that could not be delivered to the front of its
+     * priority, so it goes out first once delivery works again. A newer event
+     * for the same key queued in the meantime takes its place.
+     */
+    public synchronized void requeue(Event event) {
+        if (event.key != NO_KEY && queuedByKey.containsKey(event.key)) {
+            return;
+        }
+        queues[event.priority].addFirst(event);
+        if (event.key != NO_KEY) {
+            queuedByKey.put(event.key, event);
+        }
+        size++;
+    }
+
+    /**
+     * Records a delivered event so an identical one for its key is dropped.
+     */
+    public synchronized void delivered(Event event) {
+        if (event.key != NO_KEY) {
+            delivered.put(event.key, event.name + '\n' + event.detail);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int size(int priority) {
+        return queues[priority].size();
+    }
+
+    private void merge(Event queued, int priority, String name, String detail) {
+        if (priority > queued.priority) {
+            // The queued event is more urgent and already carries this row
+            return;
+        }
+        queued.name = name;
+        queued.detail = detail;
+        if (priority < queued.priority) {
+            // Promoted: leaves with the more urgent events, after those already waiting
+            Iterator<Event> it = queues[queued.priority].iterator();
+            while (it.hasNext()) {
+                if (it.next() == queued) {
+                    it.remove();
+                    break;
+                }
+            }
+            queued.priority = priority;
+            queues[priority].addLast(queued);
+            notifyAll();
+        }
+    }
+}
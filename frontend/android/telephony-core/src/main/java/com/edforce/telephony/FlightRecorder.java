@@ -0,0 +1,135 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Fixed-size ring buffer of recent structured events for field diagnostics.
+ *
+ * An event is a timestamp, an int code and two long arguments, stored in one
+ * preallocated long[]; recording allocates nothing and never formats text. Once
+ * full, the oldest event is overwritten. The buffer can be exported in a small
+ * binary format or as text lines when support asks for it.
+ */
+public final class FlightRecorder {
+
+    /**
+     * Receives events oldest first.
+     */
+    public interface Visitor {
+        void onEvent(long timeMs, int code, long a, long b);
+    }
+
+    private static final int MAGIC = 0x45465243; // "EFRC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SLOT = 4;
+
+    private final int capacity;
+    private final long[] slots;
+    private long recorded;
+
+    public FlightRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new long[capacity * SLOT];
+    }
+
+    public void record(int code, long a, long b) {
+        record(System.currentTimeMillis(), code, a, b);
+    }
+
+    public synchronized void record(long timeMs, int code, long a, long b) {
+        int base = (int) (recorded % capacity) * SLOT;
+        slots[base] = timeMs;
+        slots[base + 1] = code;
+        slots[base + 2] = a;
+        slots[base + 3] = b;
+        recorded++;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(recorded, capacity);
+    }
+
+    /**
+     * Events recorded since creation or the last clear, including overwritten ones.
+     */
+    public synchronized long getRecorded() {
+        return recorded;
+    }
+
+    public synchronized void clear() {
+        recorded = 0L;
+    }
+
+    public synchronized void forEach(Visitor visitor) {
+        int size = (int) Math.min(recorded, capacity);
+        long first = recorded - size;
+        for (long i = first; i < recorded; i++) {
+            int base = (int) (i % capacity) * SLOT;
+            visitor.onEvent(slots[base], (int) slots[base + 1], slots[base + 2], slots[base + 3]);
+        }
+    }
+
+    /**
+     * One line per event, oldest first: "timeMs name a b". Codes outside the
+     * names table are written as "#code".
+     */
+    public StringBuilder appendText(StringBuilder out, String[] codeNames) {
+        forEach((timeMs, code, a, b) -> {
+            out.append(timeMs).append(' ');
+            if (code >= 0 && code < codeNames.length && codeNames[code] != null) {
+                out.append(codeNames[code]);
+            } else {
+                out.append('#').append(code);
+            }
+            out.append(' ').append(a).append(' ').append(b).append('\n');
+        });
+        return out;
+    }
+
+    /**
+     * Binary export: header, the number of overwritten events, then fixed-width
+     * events oldest first.
+     */
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        int size = (int) Math.min(recorded, capacity);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(recorded - size);
+        out.writeInt(size);
+        for (long i = recorded - size; i < recorded; i++) {
+            int base = (int) (i % capacity) * SLOT;
+            out.writeLong(slots[base]);
+            out.writeInt((int) slots[base + 1]);
+            out.writeLong(slots[base + 2]);
+            out.writeLong(slots[base + 3]);
+        }
+    }
+
+    /**
+     * Reads an export back into a recorder sized to hold exactly its events.
+     */
+    public static FlightRecorder readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a flight recorder export");
+        }
+        long dropped = in.readLong();
+        int size = in.readInt();
+        if (dropped < 0 || size < 0) {
+            throw new IOException("Corrupt flight recorder export");
+        }
+        FlightRecorder recorder = new FlightRecorder(Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            recorder.record(in.readLong(), in.readInt(), in.readLong(), in.readLong());
+        }
+        return recorder;
+    }
+}
@@ -0,0 +1,110 @@
+package com.edforce.telephony;
+
+import java.util.Arrays;
+
+/**
+ * Log-scale latency histogram for field diagnostics.
+ *
+ * Bucket 0 holds samples under 1 us and bucket i samples in [2^(i-1), 2^i) us,
+ * so 32 buckets reach past half an hour in a fixed 32-long array. Recording is
+ * a bucket index and three stores; percentiles are reported as the upper bound
+ * of the bucket they fall in, which overstates them by at most 2x. Enough to
+ * tell a 2 ms bridge call from a 200 ms one across a fleet.
+ */
+public final class LatencyHistogram {
+    public static final int BUCKETS = 32;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long sumUs;
+    private long maxUs;
+
+    public synchronized void recordNanos(long nanos) {
+        long us = Math.max(0L, nanos / 1000);
+        buckets[bucketOf(us)]++;
+        count++;
+        sumUs += us;
+        if (us > maxUs) {
+            maxUs = us;
+        }
+    }
+
+    static int bucketOf(long us) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(us));
+    }
+
+    /**
+     * Exclusive upper bound of a bucket in microseconds.
+     */
+    public static long bucketLimitUs(int bucket) {
+        return 1L << bucket;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getSumUs() {
+        return sumUs;
+    }
+
+    public synchronized long getMaxUs() {
+        return maxUs;
+    }
+
+    public synchronized long getMeanUs() {
+        return count == 0 ? 0L : sumUs / count;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100), capped at
+     * the largest sample; 0 when empty.
+     */
+    public synchronized long percentileUs(double percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(count * Math.max(0.0, Math.min(100.0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(1L, rank)) {
+                return Math.min(bucketLimitUs(i), maxUs);
+            }
+        }
+        return maxUs;
+    }
+
+    /**
+     * Per-bucket counts, index as described on the class.
+     */
+    public synchronized long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    public synchronized LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(buckets, 0, copy.buckets, 0, BUCKETS);
+        copy.count = count;
+        copy.sumUs = sumUs;
+        copy.maxUs = maxUs;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the samples so far and resets this histogram, so
+     * periodic uploads see each sample once.
+     */
+    public synchronized LatencyHistogram drain() {
+        LatencyHistogram copy = copy();
+        reset();
+        return copy;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0L);
+        count = 0;
+        sumUs = 0;
+        maxUs = 0;
+    }
+}
@@ -0,0 +1,156 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Immutable set of lead phone numbers, stored as a sorted, de-duplicated array
+ * of {@link PhoneNumbers#key(CharSequence)} values.
+ *
+ * Lookups are a binary search over a primitive array, so 100k leads cost about
+ * 800 KB and a membership test allocates nothing. Deltas from the server are
+ * merged into a new instance, and readers always see a complete index.
+ */
+public final class LeadNumberIndex {
+    public static final LeadNumberIndex EMPTY = new LeadNumberIndex(new long[0]);
+
+    private static final int MAGIC = 0x4c4e4958; // "LNIX"
+    private static final int FORMAT_VERSION = 1;
+    // Far above any real lead list; bounds what a corrupt file can make us allocate
+    static final int MAX_SIZE = 1 << 21;
+
+    private final long[] keys;
+
+    private LeadNumberIndex(long[] sortedUniqueKeys) {
+        this.keys = sortedUniqueKeys;
+    }
+
+    /**
+     * Builds an index from arbitrary keys; NO_KEY entries are dropped.
+     */
+    public static LeadNumberIndex of(long[] keys) {
+        return new LeadNumberIndex(sortedUnique(keys.clone()));
+    }
+
+    /**
+     * Builds an index from raw phone numbers in any format.
+     */
+    public static LeadNumberIndex ofNumbers(CharSequence[] numbers) {
+        return new LeadNumberIndex(sortedUnique(keysOf(numbers)));
+    }
+
+    public static long[] keysOf(CharSequence[] numbers) {
+        long[] keys = new long[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            keys[i] = PhoneNumbers.key(numbers[i]);
+        }
+        return keys;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public boolean contains(long key) {
+        return key != PhoneNumbers.NO_KEY && Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    public boolean containsNumber(CharSequence number) {
+        return contains(PhoneNumbers.key(number));
+    }
+
+    /**
+     * Returns a new index with the added keys merged in and the removed keys dropped.
+     * A key present in both lists is treated as added.
+     */
+    public LeadNumberIndex withDelta(long[] added, long[] removed) {
+        long[] add = sortedUnique(added.clone());
+        long[] remove = sortedUnique(removed.clone());
+        long[] merged = new long[keys.length + add.length];
+        int i = 0, j = 0, n = 0;
+        while (i < keys.length || j < add.length) {
+            long next;
+            if (j >= add.length || (i < keys.length && keys[i] < add[j])) {
+                next = keys[i++];
+                if (Arrays.binarySearch(remove, next) >= 0) {
+                    continue;
+                }
+            } else if (i >= keys.length || add[j] < keys[i]) {
+                next = add[j++];
+            } else {
+                next = keys[i++];
+                j++;
+            }
+            merged[n++] = next;
+        }
+        return new LeadNumberIndex(n == merged.length ? merged : Arrays.copyOf(merged, n));
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(keys.length);
+        // Delta-encode the sorted keys; gaps are small so most fit in a few bytes
+        long previous = 0L;
+        for (long key : keys) {
+            writeVarLong(out, key - previous);
+            previous = key;
+        }
+    }
+
+    public static LeadNumberIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a lead index file");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > MAX_SIZE) {
+            throw new IOException("Corrupt lead index: " + count + " numbers");
+        }
+        long[] keys = new long[count];
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            previous += readVarLong(in);
+            keys[i] = previous;
+        }
+        return new LeadNumberIndex(keys);
+    }
+
+    private static long[] sortedUnique(long[] keys) {
+        Arrays.sort(keys);
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long key = keys[i];
+            if (key == PhoneNumbers.NO_KEY || (n > 0 && keys[n - 1] == key)) {
+                continue;
+            }
+            keys[n++] = key;
+        }
+        return n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
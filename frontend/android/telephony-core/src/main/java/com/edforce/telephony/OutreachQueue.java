@@ -0,0 +1,213 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Ordered list of WhatsApp chats to open one after another, with the message
+ * text already rendered and the link already built for every entry.
+ *
+ * Numbers are normalized with {@link PhoneNumbers#forWhatsApp(CharSequence)}
+ * when added; entries without digits and repeats of a number already queued
+ * are dropped. The template may use {name} and {firstName}, which become
+ * empty when a lead has no name. Progress is a single position plus a status
+ * per entry, and the whole queue can be saved so an outreach run survives
+ * the app being killed while WhatsApp is in front.
+ */
+public final class OutreachQueue {
+    public static final int PENDING = 0;
+    public static final int OPENED = 1;
+    public static final int SKIPPED = 2;
+
+    private static final int MAGIC = 0x454f5551; // "EOUQ"
+    private static final int FORMAT_VERSION = 1;
+    private static final String LINK_PREFIX = "https://api.whatsapp.com/send?phone=";
+
+    /**
+     * One chat to open.
+     */
+    public static final class Item {
+        private final String number;
+        private final String leadId;
+        private final String link;
+        private int status;
+
+        Item(String number, String leadId, String link, int status) {
+            this.number = number;
+            this.leadId = leadId;
+            this.link = link;
+            this.status = status;
+        }
+
+        /** Digits-only number with country code, as WhatsApp expects it. */
+        public String getNumber() {
+            return number;
+        }
+
+        public String getLeadId() {
+            return leadId;
+        }
+
+        /** api.whatsapp.com link with the rendered message as prefilled text. */
+        public String getLink() {
+            return link;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private final String template;
+    private final List<Item> items = new ArrayList<>();
+    private final HashSet<Long> keys = new HashSet<>();
+    private int position;
+
+    public OutreachQueue(String template) {
+        this.template = template == null ? "" : template;
+    }
+
+    /**
+     * Queues a chat for the number with the template rendered for this lead.
+     *
+     * @return false if the number has no digits or is already queued
+     */
+    public boolean add(String phoneNumber, String name, String leadId) {
+        String number = PhoneNumbers.forWhatsApp(phoneNumber);
+        if (number.isEmpty() || !keys.add(PhoneNumbers.key(number))) {
+            return false;
+        }
+        items.add(new Item(number, leadId, link(number, render(template, name)), PENDING));
+        return true;
+    }
+
+    /**
+     * The template with {name} and {firstName} filled in.
+     */
+    public static String render(String template, String name) {
+        String fullName = name == null ? "" : name.trim();
+        int space = fullName.indexOf(' ');
+        String firstName = space < 0 ? fullName : fullName.substring(0, space);
+        return template.replace("{name}", fullName).replace("{firstName}", firstName);
+    }
+
+    public static String link(String number, String text) {
+        if (text == null || text.isEmpty()) {
+            return LINK_PREFIX + number;
+        }
+        try {
+            // URLEncoder does form encoding; WhatsApp wants %20 rather than '+' for spaces
+            return LINK_PREFIX + number + "&text=" + URLEncoder.encode(text, "UTF-8").replace("+", "%20");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public Item get(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * Index of the next entry to open; equals size() when the run is finished.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean isFinished() {
+        return position >= items.size();
+    }
+
+    /**
+     * Entry that {@link #open()} or {@link #skip()} would act on next, or null when finished.
+     */
+    public Item peek() {
+        return isFinished() ? null : items.get(position);
+    }
+
+    /**
+     * Marks the next entry opened and moves past it.
+     *
+     * @return the entry to open, or null when finished
+     */
+    public Item open() {
+        return advance(OPENED);
+    }
+
+    /**
+     * Marks the next entry skipped and moves past it.
+     *
+     * @return the skipped entry, or null when finished
+     */
+    public Item skip() {
+        return advance(SKIPPED);
+    }
+
+    public int count(int status) {
+        int n = 0;
+        for (Item item : items) {
+            if (item.status == status) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private Item advance(int status) {
+        if (isFinished()) {
+            return null;
+        }
+        Item item = items.get(position++);
+        item.status = status;
+        return item;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(template);
+        out.writeInt(position);
+        out.writeInt(items.size());
+        for (Item item : items) {
+            out.writeUTF(item.number);
+            out.writeBoolean(item.leadId != null);
+            if (item.leadId != null) {
+                out.writeUTF(item.leadId);
+            }
+            out.writeUTF(item.link);
+            out.writeByte(item.status);
+        }
+    }
+
+    public static OutreachQueue readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not an outreach queue file");
+        }
+        OutreachQueue queue = new OutreachQueue(in.readUTF());
+        int position = in.readInt();
+        int count = in.readInt();
+        if (count < 0 || position < 0 || position > count) {
+            throw new IOException("Corrupt outreach queue");
+        }
+        for (int i = 0; i < count; i++) {
+            String number = in.readUTF();
+            String leadId = in.readBoolean() ? in.readUTF() : null;
+            String link = in.readUTF();
+            int status = in.readByte();
+            queue.items.add(new Item(number, leadId, link, status));
+            queue.keys.add(PhoneNumbers.key(number));
+        }
+        queue.position = position;
+        return queue;
+    }
+}
@@ -0,0 +1,117 @@
+package com.edforce.telephony;
+
+/**
+ * Phone number normalization and matching rules shared by the native plugins.
+ *
+ * The backend matches leads on the last 10 digits of a number (see
+ * calls.service.ts normalizePhoneNumber), so the same rule is used here to
+ * build lookup keys. All methods are allocation-free unless they return a String.
+ */
+public final class PhoneNumbers {
+    /** Number of trailing digits that identify a subscriber, same as the backend. */
+    public static final int SIGNIFICANT_DIGITS = 10;
+
+    /** Returned by {@link #key(CharSequence)} when the input holds no digits. */
+    public static final long NO_KEY = -1L;
+
+    /** Country code prepended to bare 10-digit numbers for WhatsApp deep links. */
+    public static final String DEFAULT_COUNTRY_CODE = "91";
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Strips everything except digits.
+     */
+    public static String digitsOnly(CharSequence raw) {
+        if (raw == null) return "";
+        int len = raw.length();
+        StringBuilder out = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') out.append(c);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Strips everything except digits and '+', same as the legacy
+     * {@code replaceAll("[^0-9+]", "")} used by the call log plugin.
+     */
+    public static String stripFormatting(CharSequence raw) {
+        if (raw == null) return "";
+        int len = raw.length();
+        StringBuilder out = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            char c = raw.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '+') out.append(c);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Backend-compatible normalization: digits only, trimmed to the last 10 digits.
+     */
+    public static String normalize(CharSequence raw) {
+        String digits = digitsOnly(raw);
+        if (digits.length() > SIGNIFICANT_DIGITS) {
+            return digits.substring(digits.length() - SIGNIFICANT_DIGITS);
+        }
+        return digits;
+    }
+
+    /**
+     * Numeric key for the normalized number. A leading 1 is prepended before the
+     * digits so that numbers with leading zeros or fewer digits stay distinct,
+     * e.g. "0123" and "123" produce different keys.
+     *
+     * @return the key, or {@link #NO_KEY} if the input has no digits
+     */
+    public static long key(CharSequence raw) {
+        if (raw == null) return NO_KEY;
+        // Walk backwards so only the significant tail is ever parsed
+        long value = 0L;
+        long place = 1L;
+        int count = 0;
+        for (int i = raw.length() - 1; i >= 0 && count < SIGNIFICANT_DIGITS; i--) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value += (c - '0') * place;
+                place *= 10L;
+                count++;
+            }
+        }
+        if (count == 0) return NO_KEY;
+        return place + value;
+    }
+
+    /**
+     * True if both numbers resolve to the same subscriber key.
+     */
+    public static boolean sameSubscriber(CharSequence a, CharSequence b) {
+        long ka = key(a);
+        return ka != NO_KEY && ka == key(b);
+    }
+
+    /**
+     * Legacy substring match used by getRecentCalls: after stripping formatting,
+     * either number must contain the other.
+     */
+    public static boolean matches(CharSequence a, CharSequence b) {
+        String left = stripFormatting(a);
+        String right = stripFormatting(b);
+        return left.contains(right) || right.contains(left);
+    }
+
+    /**
+     * Digits-only number for WhatsApp links. A bare 10-digit local number gets the
+     * default country code, matching the frontend behaviour.
+     */
+    public static String forWhatsApp(CharSequence raw) {
+        String clean = digitsOnly(raw);
+        if (clean.length() == SIGNIFICANT_DIGITS && !clean.startsWith(DEFAULT_COUNTRY_CODE)) {
+            return DEFAULT_COUNTRY_CODE + clean;
+        }
+        return clean;
+    }
+}
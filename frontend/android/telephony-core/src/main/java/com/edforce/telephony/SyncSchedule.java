@@ -0,0 +1,156 @@
+package com.edforce.telephony;
+
+/**
+ * Decides what the startup call log sync should do when the app starts,
+ * resumes or gains the call log permission.
+ *
+ * A full sync replays the whole window and runs at most once per full
+ * interval, or when the lead filter it ran with has changed. Between full
+ * syncs, a trigger only catches up on call log rows above the highest _ID
+ * already synced, and not more often than the catch-up interval, so switching
+ * back and forth between the dialer and the app costs one small indexed query
+ * at most. Triggers while a sync is running are coalesced into one more
+ * sync after it, see {@link #takeRerun()}.
+ *
+ * Time is passed in, so the class is deterministic under test. Thread-safe.
+ */
+public final class SyncSchedule {
+    public static final int SKIP = 0;
+    public static final int INCREMENTAL = 1;
+    public static final int FULL = 2;
+
+    public static final long DEFAULT_FULL_INTERVAL_MS = 6L * 60 * 60 * 1000;
+    public static final long DEFAULT_CATCH_UP_INTERVAL_MS = 60L * 1000;
+
+    private long fullIntervalMs = DEFAULT_FULL_INTERVAL_MS;
+    private long catchUpIntervalMs = DEFAULT_CATCH_UP_INTERVAL_MS;
+    private long lastFullAt;
+    private long lastSyncAt;
+    private long lastSyncedId;
+    private long filterVersion;
+    private boolean running;
+    private int runningKind;
+    private boolean rerun;
+
+    /**
+     * @param fullIntervalMs minimum time between full syncs
+     * @param catchUpIntervalMs minimum time between any two syncs
+     */
+    public synchronized void setIntervals(long fullIntervalMs, long catchUpIntervalMs) {
+        if (fullIntervalMs < 0 || catchUpIntervalMs < 0) {
+            throw new IllegalArgumentException("Intervals must not be negative");
+        }
+        this.fullIntervalMs = fullIntervalMs;
+        this.catchUpIntervalMs = catchUpIntervalMs;
+    }
+
+    /**
+     * Restores state saved from the getters.
+     */
+    public synchronized void restore(long lastFullAt, long lastSyncAt, long lastSyncedId, long filterVersion) {
+        this.lastFullAt = lastFullAt;
+        this.lastSyncAt = lastSyncAt;
+        this.lastSyncedId = lastSyncedId;
+        this.filterVersion = filterVersion;
+    }
+
+    /**
+     * Decides on a sync and, unless SKIP, marks one as running until
+     * {@link #finished} or {@link #abandoned}.
+     *
+     * @param nowMs wall clock
+     * @param currentFilter version of the lead filter the sync would use,
+     *        e.g. its last refresh time
+     * @param force skip the interval checks
+     * @return SKIP, INCREMENTAL or FULL
+     */
+    public synchronized int begin(long nowMs, long currentFilter, boolean force) {
+        if (running) {
+            rerun = true;
+            return SKIP;
+        }
+        int kind;
+        // A clock set backwards counts as due rather than blocking sync until it catches up
+        boolean clockBack = nowMs < lastSyncAt || nowMs < lastFullAt;
+        if (lastFullAt == 0 || currentFilter != filterVersion || clockBack || nowMs - lastFullAt >= fullIntervalMs) {
+            kind = FULL;
+        } else if (force || nowMs - lastSyncAt >= catchUpIntervalMs) {
+            kind = INCREMENTAL;
+        } else {
+            return SKIP;
+        }
+        running = true;
+        runningKind = kind;
+        return kind;
+    }
+
+    /**
+     * Records a completed sync.
+     *
+     * @param maxIdSeen highest call log _ID the sync read, 0 if it read none
+     * @param usedFilter filter version passed to {@link #begin}
+     */
+    public synchronized void finished(long nowMs, long maxIdSeen, long usedFilter) {
+        if (!running) {
+            return;
+        }
+        if (runningKind == FULL) {
+            lastFullAt = nowMs;
+            filterVersion = usedFilter;
+        }
+        lastSyncAt = nowMs;
+        lastSyncedId = Math.max(lastSyncedId, maxIdSeen);
+        running = false;
+    }
+
+    /**
+     * Ends a sync that did not run, e.g. deferred under memory pressure; the
+     * next trigger decides again.
+     */
+    public synchronized void abandoned() {
+        running = false;
+        rerun = false;
+    }
+
+    /**
+     * Whether a trigger was turned away while the finished sync ran, and clears
+     * it. The caller then begins once more with force set: the rows that
+     * trigger was for may have landed after the sync read the call log.
+     */
+    public synchronized boolean takeRerun() {
+        boolean requested = rerun;
+        rerun = false;
+        return requested;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public synchronized long getLastFullAt() {
+        return lastFullAt;
+    }
+
+    public synchronized long getLastSyncAt() {
+        return lastSyncAt;
+    }
+
+    /**
+     * Catch-ups read call log rows above this _ID.
+     */
+    public synchronized long getLastSyncedId() {
+        return lastSyncedId;
+    }
+
+    public synchronized long getFilterVersion() {
+        return filterVersion;
+    }
+
+    public synchronized long getFullIntervalMs() {
+        return fullIntervalMs;
+    }
+
+    public synchronized long getCatchUpIntervalMs() {
+        return catchUpIntervalMs;
+    }
+}
@@ -0,0 +1,263 @@
+package com.edforce.telephony;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * Per-hour talk-time buckets over the device call log, kept up to date row by
+ * row so dashboards never rescan the log.
+ *
+ * Each local hour in the retention window holds call counts by direction,
+ * connected calls and talk seconds. Prefix sums over the hours make a query for
+ * any range (a day, a week, "today so far") a handful of array reads. New rows
+ * land in the newest hours, so refreshing the prefix sums after them touches
+ * only the tail of the arrays.
+ *
+ * Rows are deduplicated by call log _ID: only IDs above the highest one seen
+ * are counted, matching how the platform assigns them. Not thread-safe.
+ */
+public final class TalkTimeAggregates implements CallLogModel {
+    public static final int DEFAULT_RETENTION_DAYS = 400;
+
+    private static final long HOUR_MS = 3_600_000L;
+    private static final int MAGIC = 0x54544147; // "TTAG"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int INCOMING = 0;
+    private static final int OUTGOING = 1;
+    private static final int MISSED = 2;
+    private static final int CONNECTED = 3;
+    private static final int TALK_SECONDS = 4;
+    private static final int METRICS = 5;
+
+    /**
+     * Totals over a range of hours.
+     */
+    public static final class Totals {
+        private final long incoming;
+        private final long outgoing;
+        private final long missed;
+        private final long connected;
+        private final long talkSeconds;
+
+        Totals(long incoming, long outgoing, long missed, long connected, long talkSeconds) {
+            this.incoming = incoming;
+            this.outgoing = outgoing;
+            this.missed = missed;
+            this.connected = connected;
+            this.talkSeconds = talkSeconds;
+        }
+
+        public long getIncoming() {
+            return incoming;
+        }
+
+        public long getOutgoing() {
+            return outgoing;
+        }
+
+        /** Missed, rejected, blocked and voicemail calls. */
+        public long getMissed() {
+            return missed;
+        }
+
+        public long getTotal() {
+            return incoming + outgoing + missed;
+        }
+
+        /** Calls with a non-zero duration. */
+        public long getConnected() {
+            return connected;
+        }
+
+        public long getTalkSeconds() {
+            return talkSeconds;
+        }
+
+        public double getAverageTalkSeconds() {
+            return connected == 0 ? 0d : (double) talkSeconds / connected;
+        }
+
+        public double getConnectRate() {
+            long total = getTotal();
+            return total == 0 ? 0d : (double) connected / total;
+        }
+    }
+
+    private final TimeZone zone;
+    private final int capacity;
+    private final long[][] hourly;
+    // prefix[m][i] = sum of hourly[m][0..i-1]; valid up to and including index prefixValid
+    private final long[][] prefix;
+    private int prefixValid;
+    private long baseHour = Long.MIN_VALUE;
+    private long lastCallId;
+
+    public TalkTimeAggregates(TimeZone zone) {
+        this(zone, DEFAULT_RETENTION_DAYS);
+    }
+
+    public TalkTimeAggregates(TimeZone zone, int retentionDays) {
+        if (retentionDays <= 0) {
+            throw new IllegalArgumentException("retentionDays must be positive");
+        }
+        this.zone = zone;
+        this.capacity = retentionDays * 24;
+        this.hourly = new long[METRICS][capacity];
+        this.prefix = new long[METRICS][capacity + 1];
+    }
+
+    @Override
+    public long getLastCallId() {
+        return lastCallId;
+    }
+
+    /**
+     * Counts one call log row. Rows at or below {@link #getLastCallId()} and rows
+     * older than the retention window are ignored.
+     *
+     * @return true if the row was counted
+     */
+    public boolean add(long id, int duration, long date, int type) {
+        return add(id, duration, date, type, null);
+    }
+
+    /**
+     * Same as {@link #add(long, int, long, int)}; buckets are not split by number.
+     */
+    @Override
+    public boolean add(long id, int duration, long date, int type, String number) {
+        if (id <= lastCallId) {
+            return false;
+        }
+        lastCallId = id;
+
+        long hour = localHour(date);
+        if (baseHour == Long.MIN_VALUE) {
+            // First row anchors the window so that it ends at this hour's day
+            baseHour = hour - capacity + 24 - Math.floorMod(hour, 24L);
+        }
+        if (hour < baseHour) {
+            return false;
+        }
+        if (hour >= baseHour + capacity) {
+            slideTo(hour);
+        }
+
+        int slot = (int) (hour - baseHour);
+        boolean missed = CallTypes.isMissed(type) || type == CallTypes.VOICEMAIL;
+        if (missed) {
+            hourly[MISSED][slot]++;
+        } else if (CallTypes.isOutgoing(type)) {
+            hourly[OUTGOING][slot]++;
+        } else {
+            hourly[INCOMING][slot]++;
+        }
+        if (!missed && duration > 0) {
+            hourly[CONNECTED][slot]++;
+            hourly[TALK_SECONDS][slot] += duration;
+        }
+        prefixValid = Math.min(prefixValid, slot);
+        return true;
+    }
+
+    /**
+     * Totals over every local hour that overlaps [fromMs, toMs).
+     */
+    public Totals range(long fromMs, long toMs) {
+        if (baseHour == Long.MIN_VALUE || toMs <= fromMs) {
+            return new Totals(0, 0, 0, 0, 0);
+        }
+        int from = clampSlot(localHour(fromMs) - baseHour);
+        int to = clampSlot(localHour(toMs - 1) - baseHour + 1);
+        if (to <= from) {
+            return new Totals(0, 0, 0, 0, 0);
+        }
+        ensurePrefix(to);
+        return new Totals(
+                sum(INCOMING, from, to),
+                sum(OUTGOING, from, to),
+                sum(MISSED, from, to),
+                sum(CONNECTED, from, to),
+                sum(TALK_SECONDS, from, to));
+    }
+
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(capacity);
+        out.writeLong(baseHour);
+        out.writeLong(lastCallId);
+        // Mostly zeros, so one byte per empty hour
+        for (long[] metric : hourly) {
+            for (long value : metric) {
+                LeadNumberIndex.writeVarLong(out, value);
+            }
+        }
+    }
+
+    /**
+     * Restores saved buckets. A file written with another retention starts over.
+     */
+    @Override
+    public void readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a talk time file");
+        }
+        if (in.readInt() != capacity) {
+            throw new IOException("Retention changed");
+        }
+        long savedBase = in.readLong();
+        long savedLastId = in.readLong();
+        for (long[] metric : hourly) {
+            for (int i = 0; i < capacity; i++) {
+                metric[i] = LeadNumberIndex.readVarLong(in);
+            }
+        }
+        baseHour = savedBase;
+        lastCallId = savedLastId;
+        prefixValid = 0;
+    }
+
+    private long localHour(long epochMs) {
+        return Math.floorDiv(epochMs + zone.getOffset(epochMs), HOUR_MS);
+    }
+
+    private int clampSlot(long slot) {
+        return (int) Math.max(0, Math.min(capacity, slot));
+    }
+
+    // Moves the window forward in whole days so that hour becomes its last day
+    private void slideTo(long hour) {
+        long newBase = hour - capacity + 24 - Math.floorMod(hour, 24L);
+        int shift = (int) Math.min(capacity, newBase - baseHour);
+        for (long[] metric : hourly) {
+            System.arraycopy(metric, shift, metric, 0, capacity - shift);
+            Arrays.fill(metric, capacity - shift, capacity, 0L);
+        }
+        baseHour = newBase;
+        prefixValid = 0;
+    }
+
+    private void ensurePrefix(int upTo) {
+        if (prefixValid >= upTo) {
+            return;
+        }
+        for (int m = 0; m < METRICS; m++) {
+            long[] p = prefix[m];
+            long[] h = hourly[m];
+            for (int i = prefixValid; i < upTo; i++) {
+                p[i + 1] = p[i] + h[i];
+            }
+        }
+        prefixValid = upTo;
+    }
+
+    private long sum(int metric, int from, int to) {
+        return prefix[metric][to] - prefix[metric][from];
+    }
+}
@@ -0,0 +1,99 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class BackfillPlanTest {
+
+    @Test
+    public void create_cutsWindowNewestFirst() {
+        BackfillPlan plan = BackfillPlan.create(0L, 250L, 100L);
+
+        assertEquals(3, plan.size());
+        BackfillPlan.Shard first = plan.claim();
+        assertEquals(150L, first.getStart());
+        assertEquals(250L, first.getEnd());
+        BackfillPlan.Shard second = plan.claim();
+        assertEquals(50L, second.getStart());
+        BackfillPlan.Shard last = plan.claim();
+        assertEquals(0L, last.getStart());
+        assertEquals(50L, last.getEnd());
+        assertNull(plan.claim());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void create_rejectsEmptyWindow() {
+        BackfillPlan.create(100L, 100L, 10L);
+    }
+
+    @Test
+    public void release_handsShardOutAgainWithItsCursor() {
+        BackfillPlan plan = BackfillPlan.create(0L, 100L, 100L);
+        BackfillPlan.Shard shard = plan.claim();
+        plan.advance(shard, 42L, 10);
+        plan.release(shard);
+
+        BackfillPlan.Shard again = plan.claim();
+        assertSame(shard, again);
+        assertEquals(42L, plan.getAfterId(again));
+        assertEquals(10L, plan.getRows());
+    }
+
+    @Test
+    public void complete_countsTowardsDone() {
+        BackfillPlan plan = BackfillPlan.create(0L, 200L, 100L);
+        BackfillPlan.Shard shard = plan.claim();
+        plan.advance(shard, 7L, 3);
+        plan.complete(shard);
+
+        assertEquals(1, plan.getDoneCount());
+        assertFalse(plan.isComplete());
+        plan.complete(plan.claim());
+        assertTrue(plan.isComplete());
+        assertNull(plan.claim());
+    }
+
+    @Test
+    public void advance_neverMovesCursorBackwards() {
+        BackfillPlan plan = BackfillPlan.create(0L, 100L, 100L);
+        BackfillPlan.Shard shard = plan.claim();
+        plan.advance(shard, 50L, 5);
+        plan.advance(shard, 20L, 0);
+
+        assertEquals(50L, plan.getAfterId(shard));
+    }
+
+    @Test
+    public void writeTo_roundTripsProgressButNotClaims() throws IOException {
+        BackfillPlan plan = BackfillPlan.create(1000L, 4000L, 1000L);
+        BackfillPlan.Shard done = plan.claim();
+        plan.advance(done, 99L, 4);
+        plan.complete(done);
+        BackfillPlan.Shard partial = plan.claim();
+        plan.advance(partial, 12L, 2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        plan.writeTo(new DataOutputStream(bytes));
+        BackfillPlan restored = BackfillPlan.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(1000L, restored.getFrom());
+        assertEquals(4000L, restored.getTo());
+        assertEquals(3, restored.size());
+        assertEquals(1, restored.getDoneCount());
+        assertEquals(6L, restored.getRows());
+        BackfillPlan.Shard resumed = restored.claim();
+        assertEquals(partial.getStart(), resumed.getStart());
+        assertEquals(12L, restored.getAfterId(resumed));
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOtherFiles() throws IOException {
+        BackfillPlan.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 0, 0, 0, 1})));
+    }
+}
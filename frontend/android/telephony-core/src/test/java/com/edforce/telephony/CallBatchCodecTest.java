@@ -0,0 +1,118 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CallBatchCodecTest {
+
+    @Test
+    public void roundTrip_preservesEveryColumn() throws IOException {
+        List<CallRecord> input = new ArrayList<>();
+        input.add(new CallRecord(900L, "+91 98765 43210", CallTypes.OUTGOING, 1_700_000_500_000L, 125));
+        input.add(new CallRecord(899L, "9876543210", CallTypes.MISSED, 1_700_000_100_000L, 0));
+        input.add(new CallRecord(950L, null, CallTypes.INCOMING, 1_700_000_900_000L, 7));
+        input.add(new CallRecord(12L, "+91 98765 43210", CallTypes.REJECTED, 1_600_000_000_000L, 0));
+
+        CallBatchEncoder encoder = new CallBatchEncoder();
+        for (CallRecord record : input) {
+            encoder.add(record);
+        }
+        assertEquals(2, encoder.getNumberCount());
+
+        List<CallRecord> output = CallBatchDecoder.decode(encoder.toByteArray());
+        assertEquals(input.size(), output.size());
+        for (int i = 0; i < input.size(); i++) {
+            CallRecord a = input.get(i);
+            CallRecord b = output.get(i);
+            assertEquals(a.getId(), b.getId());
+            assertEquals(a.getNumber(), b.getNumber());
+            assertEquals(a.getType(), b.getType());
+            assertEquals(a.getDate(), b.getDate());
+            assertEquals(a.getDuration(), b.getDuration());
+        }
+    }
+
+    @Test
+    public void emptyBatch_decodesToNoRows() throws IOException {
+        assertTrue(CallBatchDecoder.decode(new CallBatchEncoder().toByteArray()).isEmpty());
+    }
+
+    @Test
+    public void encoder_fillsAtRowLimit() throws IOException {
+        CallBatchEncoder encoder = new CallBatchEncoder();
+        long id = 1;
+        while (!encoder.isFull()) {
+            encoder.add(id, 30, 1_700_000_000_000L + id * 60_000L, CallTypes.OUTGOING, "98765" + (id % 1000));
+            id++;
+        }
+        assertEquals(CallBatchEncoder.MAX_ROWS, encoder.getRowCount());
+        try {
+            encoder.add(id, 30, 1_700_000_000_000L, CallTypes.OUTGOING, "9876500000");
+            fail("Expected a full batch to refuse rows");
+        } catch (IllegalStateException expected) {
+            // Callers start a new batch
+        }
+        assertEquals(CallBatchEncoder.MAX_ROWS, CallBatchDecoder.decode(encoder.toByteArray()).size());
+    }
+
+    @Test
+    public void encoder_fillsAtByteLimitAndKeepsNumberTails() throws IOException {
+        CallBatchEncoder encoder = new CallBatchEncoder();
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            prefix.append('0');
+        }
+        int rows = 0;
+        while (!encoder.isFull()) {
+            encoder.add(rows + 1, 0, 1_700_000_000_000L, CallTypes.MISSED, prefix + String.valueOf(9_000_000_000L + rows));
+            rows++;
+        }
+        assertTrue(rows < CallBatchEncoder.MAX_ROWS);
+        List<CallRecord> decoded = CallBatchDecoder.decode(encoder.toByteArray());
+        assertEquals(rows, decoded.size());
+        String number = decoded.get(0).getNumber();
+        assertEquals(CallBatchEncoder.MAX_NUMBER_BYTES, number.length());
+        assertTrue(number.endsWith("9000000000"));
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejectsOtherPayloads() throws IOException {
+        CallBatchDecoder.decode("{\"calls\":[]}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void week_isAtLeastTenTimesSmallerThanJsonUploads() {
+        // A week of a busy counselor's log: ~60 calls a day over ~300 numbers, newest first
+        Random random = new Random(3);
+        String[] numbers = new String[300];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = "+91 9" + (100_000_000 + random.nextInt(900_000_000));
+        }
+        CallBatchEncoder encoder = new CallBatchEncoder();
+        long jsonBytes = 0;
+        long date = 1_700_000_000_000L;
+        for (int i = 0; i < 420; i++) {
+            date -= 60_000L + random.nextInt(1_200_000);
+            int type = 1 + random.nextInt(3);
+            int duration = type == CallTypes.MISSED ? 0 : random.nextInt(600);
+            String number = numbers[(int) Math.abs(random.nextGaussian() * 60) % numbers.length];
+            long id = 50_000 - i;
+            encoder.add(id, duration, date, type, number);
+            // The per-call POST /calls/log body callLogSyncService sends today
+            jsonBytes += ("{\"phoneNumber\":\"" + number + "\",\"callType\":\"" + CallTypes.backendCallType(type, duration)
+                    + "\",\"startTime\":\"" + Instant.ofEpochMilli(date) + "\",\"endTime\":\""
+                    + Instant.ofEpochMilli(date + duration * 1000L) + "\",\"duration\":" + duration
+                    + ",\"deviceCallLogId\":\"" + id + "\"}").length();
+        }
+        int batchBytes = encoder.toByteArray().length;
+        assertTrue("batch " + batchBytes + " vs json " + jsonBytes, batchBytes * 10L <= jsonBytes);
+    }
+}
@@ -0,0 +1,118 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+
+public class CallChangeFeedTest {
+
+    private static CallChangeFeed seeded() {
+        CallChangeFeed feed = new CallChangeFeed();
+        CallChangeFeed.Scan scan = feed.begin(1000L);
+        scan.row(1L, 0, 2000L, CallTypes.OUTGOING, "98765 43210", 10L);
+        scan.row(2L, 30, 3000L, CallTypes.INCOMING, "91234 56780", 11L);
+        feed.commit(scan);
+        return feed;
+    }
+
+    @Test
+    public void firstPass_reportsInsertsAndAdvancesWatermark() {
+        CallChangeFeed feed = new CallChangeFeed();
+        CallChangeFeed.Scan scan = feed.begin(1000L);
+        scan.row(1L, 0, 2000L, CallTypes.OUTGOING, "98765", 10L);
+        scan.row(9L, 5, 500L, CallTypes.OUTGOING, "98765", 12L);
+
+        List<CallChangeFeed.Change> changes = scan.getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(CallChangeFeed.OP_INSERT, changes.get(0).getOp());
+        assertEquals(CallChangeFeed.ALL_FIELDS, changes.get(0).getFields());
+        // Rows before the window still move the watermark
+        assertEquals(12L, scan.getWatermark());
+        assertEquals(0L, feed.getWatermark());
+
+        feed.commit(scan);
+        assertEquals(12L, feed.getWatermark());
+        assertEquals(1, feed.size());
+    }
+
+    @Test
+    public void correctedDuration_isOneUpdateWithOneField() {
+        CallChangeFeed feed = seeded();
+        CallChangeFeed.Scan scan = feed.begin(1000L);
+        scan.row(1L, 47, 2000L, CallTypes.OUTGOING, "+91 98765-43210", 20L);
+
+        List<CallChangeFeed.Change> changes = scan.getChanges();
+        assertEquals(1, changes.size());
+        CallChangeFeed.Change change = changes.get(0);
+        assertEquals(CallChangeFeed.OP_UPDATE, change.getOp());
+        assertEquals(CallChangeFeed.FIELD_DURATION, change.getFields());
+        assertEquals(47, change.getDuration());
+    }
+
+    @Test
+    public void unchangedRow_isNotReported() {
+        CallChangeFeed feed = seeded();
+        CallChangeFeed.Scan scan = feed.begin(1000L);
+        scan.row(2L, 30, 3000L, CallTypes.INCOMING, "91234 56780", 20L);
+
+        assertTrue(scan.getChanges().isEmpty());
+        assertEquals(20L, scan.getWatermark());
+    }
+
+    @Test
+    public void presencePass_reportsDeletedRows() {
+        CallChangeFeed feed = seeded();
+        CallChangeFeed.Scan scan = feed.begin(1000L);
+        assertEquals(2, scan.expectedCount());
+        scan.present(2L);
+        scan.finishPresence();
+
+        List<CallChangeFeed.Change> changes = scan.getChanges();
+        assertEquals(1, changes.size());
+        assertEquals(CallChangeFeed.OP_DELETE, changes.get(0).getOp());
+        assertEquals(1L, changes.get(0).getId());
+
+        feed.commit(scan);
+        assertEquals(1, feed.size());
+    }
+
+    @Test
+    public void uncommittedScan_isReportedAgain() {
+        CallChangeFeed feed = seeded();
+        feed.begin(1000L).row(1L, 47, 2000L, CallTypes.OUTGOING, "98765 43210", 20L);
+
+        CallChangeFeed.Scan retry = feed.begin(1000L);
+        retry.row(1L, 47, 2000L, CallTypes.OUTGOING, "98765 43210", 20L);
+        assertEquals(1, retry.getChanges().size());
+        assertEquals(11L, feed.getWatermark());
+    }
+
+    @Test
+    public void commit_forgetsRowsThatLeftTheWindow() {
+        CallChangeFeed feed = seeded();
+        feed.commit(feed.begin(2500L));
+
+        assertEquals(1, feed.size());
+        assertEquals(1, feed.trackedSince(0L));
+    }
+
+    @Test
+    public void writeTo_roundTrips() throws IOException {
+        CallChangeFeed feed = seeded();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        feed.writeTo(new DataOutputStream(bytes));
+        CallChangeFeed restored = CallChangeFeed.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(11L, restored.getWatermark());
+        assertEquals(2, restored.size());
+        CallChangeFeed.Scan scan = restored.begin(1000L);
+        scan.row(2L, 30, 3000L, CallTypes.MISSED, "91234 56780", 30L);
+        assertEquals(CallChangeFeed.FIELD_TYPE, scan.getChanges().get(0).getFields());
+    }
+}
@@ -0,0 +1,99 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CallHistoryLogTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static String page(CallHistoryLog log, String number, int offset, int limit) {
+        StringBuilder out = new StringBuilder();
+        log.page(number, offset, limit, (id, duration, date, type) ->
+                out.append(id).append(':').append(duration).append(':').append(date).append(':').append(type).append(';'));
+        return out.toString();
+    }
+
+    @Test
+    public void page_returnsOneNumbersCallsNewestFirst() throws IOException {
+        try (CallHistoryLog log = CallHistoryLog.open(tmp.newFile("h.bin"))) {
+            log.append(1, 30, 1_000L, CallTypes.OUTGOING, "+91 98765 43210");
+            log.append(2, 0, 2_000L, CallTypes.MISSED, "9123456780");
+            log.append(3, 45, 3_000L, CallTypes.INCOMING, "09876543210");
+
+            assertEquals("3:45:3000:1;1:30:1000:2;", page(log, "9876543210", 0, 10));
+            assertEquals("1:30:1000:2;", page(log, "9876543210", 1, 10));
+            assertEquals("3:45:3000:1;", page(log, "9876543210", 0, 1));
+            assertEquals(2, log.countFor("98765-43210"));
+            assertEquals("", page(log, "9000000000", 0, 10));
+            assertEquals("", page(log, null, 0, 10));
+        }
+    }
+
+    @Test
+    public void append_skipsIdsAlreadyStored() throws IOException {
+        try (CallHistoryLog log = CallHistoryLog.open(tmp.newFile("h.bin"))) {
+            assertTrue(log.append(5, 10, 1_000L, CallTypes.OUTGOING, "9876543210"));
+            assertFalse(log.append(5, 10, 1_000L, CallTypes.OUTGOING, "9876543210"));
+            assertFalse(log.append(4, 10, 900L, CallTypes.OUTGOING, "9876543210"));
+            assertEquals(1, log.size());
+            assertEquals(5L, log.getLastCallId());
+        }
+    }
+
+    @Test
+    public void open_restoresRecordsAndIndex() throws IOException {
+        File file = tmp.newFile("h.bin");
+        try (CallHistoryLog log = CallHistoryLog.open(file)) {
+            // Past the initial mapping, so the file has to grow
+            for (int i = 1; i <= 3000; i++) {
+                log.append(i, i % 60, i * 1_000L, CallTypes.OUTGOING, i % 2 == 0 ? "9876543210" : "9123456780");
+            }
+        }
+        try (CallHistoryLog log = CallHistoryLog.open(file)) {
+            assertEquals(3000, log.size());
+            assertEquals(3000L, log.getLastCallId());
+            assertEquals(1500, log.countFor("9876543210"));
+            assertEquals("3000:0:3000000:2;2998:58:2998000:2;", page(log, "9876543210", 0, 2));
+        }
+    }
+
+    @Test
+    public void prune_dropsOldCallsAndKeepsAppending() throws IOException {
+        File file = tmp.newFile("h.bin");
+        try (CallHistoryLog log = CallHistoryLog.open(file)) {
+            log.append(1, 10, 1_000L, CallTypes.OUTGOING, "9876543210");
+            log.append(2, 20, 2_000L, CallTypes.OUTGOING, "9876543210");
+            log.append(3, 30, 3_000L, CallTypes.OUTGOING, "9123456780");
+
+            assertEquals(1, log.prune(2_000L));
+            assertEquals(0, log.prune(2_000L));
+            assertEquals(2, log.size());
+            assertEquals(2_000L, log.getFirstDate());
+            assertEquals("2:20:2000:2;", page(log, "9876543210", 0, 10));
+
+            // The last id survives pruning, so pruned calls are not re-added
+            assertFalse(log.append(1, 10, 1_000L, CallTypes.OUTGOING, "9876543210"));
+            assertTrue(log.append(4, 40, 4_000L, CallTypes.INCOMING, "9876543210"));
+            assertEquals("4:40:4000:1;2:20:2000:2;", page(log, "9876543210", 0, 10));
+        }
+        try (CallHistoryLog log = CallHistoryLog.open(file)) {
+            assertEquals(3, log.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsOtherFiles() throws IOException {
+        File file = tmp.newFile("other.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        CallHistoryLog.open(file);
+    }
+}
@@ -0,0 +1,131 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class CallLogExportWriterTest {
+
+    @Test
+    public void ndjson_writesOneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CallLogExportWriter writer = new CallLogExportWriter(Channels.newChannel(out), CallLogExportWriter.NDJSON);
+        writer.writeCallLog(1, 30, 1000L, CallTypes.OUTGOING, "+919876543210");
+        writer.writeCallLog(2, 0, 2000L, CallTypes.MISSED, null);
+        assertEquals(2, writer.finish());
+
+        String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("{\"id\":1,\"duration\":30,\"date\":1000,\"type\":2,\"number\":\"+919876543210\"}\n"
+                + "{\"id\":2,\"duration\":0,\"date\":2000,\"type\":3,\"number\":null}\n", text);
+        assertEquals(out.size(), writer.getBytesWritten());
+    }
+
+    @Test
+    public void csv_writesHeaderAndQuotesFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CallLogExportWriter writer = new CallLogExportWriter(Channels.newChannel(out), CallLogExportWriter.CSV);
+        writer.writeCallLog(1, 30, 1000L, CallTypes.INCOMING, "+91 98765");
+        writer.writeCallLog(2, 5, 2000L, CallTypes.INCOMING, "a,\"b\"");
+        writer.writeCallLog(3, 5, 3000L, CallTypes.INCOMING, "=1+1");
+        writer.writeCallLog(4, 5, 4000L, CallTypes.INCOMING, null);
+        assertEquals(4, writer.finish());
+
+        String text = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("id,duration,date,type,number\n"
+                + "1,30,1000,1,+91 98765\n"
+                + "2,5,2000,1,\"a,\"\"b\"\"\"\n"
+                + "3,5,3000,1,\"'=1+1\"\n"
+                + "4,5,4000,1,\n", text);
+    }
+
+    @Test
+    public void emptyExportStillHasCsvHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, new CallLogExportWriter(Channels.newChannel(out), CallLogExportWriter.CSV).finish());
+        assertEquals(CallLogExportWriter.CSV_HEADER, new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        out.reset();
+        assertEquals(0, new CallLogExportWriter(Channels.newChannel(out), CallLogExportWriter.NDJSON).finish());
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void smallBuffer_flushesAsItFills() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] writes = {0};
+        WritableByteChannel channel = Channels.newChannel(out);
+        WritableByteChannel counting = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                writes[0]++;
+                return channel.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CallLogExportWriter writer = new CallLogExportWriter(counting, CallLogExportWriter.NDJSON, 64);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            // Multi-byte characters straddle buffer boundaries
+            String number = "98765\u0968" + i;
+            writer.writeCallLog(i, i, 1000L + i, CallTypes.OUTGOING, number);
+            CallPayloads.appendCallLog(expected, i, i, 1000L + i, CallTypes.OUTGOING, number).append('\n');
+        }
+        assertEquals(100, writer.finish());
+
+        assertTrue(writes[0] > 10);
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(out.size(), writer.getBytesWritten());
+    }
+
+    @Test
+    public void writeError_isThrownFromFinish() {
+        WritableByteChannel failing = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CallLogExportWriter writer = new CallLogExportWriter(failing, CallLogExportWriter.NDJSON, 64);
+        for (int i = 0; i < 10; i++) {
+            writer.writeCallLog(i, i, 1000L + i, CallTypes.OUTGOING, "9876543210");
+        }
+        try {
+            writer.finish();
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    @Test
+    public void formatOf_knowsNames() {
+        assertEquals(CallLogExportWriter.NDJSON, CallLogExportWriter.formatOf("ndjson"));
+        assertEquals(CallLogExportWriter.CSV, CallLogExportWriter.formatOf("csv"));
+        assertEquals(-1, CallLogExportWriter.formatOf("xml"));
+        assertEquals(-1, CallLogExportWriter.formatOf(null));
+    }
+}
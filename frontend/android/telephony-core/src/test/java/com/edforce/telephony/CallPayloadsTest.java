@@ -0,0 +1,78 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CallPayloadsTest {
+
+    @Test
+    public void appendCallLog_writesAllColumns() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallLog(out, new CallRecord(42L, "+91 98765", CallTypes.OUTGOING, 1700000000000L, 35));
+        assertEquals("{\"id\":42,\"duration\":35,\"date\":1700000000000,\"type\":2,\"number\":\"+91 98765\"}", out.toString());
+    }
+
+    @Test
+    public void appendCallLog_nullNumber() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallLog(out, 1L, 0, 2L, CallTypes.MISSED, null);
+        assertTrue(out.toString().endsWith("\"number\":null}"));
+    }
+
+    @Test
+    public void appendCallFinishedDetail_omitsUnknownFields() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallFinishedDetail(out, 12, "calllog", 0L, null, -1, 0L);
+        assertEquals("{\"duration\":12,\"source\":\"calllog\"}", out.toString());
+    }
+
+    @Test
+    public void appendCallFinishedDetail_addsDialCorrelation() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallFinishedDetail(out, 30, "calllog", 5L, "98765", CallTypes.OUTGOING, 9L, 3L, "high");
+        assertEquals("{\"duration\":30,\"source\":\"calllog\",\"callLogDate\":5,\"phoneNumber\":\"98765\","
+                + "\"callLogType\":2,\"callLogId\":9,\"dialToken\":3,\"confidence\":\"high\"}", out.toString());
+    }
+
+    @Test
+    public void appendCallFinishedDetail_addsRecoveredLead() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallFinishedDetail(out, 30, "recovered", 5L, "98765", CallTypes.OUTGOING, 9L, 3L, "high", "lead-7");
+        assertEquals("{\"duration\":30,\"source\":\"recovered\",\"callLogDate\":5,\"phoneNumber\":\"98765\","
+                + "\"callLogType\":2,\"callLogId\":9,\"dialToken\":3,\"confidence\":\"high\",\"leadId\":\"lead-7\"}",
+                out.toString());
+    }
+
+    @Test
+    public void appendCallerIdDetail_writesLead() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallerIdDetail(out, "+919876543210", "lead-1", "Asha \"A\" Rao");
+        assertEquals("{\"phoneNumber\":\"+919876543210\",\"leadId\":\"lead-1\",\"name\":\"Asha \\\"A\\\" Rao\"}", out.toString());
+    }
+
+    @Test
+    public void appendString_escapesForJavaScriptSource() {
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendString(out, "a\"b\\c\n</script>\u2028");
+        assertEquals("\"a\\\"b\\\\c\\n<\\/script>\\u2028\"", out.toString());
+    }
+
+    @Test
+    public void appendCallChange_writesOnlyChangedFields() {
+        CallChangeFeed feed = new CallChangeFeed();
+        CallChangeFeed.Scan first = feed.begin(0L);
+        first.row(7L, 0, 100L, CallTypes.OUTGOING, "98765", 1L);
+        feed.commit(first);
+        CallChangeFeed.Scan second = feed.begin(0L);
+        second.row(7L, 42, 100L, CallTypes.OUTGOING, "98765", 2L);
+
+        StringBuilder out = new StringBuilder();
+        CallPayloads.appendCallChange(out, second.getChanges().get(0));
+        assertEquals("{\"op\":\"update\",\"id\":7,\"duration\":42}", out.toString());
+
+        out.setLength(0);
+        CallPayloads.appendCallChange(out, first.getChanges().get(0));
+        assertEquals("{\"op\":\"insert\",\"id\":7,\"duration\":0,\"date\":100,\"type\":2,\"number\":\"98765\"}", out.toString());
+    }
+}
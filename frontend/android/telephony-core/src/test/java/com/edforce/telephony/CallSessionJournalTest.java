@@ -0,0 +1,303 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CallSessionJournalTest {
+    private static final long T0 = 1_700_000_000_000L;
+    private static final String NUMBER = "+91 98765-43210";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file() {
+        return new File(folder.getRoot(), "call-session.jnl");
+    }
+
+    @Test
+    public void openSessionSurvivesReopen() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            assertNull(journal.recovered());
+            assertTrue(journal.dialed(7, NUMBER, T0));
+            assertTrue(journal.offhook(T0 + 3_000, false));
+            // Repeats are not rewritten
+            assertTrue(journal.offhook(T0 + 9_000, true));
+        }
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallSessionJournal.Session session = journal.recovered();
+            assertNotNull(session);
+            assertEquals(CallSessionJournal.ACTIVE, session.getState());
+            assertEquals(7, session.getDialToken());
+            assertEquals("+919876543210", session.getNumber());
+            assertEquals(T0, session.getDialWallMs());
+            assertEquals(T0 + 3_000, session.getStartMs());
+            assertFalse(session.isIncoming());
+            assertEquals(T0, session.since());
+        }
+        assertEquals(2 * CallSessionJournal.SLOT_BYTES, file().length());
+    }
+
+    @Test
+    public void leadIdSurvivesReopenUnlessItCannotBeKeptWhole() throws IOException {
+        String leadId = "3f2b9c1e-8d4a-4e7b-9a61-0c5d2e7f1a84";
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(7, NUMBER, leadId, T0);
+            journal.offhook(T0 + 3_000, false);
+        }
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            assertEquals(leadId, journal.recovered().getLeadId());
+            StringBuilder tooLong = new StringBuilder();
+            while (tooLong.length() <= CallSessionJournal.MAX_LEAD_ID_BYTES) {
+                tooLong.append(leadId);
+            }
+            journal.dialed(8, NUMBER, tooLong.toString(), T0 + 60_000);
+            assertEquals("", journal.current().getLeadId());
+            journal.dialed(9, NUMBER, "lead-\u0968", T0 + 90_000);
+            assertEquals("", journal.current().getLeadId());
+            journal.dialed(10, NUMBER, T0 + 120_000);
+            assertEquals("", journal.current().getLeadId());
+        }
+    }
+
+    @Test
+    public void closedSessionIsNotRecovered() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.offhook(T0, true);
+            journal.closed();
+            assertEquals(CallSessionJournal.CLOSED, journal.current().getState());
+        }
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            assertNull(journal.recovered());
+        }
+    }
+
+    @Test
+    public void tornWriteFallsBackToPreviousState() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(3, NUMBER, T0);
+            journal.offhook(T0 + 1_000, false);
+        }
+        // Sequence 2, the OFFHOOK record, went to the first slot; damage it mid-record
+        try (RandomAccessFile raf = new RandomAccessFile(file(), "rw")) {
+            raf.seek(30);
+            raf.write(0x5a);
+        }
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallSessionJournal.Session session = journal.recovered();
+            assertEquals(CallSessionJournal.DIALED, session.getState());
+            assertEquals(3, session.getDialToken());
+            // The next write replaces the damaged slot, not the good one
+            journal.offhook(T0 + 2_000, false);
+        }
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            assertEquals(T0 + 2_000, journal.recovered().getStartMs());
+        }
+    }
+
+    @Test
+    public void longNumbersKeepTheirTrailingDigits() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(1, "0012345678901234567890123", T0);
+            assertEquals(CallSessionJournal.MAX_NUMBER_BYTES, journal.current().getNumber().length());
+            assertTrue(journal.current().getNumber().endsWith("78901234567890123"));
+        }
+    }
+
+    @Test
+    public void stateMachine_resumesSessionStillOffhook() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(5, NUMBER, "lead-5", T0);
+            journal.offhook(T0 + 2_000, false);
+        }
+        FakeHost host = new FakeHost(T0 + 60_000);
+        host.rows.add(new CallRecord(40, "9876543210", CallTypes.OUTGOING, T0 + 1_000, 75));
+        DialCorrelator correlator = new DialCorrelator();
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallStateMachine machine = new CallStateMachine(host, correlator);
+            machine.setJournal(journal);
+
+            machine.onCallStateChanged(CallStateMachine.STATE_OFFHOOK, "");
+            assertTrue(machine.isInCall());
+            assertEquals(CallSessionJournal.ACTIVE, journal.current().getState());
+            assertTrue(correlator.hasPending());
+
+            host.now = T0 + 80_000;
+            machine.onCallStateChanged(CallStateMachine.STATE_IDLE, "");
+            host.runAll();
+            assertEquals(CallSessionJournal.CLOSED, journal.current().getState());
+        }
+        assertEquals(1, host.dispatched.size());
+        assertEquals("75 calllog 40 5", host.dispatched.get(0));
+        assertEquals("lead-5", host.leadIds.get(0));
+    }
+
+    @Test
+    public void stateMachine_closesSessionEndedWhileDead() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(5, NUMBER, "lead-5", T0);
+            journal.offhook(T0 + 2_000, false);
+        }
+        // Back an hour later; a newer call to someone else is in the log too
+        FakeHost host = new FakeHost(T0 + 3_600_000);
+        host.rows.add(new CallRecord(52, "9000000000", CallTypes.INCOMING, T0 + 1_800_000, 20));
+        host.rows.add(new CallRecord(51, "9876543210", CallTypes.OUTGOING, T0 + 1_000, 310));
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallStateMachine machine = new CallStateMachine(host, new DialCorrelator());
+            machine.setJournal(journal);
+
+            machine.onCallStateChanged(CallStateMachine.STATE_IDLE, "");
+            host.runAll();
+            assertFalse(machine.isInCall());
+            assertEquals(CallSessionJournal.CLOSED, journal.current().getState());
+        }
+        assertEquals(Collections.singletonList("310 recovered 51 5"), host.dispatched);
+        assertEquals(Collections.singletonList("lead-5"), host.leadIds);
+        assertEquals(T0 - DialCorrelator.CLOCK_SKEW_MS - 1, host.queriedSince.get(0).longValue());
+    }
+
+    @Test
+    public void stateMachine_recoversOncePerProcess() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(5, NUMBER, T0);
+            journal.offhook(T0 + 2_000, false);
+        }
+        FakeHost host = new FakeHost(T0 + 3_600_000);
+        host.rows.add(new CallRecord(51, "9876543210", CallTypes.OUTGOING, T0 + 1_000, 310));
+        DialCorrelator correlator = new DialCorrelator();
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallStateMachine machine = new CallStateMachine(host, correlator);
+            machine.setJournal(journal);
+            machine.onCallStateChanged(CallStateMachine.STATE_IDLE, "");
+            host.runAll();
+
+            // The activity is recreated and its new machine gets the same journal
+            CallStateMachine recreated = new CallStateMachine(host, correlator);
+            recreated.setJournal(journal);
+            recreated.onCallStateChanged(CallStateMachine.STATE_OFFHOOK, "");
+            host.runAll();
+            assertNotNull(journal.recovered());
+            assertNull(journal.takeRecovered());
+            assertFalse(correlator.hasPending());
+        }
+        assertEquals(Collections.singletonList("310 recovered 51 5"), host.dispatched);
+    }
+
+    @Test
+    public void stateMachine_closesIncomingSessionFromItsStart() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.offhook(T0 + 20_000, true);
+        }
+        FakeHost host = new FakeHost(T0 + 600_000);
+        host.rows.add(new CallRecord(61, "9000000001", CallTypes.OUTGOING, T0 + 400_000, 12));
+        host.rows.add(new CallRecord(60, "9000000000", CallTypes.INCOMING, T0 + 5_000, 95));
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallStateMachine machine = new CallStateMachine(host, new DialCorrelator());
+            machine.setJournal(journal);
+            machine.onCallStateChanged(CallStateMachine.STATE_IDLE, "");
+            host.runAll();
+        }
+        assertEquals(Collections.singletonList("95 recovered 60 0"), host.dispatched);
+        assertEquals(Collections.singletonList((String) null), host.leadIds);
+    }
+
+    @Test
+    public void stateMachine_dropsSessionPastTokenLifetime() throws IOException {
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            journal.dialed(5, NUMBER, T0);
+            journal.offhook(T0 + 2_000, false);
+        }
+        FakeHost host = new FakeHost(T0 + DialCorrelator.TOKEN_TTL_MS + 60_000);
+        host.rows.add(new CallRecord(51, "9876543210", CallTypes.OUTGOING, T0 + 1_000, 310));
+        try (CallSessionJournal journal = CallSessionJournal.open(file())) {
+            CallStateMachine machine = new CallStateMachine(host, new DialCorrelator());
+            machine.setJournal(journal);
+            machine.onCallStateChanged(CallStateMachine.STATE_IDLE, "");
+            host.runAll();
+            assertEquals(CallSessionJournal.CLOSED, journal.current().getState());
+        }
+        assertTrue(host.dispatched.isEmpty());
+        assertTrue(host.queriedSince.isEmpty());
+    }
+
+    // Runs posted tasks in time order on demand; rows are returned newest first
+    private static final class FakeHost implements CallStateMachine.Host {
+        final List<CallRecord> rows = new ArrayList<>();
+        final List<String> dispatched = new ArrayList<>();
+        final List<String> leadIds = new ArrayList<>();
+        final List<Long> queriedSince = new ArrayList<>();
+        private final List<long[]> due = new ArrayList<>();
+        private final List<Runnable> tasks = new ArrayList<>();
+        long now;
+
+        FakeHost(long now) {
+            this.now = now;
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                int next = 0;
+                for (int i = 1; i < due.size(); i++) {
+                    if (due.get(i)[0] < due.get(next)[0]) {
+                        next = i;
+                    }
+                }
+                now = Math.max(now, due.remove(next)[0]);
+                tasks.remove(next).run();
+            }
+        }
+
+        @Override
+        public long now() {
+            return now;
+        }
+
+        @Override
+        public long elapsed() {
+            return now - T0;
+        }
+
+        @Override
+        public void postDelayed(Runnable task, long delayMs) {
+            due.add(new long[]{now + delayMs});
+            tasks.add(task);
+        }
+
+        @Override
+        public List<CallRecord> queryCallLog(long since) {
+            queriedSince.add(since);
+            List<CallRecord> result = new ArrayList<>();
+            for (CallRecord row : rows) {
+                if (row.getDate() > since) {
+                    result.add(row);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void onRinging(String number) {
+        }
+
+        @Override
+        public void onRingingEnded() {
+        }
+
+        @Override
+        public boolean dispatch(int durationSec, String source, CallRecord row, long dialToken, String confidence,
+                                String leadId) {
+            dispatched.add(durationSec + " " + source + " " + (row == null ? 0 : row.getId()) + " " + dialToken);
+            leadIds.add(leadId);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CallTraceReplayerTest {
+    private static final long T0 = 1_700_000_000_000L;
+    private static final long LOOKBACK = T0 - CallStateMachine.LOOKUP_WINDOW_MS;
+
+    private static List<CallRecord> rows(CallRecord... rows) {
+        return Arrays.asList(rows);
+    }
+
+    private static CallRecord row(long id, String number, int type, long date, int duration) {
+        return new CallRecord(id, number, type, date, duration);
+    }
+
+    @Test
+    public void replay_retriesUntilDurationIsWritten() {
+        CallTrace trace = new CallTrace();
+        trace.state(T0, CallStateMachine.STATE_OFFHOOK, "");
+        trace.state(T0 + 40_000, CallStateMachine.STATE_IDLE, "");
+        // Lookups at +500 and +1000 see the row without its duration, the one at +2000 has it
+        long idle = T0 + 40_000;
+        trace.query(idle + 500, idle + 500 - CallStateMachine.LOOKUP_WINDOW_MS,
+                rows(row(7, "9876543210", CallTypes.OUTGOING, T0, 0)));
+        trace.query(idle + 1000, idle + 1000 - CallStateMachine.LOOKUP_WINDOW_MS,
+                rows(row(7, "9876543210", CallTypes.OUTGOING, T0, 0)));
+        trace.query(idle + 2000, idle + 2000 - CallStateMachine.LOOKUP_WINDOW_MS,
+                rows(row(7, "9876543210", CallTypes.OUTGOING, T0, 38)));
+        trace.dispatch(idle + 2000, 38, CallStateMachine.SOURCE_CALL_LOG, 7, 0);
+
+        CallTraceReplayer.Report report = new CallTraceReplayer(trace).replay();
+
+        assertTrue(report.toString(), report.matches());
+        assertEquals(3, report.getQueries());
+        assertEquals(3, report.getRowsRead());
+        assertEquals(2000, report.getMaxLatencyMs());
+        assertEquals(idle + 2000, report.getActual().get(0).getTimeMs());
+    }
+
+    @Test
+    public void replay_reportsDivergingDispatch() {
+        CallTrace trace = new CallTrace();
+        trace.state(T0, CallStateMachine.STATE_OFFHOOK, "");
+        trace.state(T0 + 10_000, CallStateMachine.STATE_IDLE, "");
+        trace.query(T0 + 10_500, LOOKBACK, rows(row(3, "9876543210", CallTypes.OUTGOING, T0, 10)));
+        // Recorded by an older build that reported another row
+        trace.dispatch(T0 + 10_500, 10, CallStateMachine.SOURCE_CALL_LOG, 4, 0);
+
+        CallTraceReplayer.Report report = new CallTraceReplayer(trace).replay();
+
+        assertFalse(report.matches());
+        assertEquals(1, report.getMismatches().size());
+        assertTrue(report.toString().startsWith("MISMATCH"));
+    }
+
+    @Test
+    public void replay_missedCallDispatchesZero() {
+        CallTrace trace = new CallTrace();
+        trace.state(T0, CallStateMachine.STATE_RINGING, "9876543210");
+        trace.state(T0 + 15_000, CallStateMachine.STATE_IDLE, "");
+        trace.query(T0 + 15_500, LOOKBACK, rows(row(11, "9876543210", CallTypes.MISSED, T0, 0)));
+        trace.dispatch(T0 + 15_500, 0, CallStateMachine.SOURCE_CALL_LOG, 11, 0);
+
+        CallTraceReplayer.Report report = new CallTraceReplayer(trace).replay();
+
+        assertTrue(report.toString(), report.matches());
+        assertEquals(1, report.getQueries());
+    }
+
+    @Test
+    public void replay_correlatesDialedCall() {
+        CallTrace trace = new CallTrace();
+        trace.dial(T0, "+91 98765 43210");
+        trace.state(T0 + 1_000, CallStateMachine.STATE_OFFHOOK, "");
+        trace.state(T0 + 31_000, CallStateMachine.STATE_IDLE, "");
+        trace.query(T0 + 31_500, T0 - DialCorrelator.CLOCK_SKEW_MS - 1, rows(
+                row(21, "9000000000", CallTypes.INCOMING, T0 + 30_000, 5),
+                row(20, "09876543210", CallTypes.OUTGOING, T0 + 800, 30)));
+        trace.dispatch(T0 + 31_500, 30, CallStateMachine.SOURCE_CALL_LOG, 20, 1);
+
+        CallTraceReplayer.Report report = new CallTraceReplayer(trace).replay();
+
+        assertTrue(report.toString(), report.matches());
+        assertTrue(report.getActual().get(0).getDialToken() > 0);
+    }
+
+    @Test
+    public void replay_emptyTrace() {
+        CallTraceReplayer.Report report = new CallTraceReplayer(new CallTrace()).replay();
+        assertTrue(report.matches());
+        assertEquals(0, report.getQueries());
+    }
+
+    @Test
+    public void trace_aliasesNumbersPerSubscriber() {
+        CallTrace trace = new CallTrace();
+        trace.dial(T0, "+91 98765 43210");
+        trace.query(T0 + 1, T0, rows(
+                row(1, "09876543210", CallTypes.OUTGOING, T0, 5),
+                row(2, "9000000000", CallTypes.INCOMING, T0, 5),
+                row(3, null, CallTypes.INCOMING, T0, 5)));
+
+        List<CallTrace.Entry> entries = trace.getEntries();
+        String dialed = entries.get(0).getNumber();
+        List<CallRecord> queried = entries.get(1).getRows();
+        assertEquals("5550100001", dialed);
+        assertEquals(dialed, queried.get(0).getNumber());
+        assertEquals("5550100002", queried.get(1).getNumber());
+        assertNull(queried.get(2).getNumber());
+    }
+
+    @Test
+    public void trace_roundTrips() throws IOException {
+        CallTrace trace = new CallTrace();
+        trace.state(T0, CallStateMachine.STATE_RINGING, null);
+        trace.dial(T0 + 1, "9876543210");
+        trace.query(T0 + 2, T0, null);
+        trace.query(T0 + 3, T0, Collections.<CallRecord>emptyList());
+        trace.query(T0 + 4, T0, rows(row(9, "9876543210", CallTypes.OUTGOING, T0, 12)));
+        trace.dispatch(T0 + 5, 12, CallStateMachine.SOURCE_CALL_LOG, 9, 3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trace.writeTo(new DataOutputStream(bytes));
+        CallTrace read = CallTrace.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        List<CallTrace.Entry> entries = read.getEntries();
+        assertEquals(6, entries.size());
+        assertNull(entries.get(0).getNumber());
+        assertEquals(CallStateMachine.STATE_RINGING, entries.get(0).getState());
+        assertEquals("5550100001", entries.get(1).getNumber());
+        assertNull(entries.get(2).getRows());
+        assertTrue(entries.get(3).getRows().isEmpty());
+        CallRecord row = entries.get(4).getRows().get(0);
+        assertEquals(9, row.getId());
+        assertEquals("5550100001", row.getNumber());
+        assertEquals(12, row.getDuration());
+        assertEquals(T0 + 5, entries.get(5).getTimeMs());
+        assertEquals(3, entries.get(5).getDialToken());
+        assertEquals(CallStateMachine.SOURCE_CALL_LOG, entries.get(5).getSource());
+    }
+
+    @Test
+    public void trace_dropsOldestWhenFull() {
+        CallTrace trace = new CallTrace();
+        for (int i = 0; i <= CallTrace.MAX_ENTRIES; i++) {
+            trace.state(T0 + i, CallStateMachine.STATE_IDLE, null);
+        }
+        assertEquals(CallTrace.MAX_ENTRIES - CallTrace.MAX_ENTRIES / 4 + 1, trace.size());
+        assertEquals(T0 + CallTrace.MAX_ENTRIES, trace.getEntries().get(trace.size() - 1).getTimeMs());
+    }
+}
@@ -0,0 +1,23 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CallTypesTest {
+
+    @Test
+    public void backendCallType_mapsLikeSyncService() {
+        assertEquals("incoming", CallTypes.backendCallType(CallTypes.INCOMING, 0));
+        assertEquals("outgoing", CallTypes.backendCallType(CallTypes.OUTGOING, 0));
+        assertEquals("missed", CallTypes.backendCallType(CallTypes.REJECTED, 0));
+        assertEquals("incoming", CallTypes.backendCallType(CallTypes.ANSWERED_EXTERNALLY, 10));
+        assertEquals("missed", CallTypes.backendCallType(CallTypes.ANSWERED_EXTERNALLY, 0));
+    }
+
+    @Test
+    public void isMissed_coversBlocked() {
+        assertTrue(CallTypes.isMissed(CallTypes.BLOCKED));
+        assertFalse(CallTypes.isMissed(CallTypes.INCOMING));
+    }
+}
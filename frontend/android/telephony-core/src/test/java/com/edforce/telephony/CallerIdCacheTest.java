@@ -0,0 +1,73 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CallerIdCacheTest {
+    private long now = 1_000_000L;
+
+    private CallerIdCache cache(int maxEntries, long ttl) {
+        return new CallerIdCache(maxEntries, ttl, () -> now);
+    }
+
+    @Test
+    public void get_matchesAnyFormatOfTheNumber() {
+        CallerIdCache cache = cache(10, 60_000);
+        cache.put("+91 98765-43210", "lead-1", "Asha Rao");
+
+        CallerIdCache.Entry entry = cache.get("09876543210");
+        assertNotNull(entry);
+        assertEquals("lead-1", entry.getLeadId());
+        assertEquals("Asha Rao", entry.getName());
+        assertNull(cache.get("9876543211"));
+        assertNull(cache.get(null));
+    }
+
+    @Test
+    public void get_dropsExpiredEntries() {
+        CallerIdCache cache = cache(10, 60_000);
+        cache.put("9876543210", "lead-1", "Asha Rao");
+
+        now += 59_999;
+        assertNotNull(cache.get("9876543210"));
+        now += 1;
+        assertNull(cache.get("9876543210"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        CallerIdCache cache = cache(2, 60_000);
+        cache.put("9000000001", "lead-1", "One");
+        cache.put("9000000002", "lead-2", "Two");
+        // Touch 1 so 2 becomes the eldest
+        cache.get("9000000001");
+        cache.put("9000000003", "lead-3", "Three");
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("9000000001"));
+        assertNull(cache.get("9000000002"));
+        assertNotNull(cache.get("9000000003"));
+    }
+
+    @Test
+    public void trimTo_keepsMostRecentlyUsed() {
+        CallerIdCache cache = cache(10, 60_000);
+        cache.put("9000000001", "lead-1", "One");
+        cache.put("9000000002", "lead-2", "Two");
+        cache.put("9000000003", "lead-3", "Three");
+
+        cache.trimTo(1);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("9000000003"));
+    }
+
+    @Test
+    public void put_ignoresUnusableNumbers() {
+        CallerIdCache cache = cache(10, 60_000);
+        cache.put("Private", "lead-1", "Hidden");
+        cache.put("9000000001", null, "No id");
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ChunkedJsonArrayWriterTest {
+
+    @Test
+    public void splitsRowsIntoBoundedChunks() {
+        List<String> chunks = new ArrayList<>();
+        List<Boolean> lastFlags = new ArrayList<>();
+        ChunkedJsonArrayWriter writer = new ChunkedJsonArrayWriter(200, (json, rows, index, last) -> {
+            assertEquals(chunks.size(), index);
+            chunks.add(json.toString());
+            lastFlags.add(last);
+        });
+        for (int i = 0; i < 50; i++) {
+            writer.writeCallLog(i, i, 1000L + i, CallTypes.OUTGOING, "98765" + i);
+        }
+        assertEquals(50, writer.finish());
+
+        assertTrue(chunks.size() > 1);
+        int rows = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            String chunk = chunks.get(i);
+            assertTrue(chunk.startsWith("[") && chunk.endsWith("]"));
+            // One row may overshoot the threshold before the chunk is closed
+            assertTrue(chunk.length() < 200 + 128);
+            assertEquals(i == chunks.size() - 1, lastFlags.get(i));
+            rows += chunk.equals("[]") ? 0 : chunk.split("\\},\\{").length;
+        }
+        assertEquals(50, rows);
+    }
+
+    @Test
+    public void emptyStreamStillEmitsLastChunk() {
+        List<String> chunks = new ArrayList<>();
+        ChunkedJsonArrayWriter writer = new ChunkedJsonArrayWriter(1024, (json, rows, index, last) -> {
+            assertTrue(last);
+            assertEquals(0, rows);
+            chunks.add(json.toString());
+        });
+        assertEquals(0, writer.finish());
+        assertEquals(1, chunks.size());
+        assertEquals("[]", chunks.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsRowsAfterFinish() {
+        ChunkedJsonArrayWriter writer = new ChunkedJsonArrayWriter(1024, (json, rows, index, last) -> { });
+        writer.finish();
+        writer.beginRow();
+    }
+}
@@ -0,0 +1,121 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class ContactTimeModelTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    // Monday 2024-01-01 00:00 UTC
+    private static final long MONDAY = 1_704_067_200_000L;
+
+    private static final String A = "9876500001";
+    private static final String B = "9876500002";
+    private static final String NEW_LEAD = "9876500003";
+
+    @Test
+    public void weekHour_startsOnMondayLocalTime() {
+        ContactTimeModel model = new ContactTimeModel(UTC);
+        assertEquals(0, model.weekHour(MONDAY));
+        assertEquals(10, model.weekHour(MONDAY + 10 * HOUR + 59 * 60_000L));
+        assertEquals(6 * 24 + 23, model.weekHour(MONDAY - 1));
+
+        ContactTimeModel ist = new ContactTimeModel(TimeZone.getTimeZone("Asia/Kolkata"));
+        // 18:30 UTC Sunday is 00:00 Monday in India
+        assertEquals(0, ist.weekHour(MONDAY - 5 * HOUR - 30 * 60_000L));
+    }
+
+    @Test
+    public void rank_prefersLeadsThatAnswerAtThisTime() {
+        ContactTimeModel model = new ContactTimeModel(UTC);
+        long id = 1;
+        for (int week = 0; week < 4; week++) {
+            long morning = MONDAY + week * 7 * DAY + 10 * HOUR;
+            long evening = MONDAY + week * 7 * DAY + 19 * HOUR;
+            model.add(id++, 120, morning, CallTypes.OUTGOING, A);
+            model.add(id++, 0, evening, CallTypes.OUTGOING, A);
+            model.add(id++, 0, morning, CallTypes.OUTGOING, B);
+            model.add(id++, 90, evening, CallTypes.OUTGOING, B);
+        }
+        long[] keys = {PhoneNumbers.key(B), PhoneNumbers.key(NEW_LEAD), PhoneNumbers.key(A)};
+        double[] p = new double[3];
+
+        assertArrayEquals(new int[]{2, 1, 0}, model.rank(keys, MONDAY + 5 * 7 * DAY + 10 * HOUR, p));
+        assertTrue(p[2] > 0.6);
+        assertTrue(p[0] < 0.4);
+        assertArrayEquals(new int[]{0, 1, 2}, model.rank(keys, MONDAY + 5 * 7 * DAY + 19 * HOUR, p));
+
+        assertEquals(9, model.bestHour(PhoneNumbers.key(A), MONDAY));
+        assertEquals(18, model.bestHour(PhoneNumbers.key(B), MONDAY));
+        assertEquals(2, model.size());
+        assertEquals(16, model.getTotalAttempts());
+    }
+
+    @Test
+    public void unknownLead_getsDeviceRateForTheHour() {
+        ContactTimeModel model = new ContactTimeModel(UTC);
+        for (int i = 0; i < 40; i++) {
+            String number = String.valueOf(9000000000L + i);
+            model.add(2 * i + 1, 60, MONDAY + 11 * HOUR, CallTypes.OUTGOING, number);
+            model.add(2 * i + 2, 0, MONDAY + 15 * HOUR, CallTypes.OUTGOING, number);
+        }
+        long unknown = PhoneNumbers.key(NEW_LEAD);
+        assertTrue(model.probability(unknown, MONDAY + 7 * DAY + 11 * HOUR) > 0.9);
+        assertTrue(model.probability(unknown, MONDAY + 7 * DAY + 15 * HOUR) < 0.1);
+        // No data on Tuesdays: the overall rate
+        assertEquals(0.5, model.probability(unknown, MONDAY + DAY + 11 * HOUR), 0.01);
+        assertEquals(0.5, model.probability(PhoneNumbers.NO_KEY, MONDAY + DAY), 0.01);
+    }
+
+    @Test
+    public void add_countsOutgoingAboveWatermarkOnly() {
+        ContactTimeModel model = new ContactTimeModel(UTC);
+        assertTrue(model.add(5, 10, MONDAY, CallTypes.OUTGOING, A));
+        assertFalse(model.add(5, 10, MONDAY, CallTypes.OUTGOING, A));
+        assertFalse(model.add(6, 10, MONDAY, CallTypes.INCOMING, A));
+        assertFalse(model.add(7, 0, MONDAY, CallTypes.MISSED, A));
+        assertEquals(7, model.getLastCallId());
+        assertEquals(1, model.getTotalAttempts());
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrips() throws IOException {
+        ContactTimeModel model = new ContactTimeModel(UTC);
+        for (int i = 0; i < 500; i++) {
+            model.add(i + 1, i % 3 == 0 ? 0 : 30, MONDAY + i * 5 * HOUR, CallTypes.OUTGOING,
+                    String.valueOf(9800000000L + i % 150));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        model.writeTo(new DataOutputStream(bytes));
+
+        ContactTimeModel restored = new ContactTimeModel(UTC);
+        restored.add(1, 10, MONDAY, CallTypes.OUTGOING, "9111111111");
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(model.size(), restored.size());
+        assertEquals(model.getLastCallId(), restored.getLastCallId());
+        assertEquals(model.getTotalAttempts(), restored.getTotalAttempts());
+        for (int i = 0; i < 150; i++) {
+            long key = PhoneNumbers.key(String.valueOf(9800000000L + i));
+            for (int h = 0; h < 24; h += 5) {
+                long at = MONDAY + 2 * DAY + h * HOUR;
+                assertEquals(model.probability(key, at), restored.probability(key, at), 1e-12);
+            }
+        }
+        assertEquals(model.probability(PhoneNumbers.key("9111111111"), MONDAY),
+                restored.probability(PhoneNumbers.key("9111111111"), MONDAY), 1e-12);
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOtherFiles() throws IOException {
+        new ContactTimeModel(UTC).readFrom(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+    }
+}
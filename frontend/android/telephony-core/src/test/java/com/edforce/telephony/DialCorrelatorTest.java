@@ -0,0 +1,114 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DialCorrelatorTest {
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static CallRecord row(long id, String number, int type, long date, int duration) {
+        return new CallRecord(id, number, type, date, duration);
+    }
+
+    @Test
+    public void resolve_matchesDialedNumberOnce() {
+        DialCorrelator correlator = new DialCorrelator();
+        DialCorrelator.DialToken token = correlator.onDial("+91 98765 43210", T0, 1_000);
+
+        List<CallRecord> rows = Arrays.asList(
+                row(1, "09876543210", CallTypes.OUTGOING, T0 + 800, 45),
+                row(2, "9000000000", CallTypes.INCOMING, T0 + 20_000, 30));
+        List<DialCorrelator.Match> matches = correlator.resolve(rows);
+
+        assertEquals(1, matches.size());
+        assertSame(token, matches.get(0).getToken());
+        assertEquals(1, matches.get(0).getRecord().getId());
+        assertEquals(DialCorrelator.Confidence.HIGH, matches.get(0).getConfidence());
+        assertFalse(correlator.hasPending());
+        // Emitted once
+        assertTrue(correlator.resolve(rows).isEmpty());
+    }
+
+    @Test
+    public void resolve_splitsQuickRedialsByWindow() {
+        DialCorrelator correlator = new DialCorrelator();
+        DialCorrelator.DialToken first = correlator.onDial("9876543210", T0, 1_000);
+        DialCorrelator.DialToken second = correlator.onDial("9876543210", T0 + 40_000, 41_000);
+
+        // Newest first, as the call log returns them
+        List<CallRecord> rows = Arrays.asList(
+                row(8, "9876543210", CallTypes.OUTGOING, T0 + 40_300, 95),
+                row(7, "9876543210", CallTypes.OUTGOING, T0 + 200, 0));
+        List<DialCorrelator.Match> matches = correlator.resolve(rows);
+
+        assertEquals(2, matches.size());
+        assertSame(first, matches.get(0).getToken());
+        assertEquals(7, matches.get(0).getRecord().getId());
+        assertSame(second, matches.get(1).getToken());
+        assertEquals(8, matches.get(1).getRecord().getId());
+    }
+
+    @Test
+    public void resolve_ignoresCallWaitingRows() {
+        DialCorrelator correlator = new DialCorrelator();
+        correlator.onDial("9876543210", T0, 1_000);
+
+        List<CallRecord> rows = Arrays.asList(
+                row(5, "9123456789", CallTypes.INCOMING, T0 + 30_000, 12),
+                row(4, "9876543210", CallTypes.OUTGOING, T0 + 500, 120));
+        List<DialCorrelator.Match> matches = correlator.resolve(rows);
+
+        assertEquals(1, matches.size());
+        assertEquals(4, matches.get(0).getRecord().getId());
+    }
+
+    @Test
+    public void resolve_waitsWhileRowIsMissing() {
+        DialCorrelator correlator = new DialCorrelator();
+        correlator.onDial("9876543210", T0, 1_000);
+
+        assertTrue(correlator.resolve(Arrays.asList(
+                row(3, "9876543210", CallTypes.OUTGOING, T0 - 60_000, 20))).isEmpty());
+        assertTrue(correlator.hasPending());
+        assertEquals(T0 - DialCorrelator.CLOCK_SKEW_MS, correlator.earliestRowTime());
+    }
+
+    @Test
+    public void resolve_fallsBackToSingleOutgoingRowWithLowConfidence() {
+        DialCorrelator correlator = new DialCorrelator();
+        correlator.onDial("9876543210", T0, 1_000);
+
+        List<DialCorrelator.Match> matches = correlator.resolve(Arrays.asList(
+                row(9, "+1 555 0100", CallTypes.OUTGOING, T0 + 10_000, 60)));
+        assertEquals(1, matches.size());
+        assertEquals(DialCorrelator.Confidence.LOW, matches.get(0).getConfidence());
+    }
+
+    @Test
+    public void resolve_picksClosestOfSeveralWithMediumConfidence() {
+        DialCorrelator correlator = new DialCorrelator();
+        correlator.onDial("9876543210", T0, 1_000);
+
+        List<DialCorrelator.Match> matches = correlator.resolve(Arrays.asList(
+                row(11, "9876543210", CallTypes.OUTGOING, T0 + 300_000, 60),
+                row(10, "9876543210", CallTypes.OUTGOING, T0 + 1_000, 5)));
+        assertEquals(1, matches.size());
+        assertEquals(10, matches.get(0).getRecord().getId());
+        assertEquals(DialCorrelator.Confidence.MEDIUM, matches.get(0).getConfidence());
+    }
+
+    @Test
+    public void expire_usesMonotonicTime() {
+        DialCorrelator correlator = new DialCorrelator();
+        correlator.onDial("9876543210", T0, 1_000);
+        correlator.expire(1_000 + DialCorrelator.TOKEN_TTL_MS);
+        assertTrue(correlator.hasPending());
+        correlator.expire(1_001 + DialCorrelator.TOKEN_TTL_MS);
+        assertFalse(correlator.hasPending());
+        assertEquals(-1L, correlator.earliestRowTime());
+    }
+}
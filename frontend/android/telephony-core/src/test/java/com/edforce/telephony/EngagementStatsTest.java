@@ -0,0 +1,100 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class EngagementStatsTest {
+
+    @Test
+    public void add_countsPerNumberAcrossFormats() {
+        EngagementStats stats = new EngagementStats();
+        assertTrue(stats.add(1, 0, 1000L, CallTypes.OUTGOING, "+91 98765 43210"));
+        assertTrue(stats.add(2, 60, 2000L, CallTypes.OUTGOING, "9876543210"));
+        assertTrue(stats.add(3, 0, 3000L, CallTypes.MISSED, "09876543210"));
+        assertTrue(stats.add(4, 30, 2500L, CallTypes.INCOMING, "98765-43210"));
+        assertTrue(stats.add(5, 10, 4000L, CallTypes.INCOMING, "9123456789"));
+
+        EngagementStats.Stats s = stats.getNumber("9876543210");
+        assertEquals(3000L, s.getLastCallAt());
+        assertEquals(2500L, s.getLastConnectedAt());
+        assertEquals(2, s.getAttempts());
+        assertEquals(1, s.getIncoming());
+        assertEquals(1, s.getMissed());
+        assertEquals(4, s.getTotal());
+        assertEquals(2, s.getConnected());
+        assertEquals(90L, s.getTalkSeconds());
+
+        assertEquals(2, stats.size());
+        assertNull(stats.getNumber("9000000000"));
+        assertNull(stats.getNumber(null));
+    }
+
+    @Test
+    public void add_skipsSeenIdsAndNumbersWithoutDigits() {
+        EngagementStats stats = new EngagementStats();
+        assertTrue(stats.add(10, 5, 1000L, CallTypes.OUTGOING, "9876543210"));
+        assertFalse(stats.add(10, 5, 1000L, CallTypes.OUTGOING, "9876543210"));
+        assertFalse(stats.add(9, 5, 1000L, CallTypes.OUTGOING, "9876543210"));
+        assertFalse(stats.add(11, 5, 1000L, CallTypes.INCOMING, "Private"));
+        assertEquals(11L, stats.getLastCallId());
+        assertEquals(1, stats.getNumber("9876543210").getAttempts());
+        assertEquals(1000L, stats.getNumber("9876543210").getLastConnectedAt());
+    }
+
+    @Test
+    public void table_growsWithoutLosingEntries() {
+        EngagementStats stats = new EngagementStats();
+        for (int i = 0; i < 5000; i++) {
+            stats.add(i + 1, i % 3, 1000L + i, CallTypes.OUTGOING, String.valueOf(9000000000L + i));
+        }
+        assertEquals(5000, stats.size());
+        for (int i = 0; i < 5000; i++) {
+            EngagementStats.Stats s = stats.getNumber(String.valueOf(9000000000L + i));
+            assertEquals(1000L + i, s.getLastCallAt());
+            assertEquals(i % 3 > 0 ? 1 : 0, s.getConnected());
+        }
+    }
+
+    @Test
+    public void writeTo_readFrom_roundTrips() throws IOException {
+        EngagementStats stats = new EngagementStats();
+        for (int i = 0; i < 300; i++) {
+            stats.add(i + 1, i % 2 == 0 ? 0 : 45, 1_700_000_000_000L + i * 60_000L,
+                    i % 3 == 0 ? CallTypes.OUTGOING : CallTypes.INCOMING, String.valueOf(9800000000L + i % 120));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        stats.writeTo(new DataOutputStream(bytes));
+
+        EngagementStats restored = new EngagementStats();
+        restored.add(1, 10, 1000L, CallTypes.OUTGOING, "9111111111");
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(stats.size(), restored.size());
+        assertEquals(stats.getLastCallId(), restored.getLastCallId());
+        assertNull(restored.getNumber("9111111111"));
+        for (int i = 0; i < 120; i++) {
+            String number = String.valueOf(9800000000L + i);
+            EngagementStats.Stats a = stats.getNumber(number);
+            EngagementStats.Stats b = restored.getNumber(number);
+            assertEquals(a.getLastCallAt(), b.getLastCallAt());
+            assertEquals(a.getLastConnectedAt(), b.getLastConnectedAt());
+            assertEquals(a.getAttempts(), b.getAttempts());
+            assertEquals(a.getIncoming(), b.getIncoming());
+            assertEquals(a.getConnected(), b.getConnected());
+            assertEquals(a.getTalkSeconds(), b.getTalkSeconds());
+        }
+        // Compact: well under the in-memory size per number
+        assertTrue(bytes.size() < 120 * 24);
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOtherFiles() throws IOException {
+        new EngagementStats().readFrom(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+    }
+}
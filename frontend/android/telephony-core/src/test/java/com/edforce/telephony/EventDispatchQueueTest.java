@@ -0,0 +1,122 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class EventDispatchQueueTest {
+    private static final String EVENT = "native-call-finished";
+
+    @Test
+    public void poll_liveBeforeSyncBeforeBulk() {
+        EventDispatchQueue queue = new EventDispatchQueue(10);
+        queue.offer(EventDispatchQueue.BULK, 1, EVENT, "b1");
+        queue.offer(EventDispatchQueue.BULK, 2, EVENT, "b2");
+        queue.offer(EventDispatchQueue.SYNC, 3, EVENT, "s3");
+        queue.offer(EventDispatchQueue.LIVE, 4, EVENT, "l4");
+
+        assertEquals("l4", queue.poll().getDetail());
+        assertEquals("s3", queue.poll().getDetail());
+        assertEquals("b1", queue.poll().getDetail());
+        assertEquals("b2", queue.poll().getDetail());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void offer_mergesQueuedEventsByKey() {
+        EventDispatchQueue queue = new EventDispatchQueue(10);
+        queue.offer(EventDispatchQueue.BULK, 7, EVENT, "bulk");
+        queue.offer(EventDispatchQueue.BULK, 8, EVENT, "other");
+
+        // A live result for a row the bulk sync already queued takes its place, ahead of everything
+        assertEquals(EventDispatchQueue.MERGED, queue.offer(EventDispatchQueue.LIVE, 7, EVENT, "live"));
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.size(EventDispatchQueue.LIVE));
+        assertEquals("live", queue.poll().getDetail());
+
+        // A bulk event for a row with a queued live event is folded into it
+        queue.offer(EventDispatchQueue.LIVE, 9, EVENT, "live9");
+        assertEquals(EventDispatchQueue.MERGED, queue.offer(EventDispatchQueue.BULK, 9, EVENT, "bulk9"));
+        EventDispatchQueue.Event event = queue.poll();
+        assertEquals("live9", event.getDetail());
+        assertEquals(EventDispatchQueue.LIVE, event.getPriority());
+        assertEquals("other", queue.poll().getDetail());
+    }
+
+    @Test
+    public void offer_sameKeyTwiceWithinMillisIsNotLost() {
+        EventDispatchQueue queue = new EventDispatchQueue(10);
+        // Two different calls ending close together both go out
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.LIVE, 1, EVENT, "first"));
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.LIVE, 2, EVENT, "second"));
+        assertEquals(2, queue.size());
+        // The same row again replaces the queued detail
+        assertEquals(EventDispatchQueue.MERGED, queue.offer(EventDispatchQueue.LIVE, 1, EVENT, "first, duration written"));
+        assertEquals("first, duration written", queue.poll().getDetail());
+    }
+
+    @Test
+    public void offer_dropsExactRepeatOfDeliveredEvent() {
+        EventDispatchQueue queue = new EventDispatchQueue(10);
+        queue.offer(EventDispatchQueue.SYNC, 5, EVENT, "d");
+        queue.delivered(queue.poll());
+
+        assertEquals(EventDispatchQueue.DUPLICATE, queue.offer(EventDispatchQueue.SYNC, 5, EVENT, "d"));
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.SYNC, 5, EVENT, "changed"));
+        // Unkeyed events are never merged
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.SYNC, EventDispatchQueue.NO_KEY, EVENT, "x"));
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.SYNC, EventDispatchQueue.NO_KEY, EVENT, "x"));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void offer_boundsNonLiveEventsOnly() {
+        EventDispatchQueue queue = new EventDispatchQueue(2);
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.BULK, 1, EVENT, "1"));
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.BULK, 2, EVENT, "2"));
+        assertEquals(EventDispatchQueue.FULL, queue.offer(EventDispatchQueue.BULK, 3, EVENT, "3"));
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.offer(EventDispatchQueue.LIVE, 4, EVENT, "4"));
+        assertEquals(EventDispatchQueue.FULL, queue.offer(EventDispatchQueue.SYNC, 5, EVENT, "5"));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    public void put_waitsForConsumer() throws Exception {
+        EventDispatchQueue queue = new EventDispatchQueue(1);
+        queue.offer(EventDispatchQueue.BULK, 1, EVENT, "1");
+        assertEquals(EventDispatchQueue.FULL, queue.put(EventDispatchQueue.BULK, 2, EVENT, "2", 20));
+
+        Thread consumer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.poll();
+        });
+        consumer.start();
+        assertEquals(EventDispatchQueue.ACCEPTED, queue.put(EventDispatchQueue.BULK, 2, EVENT, "2", 5_000));
+        consumer.join();
+        assertEquals("2", queue.poll().getDetail());
+    }
+
+    @Test
+    public void requeue_putsUndeliveredEventBackInFront() {
+        EventDispatchQueue queue = new EventDispatchQueue(10);
+        queue.offer(EventDispatchQueue.BULK, 1, EVENT, "1");
+        queue.offer(EventDispatchQueue.BULK, 2, EVENT, "2");
+        EventDispatchQueue.Event first = queue.poll();
+
+        queue.requeue(first);
+        assertEquals(2, queue.size());
+        assertEquals("1", queue.poll().getDetail());
+
+        // A newer event for the key queued meanwhile wins over the stale one
+        EventDispatchQueue.Event second = queue.poll();
+        queue.offer(EventDispatchQueue.BULK, 2, EVENT, "2b");
+        queue.requeue(second);
+        assertEquals(1, queue.size());
+        assertEquals("2b", queue.poll().getDetail());
+    }
+}
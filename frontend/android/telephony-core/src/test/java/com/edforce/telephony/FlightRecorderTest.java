@@ -0,0 +1,80 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class FlightRecorderTest {
+
+    @Test
+    public void forEach_visitsEventsOldestFirst() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        recorder.record(100L, 1, 10L, 20L);
+        recorder.record(200L, 2, 30L, 40L);
+
+        StringBuilder seen = new StringBuilder();
+        recorder.forEach((timeMs, code, a, b) -> seen.append(timeMs).append(':').append(code)
+                .append(':').append(a).append(':').append(b).append(';'));
+        assertEquals("100:1:10:20;200:2:30:40;", seen.toString());
+        assertEquals(2, recorder.size());
+    }
+
+    @Test
+    public void record_overwritesOldestWhenFull() {
+        FlightRecorder recorder = new FlightRecorder(3);
+        for (int i = 1; i <= 5; i++) {
+            recorder.record(i, i, 0L, 0L);
+        }
+
+        StringBuilder codes = new StringBuilder();
+        recorder.forEach((timeMs, code, a, b) -> codes.append(code));
+        assertEquals("345", codes.toString());
+        assertEquals(3, recorder.size());
+        assertEquals(5L, recorder.getRecorded());
+    }
+
+    @Test
+    public void appendText_namesKnownCodes() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        recorder.record(100L, 1, 7L, -1L);
+        recorder.record(200L, 9, 0L, 0L);
+
+        String text = recorder.appendText(new StringBuilder(), new String[]{null, "dial"}).toString();
+        assertEquals("100 dial 7 -1\n200 #9 0 0\n", text);
+    }
+
+    @Test
+    public void writeTo_roundTrips() throws IOException {
+        FlightRecorder recorder = new FlightRecorder(2);
+        recorder.record(100L, 1, Long.MIN_VALUE, 1L);
+        recorder.record(200L, 2, 2L, Long.MAX_VALUE);
+        recorder.record(300L, 3, 3L, 3L);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        recorder.writeTo(new DataOutputStream(bytes));
+        FlightRecorder copy = FlightRecorder.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        String[] names = {"", "a", "b", "c"};
+        assertEquals(recorder.appendText(new StringBuilder(), names).toString(),
+                copy.appendText(new StringBuilder(), names).toString());
+    }
+
+    @Test
+    public void clear_dropsEverything() {
+        FlightRecorder recorder = new FlightRecorder(2);
+        recorder.record(1, 0L, 0L);
+        recorder.clear();
+        assertEquals(0, recorder.size());
+        recorder.forEach((timeMs, code, a, b) -> fail());
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOtherFiles() throws IOException {
+        FlightRecorder.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+    }
+}
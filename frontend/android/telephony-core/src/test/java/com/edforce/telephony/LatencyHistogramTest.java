@@ -0,0 +1,62 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketOf_isLog2OfMicros() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(1, LatencyHistogram.bucketOf(1));
+        assertEquals(2, LatencyHistogram.bucketOf(2));
+        assertEquals(2, LatencyHistogram.bucketOf(3));
+        assertEquals(11, LatencyHistogram.bucketOf(1024));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles_reportBucketUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.recordNanos(1_500_000); // 1.5 ms
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.recordNanos(100_000_000); // 100 ms
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(2048, histogram.percentileUs(50));
+        assertEquals(2048, histogram.percentileUs(90));
+        // Capped at the largest sample rather than the 131 ms bucket bound
+        assertEquals(100_000, histogram.percentileUs(99));
+        assertEquals(100_000, histogram.getMaxUs());
+        assertEquals((90 * 1_500L + 10 * 100_000L) / 100, histogram.getMeanUs());
+    }
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileUs(50));
+        assertEquals(0, histogram.getMeanUs());
+        histogram.recordNanos(-5);
+        assertEquals(1, histogram.getBuckets()[0]);
+    }
+
+    @Test
+    public void drain_copiesAndResets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(5_000);
+        histogram.recordNanos(7_000);
+
+        LatencyHistogram drained = histogram.drain();
+
+        assertEquals(2, drained.getCount());
+        assertEquals(12, drained.getSumUs());
+        assertEquals(2, drained.getBuckets()[3]);
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxUs());
+        assertEquals(0, histogram.getBuckets()[3]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class LeadNumberIndexTest {
+
+    @Test
+    public void containsNumber_matchesAnyFormatOfALead() {
+        LeadNumberIndex index = LeadNumberIndex.ofNumbers(new String[]{"+91 98765 43210", "9123456789", "Unknown"});
+        assertEquals(2, index.size());
+        assertTrue(index.containsNumber("09876543210"));
+        assertTrue(index.containsNumber("+919123456789"));
+        assertFalse(index.containsNumber("9000000000"));
+        assertFalse(index.containsNumber(null));
+        assertFalse(index.containsNumber(""));
+    }
+
+    @Test
+    public void withDelta_mergesAddsAndDropsRemovals() {
+        LeadNumberIndex index = LeadNumberIndex.ofNumbers(new String[]{"9000000001", "9000000002", "9000000003"});
+        LeadNumberIndex next = index.withDelta(
+                LeadNumberIndex.keysOf(new String[]{"9000000004", "9000000002", "9000000005"}),
+                LeadNumberIndex.keysOf(new String[]{"9000000001", "9000000005"}));
+
+        assertEquals(4, next.size());
+        assertFalse(next.containsNumber("9000000001"));
+        assertTrue(next.containsNumber("9000000002"));
+        assertTrue(next.containsNumber("9000000004"));
+        // Added and removed in the same delta: the add wins
+        assertTrue(next.containsNumber("9000000005"));
+        // Original is untouched
+        assertTrue(index.containsNumber("9000000001"));
+    }
+
+    @Test
+    public void writeTo_roundTrips() throws IOException {
+        LeadNumberIndex index = LeadNumberIndex.ofNumbers(new String[]{"9876543210", "123", "0123", "7000000000"});
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        LeadNumberIndex read = LeadNumberIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(index.size(), read.size());
+        assertTrue(read.containsNumber("123"));
+        assertTrue(read.containsNumber("0123"));
+        assertTrue(read.containsNumber("+91 98765 43210"));
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsForeignData() throws IOException {
+        LeadNumberIndex.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    @Test(expected = IOException.class)
+    public void readFrom_rejectsOversizedCount() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        LeadNumberIndex.EMPTY.writeTo(out);
+        byte[] data = bytes.toByteArray();
+        // The count follows the magic and version
+        data[8] = 0x7f;
+        LeadNumberIndex.readFrom(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+}
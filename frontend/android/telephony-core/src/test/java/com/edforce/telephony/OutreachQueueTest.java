@@ -0,0 +1,79 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class OutreachQueueTest {
+
+    @Test
+    public void add_normalizesAndDropsDuplicates() {
+        OutreachQueue queue = new OutreachQueue("Hi");
+        assertTrue(queue.add("98765 43210", "Asha Rao", "lead-1"));
+        assertFalse(queue.add("+91-98765-43210", "Asha", "lead-1"));
+        assertFalse(queue.add("n/a", "Nobody", "lead-2"));
+        assertTrue(queue.add("+1 415 555 0100", null, null));
+
+        assertEquals(2, queue.size());
+        assertEquals("919876543210", queue.get(0).getNumber());
+        assertEquals("lead-1", queue.get(0).getLeadId());
+        assertEquals("14155550100", queue.get(1).getNumber());
+    }
+
+    @Test
+    public void render_fillsNamePlaceholders() {
+        assertEquals("Hi Asha, this is about Asha Rao", OutreachQueue.render("Hi {firstName}, this is about {name}", " Asha Rao "));
+        assertEquals("Hi , ", OutreachQueue.render("Hi {firstName}, {name}", null));
+    }
+
+    @Test
+    public void link_encodesPrefilledText() {
+        assertEquals("https://api.whatsapp.com/send?phone=919876543210&text=Hi%20Asha%20%26%20co%3F",
+                OutreachQueue.link("919876543210", "Hi Asha & co?"));
+        assertEquals("https://api.whatsapp.com/send?phone=919876543210", OutreachQueue.link("919876543210", ""));
+    }
+
+    @Test
+    public void openAndSkip_walkTheQueueOnce() {
+        OutreachQueue queue = new OutreachQueue("Hello {firstName}");
+        queue.add("9876543210", "Asha Rao", "a");
+        queue.add("9123456780", "Ravi", "b");
+        queue.add("9000000001", null, "c");
+
+        assertEquals("a", queue.open().getLeadId());
+        assertEquals("b", queue.skip().getLeadId());
+        assertEquals("c", queue.peek().getLeadId());
+        assertEquals("c", queue.open().getLeadId());
+        assertTrue(queue.isFinished());
+        assertNull(queue.open());
+        assertNull(queue.peek());
+        assertEquals(2, queue.count(OutreachQueue.OPENED));
+        assertEquals(1, queue.count(OutreachQueue.SKIPPED));
+        assertTrue(queue.get(0).getLink().endsWith("&text=Hello%20Asha"));
+    }
+
+    @Test
+    public void writeTo_roundTripsProgress() throws IOException {
+        OutreachQueue queue = new OutreachQueue("Hi {firstName}");
+        queue.add("9876543210", "Asha Rao", "a");
+        queue.add("9123456780", "Ravi", null);
+        queue.open();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        queue.writeTo(new DataOutputStream(bytes));
+        OutreachQueue copy = OutreachQueue.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(2, copy.size());
+        assertEquals(1, copy.getPosition());
+        assertEquals(OutreachQueue.OPENED, copy.get(0).getStatus());
+        assertNull(copy.get(1).getLeadId());
+        assertEquals(queue.get(1).getLink(), copy.get(1).getLink());
+        // Restored numbers still count as queued
+        assertFalse(copy.add("9123456780", "Ravi", null));
+    }
+}
@@ -0,0 +1,46 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PhoneNumbersTest {
+
+    @Test
+    public void normalize_keepsLastTenDigits() {
+        assertEquals("9876543210", PhoneNumbers.normalize("+91 98765-43210"));
+        assertEquals("9876543210", PhoneNumbers.normalize("09876543210"));
+        assertEquals("12345", PhoneNumbers.normalize("12-345"));
+        assertEquals("", PhoneNumbers.normalize(null));
+    }
+
+    @Test
+    public void key_matchesAcrossFormats() {
+        long key = PhoneNumbers.key("9876543210");
+        assertEquals(key, PhoneNumbers.key("+91 98765 43210"));
+        assertEquals(key, PhoneNumbers.key("(0) 98765-43210"));
+        assertTrue(PhoneNumbers.sameSubscriber("+919876543210", "98765 43210"));
+    }
+
+    @Test
+    public void key_distinguishesLeadingZerosAndMissingDigits() {
+        assertNotEquals(PhoneNumbers.key("0123"), PhoneNumbers.key("123"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.key("Private"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.key(null));
+        assertFalse(PhoneNumbers.sameSubscriber("", ""));
+    }
+
+    @Test
+    public void matches_followsLegacySubstringRule() {
+        assertTrue(PhoneNumbers.matches("+919876543210", "9876543210"));
+        assertTrue(PhoneNumbers.matches("98765 43210", "+91-98765-43210"));
+        assertFalse(PhoneNumbers.matches("9876543210", "9123456789"));
+    }
+
+    @Test
+    public void forWhatsApp_prefixesBareLocalNumbers() {
+        assertEquals("919876543210", PhoneNumbers.forWhatsApp("98765 43210"));
+        assertEquals("919876543210", PhoneNumbers.forWhatsApp("+91 98765 43210"));
+        assertEquals("14155550100", PhoneNumbers.forWhatsApp("+1 415 555 0100"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SyncScheduleTest {
+    private static final long HOUR = 60L * 60 * 1000;
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    public void firstTriggerIsFull_thenResumesOnlyCatchUp() {
+        SyncSchedule schedule = new SyncSchedule();
+        schedule.setIntervals(6 * HOUR, 60_000L);
+
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0, 1, false));
+        schedule.finished(T0 + 500, 120, 1);
+        assertEquals(120, schedule.getLastSyncedId());
+
+        // Dialer round trips within the catch-up interval do nothing
+        assertEquals(SyncSchedule.SKIP, schedule.begin(T0 + 10_000, 1, false));
+        assertEquals(SyncSchedule.SKIP, schedule.begin(T0 + 50_000, 1, false));
+
+        assertEquals(SyncSchedule.INCREMENTAL, schedule.begin(T0 + 61_000, 1, false));
+        schedule.finished(T0 + 61_100, 125, 1);
+        assertEquals(125, schedule.getLastSyncedId());
+        assertEquals(T0 + 500, schedule.getLastFullAt());
+
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0 + 500 + 6 * HOUR, 1, false));
+    }
+
+    @Test
+    public void triggersWhileRunningAreCoalesced() {
+        SyncSchedule schedule = new SyncSchedule();
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0, 0, false));
+        assertTrue(schedule.isRunning());
+        assertEquals(SyncSchedule.SKIP, schedule.begin(T0 + 1, 0, true));
+        assertEquals(SyncSchedule.SKIP, schedule.begin(T0 + 1, 0, false));
+        schedule.finished(T0 + 2, 0, 0);
+        assertFalse(schedule.isRunning());
+        // An empty sync keeps the previous high-water mark
+        assertEquals(0, schedule.getLastSyncedId());
+
+        // Both turned-away triggers make one more run, within the catch-up interval
+        assertTrue(schedule.takeRerun());
+        assertFalse(schedule.takeRerun());
+        assertEquals(SyncSchedule.INCREMENTAL, schedule.begin(T0 + 3, 0, true));
+        schedule.finished(T0 + 4, 0, 0);
+        assertFalse(schedule.takeRerun());
+    }
+
+    @Test
+    public void forceSkipsCatchUpIntervalOnly() {
+        SyncSchedule schedule = new SyncSchedule();
+        schedule.begin(T0, 0, false);
+        schedule.finished(T0, 10, 0);
+        assertEquals(SyncSchedule.INCREMENTAL, schedule.begin(T0 + 1, 0, true));
+    }
+
+    @Test
+    public void newLeadFilterOrClockChangeForcesFull() {
+        SyncSchedule schedule = new SyncSchedule();
+        schedule.begin(T0, 5, false);
+        schedule.finished(T0, 10, 5);
+
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0 + HOUR, 6, false));
+        schedule.finished(T0 + HOUR, 12, 6);
+        assertEquals(6, schedule.getFilterVersion());
+
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0 - HOUR, 6, false));
+        schedule.finished(T0 - HOUR, 12, 6);
+    }
+
+    @Test
+    public void abandonedSyncIsRetriedOnNextTrigger() {
+        SyncSchedule schedule = new SyncSchedule();
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0, 0, false));
+        assertEquals(SyncSchedule.SKIP, schedule.begin(T0, 0, false));
+        schedule.abandoned();
+        assertFalse(schedule.takeRerun());
+        assertEquals(0, schedule.getLastFullAt());
+        assertEquals(SyncSchedule.FULL, schedule.begin(T0 + 1, 0, false));
+    }
+
+    @Test
+    public void restore_keepsStateAcrossRestarts() {
+        SyncSchedule schedule = new SyncSchedule();
+        schedule.restore(T0, T0 + 1000, 99, 3);
+        assertEquals(SyncSchedule.SKIP, schedule.begin(T0 + 2000, 3, false));
+        assertEquals(SyncSchedule.INCREMENTAL, schedule.begin(T0 + 1000 + SyncSchedule.DEFAULT_CATCH_UP_INTERVAL_MS, 3, false));
+        assertEquals(99, schedule.getLastSyncedId());
+    }
+}
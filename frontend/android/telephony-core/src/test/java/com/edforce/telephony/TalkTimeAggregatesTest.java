@@ -0,0 +1,100 @@
+package com.edforce.telephony;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+public class TalkTimeAggregatesTest {
+    private static final TimeZone IST = TimeZone.getTimeZone("Asia/Kolkata");
+    private static final long HOUR = 3_600_000L;
+    // 2024-03-01T00:00+05:30
+    private static final long DAY1 = 1_709_231_400_000L;
+    private static final long DAY2 = DAY1 + 24 * HOUR;
+
+    @Test
+    public void range_splitsByLocalDayAndHour() {
+        TalkTimeAggregates agg = new TalkTimeAggregates(IST, 30);
+        agg.add(1, 120, DAY1 + 9 * HOUR + 5_000, CallTypes.OUTGOING);
+        agg.add(2, 0, DAY1 + 9 * HOUR + 600_000, CallTypes.OUTGOING);
+        agg.add(3, 0, DAY1 + 10 * HOUR, CallTypes.MISSED);
+        agg.add(4, 60, DAY1 + 23 * HOUR + 59 * 60_000, CallTypes.INCOMING);
+        agg.add(5, 30, DAY2 + 30 * 60_000, CallTypes.INCOMING);
+
+        TalkTimeAggregates.Totals day1 = agg.range(DAY1, DAY2);
+        assertEquals(4, day1.getTotal());
+        assertEquals(2, day1.getOutgoing());
+        assertEquals(1, day1.getIncoming());
+        assertEquals(1, day1.getMissed());
+        assertEquals(2, day1.getConnected());
+        assertEquals(180, day1.getTalkSeconds());
+        assertEquals(90d, day1.getAverageTalkSeconds(), 0.0001);
+        assertEquals(0.5d, day1.getConnectRate(), 0.0001);
+
+        TalkTimeAggregates.Totals nineAm = agg.range(DAY1 + 9 * HOUR, DAY1 + 10 * HOUR);
+        assertEquals(2, nineAm.getTotal());
+        assertEquals(1, nineAm.getConnected());
+
+        assertEquals(1, agg.range(DAY2, DAY2 + 24 * HOUR).getTotal());
+        assertEquals(5, agg.range(DAY1 - 5 * 24 * HOUR, DAY2 + 5 * 24 * HOUR).getTotal());
+    }
+
+    @Test
+    public void add_skipsRowsAlreadyCounted() {
+        TalkTimeAggregates agg = new TalkTimeAggregates(IST, 30);
+        assertTrue(agg.add(10, 5, DAY1, CallTypes.INCOMING));
+        assertFalse(agg.add(10, 5, DAY1, CallTypes.INCOMING));
+        assertFalse(agg.add(9, 5, DAY1, CallTypes.INCOMING));
+        assertEquals(10, agg.getLastCallId());
+        assertEquals(1, agg.range(DAY1, DAY2).getTotal());
+    }
+
+    @Test
+    public void queriesStayCorrectAsRowsArrive() {
+        TalkTimeAggregates agg = new TalkTimeAggregates(IST, 30);
+        agg.add(1, 10, DAY1 + HOUR, CallTypes.OUTGOING);
+        assertEquals(10, agg.range(DAY1, DAY2).getTalkSeconds());
+        agg.add(2, 20, DAY1 + 2 * HOUR, CallTypes.OUTGOING);
+        assertEquals(30, agg.range(DAY1, DAY2).getTalkSeconds());
+        assertEquals(20, agg.range(DAY1 + 2 * HOUR, DAY2).getTalkSeconds());
+    }
+
+    @Test
+    public void window_slidesAndDropsExpiredDays() {
+        TalkTimeAggregates agg = new TalkTimeAggregates(IST, 2);
+        agg.add(1, 10, DAY1 + HOUR, CallTypes.OUTGOING);
+        agg.add(2, 20, DAY2 + HOUR, CallTypes.OUTGOING);
+        agg.add(3, 40, DAY2 + 24 * HOUR + HOUR, CallTypes.OUTGOING);
+
+        assertEquals(0, agg.range(DAY1, DAY2).getTotal());
+        assertEquals(60, agg.range(DAY1, DAY2 + 48 * HOUR).getTalkSeconds());
+        // Older than the window once it has moved on
+        assertFalse(agg.add(4, 5, DAY1 + 2 * HOUR, CallTypes.OUTGOING));
+    }
+
+    @Test
+    public void writeTo_roundTrips() throws IOException {
+        TalkTimeAggregates agg = new TalkTimeAggregates(IST, 30);
+        agg.add(1, 120, DAY1 + 9 * HOUR, CallTypes.OUTGOING);
+        agg.add(2, 0, DAY1 + 10 * HOUR, CallTypes.REJECTED);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        agg.writeTo(new DataOutputStream(bytes));
+        TalkTimeAggregates copy = new TalkTimeAggregates(IST, 30);
+        copy.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(2, copy.getLastCallId());
+        TalkTimeAggregates.Totals totals = copy.range(DAY1, DAY2);
+        assertEquals(2, totals.getTotal());
+        assertEquals(1, totals.getMissed());
+        assertEquals(120, totals.getTalkSeconds());
+        // Empty hours cost a byte per metric
+        assertTrue(bytes.size() < 30 * 24 * 5 + 100);
+    }
+}
@@ -11,6 +11,7 @@ import { validateAndRestoreSession } from './store/slices/authSlice';
 import { useSessionManager } from './hooks/useSessionManager';
 import webSocketService from './services/webSocketService';
 import nativeDialerService from './services/nativeDialerService';
+import { NATIVE_OPEN_LEAD_EVENT, OpenLeadDetail } from './plugins/LeadIndexPlugin';
 import Layout from './components/layout/Layout';
 import LoginPage from './pages/auth/LoginPage';
 import DemoRequestPage from './pages/auth/DemoRequestPage';
@@ -106,6 +107,20 @@ const App: React.FC = () => {
     };
   }, [location.pathname, navigate]);
 
+  // Open the lead whose ringing-call notification was tapped
+  useEffect(() => {
+    if (!Capacitor.isNativePlatform()) return;
+
+    const handler = (e: Event) => {
+      const leadId = (e as CustomEvent<OpenLeadDetail>).detail?.leadId;
+      if (leadId) {
+        navigate(`/leads/${encodeURIComponent(leadId)}`);
+      }
+    };
+    window.addEventListener(NATIVE_OPEN_LEAD_EVENT, handler);
+    return () => window.removeEventListener(NATIVE_OPEN_LEAD_EVENT, handler);
+  }, [navigate]);
+
   useEffect(() => {
     // Try to restore session on app start, but skip while on login page to avoid needless refresh attempts
     if (location.pathname !== '/login') {
@@ -11,6 +11,10 @@ import { Toaster } from 'react-hot-toast';
 import { store } from './store/store';
 import { theme } from './theme/theme';
 import App from './App';
+import { connectNativeEventChannel } from './services/nativeEventChannel';
+
+// Native events switch from evaluateJavascript to a message port once connected
+void connectNativeEventChannel();
 
 // Create a query client
 const queryClient = new QueryClient({
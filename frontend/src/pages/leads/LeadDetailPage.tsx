@@ -1,4 +1,4 @@
-import React, { useCallback, useEffect, useMemo, useState } from 'react';
+import React, { useCallback, useEffect, useMemo, useRef, useState } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import { useSelector } from 'react-redux';
 import { Box, Typography, Button, Grid, Paper, Chip, Stack, Divider, TextField, MenuItem, Table, TableBody, TableCell, TableHead, TableRow, Tooltip, TableContainer, useMediaQuery } from '@mui/material';
@@ -9,6 +9,7 @@ import leadSettingsService, { LeadFieldSetting } from '../../services/leadSettin
 import leadsService, { Lead } from '../../services/leadsService';
 import { GLOBAL_LEAD_STATUSES, LEAD_SUB_STATUS_BY_STATUS, getFollowUpMaxDate } from '../../constants/leadStatus';
 import callsService, { CallLog } from '@/services/callsService';
+import callLogSyncService from '@/services/callLogSyncService';
 import webSocketService from '@/services/webSocketService';
 
 const Field: React.FC<{ label: string; value?: React.ReactNode }> = ({ label, value }) => (
@@ -71,6 +72,8 @@ const LeadDetailPage: React.FC = () => {
   const [settings, setSettings] = useState<LeadFieldSetting[]>([]);
   const [history, setHistory] = useState<any[]>([]);
   const [callLogs, setCallLogs] = useState<CallLog[]>([]);
+  // Lead whose call logs the server has answered for, even with an empty list
+  const serverCallLogsFor = useRef<string | null>(null);
   // Inline edit state for key fields
   const [editStatus, setEditStatus] = useState<string>('');
   const [editSubStatus, setEditSubStatus] = useState<string>('');
@@ -86,13 +89,30 @@ const LeadDetailPage: React.FC = () => {
     if (!id) return;
     try {
       const logs = await callsService.getCallLogsForLead(id);
+      serverCallLogsFor.current = id;
       setCallLogs(Array.isArray(logs) ? logs : []);
     } catch (error) {
       console.error('Failed to load call logs:', error);
-      setCallLogs([]);
+      // Offline or slow network: keep showing the on-device history if there is one
+      setCallLogs((current) => (current.length > 0 && current.every((log) => log.id.startsWith('device-')) ? current : []));
     }
   }, [id]);
 
+  // Show the on-device history right away; the server history replaces it when it arrives
+  const mobileNumber = lead?.mobileNumber;
+  useEffect(() => {
+    if (!id || !mobileNumber) return;
+    let cancelled = false;
+    callLogSyncService.getDeviceHistory(id, mobileNumber).then((logs) => {
+      if (!cancelled && logs.length > 0 && serverCallLogsFor.current !== id) {
+        setCallLogs(logs);
+      }
+    });
+    return () => {
+      cancelled = true;
+    };
+  }, [id, mobileNumber]);
+
   useEffect(() => {
     if (!id) return;
     (async () => {
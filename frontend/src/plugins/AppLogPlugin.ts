@@ -0,0 +1,32 @@
+import { registerPlugin } from '@capacitor/core';
+
+export type AppLogLevel = 'verbose' | 'debug' | 'info' | 'warn' | 'error';
+
+export interface AppLogStatus {
+  debugBuild: boolean; // debug and verbose output only exists in debug builds
+  level: AppLogLevel;
+  events: number; // events currently held by the flight recorder
+  capacity: number;
+  recorded: number; // including events that have been overwritten
+}
+
+export interface AppLogExport {
+  /** Text lines "timeMs name a b", or base64 of the binary export. */
+  data: string;
+  events: number;
+}
+
+export interface AppLogPluginInterface {
+  setLevel(options: { level: AppLogLevel }): Promise<AppLogStatus>;
+  getStatus(): Promise<AppLogStatus>;
+  /**
+   * Recent structured native events (call states, dials, call log matches,
+   * WhatsApp opens, errors) from the in-memory flight recorder, for support.
+   */
+  exportEvents(options?: { format?: 'text' | 'binary' }): Promise<AppLogExport>;
+  clearEvents(): Promise<void>;
+}
+
+const AppLogPlugin = registerPlugin<AppLogPluginInterface>('AppLog');
+
+export default AppLogPlugin;
@@ -0,0 +1,40 @@
+import { registerPlugin } from '@capacitor/core';
+
+/** Window event fired by native after every uploaded page and when a run stops. */
+export const CALL_BACKFILL_PROGRESS_EVENT = 'call-backfill-progress';
+
+export interface BackfillStatus {
+  running: boolean;
+  planned: boolean; // false until a backfill was first started on this device
+  from?: number; // window in ms, fixed when the plan was made
+  to?: number;
+  shards?: number;
+  shardsDone?: number;
+  calls?: number; // lead calls uploaded so far
+  complete?: boolean;
+  error?: string; // why the last run stopped early, e.g. 'Not signed in'
+  started?: boolean; // start() only
+}
+
+export interface BackfillPluginInterface {
+  /**
+   * Uploads up to daysBack days of call history natively, in time shards, and
+   * resumes a saved unfinished run instead of planning a new one. A complete
+   * run is only repeated with restart: true.
+   */
+  start(options: {
+    baseUrl: string;
+    token?: string;
+    daysBack?: number; // default 180
+    shardDays?: number; // default 15
+    parallelism?: number; // default 2, at most 3
+    restart?: boolean;
+  }): Promise<BackfillStatus>;
+  getStatus(): Promise<BackfillStatus>;
+  cancel(): Promise<BackfillStatus>; // progress is kept for the next start()
+  clear(): Promise<void>;
+}
+
+const BackfillPlugin = registerPlugin<BackfillPluginInterface>('Backfill');
+
+export default BackfillPlugin;
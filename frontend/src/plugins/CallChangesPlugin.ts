@@ -0,0 +1,35 @@
+import { registerPlugin } from '@capacitor/core';
+
+/**
+ * One device call log change. Updates carry only the fields that changed;
+ * deletes carry just the id (the Android CallLog._ID).
+ */
+export interface CallLogChange {
+  op: 'insert' | 'update' | 'delete';
+  id: number;
+  duration?: number;
+  date?: number; // Unix timestamp in ms
+  type?: number; // Android CallLog.Calls.TYPE
+  number?: string;
+}
+
+export interface CallChangesResult {
+  supported: boolean; // false below Android 7, which has no LAST_MODIFIED column
+  changes: CallLogChange[];
+  watermark?: number; // pass to commit() once the changes were delivered
+  deferred?: boolean; // scan skipped under native memory pressure; try again later
+}
+
+export interface CallChangesPluginInterface {
+  /**
+   * Changes to the last 30 days of the call log since the last commit. Until
+   * commit() is called, the same changes are returned again.
+   */
+  getChanges(options?: { leadsOnly?: boolean }): Promise<CallChangesResult>;
+  commit(options: { watermark: number }): Promise<{ committed: boolean }>;
+  clear(): Promise<void>;
+}
+
+const CallChangesPlugin = registerPlugin<CallChangesPluginInterface>('CallChanges');
+
+export default CallChangesPlugin;
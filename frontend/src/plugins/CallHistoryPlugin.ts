@@ -0,0 +1,29 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface CallHistoryEntry {
+  id: number; // CallLog.Calls._ID
+  date: number; // Unix timestamp in ms
+  duration: number; // seconds
+  type: number; // CallLog.Calls.TYPE
+}
+
+export interface CallHistoryPage {
+  calls: CallHistoryEntry[]; // newest first
+  total: number; // calls stored for this number
+  offset: number;
+}
+
+export interface CallHistoryPluginInterface {
+  /**
+   * One page of a number's calls from the on-device call history store.
+   * Answers from memory-mapped storage, so it works offline; refresh: true
+   * first stores call log rows added since the last catch-up.
+   */
+  getHistory(options: { phoneNumber: string; offset?: number; limit?: number; refresh?: boolean }): Promise<CallHistoryPage>;
+  refresh(): Promise<{ added: number; size: number }>;
+  clear(): Promise<void>;
+}
+
+const CallHistoryPlugin = registerPlugin<CallHistoryPluginInterface>('CallHistory');
+
+export default CallHistoryPlugin;
@@ -0,0 +1,30 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface CallLogExport {
+  path: string; // absolute path in the app cache
+  url: string; // readable with fetch() from the page; stream it with response.body
+  uri: string; // content:// URI for sharing the file with other apps
+  format: 'ndjson' | 'csv';
+  mimeType: string;
+  rows: number;
+  bytes: number;
+}
+
+export interface CallLogExportPluginInterface {
+  /**
+   * Writes the window to a file natively instead of sending rows over the bridge.
+   * NDJSON has one CallLogEntry per line; CSV has the header
+   * id,duration,date,type,number. Every call is exported unless leadsOnly is true.
+   * Exports are removed after a day; delete them sooner with deleteExport.
+   */
+  exportCallLogs(options?: {
+    daysBack?: number; // default 90
+    format?: 'ndjson' | 'csv'; // default ndjson
+    leadsOnly?: boolean;
+  }): Promise<CallLogExport>;
+  deleteExport(options: { path: string }): Promise<{ deleted: boolean }>;
+}
+
+const CallLogExportPlugin = registerPlugin<CallLogExportPluginInterface>('CallLogExport');
+
+export default CallLogExportPlugin;
@@ -9,12 +9,40 @@ export interface CallLogEntry {
 }
 
 export interface CallLogSyncResult {
-  callLogs: CallLogEntry[];
+  callLogs?: CallLogEntry[]; // absent in stream and batch mode
+  total?: number; // stream and batch mode only
+  batches?: string[]; // batch mode only: base64 gzipped compact batches, each under the upload limits
   error?: string;
+  deferred?: boolean; // json and batch mode refused under native memory pressure; stream still works
+}
+
+/**
+ * Window event carrying one chunk of rows when getCallLogs runs with stream: true.
+ * All chunks are dispatched before the getCallLogs promise resolves.
+ */
+export const CALL_LOGS_CHUNK_EVENT = 'callLogsChunk';
+
+export interface CallLogChunk {
+  callLogs: CallLogEntry[];
+  chunk: number;
+  last: boolean;
 }
 
 export interface CallLogSyncPluginInterface {
-  getCallLogs(options: { daysBack: number }): Promise<CallLogSyncResult>;
+  /**
+   * With stream: true rows are delivered as CALL_LOGS_CHUNK_EVENT window events of
+   * at most chunkSize chars each, so native memory stays bounded on long call logs.
+   * With format: 'batch' rows come back as compact binary batches, each one a
+   * POST /calls/batch-sync-compact body.
+   * Only calls with known leads are returned unless leadsOnly is false.
+   */
+  getCallLogs(options: {
+    daysBack: number;
+    stream?: boolean;
+    chunkSize?: number;
+    format?: 'json' | 'batch';
+    leadsOnly?: boolean;
+  }): Promise<CallLogSyncResult>;
 }
 
 const CallLogSyncPlugin = registerPlugin<CallLogSyncPluginInterface>('CallLogSync');
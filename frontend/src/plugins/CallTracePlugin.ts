@@ -0,0 +1,27 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface CallTraceStatus {
+  recording: boolean;
+  entries: number; // call states, dials, call log snapshots and dispatches held
+}
+
+export interface CallTraceExport {
+  /** Base64 of the trace file; replay with ./gradlew :telephony-core:replayTrace -Ptrace=<file>. */
+  data: string;
+  entries: number;
+}
+
+export interface CallTracePluginInterface {
+  /**
+   * Records call state callbacks, call log snapshots and native-call-finished
+   * dispatches with timestamps, numbers replaced by aliases. Persisted.
+   */
+  setRecording(options: { enabled: boolean }): Promise<CallTraceStatus>;
+  getStatus(): Promise<CallTraceStatus>;
+  exportTrace(): Promise<CallTraceExport>;
+  clear(): Promise<void>;
+}
+
+const CallTracePlugin = registerPlugin<CallTracePluginInterface>('CallTrace');
+
+export default CallTracePlugin;
@@ -0,0 +1,23 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface RankedLead {
+  number: string;
+  index: number; // position in the numbers passed in
+  probability: number; // estimated chance a call placed at `at` connects, 0..1
+  bestHour: number; // local hour (0-23) with the best chance on that weekday
+}
+
+export interface ContactTimePluginInterface {
+  /**
+   * Ranks leads by connect probability for the given time (default now), most
+   * likely first, from a native model learned from this device's outgoing call
+   * outcomes by weekday and hour. Leads without history get the device-wide
+   * rate for the hour. Up to 10000 numbers per call.
+   */
+  rankLeads(options: { numbers: string[]; at?: number }): Promise<{ ranked: RankedLead[]; at: number }>;
+  clear(): Promise<void>;
+}
+
+const ContactTimePlugin = registerPlugin<ContactTimePluginInterface>('ContactTime');
+
+export default ContactTimePlugin;
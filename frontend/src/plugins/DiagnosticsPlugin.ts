@@ -0,0 +1,39 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface MethodLatency {
+  count: number;
+  meanUs: number;
+  // Percentiles are log2 bucket upper bounds, capped at maxUs
+  p50Us: number;
+  p90Us: number;
+  p99Us: number;
+  maxUs: number;
+}
+
+export interface DiagnosticsCounters {
+  rowsScanned: number; // call log rows read by native queries
+  rowsDispatched: number; // rows delivered to the page as events or stream chunks
+  rowsMerged: number; // call-finished events merged or dropped as duplicates by call log id
+  bytesBridged: number; // event payload and batch characters sent to the WebView
+  queries: number; // call log provider queries
+}
+
+export interface DiagnosticsSnapshot {
+  sinceMs: number;
+  untilMs: number;
+  /** Keyed by plugin method, e.g. "CallLog.getRecentCalls". */
+  methods: Record<string, MethodLatency>;
+  counters: DiagnosticsCounters;
+}
+
+export interface DiagnosticsPluginInterface {
+  /**
+   * Bridge latency per plugin method and sync pipeline counters. Resets by
+   * default, so periodic uploads cover consecutive periods and can be summed.
+   */
+  getSnapshot(options?: { reset?: boolean }): Promise<DiagnosticsSnapshot>;
+}
+
+const DiagnosticsPlugin = registerPlugin<DiagnosticsPluginInterface>('Diagnostics');
+
+export default DiagnosticsPlugin;
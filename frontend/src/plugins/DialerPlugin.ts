@@ -3,6 +3,8 @@ import { registerPlugin } from '@capacitor/core';
 export interface DialerResult {
   success: boolean;
   phoneNumber?: string;
+  // openDialer/initiateCall: token the resulting native-call-finished event carries as dialToken
+  dialToken?: number;
   error?: string;
 }
 
@@ -11,14 +13,16 @@ export interface DialerPluginInterface {
    * Open the dialer with the phone number pre-filled (ACTION_DIAL)
    * User must press call button to initiate the call.
    * This avoids caching issues on Xiaomi and other custom Android UIs.
+   * leadId is journaled with the dial; if the app is killed during the call,
+   * the 'recovered' native-call-finished event carries it back.
    */
-  openDialer(options: { phoneNumber: string }): Promise<DialerResult>;
+  openDialer(options: { phoneNumber: string; leadId?: string }): Promise<DialerResult>;
   
   /**
    * Initiate a call directly (ACTION_CALL)
    * Requires CALL_PHONE permission.
    */
-  initiateCall(options: { phoneNumber: string }): Promise<DialerResult>;
+  initiateCall(options: { phoneNumber: string; leadId?: string }): Promise<DialerResult>;
   
   /**
    * Check if required permissions are granted
@@ -0,0 +1,29 @@
+import { registerPlugin } from '@capacitor/core';
+
+/**
+ * Engagement columns aligned with the numbers passed in; zeros where a number
+ * has no calls on this device.
+ */
+export interface EngagementColumns {
+  lastCallAt: number[]; // Unix timestamp in ms of the latest call either way
+  lastConnectedAt: number[]; // latest call with non-zero duration
+  attempts: number[]; // outgoing calls, connected or not
+  incoming: number[]; // answered incoming calls
+  missed: number[]; // missed, rejected, blocked and voicemail
+  connected: number[]; // calls with non-zero duration
+  talkSeconds: number[];
+}
+
+export interface EngagementPluginInterface {
+  /**
+   * Per-number totals from a native table kept current from the device call
+   * log, keyed by the last 10 digits like the backend. One call for a whole
+   * lead list (up to 10000 numbers); no call rows cross the bridge.
+   */
+  getStats(options: { numbers: string[] }): Promise<EngagementColumns>;
+  clear(): Promise<void>;
+}
+
+const EngagementPlugin = registerPlugin<EngagementPluginInterface>('Engagement');
+
+export default EngagementPlugin;
@@ -0,0 +1,15 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface EventChannelPluginInterface {
+  /**
+   * Asks native to transfer a MessagePort to this page (as a window "message"
+   * event). connected is false when the WebView cannot create message channels
+   * or the page origin is unknown; events then keep arriving through
+   * evaluateJavascript.
+   */
+  connect(): Promise<{ connected: boolean }>;
+}
+
+const EventChannelPlugin = registerPlugin<EventChannelPluginInterface>('EventChannel');
+
+export default EventChannelPlugin;
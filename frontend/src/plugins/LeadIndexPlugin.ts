@@ -0,0 +1,62 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface LeadIndexRefreshResult {
+  full: boolean;
+  added: number;
+  removed: number;
+  size: number;
+}
+
+export interface LeadIndexStatus {
+  ready: boolean; // false until the first refresh; call logs are not filtered until then
+  size: number;
+  lastRefresh: number; // Unix timestamp in ms, 0 if never
+}
+
+/**
+ * Window event fired natively the moment a cached lead's call starts ringing.
+ */
+export const NATIVE_CALLER_ID_EVENT = 'native-caller-id';
+
+/**
+ * Window event fired natively when the ringing-lead notification is tapped.
+ */
+export const NATIVE_OPEN_LEAD_EVENT = 'native-open-lead';
+
+export interface OpenLeadDetail {
+  leadId: string;
+}
+
+export interface CallerIdDetail {
+  phoneNumber: string;
+  leadId: string;
+  name: string;
+}
+
+export interface CallerIdEntry {
+  number: string;
+  leadId: string;
+  name: string;
+}
+
+export interface LeadIndexPluginInterface {
+  /**
+   * Downloads lead phone numbers from GET /calls/lead-index into the native index
+   * used to skip non-lead calls during call log sync. Only changes since the last
+   * refresh are fetched unless full is set; a full rebuild also runs once a day.
+   */
+  refresh(options: { baseUrl: string; token?: string; full?: boolean }): Promise<LeadIndexRefreshResult>;
+  getStatus(): Promise<LeadIndexStatus>;
+  clear(): Promise<void>;
+  /**
+   * Fills the native caller-ID cache from GET /calls/caller-ids so ringing leads are
+   * named without a network round trip. Entries expire after 12 hours.
+   */
+  primeCallerIds(options: { baseUrl: string; token?: string }): Promise<{ count: number; size: number }>;
+  /** Adds leads the web app already has loaded to the caller-ID cache. */
+  putCallerIds(options: { entries: CallerIdEntry[] }): Promise<{ count: number; size: number }>;
+}
+
+const LeadIndexPlugin = registerPlugin<LeadIndexPluginInterface>('LeadIndex');
+
+export default LeadIndexPlugin;
@@ -0,0 +1,31 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface SyncStatus {
+  running: boolean;
+  lastFullAt: number; // Unix timestamp in ms, 0 before the first full sync
+  lastSyncAt: number; // last full sync or catch-up
+  lastSyncedId: number; // catch-ups replay call log rows above this id
+  fullIntervalMinutes: number;
+  catchUpIntervalSeconds: number;
+}
+
+export interface SyncNowResult extends SyncStatus {
+  started: 'none' | 'incremental' | 'full';
+}
+
+export interface SyncPluginInterface {
+  /**
+   * Rate limits for the native startup sync, persisted. Starts, resumes and
+   * permission grants replay the 7-day window at most once per full interval
+   * (or after the lead index gained numbers); otherwise they only replay calls
+   * added since the last sync, at most once per catch-up interval.
+   */
+  configure(options: { fullIntervalMinutes?: number; catchUpIntervalSeconds?: number }): Promise<SyncStatus>;
+  getStatus(): Promise<SyncStatus>;
+  /** Catches up now regardless of the catch-up interval. */
+  syncNow(): Promise<SyncNowResult>;
+}
+
+const SyncPlugin = registerPlugin<SyncPluginInterface>('Sync');
+
+export default SyncPlugin;
@@ -0,0 +1,35 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface TalkTimeTotals {
+  total: number;
+  incoming: number;
+  outgoing: number;
+  missed: number; // missed, rejected, blocked and voicemail
+  connected: number; // calls with non-zero duration
+  talkSeconds: number;
+  avgTalkSeconds: number; // per connected call
+  connectRate: number; // connected / total, 0..1
+}
+
+export interface TalkTimeBucket extends TalkTimeTotals {
+  start: number; // Unix timestamp in ms, local hour or day start
+}
+
+export interface TalkTimeStats extends TalkTimeTotals {
+  from: number;
+  to: number;
+  buckets?: TalkTimeBucket[]; // only with bucket: 'hour' | 'day'
+}
+
+export interface TalkTimePluginInterface {
+  /**
+   * Talk-time totals from native per-hour buckets kept current from the device
+   * call log; no call rows cross the bridge. Defaults to today so far.
+   * Hour granularity: hours partly inside [from, to) are counted whole.
+   */
+  getStats(options?: { from?: number; to?: number; bucket?: 'none' | 'hour' | 'day' }): Promise<TalkTimeStats>;
+}
+
+const TalkTimePlugin = registerPlugin<TalkTimePluginInterface>('TalkTime');
+
+export default TalkTimePlugin;
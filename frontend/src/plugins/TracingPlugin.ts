@@ -0,0 +1,19 @@
+import { registerPlugin } from '@capacitor/core';
+
+export interface TracingStatus {
+  enabled: boolean;
+}
+
+export interface TracingPluginInterface {
+  /**
+   * Turns the native android.os.Trace sections and counters on or off.
+   * The switch is persisted; sections only record while a Perfetto or
+   * systrace capture is running.
+   */
+  setEnabled(options: { enabled: boolean }): Promise<TracingStatus>;
+  getStatus(): Promise<TracingStatus>;
+}
+
+const TracingPlugin = registerPlugin<TracingPluginInterface>('Tracing');
+
+export default TracingPlugin;
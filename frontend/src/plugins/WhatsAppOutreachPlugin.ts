@@ -0,0 +1,39 @@
+import { registerPlugin } from '@capacitor/core';
+
+/** Window event fired by native after every step of an outreach run. */
+export const WHATSAPP_OUTREACH_PROGRESS_EVENT = 'whatsapp-outreach-progress';
+
+export interface OutreachItem {
+  phoneNumber: string;
+  name?: string; // fills {name} and {firstName} in the template
+  leadId?: string;
+}
+
+export interface OutreachStatus {
+  active: boolean;
+  paused?: boolean;
+  finished?: boolean; // every chat opened or skipped; ends on the next return to the app
+  app?: 'whatsapp' | 'business';
+  total?: number; // after dropping invalid and duplicate numbers
+  position?: number;
+  opened?: number;
+  skipped?: number;
+  next?: { phoneNumber: string; leadId?: string };
+}
+
+export interface WhatsAppOutreachPluginInterface {
+  /**
+   * Opens one prefilled chat after another, natively: each return to the app
+   * opens the next chat after a short delay. Replaces any run in progress.
+   */
+  start(options: { items: OutreachItem[]; template: string; app?: 'auto' | 'whatsapp' | 'business' }): Promise<OutreachStatus>;
+  getStatus(): Promise<OutreachStatus>;
+  pause(): Promise<OutreachStatus>;
+  resume(): Promise<OutreachStatus>; // opens the next chat now
+  skip(): Promise<OutreachStatus>;
+  stop(): Promise<OutreachStatus>;
+}
+
+const WhatsAppOutreachPlugin = registerPlugin<WhatsAppOutreachPluginInterface>('WhatsAppOutreach');
+
+export default WhatsAppOutreachPlugin;
@@ -207,6 +207,11 @@ class ApiService {
     );
   }
 
+  // Absolute API base URL, for native code that calls the API directly
+  get baseURL(): string {
+    return new URL(this.instance.defaults.baseURL || '/api', window.location.origin).toString();
+  }
+
   async get<T = any>(url: string, config?: AxiosRequestConfig): Promise<T> {
     const response: AxiosResponse<T> = await this.instance.get(url, config);
     return response.data;
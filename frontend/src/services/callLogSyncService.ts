@@ -1,6 +1,12 @@
 import { Capacitor } from '@capacitor/core';
-import CallLogSyncPlugin, { CallLogEntry } from '../plugins/CallLogSyncPlugin';
+import CallLogSyncPlugin, { CALL_LOGS_CHUNK_EVENT, CallLogChunk, CallLogEntry } from '../plugins/CallLogSyncPlugin';
+import LeadIndexPlugin, { LeadIndexRefreshResult } from '../plugins/LeadIndexPlugin';
+import CallHistoryPlugin from '../plugins/CallHistoryPlugin';
+import BackfillPlugin, { BackfillStatus } from '../plugins/BackfillPlugin';
+import CallChangesPlugin from '../plugins/CallChangesPlugin';
 import apiService from './apiService';
+import callsService, { CallLog } from './callsService';
+import { isBulkWorkPaused } from './nativeMemoryPressure';
 
 /**
  * Android CallLog.Calls.TYPE values:
@@ -26,6 +32,37 @@ const mapCallLogTypeToCallType = (
   }
 };
 
+// Changes per POST /calls/device-changes, at about 90 bytes each: well under
+// the server's 100 kB JSON body limit even when a new feed reports 30 days
+const CHANGE_BATCH_SIZE = 500;
+
+const BACKFILL_MARKER_KEY = 'callHistoryBackfill';
+const BACKFILL_RERUN_MS = 24 * 60 * 60 * 1000;
+
+// completedAt: when a complete backfill was last seen; leadsAddedAt: first lead
+// index update that added numbers after it
+interface BackfillMarker {
+  completedAt?: number;
+  leadsAddedAt?: number;
+}
+
+const readBackfillMarker = (): BackfillMarker => {
+  try {
+    const raw = localStorage.getItem(BACKFILL_MARKER_KEY);
+    return raw ? (JSON.parse(raw) as BackfillMarker) : {};
+  } catch {
+    return {};
+  }
+};
+
+const writeBackfillMarker = (marker: BackfillMarker) => {
+  try {
+    localStorage.setItem(BACKFILL_MARKER_KEY, JSON.stringify(marker));
+  } catch {
+    // ignore
+  }
+};
+
 export interface SyncResult {
   total: number;
   synced: number;
@@ -43,6 +80,11 @@ class CallLogSyncService {
       return { total: 0, synced: 0, skipped: 0, failed: 0, errors: ['Not on native platform'] };
     }
 
+    if (isBulkWorkPaused()) {
+      console.log('Deferring call log sync under native memory pressure');
+      return { total: 0, synced: 0, skipped: 0, failed: 0, errors: ['Deferred under memory pressure'] };
+    }
+
     if (this.isSyncing) {
       console.log('Sync already in progress');
       return { total: 0, synced: 0, skipped: 0, failed: 0, errors: ['Sync already in progress'] };
@@ -54,8 +96,22 @@ class CallLogSyncService {
     try {
       console.log(`📲 Starting call log sync for last ${daysBack} days...`);
       
+      const leadIndex = await this.refreshLeadIndex();
+      // Older history is uploaded natively in the background until it is complete
+      void this.syncHistoryBackfill(leadIndex);
+      // Durations the OEM fixed later and rows the user deleted, one row each
+      await this.syncCallLogChanges();
+
+      // Preferred path: the whole window in one compact binary upload
+      const compact = await this.syncCompact(daysBack);
+      if (compact) {
+        Object.assign(result, compact);
+        console.log(`✅ Compact sync complete: ${result.synced} synced, ${result.skipped} skipped, ${result.failed} failed`);
+        return result;
+      }
+
       // Get call logs from native plugin
-      const { callLogs, error } = await CallLogSyncPlugin.getCallLogs({ daysBack });
+      const { callLogs, error } = await this.fetchCallLogs(daysBack);
       
       if (error) {
         console.error('Plugin error:', error);
@@ -95,6 +151,80 @@ class CallLogSyncService {
     }
   }
 
+  // Keeps the native lead index current so non-lead calls are dropped before they
+  // reach JS, and primes the caller-ID cache used on RINGING. Failures are not
+  // fatal: the last downloaded index (or none) is used.
+  // Returns null when the refresh failed and the cached index is in use
+  private async refreshLeadIndex(): Promise<LeadIndexRefreshResult | null> {
+    let result: LeadIndexRefreshResult | null = null;
+    try {
+      const token = localStorage.getItem('accessToken') || undefined;
+      result = await LeadIndexPlugin.refresh({ baseUrl: apiService.baseURL, token });
+      console.log(`📇 Lead index ${result.full ? 'rebuilt' : 'updated'}: ${result.size} numbers (+${result.added}/-${result.removed})`);
+    } catch (err) {
+      console.warn('Lead index refresh failed, using cached index:', err);
+    }
+    try {
+      const token = localStorage.getItem('accessToken') || undefined;
+      const ids = await LeadIndexPlugin.primeCallerIds({ baseUrl: apiService.baseURL, token });
+      console.log(`📇 Caller ID cache primed: ${ids.size} numbers`);
+    } catch (err) {
+      console.warn('Caller ID prime failed:', err);
+    }
+    return result;
+  }
+
+  // Returns null when the native build or the backend predates the compact batch
+  // format, the server refuses a batch, or the plugin reported an error; the
+  // caller then syncs call by call (rows already uploaded come back as skipped).
+  private async syncCompact(daysBack: number): Promise<Omit<SyncResult, 'errors'> | null> {
+    const { batches, total, error } = await CallLogSyncPlugin.getCallLogs({ daysBack, format: 'batch' });
+    if (error || !Array.isArray(batches)) {
+      return null;
+    }
+    const result = { total: 0, synced: 0, skipped: 0, failed: 0 };
+    if (!total) {
+      return result;
+    }
+    console.log(`📦 Uploading ${total} calls as ${batches.length} compact batch(es)`);
+    for (const batch of batches) {
+      try {
+        const uploaded = await callsService.batchSyncCompact(batch);
+        result.total += uploaded.total;
+        result.synced += uploaded.synced;
+        result.skipped += uploaded.skipped;
+        result.failed += uploaded.failed;
+      } catch (err: any) {
+        const status = err?.response?.status;
+        // 404/415: no compact endpoint; 400/413: a batch over this server's limits
+        if (status === 404 || status === 415 || status === 400 || status === 413) {
+          console.log(`Compact batch upload refused (HTTP ${status}), falling back to per-call sync`);
+          return null;
+        }
+        throw err;
+      }
+    }
+    return result;
+  }
+
+  // Streams rows in bounded chunks so the native side never builds the whole result
+  private async fetchCallLogs(daysBack: number): Promise<{ callLogs: CallLogEntry[]; error?: string }> {
+    const callLogs: CallLogEntry[] = [];
+    const onChunk = (e: Event) => {
+      const detail = (e as CustomEvent<CallLogChunk>).detail;
+      if (detail?.callLogs) {
+        callLogs.push(...detail.callLogs);
+      }
+    };
+    window.addEventListener(CALL_LOGS_CHUNK_EVENT, onChunk);
+    try {
+      const result = await CallLogSyncPlugin.getCallLogs({ daysBack, stream: true });
+      return { callLogs: result.callLogs ?? callLogs, error: result.error };
+    } finally {
+      window.removeEventListener(CALL_LOGS_CHUNK_EVENT, onChunk);
+    }
+  }
+
   private async syncSingleCall(log: CallLogEntry): Promise<'synced' | 'skipped' | 'failed'> {
     if (!log.number) {
       console.log(`Skipping call ${log.id}: no phone number`);
@@ -112,6 +242,7 @@ class CallLogSyncService {
       endTime,
       duration: log.duration,
       deviceCallLogId: String(log.id),
+      deviceCallType: log.type,
     };
 
     try {
@@ -130,6 +261,115 @@ class CallLogSyncService {
     }
   }
 
+  /**
+   * A lead's recent calls from the on-device history store, shaped like the
+   * backend call logs. Instant and offline, but without notes, dispositions or
+   * calls made from other devices. Empty off Android or when unavailable.
+   */
+  async getDeviceHistory(leadId: string, phoneNumber: string, limit: number = 50): Promise<CallLog[]> {
+    if (Capacitor.getPlatform() !== 'android' || !phoneNumber) {
+      return [];
+    }
+    try {
+      const { calls } = await CallHistoryPlugin.getHistory({ phoneNumber, limit, refresh: true });
+      return calls.map((c) => ({
+        id: `device-${c.id}`,
+        leadId,
+        phoneNumber,
+        callType: mapCallLogTypeToCallType(c.type, c.duration),
+        startTime: new Date(c.date).toISOString(),
+        endTime: new Date(c.date + c.duration * 1000).toISOString(),
+        duration: c.duration,
+      }));
+    } catch (err) {
+      console.warn('Device call history unavailable:', err);
+      return [];
+    }
+  }
+
+  // Sends edited and deleted call log rows to the server and commits the
+  // native watermark only after it accepted them. Failures leave the changes
+  // pending for the next sync.
+  private async syncCallLogChanges(): Promise<void> {
+    if (Capacitor.getPlatform() !== 'android') {
+      return;
+    }
+    try {
+      const { supported, changes, watermark } = await CallChangesPlugin.getChanges();
+      if (!supported || watermark === undefined) {
+        return;
+      }
+      // Chunks the server already applied are sent again if a later one fails;
+      // it matches rows on the device id, so replaying them is harmless
+      const applied = { inserted: 0, updated: 0, deleted: 0 };
+      for (let i = 0; i < changes.length; i += CHANGE_BATCH_SIZE) {
+        const result = await callsService.applyDeviceChanges(changes.slice(i, i + CHANGE_BATCH_SIZE));
+        applied.inserted += result.inserted;
+        applied.updated += result.updated;
+        applied.deleted += result.deleted;
+      }
+      if (changes.length > 0) {
+        console.log(`✏️ Call log changes: ${applied.inserted} new, ${applied.updated} updated, ${applied.deleted} deleted`);
+      }
+      await CallChangesPlugin.commit({ watermark });
+    } catch (err) {
+      console.warn('Call log change sync failed, will retry:', err);
+    }
+  }
+
+  /**
+   * Backfill step of a sync. Once a run is seen complete the marker is saved and
+   * later syncs skip the bridge call. The backfill only uploads calls to numbers
+   * in the lead index at the time, so when the index gains numbers after that the
+   * history is scanned again for them, at most once per BACKFILL_RERUN_MS.
+   */
+  private async syncHistoryBackfill(leadIndex: LeadIndexRefreshResult | null): Promise<void> {
+    const marker = readBackfillMarker();
+    if (marker.completedAt !== undefined) {
+      if (leadIndex && leadIndex.added > 0 && marker.leadsAddedAt === undefined) {
+        marker.leadsAddedAt = Date.now();
+        writeBackfillMarker(marker);
+      }
+      if (marker.leadsAddedAt === undefined || Date.now() - marker.completedAt < BACKFILL_RERUN_MS) {
+        return;
+      }
+    }
+    const restart = marker.completedAt !== undefined;
+    const status = await this.startHistoryBackfill(180, restart);
+    if (!status) {
+      return;
+    }
+    if (status.complete && !status.running) {
+      writeBackfillMarker({ completedAt: Date.now() });
+    } else if (restart && status.started) {
+      // Tracked like a first run until it completes
+      writeBackfillMarker({});
+    }
+  }
+
+  /**
+   * Starts, or resumes after a restart, the native upload of older call history
+   * on a new or reinstalled device. Runs in the background and yields to live
+   * calls; progress arrives as CALL_BACKFILL_PROGRESS_EVENT window events.
+   * restart replans a complete run over the window again.
+   */
+  async startHistoryBackfill(daysBack: number = 180, restart = false): Promise<BackfillStatus | null> {
+    if (Capacitor.getPlatform() !== 'android') {
+      return null;
+    }
+    try {
+      const token = localStorage.getItem('accessToken') || undefined;
+      const status = await BackfillPlugin.start({ baseUrl: apiService.baseURL, token, daysBack, restart });
+      if (status.started) {
+        console.log(`🗂️ History backfill running: ${status.shardsDone}/${status.shards} shards done`);
+      }
+      return status;
+    } catch (err) {
+      console.warn('History backfill unavailable:', err);
+      return null;
+    }
+  }
+
   get isCurrentlySyncing(): boolean {
     return this.isSyncing;
   }
@@ -1,6 +1,7 @@
 import apiService from './apiService';
 import nativeDialerService from './nativeDialerService';
 import { Capacitor } from '@capacitor/core';
+import type { CallLogChange } from '../plugins/CallChangesPlugin';
 
 export interface CallLog {
   id: string;
@@ -136,6 +137,21 @@ class CallsService {
     return response;
   }
 
+  // Upload a compact call batch (base64 from CallLogSync.getCallLogs({ format: 'batch' }))
+  async batchSyncCompact(batchBase64: string): Promise<{ total: number; synced: number; skipped: number; failed: number }> {
+    const binary = atob(batchBase64);
+    const bytes = new Uint8Array(binary.length);
+    for (let i = 0; i < binary.length; i++) bytes[i] = binary.charCodeAt(i);
+    return apiService.post('/calls/batch-sync-compact', bytes, {
+      headers: { 'Content-Type': 'application/x-call-batch' },
+    });
+  }
+
+  // Edits and deletes from the device call log change feed, matched on deviceCallLogId
+  async applyDeviceChanges(changes: CallLogChange[]): Promise<{ inserted: number; updated: number; deleted: number; skipped: number; failed: number }> {
+    return apiService.post('/calls/device-changes', { changes });
+  }
+
   // Android-specific: Initiate call via native plugin or tel: URI
   async initiateCall(phoneNumber: string, leadId: string): Promise<void> {
     if (typeof window === 'undefined') return;
@@ -154,7 +170,7 @@ class CallsService {
     // Always attempt native service (it internally falls back to tel:)
     if (Capacitor.isNativePlatform()) {
       console.log('🚀 Using native dialer service (will fallback if plugin absent)');
-      await nativeDialerService.initiateCall(phoneNumber);
+      await nativeDialerService.initiateCall(phoneNumber, leadId);
       return;
     }
     // Web/browser fallback - use anchor element to avoid caching
@@ -61,8 +61,9 @@ class NativeDialerService {
         return;
       }
 
-      // Handle incoming-sync events (incoming calls detected on app resume)
-      if (source === 'incoming-sync' || source === 'bulk-sync') {
+      // Handle incoming-sync events (incoming calls detected on app resume) and calls
+      // recovered after the app was killed mid-call; both are logged by phone number
+      if (source === 'incoming-sync' || source === 'bulk-sync' || source === 'recovered') {
         console.log('📥 Incoming call sync event received:', detail);
         this.handleIncomingCallSync(detail, duration);
         return;
@@ -93,6 +94,8 @@ class NativeDialerService {
     const callLogType = detail.callLogType;
     const callLogId = detail.callLogId;
     const callLogDate = detail.callLogDate;
+    // Only on 'recovered' events for a dial placed from the app: the lead it was for
+    const leadId = typeof detail.leadId === 'string' ? detail.leadId : undefined;
 
     if (!phoneNumber) {
       console.log('No phone number in incoming sync event');
@@ -113,7 +116,7 @@ class NativeDialerService {
       // Log this incoming call to the backend
       // The backend will need to find the lead by phone number
       await callLoggingService.logNativeCall({
-        leadId: undefined, // Will be resolved by backend via phone number lookup
+        leadId, // Otherwise resolved by backend via phone number lookup
         phoneNumber,
         startTime: startTimeIso,
         completedAt: completedAtIso,
@@ -141,7 +144,7 @@ class NativeDialerService {
     // No polling of plugin; duration comes via native events. Keep interval for possible future extensions.
   }
 
-  async initiateCall(phoneNumber: string): Promise<boolean> {
+  async initiateCall(phoneNumber: string, leadId?: string): Promise<boolean> {
     console.log('📞 Initiating call request for', phoneNumber);
     this.resetProvisionalState();
     // Reduced fallback time from 20s to 8s for faster missed call detection
@@ -151,9 +154,12 @@ class NativeDialerService {
     if (this.useNativePlugin && Capacitor.isNativePlatform()) {
       try {
         console.log('🔌 Using native Dialer plugin');
-        const result = await DialerPlugin.openDialer({ phoneNumber });
+        const result = await DialerPlugin.openDialer({ phoneNumber, leadId });
         if (result.success) {
           console.log('✅ Native dialer opened successfully');
+          if (typeof result.dialToken === 'number') {
+            this.rememberDialToken(result.dialToken);
+          }
           return true;
         }
       } catch (err) {
@@ -212,6 +218,21 @@ class NativeDialerService {
     console.log('⏹️ Dialer service stopped');
   }
 
+  // Keeps the token openDialer returned with the pending call, so the native event
+  // for that dial can be told apart from other calls' rows
+  private rememberDialToken(dialToken: number) {
+    try {
+      const pendingRaw = sessionStorage.getItem('pendingCall');
+      if (!pendingRaw) {
+        return;
+      }
+      const parsed = JSON.parse(pendingRaw);
+      sessionStorage.setItem('pendingCall', JSON.stringify({ ...parsed, dialToken }));
+    } catch (err) {
+      console.warn('Failed to store dial token with pendingCall:', err);
+    }
+  }
+
   private resetProvisionalState() {
     if (this.provisionalTimer) {
       clearTimeout(this.provisionalTimer);
@@ -234,19 +255,36 @@ class NativeDialerService {
     const callLogType = typeof detail.callLogType === 'number' ? detail.callLogType : undefined;
     const phoneNumberFromLog = typeof detail.phoneNumber === 'string' ? detail.phoneNumber : undefined;
     const callLogId = typeof detail.callLogId === 'number' ? detail.callLogId : undefined;
+    // Set when native resumed a call the app was killed during; this page has no pendingCall for it
+    const leadIdFromEvent = typeof detail.leadId === 'string' ? detail.leadId : undefined;
 
     // Check if this is an incoming call (Type 1 = INCOMING, Type 3 = MISSED, Type 5 = REJECTED)
     const isIncomingCall = callLogType === 1 || callLogType === 3 || callLogType === 5;
     
     // Check if we have a pending outgoing call
     let hasPendingCall = false;
+    let pendingDialToken: number | undefined;
     try {
       const pendingRaw = sessionStorage.getItem('pendingCall');
       hasPendingCall = !!pendingRaw;
+      if (pendingRaw) {
+        const parsed = JSON.parse(pendingRaw);
+        pendingDialToken = typeof parsed.dialToken === 'number' ? parsed.dialToken : undefined;
+      }
     } catch {
       // ignore
     }
 
+    // Dialed through the plugin: only the row native matched to that dial completes it.
+    // Rows for other calls (or none matched yet) leave it pending for the real result
+    // or the fallback prompt.
+    if (hasPendingCall && pendingDialToken !== undefined && detail.dialToken !== pendingDialToken) {
+      if (isIncomingCall) {
+        this.handleIncomingCallFromLog(detail, duration);
+      }
+      return;
+    }
+
     // If this is an incoming call and we don't have a pending outgoing call,
     // treat it as an incoming call from a lead
     if (isIncomingCall && !hasPendingCall) {
@@ -261,6 +299,7 @@ class NativeDialerService {
       callLogType,
       phoneNumberFromLog,
       callLogId,
+      leadIdFromEvent,
     });
   }
 
@@ -317,7 +356,7 @@ class NativeDialerService {
   private async finalizeCall(
     duration: number,
     source: string,
-    extra?: { callLogDate?: number; callLogType?: number; phoneNumberFromLog?: string; callLogId?: number }
+    extra?: { callLogDate?: number; callLogType?: number; phoneNumberFromLog?: string; callLogId?: number; leadIdFromEvent?: string }
   ) {
     if (this.hasFinalDispatch) {
       return;
@@ -345,6 +384,9 @@ class NativeDialerService {
     if (!phoneNumber && extra?.phoneNumberFromLog) {
       phoneNumber = extra.phoneNumberFromLog;
     }
+    if (!leadId && extra?.leadIdFromEvent) {
+      leadId = extra.leadIdFromEvent;
+    }
 
     const callLogDate = extra?.callLogDate;
     if (!startTimeIso && typeof callLogDate === 'number' && callLogDate > 0) {
@@ -0,0 +1,55 @@
+import { Capacitor } from '@capacitor/core';
+import EventChannelPlugin from '@/plugins/EventChannelPlugin';
+
+// Must match WebEventChannel on the native side
+const PORT_MESSAGE = 'edforce-event-port';
+const READY_MESSAGE = 'ready';
+
+let port: MessagePort | null = null;
+let listening = false;
+
+// Native events arrive as {"event": name, "detail": {...}} strings and are
+// re-dispatched as the same window CustomEvents evaluateJavascript produces,
+// so listeners do not care which path delivered them.
+function onPortMessage(e: MessageEvent) {
+  try {
+    const { event, detail } = JSON.parse(e.data);
+    if (typeof event === 'string') {
+      window.dispatchEvent(new CustomEvent(event, { detail }));
+    }
+  } catch (err) {
+    console.warn('Dropping malformed native event message', err);
+  }
+}
+
+function onWindowMessage(e: MessageEvent) {
+  // postWebMessage from native has no source window; frames and other pages do
+  if (e.source !== null || e.data !== PORT_MESSAGE || !e.ports?.[0]) {
+    return;
+  }
+  port?.close();
+  port = e.ports[0];
+  port.onmessage = onPortMessage;
+  port.postMessage(READY_MESSAGE);
+}
+
+/**
+ * Opens the native event channel on Android. Safe to call more than once;
+ * returns false when events will keep using evaluateJavascript.
+ */
+export async function connectNativeEventChannel(): Promise<boolean> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return false;
+  }
+  if (!listening) {
+    window.addEventListener('message', onWindowMessage);
+    listening = true;
+  }
+  try {
+    const { connected } = await EventChannelPlugin.connect();
+    return connected;
+  } catch (err) {
+    console.warn('Native event channel unavailable, using evaluateJavascript', err);
+    return false;
+  }
+}
@@ -0,0 +1,44 @@
+// Must match MemoryPressure on the native side
+export const NATIVE_MEMORY_PRESSURE_EVENT = 'native-memory-pressure';
+
+export type MemoryPressureLevel = 'none' | 'moderate' | 'low' | 'critical';
+
+export interface MemoryPressureDetail {
+  level: MemoryPressureLevel;
+  trimLevel: number; // Android onTrimMemory level; 80 for onLowMemory
+  bulkWorkPaused: boolean;
+}
+
+// Native lets a level lapse after a minute without signals; mirror that here
+const DECAY_MS = 60_000;
+
+let latest: MemoryPressureDetail | null = null;
+let receivedAt = 0;
+
+function onMemoryPressure(e: Event) {
+  const detail = (e as CustomEvent<MemoryPressureDetail>).detail;
+  if (detail?.level) {
+    latest = detail;
+    receivedAt = Date.now();
+  }
+}
+
+window.addEventListener(NATIVE_MEMORY_PRESSURE_EVENT, onMemoryPressure);
+
+/**
+ * Last pressure level reported by the native side, or 'none' once it lapsed.
+ */
+export function getNativeMemoryPressure(): MemoryPressureLevel {
+  if (!latest || Date.now() - receivedAt > DECAY_MS) {
+    return 'none';
+  }
+  return latest.level;
+}
+
+/**
+ * Whether large syncs should wait; the native side defers its own bulk work too.
+ */
+export function isBulkWorkPaused(): boolean {
+  const level = getNativeMemoryPressure();
+  return level === 'low' || level === 'critical';
+}
@@ -1,6 +1,7 @@
 import { Capacitor } from '@capacitor/core';
 import { WhatsAppPlugin, WhatsAppChooserPlugin, EdforceWhatsAppPlugin } from '@/plugins/WhatsAppPlugin';
 import DialerPlugin from '@/plugins/DialerPlugin';
+import WhatsAppOutreachPlugin, { OutreachItem, OutreachStatus } from '@/plugins/WhatsAppOutreachPlugin';
 
 // Using dedicated plugin wrapper ensures consistent registration across builds
 
@@ -212,3 +213,20 @@ export async function openWhatsAppSystemChooser(phoneNumber: string): Promise<vo
     window.open(`https://wa.me/${cleanNumber}`, '_blank');
   }
 }
+
+/**
+ * Starts a native bulk follow-up run on Android: the chats open one after
+ * another as the counselor returns from WhatsApp, with the template rendered
+ * per lead. Progress arrives as WHATSAPP_OUTREACH_PROGRESS_EVENT window events.
+ * Returns null off Android, where there is no way to chain chats.
+ */
+export async function startWhatsAppOutreach(
+  items: OutreachItem[],
+  template: string,
+  app: 'auto' | 'whatsapp' | 'business' = 'auto',
+): Promise<OutreachStatus | null> {
+  if (Capacitor.getPlatform() !== 'android') {
+    return null;
+  }
+  return WhatsAppOutreachPlugin.start({ items, template, app });
+}